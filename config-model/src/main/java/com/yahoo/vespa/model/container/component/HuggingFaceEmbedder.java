@@ -34,6 +34,8 @@ public class HuggingFaceEmbedder extends TypedComponent implements HuggingFaceEm
     private final String transformerOutput;
     private final Boolean normalize;
     private final String poolingStrategy;
+    private final Integer batchingMaxSize;
+    private final Integer batchingMaxDelayMicros;
 
     private String prependQuery;
 
@@ -61,6 +63,9 @@ public class HuggingFaceEmbedder extends TypedComponent implements HuggingFaceEm
             prependQuery = getChildValue(prepend, "query").orElse(null);
             prependDocument = getChildValue(prepend, "document").orElse(null);
         }
+        Element batching = getChild(xml, "batching");
+        batchingMaxSize = batching != null ? getChildValue(batching, "max-size").map(Integer::parseInt).orElse(null) : null;
+        batchingMaxDelayMicros = batching != null ? getChildValue(batching, "max-delay-micros").map(Integer::parseInt).orElse(null) : null;
 
         model.registerOnnxModelCost(cluster, onnxModelOptions);
     }
@@ -77,6 +82,8 @@ public class HuggingFaceEmbedder extends TypedComponent implements HuggingFaceEm
         if (poolingStrategy != null) b.poolingStrategy(PoolingStrategy.Enum.valueOf(poolingStrategy));
         if(prependQuery != null) b.prependQuery(prependQuery);
         if(prependDocument != null) b.prependDocument(prependDocument);
+        if (batchingMaxSize != null) b.transformerBatchingMaxSize(batchingMaxSize);
+        if (batchingMaxDelayMicros != null) b.transformerBatchingMaxDelayMicros(batchingMaxDelayMicros);
         onnxModelOptions.executionMode().ifPresent(value -> b.transformerExecutionMode(TransformerExecutionMode.Enum.valueOf(value)));
         onnxModelOptions.interOpThreads().ifPresent(b::transformerInterOpThreads);
         onnxModelOptions.intraOpThreads().ifPresent(b::transformerIntraOpThreads);
@@ -16,6 +16,7 @@ public class DispatchTuning {
         LATENCY_AMORTIZED_OVER_REQUESTS,
         LATENCY_AMORTIZED_OVER_TIME,
         BEST_OF_RANDOM_2,
+        LEAST_EXPECTED_COMPLETION_TIME,
         ADAPTIVE
     }
 
@@ -74,6 +75,7 @@ public class DispatchTuning {
                 case "latency-amortized-over-requests" -> DispatchPolicy.LATENCY_AMORTIZED_OVER_REQUESTS;
                 case "latency-amortized-over-time" -> DispatchPolicy.LATENCY_AMORTIZED_OVER_TIME;
                 case "best-of-random-2" -> DispatchPolicy.BEST_OF_RANDOM_2;
+                case "least-expected-completion-time" -> DispatchPolicy.LEAST_EXPECTED_COMPLETION_TIME;
                 default -> throw new IllegalArgumentException("Unknown dispatch policy '" + policy + "'");
             };
         }
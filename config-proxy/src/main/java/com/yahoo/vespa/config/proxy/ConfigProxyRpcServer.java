@@ -16,6 +16,7 @@ import com.yahoo.security.tls.Capability;
 import com.yahoo.security.tls.CapabilitySet;
 import com.yahoo.vespa.config.JRTMethods;
 import com.yahoo.vespa.config.RawConfig;
+import com.yahoo.vespa.config.protocol.JRTClientConfigRequestV3;
 import com.yahoo.vespa.config.protocol.JRTServerConfigRequest;
 import com.yahoo.vespa.config.protocol.JRTServerConfigRequestV3;
 
@@ -128,6 +129,11 @@ public class ConfigProxyRpcServer implements Runnable, TargetWatcher {
                 .methodDesc("Dump cache to disk")
                 .paramDesc(0, "path", "path to write cache contents to")
                 .returnDesc(0, "ret", "Empty string or error message"));
+        supervisor.addMethod(new Method("deltaStatistics", "", "S",
+                this::deltaStatistics)
+                .requireCapabilities(Capability.CONFIGPROXY__MANAGEMENT_API)
+                .methodDesc("Statistics for config responses which were deltas to the cached config")
+                .returnDesc(0, "data", "string array of statistics"));
     }
 
     //---------------- RPC methods ------------------------------------
@@ -235,6 +241,16 @@ public class ConfigProxyRpcServer implements Runnable, TargetWatcher {
         });
     }
 
+    private void deltaStatistics(Request req) {
+        dispatchRpcRequest(req, () -> {
+            String[] ret = new String[2];
+            ret[0] = "Delta responses: " + JRTClientConfigRequestV3.deltaResponses();
+            ret[1] = "Bytes saved: " + JRTClientConfigRequestV3.deltaBytesSaved();
+            req.returnValues().add(new StringArray(ret));
+            req.returnRequest();
+        });
+    }
+
     //----------------------------------------------------
 
     private void dispatchRpcRequest(Request request, Runnable handler) {
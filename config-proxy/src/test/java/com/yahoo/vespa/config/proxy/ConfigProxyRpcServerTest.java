@@ -256,6 +256,21 @@ public class ConfigProxyRpcServerTest {
         assertEquals("success", req.returnValues().get(0).asString());
     }
 
+    /**
+     * Tests deltaStatistics RPC command
+     */
+    @Test
+    void testRpcMethodDeltaStatistics() {
+        Request req = new Request("deltaStatistics");
+        client.invoke(req);
+        assertFalse(req.isError(), req.errorMessage());
+        assertEquals(1, req.returnValues().size());
+        String[] ret = req.returnValues().get(0).asStringArray();
+        assertEquals(2, ret.length);
+        assertEquals("Delta responses: 0", ret[0]);
+        assertEquals("Bytes saved: 0", ret[1]);
+    }
+
     private static ProxyServer createTestServer(ConfigSourceSet source) {
         return new ProxyServer(null, source, new RpcConfigSourceClient(new ResponseHandler(), source));
     }
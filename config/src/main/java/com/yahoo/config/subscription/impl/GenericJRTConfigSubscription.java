@@ -70,6 +70,10 @@ public class GenericJRTConfigSubscription extends JRTConfigSubscription<RawConfi
         }
     }
 
+    // The payload of a raw config is kept, so it can be used as the base of a delta
+    @Override
+    public boolean acceptsDelta() { return true; }
+
     public RawConfig getRawConfig() {
         return getConfigState().getConfig();
     }
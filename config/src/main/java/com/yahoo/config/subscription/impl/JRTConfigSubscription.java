@@ -171,6 +171,12 @@ public class JRTConfigSubscription<T extends ConfigInstance> extends ConfigSubsc
         return configPayload.toInstance(configClass, jrtRequest.getConfigKey().getConfigId());
     }
 
+    /**
+     * Returns whether requests for this subscription should ask for deltas to the config it has,
+     * which only pays off for clients which keep the config payload around anyway.
+     */
+    public boolean acceptsDelta() { return false; }
+
     // Called by JRTConfigRequester when there is a config response for this subscription
     void updateConfig(JRTClientConfigRequest jrtReq) {
         if ( ! responseQueue.offer(jrtReq))
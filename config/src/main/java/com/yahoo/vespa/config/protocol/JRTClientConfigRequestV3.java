@@ -20,6 +20,7 @@ import com.yahoo.vespa.config.util.ConfigUtils;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -32,14 +33,24 @@ import static com.yahoo.vespa.config.PayloadChecksum.Type.XXHASH64;
  *
  * See {@link JRTServerConfigRequestV3} for protocol details.
  *
+ * A request which accepts deltas keeps the payload of the config it has, as the base of a {@link PayloadDelta}
+ * returned by the server; the full payload is then resolved from this base when the response is read.
+ *
  * @author Ulf Lilleengen
  */
 public final class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
 
     protected static final Logger log = Logger.getLogger(JRTClientConfigRequestV3.class.getName());
+    private static final LongAdder deltaResponses = new LongAdder();
+    private static final LongAdder deltaBytesSaved = new LongAdder();
+
     protected final SlimeRequestData requestData;
     protected final Request request;
     private final SlimeResponseData responseData;
+    private final boolean acceptDelta;
+    /** The payload of the config with the request checksums, if known, and deltas are accepted */
+    private final Optional<Payload> deltaBase;
+    private Payload newPayload = null;
 
     protected JRTClientConfigRequestV3(ConfigKey<?> key,
                                        String hostname,
@@ -49,7 +60,9 @@ public final class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
                                        long timeout,
                                        Trace trace,
                                        CompressionType compressionType,
-                                       Optional<VespaVersion> vespaVersion) {
+                                       Optional<VespaVersion> vespaVersion,
+                                       boolean acceptDelta,
+                                       Optional<Payload> deltaBase) {
         Slime data = SlimeRequestData.encodeRequest(key,
                                                     hostname,
                                                     defSchema,
@@ -59,13 +72,16 @@ public final class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
                                                     trace,
                                                     getProtocolVersion(),
                                                     compressionType,
-                                                    vespaVersion);
+                                                    vespaVersion,
+                                                    acceptDelta && deltaBase.isPresent());
         Request jrtReq = new Request(getJRTMethodName());
         jrtReq.parameters().add(new StringValue(encodeAsUtf8String(data)));
 
         this.requestData = new SlimeRequestData(jrtReq, data);
         this.responseData = new SlimeResponseData(jrtReq);
         this.request = jrtReq;
+        this.acceptDelta = acceptDelta;
+        this.deltaBase = acceptDelta ? deltaBase : Optional.empty();
     }
 
     protected static String encodeAsUtf8String(Slime data) {
@@ -86,11 +102,37 @@ public final class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
         return JRTMethods.checkV3ReturnTypes(request);
     }
 
+    /**
+     * Returns the payload of the response. If the response is a delta, this is resolved against the config
+     * this request was made with, and verified against the response checksums.
+     *
+     * @throws IllegalArgumentException if the response is a delta which does not resolve to the config it should
+     */
     @Override
-    public Payload getNewPayload() {
-        CompressionInfo compressionInfo = getResponseData().getCompressionInfo();
-        Utf8Array payload = new Utf8Array(request.returnValues().get(1).asData());
-        return Payload.from(payload, compressionInfo);
+    public synchronized Payload getNewPayload() {
+        if (newPayload == null) {
+            CompressionInfo compressionInfo = getResponseData().getCompressionInfo();
+            Utf8Array payload = new Utf8Array(request.returnValues().get(1).asData());
+            newPayload = getResponseData().getResponseIsDelta() ? resolveDelta(Payload.from(payload, compressionInfo))
+                                                                : Payload.from(payload, compressionInfo);
+        }
+        return newPayload;
+    }
+
+    private Payload resolveDelta(Payload delta) {
+        if (deltaBase.isEmpty())
+            throw new IllegalArgumentException("Got a delta response for " + getConfigKey() + ", but has no config to apply it to");
+
+        Payload payload = PayloadDelta.apply(deltaBase.get(), delta);
+        PayloadChecksum expected = getNewChecksums().getForType(XXHASH64);
+        PayloadChecksum actual = PayloadChecksum.fromPayload(payload, XXHASH64);
+        if (expected == null || ! expected.equals(actual))
+            throw new IllegalArgumentException("Delta response for " + getConfigKey() + " resolved to config with checksum " +
+                                               actual + ", expected " + expected);
+
+        deltaResponses.increment();
+        deltaBytesSaved.add(payload.getData().getByteLength() - PayloadDelta.uncompressedSize(delta));
+        return payload;
     }
 
     @Override
@@ -100,31 +142,62 @@ public final class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
 
     @Override
     public JRTClientConfigRequest nextRequest(long timeout) {
+        PayloadChecksums checksums = isError() ? getRequestConfigChecksums() : newConfigChecksums();
+        Optional<Payload> nextDeltaBase = deltaBase;
+        if (acceptDelta && ! isError() && hasUpdatedConfig()) {
+            try {
+                nextDeltaBase = Optional.of(getNewPayload());
+            } catch (IllegalArgumentException e) {
+                // Ask for the full config, as we don't know what we have
+                log.log(Level.FINE, () -> "Could not resolve delta response for " + getConfigKey() + ": " + e.getMessage());
+                checksums = PayloadChecksums.empty();
+                nextDeltaBase = Optional.empty();
+            }
+        }
         return new JRTClientConfigRequestV3(getConfigKey(),
                 getClientHostName(),
                 getDefContent(),
-                isError() ? getRequestConfigChecksums() : newConfigChecksums(),
+                checksums,
                 isError() ? getRequestGeneration() : newGen(),
                 timeout,
                 Trace.createNew(),
                 requestData.getCompressionType(),
-                requestData.getVespaVersion());
+                requestData.getVespaVersion(),
+                acceptDelta,
+                nextDeltaBase);
     }
 
+    /** Returns the number of delta responses resolved by clients in this process */
+    public static long deltaResponses() { return deltaResponses.sum(); }
+
+    /** Returns the number of uncompressed payload bytes saved by delta responses to clients in this process */
+    public static long deltaBytesSaved() { return deltaBytesSaved.sum(); }
+
     public static <T extends ConfigInstance> JRTClientConfigRequest createFromSub(JRTConfigSubscription<T> sub,
                                                                                   Trace trace,
                                                                                   CompressionType compressionType,
                                                                                   Optional<VespaVersion> vespaVersion) {
+        return createFromSub(sub, trace, compressionType, vespaVersion, false);
+    }
+
+    /** Creates a request for the given subscription, which accepts delta responses to later requests if acceptDelta is true */
+    public static <T extends ConfigInstance> JRTClientConfigRequest createFromSub(JRTConfigSubscription<T> sub,
+                                                                                  Trace trace,
+                                                                                  CompressionType compressionType,
+                                                                                  Optional<VespaVersion> vespaVersion,
+                                                                                  boolean acceptDelta) {
         ConfigSubscription.ConfigState<T> configState = sub.getConfigState();
-        return createWithParams(sub.getKey(),
-                                sub.getDefContent(),
-                                ConfigUtils.getCanonicalHostName(),
-                                configState.getChecksums(),
-                                configState.getGeneration(),
-                                sub.timingValues().getSubscribeTimeout(),
-                                trace,
-                                compressionType,
-                                vespaVersion);
+        return new JRTClientConfigRequestV3(sub.getKey(),
+                                            ConfigUtils.getCanonicalHostName(),
+                                            sub.getDefContent(),
+                                            configState.getChecksums(),
+                                            configState.getGeneration(),
+                                            sub.timingValues().getSubscribeTimeout(),
+                                            trace,
+                                            compressionType,
+                                            vespaVersion,
+                                            acceptDelta,
+                                            Optional.empty());
     }
 
     public static JRTClientConfigRequest createFromRaw(RawConfig config,
@@ -161,7 +234,9 @@ public final class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
                                             serverTimeout,
                                             trace,
                                             compressionType,
-                                            vespaVersion);
+                                            vespaVersion,
+                                            false,
+                                            Optional.empty());
     }
 
     @Override
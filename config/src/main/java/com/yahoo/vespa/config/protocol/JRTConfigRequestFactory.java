@@ -17,10 +17,13 @@ public class JRTConfigRequestFactory {
 
     private static final CompressionType compressionType = getCompressionType();
     private static final String VESPA_CONFIG_PROTOCOL_COMPRESSION = "VESPA_CONFIG_PROTOCOL_COMPRESSION";
+    private static final boolean deltaEnabled = getDeltaEnabled();
+    private static final String VESPA_CONFIG_PROTOCOL_DELTA = "VESPA_CONFIG_PROTOCOL_DELTA";
 
     public static <T extends ConfigInstance> JRTClientConfigRequest createFromSub(JRTConfigSubscription<T> sub) {
         // TODO: Get trace from caller
-        return JRTClientConfigRequestV3.createFromSub(sub, Trace.createNew(), compressionType, getVespaVersion());
+        return JRTClientConfigRequestV3.createFromSub(sub, Trace.createNew(), compressionType, getVespaVersion(),
+                                                      deltaEnabled && sub.acceptsDelta());
     }
 
     public static JRTClientConfigRequest createFromRaw(RawConfig config, long serverTimeout) {
@@ -37,6 +40,15 @@ public class JRTConfigRequestFactory {
         return CompressionType.valueOf(ConfigUtils.getEnvValue("LZ4", env, property));
     }
 
+    public static boolean getDeltaEnabled() {
+        return getDeltaEnabled(System.getenv(VESPA_CONFIG_PROTOCOL_DELTA),
+                               System.getProperty(VESPA_CONFIG_PROTOCOL_DELTA));
+    }
+
+    static boolean getDeltaEnabled(String env, String property) {
+        return Boolean.parseBoolean(ConfigUtils.getEnvValue("true", env, property));
+    }
+
     static Optional<VespaVersion> getVespaVersion() {
         return Optional.of(getCompiledVespaVersion());
     }
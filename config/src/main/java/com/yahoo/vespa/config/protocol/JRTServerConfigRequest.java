@@ -39,6 +39,23 @@ public interface JRTServerConfigRequest extends JRTConfigRequest, GetConfigReque
      */
     void addOkResponse(Payload payload, long generation, boolean applyOnRestart, PayloadChecksums payloadChecksums);
 
+    /**
+     * Signal that the request was handled with a delta to the config the client has, see {@link PayloadDelta}.
+     * Must only be used when {@link #acceptsDelta()} is true.
+     *
+     * @param delta The delta from the config of the request to the config that the client should receive.
+     * @param generation The config generation of the new config.
+     * @param applyOnRestart true if this config should only be applied on the next restart,
+     *                       false if it should be applied right away
+     * @param payloadChecksums checksums of the new config, which the client verifies after applying the delta.
+     */
+    void addOkDeltaResponse(Payload delta, long generation, boolean applyOnRestart, PayloadChecksums payloadChecksums);
+
+    /**
+     * Returns whether the client can apply a delta to the config it has, i.e., the one with the request checksums.
+     */
+    boolean acceptsDelta();
+
     /**
      * Returns the md5 of the config definition in the request.
      *
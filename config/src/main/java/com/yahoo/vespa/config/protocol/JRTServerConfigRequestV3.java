@@ -27,6 +27,9 @@ import static com.yahoo.vespa.config.PayloadChecksum.Type.XXHASH64;
  * * A metadata field containing json data describing config generation, md5 and compression info
  * * A data field containing compressed or uncompressed json config payload
  *
+ * Clients which have a config may ask for a delta to it instead of the full payload, in which case the data field
+ * may instead contain a {@link PayloadDelta}, and the metadata field says so.
+ *
  * The implementation of addOkResponse is optimized for doing as little copying of payload data as possible, ensuring
  * that we get a lower memory footprint.
  *
@@ -71,6 +74,17 @@ public class JRTServerConfigRequestV3 implements JRTServerConfigRequest {
 
     @Override
     public void addOkResponse(Payload payload, long generation, boolean applyOnRestart, PayloadChecksums checksums) {
+        addOkResponse(payload, generation, applyOnRestart, checksums, false);
+    }
+
+    @Override
+    public void addOkDeltaResponse(Payload delta, long generation, boolean applyOnRestart, PayloadChecksums checksums) {
+        if ( ! acceptsDelta())
+            throw new IllegalStateException("Client does not accept a delta response for " + this);
+        addOkResponse(delta, generation, applyOnRestart, checksums, true);
+    }
+
+    private void addOkResponse(Payload payload, long generation, boolean applyOnRestart, PayloadChecksums checksums, boolean delta) {
         this.applyOnRestart = applyOnRestart;
         Payload responsePayload = payload.withCompression(getCompressionType());
         if (responsePayload == null)
@@ -85,6 +99,8 @@ public class JRTServerConfigRequestV3 implements JRTServerConfigRequest {
             addPayloadCheckSums(jsonGenerator, checksums);
             setResponseField(jsonGenerator, SlimeResponseData.RESPONSE_CONFIG_GENERATION, generation);
             setResponseField(jsonGenerator, SlimeResponseData.RESPONSE_APPLY_ON_RESTART, applyOnRestart);
+            if (delta)
+                setResponseField(jsonGenerator, SlimeResponseData.RESPONSE_DELTA, true);
             jsonGenerator.writeObjectFieldStart(SlimeResponseData.RESPONSE_COMPRESSION_INFO);
             responsePayload.getCompressionInfo().serialize(jsonGenerator);
             jsonGenerator.writeEndObject();
@@ -105,6 +121,9 @@ public class JRTServerConfigRequestV3 implements JRTServerConfigRequest {
     @Override
     public boolean applyOnRestart() { return applyOnRestart; }
 
+    @Override
+    public boolean acceptsDelta() { return requestData.getAcceptDelta(); }
+
     public static JRTServerConfigRequestV3 createFromRequest(Request req) {
         return new JRTServerConfigRequestV3(req);
     }
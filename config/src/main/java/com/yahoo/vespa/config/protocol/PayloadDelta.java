@@ -0,0 +1,200 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.protocol;
+
+import com.yahoo.slime.ArrayTraverser;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Inspector;
+import com.yahoo.slime.ObjectTraverser;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
+import com.yahoo.slime.Type;
+import com.yahoo.vespa.config.ConfigPayload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A structural delta between two config payloads, which lets a server send only what changed since the
+ * payload a client already has. The delta is itself a json payload, where each node is one of
+ *
+ * * {} - the value is unchanged
+ * * {"=": value} - the value is replaced by the given value
+ * * {"{}": {name: node, ...}} - an object with exactly the given fields, in the given order
+ * * {"[]": {"head": h, "tail": t, "mid": [node, ...]}} - an array which keeps the first h and the last t
+ *   entries of the base array, with the given nodes in between, applied to the base entries at the same positions
+ *
+ * Applying a delta produces the compact json of the target payload, byte for byte, so the result has the
+ * same checksums as the payload it replaces.
+ */
+public class PayloadDelta {
+
+    /** A delta is only used if it is at most this fraction of the size of the full payload */
+    static final double maxSizeFraction = 0.5;
+
+    private static final String REPLACE = "=";
+    private static final String OBJECT = "{}";
+    private static final String ARRAY = "[]";
+    private static final String HEAD = "head";
+    private static final String TAIL = "tail";
+    private static final String MID = "mid";
+
+    private PayloadDelta() { }
+
+    /**
+     * Returns an uncompressed delta which turns the given base into the given target,
+     * or empty if the delta would not be much smaller than the target itself.
+     */
+    public static Optional<Payload> create(Payload base, Payload target) {
+        Payload delta = delta(base, target);
+        return uncompressedSize(delta) <= maxSizeFraction * uncompressedSize(target)
+               ? Optional.of(delta)
+               : Optional.empty();
+    }
+
+    /** Returns an uncompressed delta which turns the given base into the given target */
+    static Payload delta(Payload base, Payload target) {
+        Slime delta = new Slime();
+        diff(toSlime(base).get(), toSlime(target).get(), delta.setObject());
+        return Payload.from(new ConfigPayload(delta));
+    }
+
+    /**
+     * Returns the uncompressed payload obtained by applying the given delta to the given base.
+     *
+     * @throws IllegalArgumentException if the delta does not fit the base
+     */
+    public static Payload apply(Payload base, Payload delta) {
+        Slime result = new Slime();
+        Inspector root = toSlime(base).get();
+        resolve(root, toSlime(delta).get(), result::setObject, result::setArray, value -> SlimeUtils.copyObject(value, result.setObject()));
+        if (result.get().type() != Type.OBJECT)
+            throw new IllegalArgumentException("Delta does not resolve to a config payload");
+        return Payload.from(new ConfigPayload(result));
+    }
+
+    /** Returns the size of the given payload when uncompressed */
+    public static int uncompressedSize(Payload payload) {
+        return payload.getCompressionInfo().getCompressionType() == CompressionType.UNCOMPRESSED
+               ? payload.getData().getByteLength()
+               : payload.getCompressionInfo().getUncompressedSize();
+    }
+
+    private static Slime toSlime(Payload payload) {
+        return ConfigPayload.fromUtf8Array(payload.withCompression(CompressionType.UNCOMPRESSED).getData()).getSlime();
+    }
+
+    private static void diff(Inspector base, Inspector target, Cursor node) {
+        if (identical(base, target)) return;
+
+        if (base.type() == Type.OBJECT && target.type() == Type.OBJECT) {
+            Cursor fields = node.setObject(OBJECT);
+            target.traverse((ObjectTraverser) (name, value) -> {
+                Inspector baseValue = base.field(name);
+                if (baseValue.valid())
+                    diff(baseValue, value, fields.setObject(name));
+                else
+                    SlimeUtils.setObjectEntry(value, REPLACE, fields.setObject(name));
+            });
+        }
+        else if (base.type() == Type.ARRAY && target.type() == Type.ARRAY) {
+            int baseSize = base.entries(), targetSize = target.entries();
+            int head = 0;
+            while (head < baseSize && head < targetSize && identical(base.entry(head), target.entry(head)))
+                head++;
+            int tail = 0;
+            while (tail < Math.min(baseSize, targetSize) - head
+                   && identical(base.entry(baseSize - 1 - tail), target.entry(targetSize - 1 - tail)))
+                tail++;
+
+            Cursor array = node.setObject(ARRAY);
+            array.setLong(HEAD, head);
+            array.setLong(TAIL, tail);
+            Cursor mid = array.setArray(MID);
+            for (int i = head; i < targetSize - tail; i++) {
+                if (i < baseSize - tail)
+                    diff(base.entry(i), target.entry(i), mid.addObject());
+                else
+                    SlimeUtils.setObjectEntry(target.entry(i), REPLACE, mid.addObject());
+            }
+        }
+        else {
+            SlimeUtils.setObjectEntry(target, REPLACE, node);
+        }
+    }
+
+    /** Resolves the given node against the given base value, and writes the result using the given setters */
+    private static void resolve(Inspector base, Inspector node,
+                                Supplier<Cursor> object, Supplier<Cursor> array, Consumer<Inspector> value) {
+        if (node.type() != Type.OBJECT)
+            throw new IllegalArgumentException("Expected a delta node, but got " + node);
+
+        if (node.fields() == 0) {
+            if ( ! base.valid()) throw new IllegalArgumentException("Delta keeps a value which is not in the base");
+            value.accept(base);
+        }
+        else if (node.field(REPLACE).valid()) {
+            value.accept(node.field(REPLACE));
+        }
+        else if (node.field(OBJECT).valid()) {
+            if (base.type() != Type.OBJECT) throw new IllegalArgumentException("Delta changes an object which is not in the base");
+            Cursor result = object.get();
+            node.field(OBJECT).traverse((ObjectTraverser) (name, field) ->
+                    resolve(base.field(name), field,
+                            () -> result.setObject(name),
+                            () -> result.setArray(name),
+                            fieldValue -> SlimeUtils.setObjectEntry(fieldValue, name, result)));
+        }
+        else if (node.field(ARRAY).valid()) {
+            if (base.type() != Type.ARRAY) throw new IllegalArgumentException("Delta changes an array which is not in the base");
+            Inspector delta = node.field(ARRAY);
+            int head = (int) delta.field(HEAD).asLong(), tail = (int) delta.field(TAIL).asLong();
+            if (head < 0 || tail < 0 || head + tail > base.entries())
+                throw new IllegalArgumentException("Delta keeps more entries than there are in the base array");
+
+            Cursor result = array.get();
+            for (int i = 0; i < head; i++)
+                SlimeUtils.addValue(base.entry(i), result);
+            delta.field(MID).traverse((ArrayTraverser) (i, entry) ->
+                    resolve(head + i < base.entries() - tail ? base.entry(head + i) : base.entry(-1), entry,
+                            result::addObject,
+                            result::addArray,
+                            entryValue -> SlimeUtils.addValue(entryValue, result)));
+            for (int i = base.entries() - tail; i < base.entries(); i++)
+                SlimeUtils.addValue(base.entry(i), result);
+        }
+        else {
+            throw new IllegalArgumentException("Unknown delta node " + node);
+        }
+    }
+
+    /** Returns whether the two values are equal and serialize identically, i.e., also have their fields in the same order */
+    private static boolean identical(Inspector a, Inspector b) {
+        if (a.type() != b.type()) return false;
+        switch (a.type()) {
+            case ARRAY:
+                if (a.entries() != b.entries()) return false;
+                for (int i = 0; i < a.entries(); i++)
+                    if ( ! identical(a.entry(i), b.entry(i))) return false;
+                return true;
+            case OBJECT:
+                if (a.fields() != b.fields()) return false;
+                List<String> aNames = fieldNames(a);
+                if ( ! aNames.equals(fieldNames(b))) return false;
+                for (String name : aNames)
+                    if ( ! identical(a.field(name), b.field(name))) return false;
+                return true;
+            default:
+                return SlimeUtils.equalTo(a, b);
+        }
+    }
+
+    private static List<String> fieldNames(Inspector object) {
+        List<String> names = new ArrayList<>(object.fields());
+        object.traverse((ObjectTraverser) (name, value) -> names.add(name));
+        return names;
+    }
+
+}
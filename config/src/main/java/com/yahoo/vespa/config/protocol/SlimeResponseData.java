@@ -31,6 +31,7 @@ class SlimeResponseData {
     static final String RESPONSE_CONFIG_GENERATION = "generation";
     static final String RESPONSE_APPLY_ON_RESTART = "applyOnRestart";
     static final String RESPONSE_COMPRESSION_INFO = "compressionInfo";
+    static final String RESPONSE_DELTA = "delta";
 
     private final Request request;
     private Slime data = null;
@@ -91,4 +92,10 @@ class SlimeResponseData {
         return inspector.valid() && inspector.asBool();
     }
 
+    /** Returns whether the payload is a {@link PayloadDelta} to the config of the request, rather than the config itself */
+    boolean getResponseIsDelta() {
+        Inspector inspector = getResponseField(RESPONSE_DELTA);
+        return inspector.valid() && inspector.asBool();
+    }
+
 }
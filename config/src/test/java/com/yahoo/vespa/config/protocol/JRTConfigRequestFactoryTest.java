@@ -13,6 +13,8 @@ import org.junit.Test;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author hmusum
@@ -36,6 +38,14 @@ public class JRTConfigRequestFactoryTest {
         assertThat(JRTConfigRequestFactory.getCompressionType("LZ4", "UNCOMPRESSED"), is(CompressionType.LZ4));
     }
 
+    @Test
+    public void testDeltaEnabled() {
+        assertTrue(JRTConfigRequestFactory.getDeltaEnabled("", ""));
+        assertFalse(JRTConfigRequestFactory.getDeltaEnabled("false", ""));
+        assertFalse(JRTConfigRequestFactory.getDeltaEnabled("", "false"));
+        assertTrue(JRTConfigRequestFactory.getDeltaEnabled("true", "false"));
+    }
+
     @Test
     public void testVespaVersion() {
         assertThat(JRTConfigRequestFactory.getVespaVersion().get(), is(defaultVespaVersion));
@@ -7,6 +7,7 @@ import com.yahoo.config.subscription.impl.JRTConfigSubscription;
 import com.yahoo.config.subscription.impl.MockConnection;
 import com.yahoo.foo.SimpletypesConfig;
 import com.yahoo.jrt.Request;
+import com.yahoo.slime.Cursor;
 import com.yahoo.slime.Inspector;
 import com.yahoo.slime.Slime;
 import com.yahoo.slime.SlimeUtils;
@@ -33,6 +34,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author Ulf Lilleengen
@@ -127,6 +129,44 @@ public class JRTConfigRequestV3Test {
         assertTrue(clientReq.hasUpdatedGeneration());
     }
 
+    @Test
+    public void delta_response_is_resolved_against_config_of_request() {
+        assertFalse(serverReq.acceptsDelta());
+
+        Payload base = createLargePayload("bar");
+        Payload target = createLargePayload("baz");
+        clientReq = createDeltaReq(base);
+        serverReq = createReq(clientReq.getRequest());
+        assertTrue(serverReq.acceptsDelta());
+        serverReq.addOkDeltaResponse(PayloadDelta.create(base, target).get(), 4L, false, PayloadChecksums.fromPayload(target));
+        assertTrue(clientReq.validateResponse());
+        assertTrue(clientReq.hasUpdatedConfig());
+        assertEquals(target.getData().toString(), clientReq.getNewPayload().withCompression(CompressionType.UNCOMPRESSED).getData().toString());
+
+        JRTServerConfigRequest next = createReq(clientReq.nextRequest(6).getRequest());
+        assertTrue(next.acceptsDelta());
+        assertEquals(PayloadChecksums.fromPayload(target), next.getRequestConfigChecksums());
+    }
+
+    @Test
+    public void full_config_is_requested_when_delta_does_not_resolve() {
+        Payload base = createLargePayload("bar");
+        Payload target = createLargePayload("baz");
+        clientReq = createDeltaReq(createLargePayload("bar", 99));
+        serverReq = createReq(clientReq.getRequest());
+        serverReq.addOkDeltaResponse(PayloadDelta.create(base, target).get(), 4L, false, PayloadChecksums.fromPayload(target));
+        assertTrue(clientReq.validateResponse());
+        try {
+            clientReq.getNewPayload();
+            fail("Expected failure");
+        }
+        catch (IllegalArgumentException expected) { }
+
+        JRTServerConfigRequest next = createReq(clientReq.nextRequest(6).getRequest());
+        assertFalse(next.acceptsDelta());
+        assertTrue(next.getRequestConfigChecksums().isEmpty());
+    }
+
     @Test
     public void error_response_adds_common_elements() {
         serverReq.addErrorResponse(ErrorCode.APPLICATION_NOT_LOADED, ErrorCode.getName(ErrorCode.APPLICATION_NOT_LOADED));
@@ -259,6 +299,33 @@ public class JRTConfigRequestV3Test {
         return Payload.from(new ConfigPayload(slime));
     }
 
+    private static Payload createLargePayload(String value) {
+        return createLargePayload(value, 100);
+    }
+
+    private static Payload createLargePayload(String value, int size) {
+        Slime slime = new Slime();
+        Cursor array = slime.setObject().setArray("values");
+        for (int i = 0; i < size; i++)
+            array.addString("value" + i);
+        slime.get().setString("myfield", value);
+        return Payload.from(new ConfigPayload(slime));
+    }
+
+    private JRTClientConfigRequest createDeltaReq(Payload base) {
+        return new JRTClientConfigRequestV3(ConfigKey.createFull(defName, configId, defNamespace),
+                                            hostname,
+                                            DefContent.fromList(List.of(configDefinition)),
+                                            PayloadChecksums.fromPayload(base),
+                                            currentGeneration,
+                                            timeout,
+                                            Trace.createNew(),
+                                            CompressionType.LZ4,
+                                            vespaVersion,
+                                            true,
+                                            Optional.of(base));
+    }
+
     private JRTClientConfigRequest createReq(String defName, String defNamespace,
                                              String hostname, String configId, PayloadChecksums payloadChecksums,
                                              long currentGeneration, long timeout, Trace trace) {
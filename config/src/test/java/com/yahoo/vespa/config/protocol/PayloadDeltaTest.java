@@ -0,0 +1,79 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.protocol;
+
+import com.yahoo.slime.SlimeUtils;
+import com.yahoo.vespa.config.ConfigPayload;
+import com.yahoo.vespa.config.PayloadChecksums;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PayloadDeltaTest {
+
+    @Test
+    public void delta_resolves_to_identical_payload() {
+        assertRoundtrip("{}", "{}");
+        assertRoundtrip("{'a':1}", "{'a':2}");
+        assertRoundtrip("{'a':1,'b':'x'}", "{'b':'x','a':1}");
+        assertRoundtrip("{'a':1,'b':'x'}", "{'a':1}");
+        assertRoundtrip("{'a':1}", "{'a':1,'c':{'d':[1,2]}}");
+        assertRoundtrip("{'a':[1,2,3,4]}", "{'a':[1,2,9,3,4]}");
+        assertRoundtrip("{'a':[1,2,3,4]}", "{'a':[1,4]}");
+        assertRoundtrip("{'a':[1,2,3,4]}", "{'a':[]}");
+        assertRoundtrip("{'a':[]}", "{'a':[1,2]}");
+        assertRoundtrip("{'a':[1,1,1]}", "{'a':[1,1,1,1]}");
+        assertRoundtrip("{'a':[{'b':1,'c':2},{'b':3}]}", "{'a':[{'b':1,'c':5},{'b':3}]}");
+        assertRoundtrip("{'a':[{'b':1,'c':2},{'b':3}]}", "{'a':[{'c':2,'b':1},{'b':3}]}");
+        assertRoundtrip("{'a':{'b':1}}", "{'a':[1]}");
+        assertRoundtrip("{'a':1.5,'b':true,'c':'\\u00e6\\\"'}", "{'a':2.25,'b':false,'c':'\\u00f8'}");
+    }
+
+    @Test
+    public void delta_is_only_created_when_much_smaller_than_payload() {
+        assertFalse(PayloadDelta.create(payload("{'a':1}"), payload("{'a':2}")).isPresent());
+
+        StringBuilder base = new StringBuilder("{'a':[");
+        for (int i = 0; i < 1000; i++)
+            base.append(i == 0 ? "" : ",").append("'value").append(i).append("'");
+        String target = base + ",'new value']}";
+        Payload targetPayload = payload(target).withCompression(CompressionType.LZ4);
+        Payload delta = PayloadDelta.create(payload(base + "]}").withCompression(CompressionType.LZ4), targetPayload).get();
+        assertTrue(delta.getData().getByteLength() < 100);
+        assertEquals(PayloadChecksums.fromPayload(payload(target)),
+                     PayloadChecksums.fromPayload(PayloadDelta.apply(payload(base + "]}"), delta)));
+    }
+
+    @Test
+    public void delta_must_fit_base() {
+        Payload delta = PayloadDelta.delta(payload("{'a':[1,2,3]}"), payload("{'a':[1,2,3,4]}"));
+        try {
+            PayloadDelta.apply(payload("{'a':[1]}"), delta);
+            fail("Expected failure");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Delta keeps more entries than there are in the base array", e.getMessage());
+        }
+        try {
+            PayloadDelta.apply(payload("{'a':{}}"), delta);
+            fail("Expected failure");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Delta changes an array which is not in the base", e.getMessage());
+        }
+    }
+
+    private static void assertRoundtrip(String base, String target) {
+        Payload basePayload = payload(base), targetPayload = payload(target);
+        Payload resolved = PayloadDelta.apply(basePayload, PayloadDelta.delta(basePayload, targetPayload));
+        assertEquals(targetPayload.getData().toString(), resolved.getData().toString());
+        assertEquals(PayloadChecksums.fromPayload(targetPayload), PayloadChecksums.fromPayload(resolved));
+    }
+
+    private static Payload payload(String json) {
+        return Payload.from(new ConfigPayload(SlimeUtils.jsonToSlime(json.replace('\'', '"'))));
+    }
+
+}
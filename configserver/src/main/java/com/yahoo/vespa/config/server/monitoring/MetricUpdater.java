@@ -33,6 +33,8 @@ public class MetricUpdater {
     private static final String METRIC_CACHE_CONFIG_CHECKSUMS = getMetricName("cacheChecksumElems");
     private static final String METRIC_DELAYED_RESPONSES = getMetricName("delayedResponses");
     private static final String METRIC_RPCSERVER_WORK_QUEUE_SIZE = getMetricName("rpcServerWorkQueueSize");
+    private static final String METRIC_DELTA_RESPONSES = getMetricName("deltaResponses");
+    private static final String METRIC_DELTA_BYTES_SAVED = getMetricName("deltaBytesSaved");
 
 
     private final Metrics metrics;
@@ -96,6 +98,16 @@ public class MetricUpdater {
         metrics.increment(METRIC_UNKNOWN_HOSTS, metricContext);
     }
 
+    /**
+     * Increment the number of config responses which were deltas to the config of the client.
+     *
+     * @param bytesSaved the size of the full config, less the size of the delta, both uncompressed
+     */
+    public void incDeltaResponses(long bytesSaved) {
+        metrics.increment(METRIC_DELTA_RESPONSES, metricContext);
+        metrics.add(METRIC_DELTA_BYTES_SAVED, bytesSaved, metricContext);
+    }
+
     private Metric.Context createContext(Metrics metrics, Map<String, String> dimensions) {
         if (metrics == null) return null;
 
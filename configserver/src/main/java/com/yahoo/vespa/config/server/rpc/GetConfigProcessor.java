@@ -14,6 +14,7 @@ import com.yahoo.vespa.config.UnknownConfigIdException;
 import com.yahoo.vespa.config.protocol.ConfigResponse;
 import com.yahoo.vespa.config.protocol.JRTServerConfigRequest;
 import com.yahoo.vespa.config.protocol.Payload;
+import com.yahoo.vespa.config.protocol.PayloadDelta;
 import com.yahoo.vespa.config.protocol.Trace;
 import com.yahoo.vespa.config.protocol.VespaVersion;
 import com.yahoo.vespa.config.server.GetConfigContext;
@@ -136,7 +137,7 @@ class GetConfigProcessor implements Runnable {
             }
 
             // debugLog(trace, "config response before encoding:" + config.toString());
-            request.addOkResponse(request.payloadFromResponse(config), config.getGeneration(), config.applyOnRestart(), config.getPayloadChecksums());
+            addOkResponse(request, config);
             debugLog(trace, "return response: " + request.getShortDescription());
             respond(request);
         } else {
@@ -146,6 +147,23 @@ class GetConfigProcessor implements Runnable {
         return Optional.empty();
     }
 
+    private void addOkResponse(JRTServerConfigRequest request, ConfigResponse config) {
+        Payload payload = request.payloadFromResponse(config);
+        PayloadDeltaCache payloadDeltas = rpcServer.payloadDeltas();
+        payloadDeltas.put(config.getPayloadChecksums(), payload);
+        Optional<Payload> delta = request.acceptsDelta()
+                ? payloadDeltas.delta(request.getRequestConfigChecksums(), config.getPayloadChecksums(), payload)
+                : Optional.empty();
+        if (delta.isPresent()) {
+            debugLog(request.getRequestTrace(), "returning delta to config with checksums " + request.getRequestConfigChecksums());
+            request.addOkDeltaResponse(delta.get(), config.getGeneration(), config.applyOnRestart(), config.getPayloadChecksums());
+            rpcServer.deltaResponseSent(PayloadDelta.uncompressedSize(payload) - PayloadDelta.uncompressedSize(delta.get()));
+        }
+        else {
+            request.addOkResponse(payload, config.getGeneration(), config.applyOnRestart(), config.getPayloadChecksums());
+        }
+    }
+
     @Override
     public void run() {
         Optional<DelayedConfig> delayed = resolveConfig(request);
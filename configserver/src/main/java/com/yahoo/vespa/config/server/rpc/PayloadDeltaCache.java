@@ -0,0 +1,160 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.server.rpc;
+
+import com.yahoo.vespa.config.PayloadChecksum;
+import com.yahoo.vespa.config.PayloadChecksums;
+import com.yahoo.vespa.config.protocol.CompressionType;
+import com.yahoo.vespa.config.protocol.Payload;
+import com.yahoo.vespa.config.protocol.PayloadDelta;
+
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.yahoo.vespa.config.PayloadChecksum.Type.XXHASH64;
+
+/**
+ * Keeps recently served large config payloads by their xxhash64 checksum, so a client which asks for a delta to
+ * the config it has can get a {@link PayloadDelta} instead of the full config, and keeps the deltas computed
+ * between these, so each delta is computed once, even though many clients ask for it at the same time.
+ * Payloads and deltas share one byte budget. When it is exceeded, the least recently used deltas are evicted
+ * first, since they can be computed again as long as their payloads are kept, and then the least recently
+ * used payloads.
+ *
+ * This is separate from the {@link com.yahoo.vespa.config.server.ServerCache} of an application, since that is
+ * replaced when the application is activated, which is exactly when clients have configs it no longer has.
+ */
+class PayloadDeltaCache {
+
+    private static final Logger log = Logger.getLogger(PayloadDeltaCache.class.getName());
+
+    /** Smaller payloads are sent in full */
+    static final int minPayloadSize = 64 * 1024;
+    static final long defaultMaxBytes = 256L * 1024 * 1024;
+    /** The size counted for each delta in addition to its payload, so that empty deltas are bounded too */
+    static final int deltaOverhead = 256;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Payload> payloads = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<DeltaKey, Delta> deltas = new LinkedHashMap<>(16, 0.75f, true);
+    /** The bytes used by all payloads and deltas */
+    private long bytes = 0;
+
+    PayloadDeltaCache() { this(defaultMaxBytes); }
+
+    PayloadDeltaCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Remembers the given payload, with the given checksums, if it is large enough to be worth a delta,
+     * and small enough to fit in the byte budget
+     */
+    void put(PayloadChecksums checksums, Payload payload) {
+        Optional<String> key = xxhash64(checksums);
+        if (key.isEmpty() || PayloadDelta.uncompressedSize(payload) < minPayloadSize) return;
+        if (size(payload) > maxBytes) return; // Would evict everything else, and then itself
+
+        synchronized (this) {
+            if (payloads.containsKey(key.get())) return;
+            payloads.put(key.get(), payload);
+            bytes += size(payload);
+            evict();
+        }
+    }
+
+    /**
+     * Returns a delta from the payload with the given base checksums, to the given payload with the given checksums,
+     * or empty if the base is not known, or a delta would not be much smaller than the payload itself.
+     */
+    Optional<Payload> delta(PayloadChecksums base, PayloadChecksums target, Payload payload) {
+        Optional<String> baseKey = xxhash64(base), targetKey = xxhash64(target);
+        if (baseKey.isEmpty() || targetKey.isEmpty() || baseKey.equals(targetKey)) return Optional.empty();
+        if (PayloadDelta.uncompressedSize(payload) < minPayloadSize) return Optional.empty();
+
+        DeltaKey key = new DeltaKey(baseKey.get(), targetKey.get());
+        Delta delta;
+        Payload basePayload = null;
+        synchronized (this) {
+            delta = deltas.get(key);
+            if (delta == null) {
+                basePayload = payloads.get(key.base());
+                if (basePayload == null) return Optional.empty();
+                delta = new Delta();
+                deltas.put(key, delta);
+                bytes += delta.size;
+                evict();
+            }
+        }
+        if (basePayload != null) {
+            Optional<Payload> result = null;
+            try {
+                result = PayloadDelta.create(basePayload, payload).map(d -> d.withCompression(CompressionType.LZ4));
+            }
+            catch (RuntimeException e) {
+                log.log(Level.WARNING, "Failed computing config delta from " + key.base() + " to " + key.target(), e);
+                result = Optional.empty();
+            }
+            finally { // Clients waiting for this delta must get a result even if this failed with an Error
+                synchronized (this) {
+                    if (deltas.get(key) == delta) { // Not evicted while computing
+                        if (result == null) { // Failed with an Error: Let the next client try again
+                            deltas.remove(key);
+                            bytes -= delta.size;
+                        }
+                        else {
+                            long size = result.map(PayloadDeltaCache::size).orElse(0L);
+                            delta.size += size;
+                            bytes += size;
+                            evict();
+                        }
+                    }
+                }
+                delta.result.complete(result == null ? Optional.empty() : result);
+            }
+        }
+        return delta.result.join();
+    }
+
+    synchronized int payloadCount() { return payloads.size(); }
+
+    synchronized int deltaCount() { return deltas.size(); }
+
+    synchronized long bytes() { return bytes; }
+
+    /** Evicts least recently used deltas, and then payloads, until the bytes used are within the budget */
+    private void evict() {
+        var deltaIterator = deltas.values().iterator();
+        while (bytes > maxBytes && deltaIterator.hasNext()) {
+            bytes -= deltaIterator.next().size;
+            deltaIterator.remove();
+        }
+        var payloadIterator = payloads.values().iterator();
+        while (bytes > maxBytes && payloadIterator.hasNext()) {
+            bytes -= size(payloadIterator.next());
+            payloadIterator.remove();
+        }
+    }
+
+    private static long size(Payload payload) {
+        return payload.getData().getByteLength();
+    }
+
+    private static Optional<String> xxhash64(PayloadChecksums checksums) {
+        PayloadChecksum checksum = checksums.getForType(XXHASH64);
+        return checksum == null || checksum.isEmpty() ? Optional.empty() : Optional.of(checksum.asString());
+    }
+
+    private record DeltaKey(String base, String target) { }
+
+    /** A delta which is computed once, by the first client asking for it, with the bytes counted for it */
+    private static class Delta {
+
+        private final CompletableFuture<Optional<Payload>> result = new CompletableFuture<>();
+        private long size = deltaOverhead;
+
+    }
+
+}
@@ -92,6 +92,7 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
     private static final Logger log = Logger.getLogger(RpcServer.class.getName());
 
     private final DelayedConfigResponses delayedConfigResponses;
+    private final PayloadDeltaCache payloadDeltas = new PayloadDeltaCache();
 
     private final HostRegistry hostRegistry;
     private final Map<TenantName, Tenant> tenants = new ConcurrentHashMap<>();
@@ -443,6 +444,14 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
         return useRequestVersion;
     }
 
+    PayloadDeltaCache payloadDeltas() {
+        return payloadDeltas;
+    }
+
+    void deltaResponseSent(long bytesSaved) {
+        metrics.incDeltaResponses(bytesSaved);
+    }
+
     static class ChunkedFileReceiver implements FileServer.Receiver {
         final Target target;
         ChunkedFileReceiver(Target target) {
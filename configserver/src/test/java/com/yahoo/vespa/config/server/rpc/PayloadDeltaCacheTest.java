@@ -0,0 +1,106 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.server.rpc;
+
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Slime;
+import com.yahoo.vespa.config.ConfigPayload;
+import com.yahoo.vespa.config.PayloadChecksums;
+import com.yahoo.vespa.config.protocol.CompressionType;
+import com.yahoo.vespa.config.protocol.Payload;
+import com.yahoo.vespa.config.protocol.PayloadDelta;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PayloadDeltaCacheTest {
+
+    @Test
+    public void delta_is_returned_for_known_base() {
+        PayloadDeltaCache cache = new PayloadDeltaCache();
+        Payload base = payload("old", 10_000), target = payload("new", 10_000);
+        PayloadChecksums baseChecksums = PayloadChecksums.fromPayload(base), targetChecksums = PayloadChecksums.fromPayload(target);
+        Payload compressedTarget = target.withCompression(CompressionType.LZ4);
+
+        assertEquals(Optional.empty(), cache.delta(baseChecksums, targetChecksums, compressedTarget));
+
+        cache.put(baseChecksums, base.withCompression(CompressionType.LZ4));
+        Payload delta = cache.delta(baseChecksums, targetChecksums, compressedTarget).get();
+        assertTrue(PayloadDelta.uncompressedSize(delta) < 100);
+        assertEquals(targetChecksums, PayloadChecksums.fromPayload(PayloadDelta.apply(base, delta)));
+        assertSame(delta, cache.delta(baseChecksums, targetChecksums, compressedTarget).get());
+
+        assertEquals(Optional.empty(), cache.delta(targetChecksums, targetChecksums, compressedTarget));
+    }
+
+    @Test
+    public void small_payloads_are_not_kept() {
+        PayloadDeltaCache cache = new PayloadDeltaCache();
+        Payload base = payload("old", 10), target = payload("new", 10);
+        cache.put(PayloadChecksums.fromPayload(base), base);
+        assertEquals(0, cache.payloadCount());
+        assertEquals(Optional.empty(), cache.delta(PayloadChecksums.fromPayload(base), PayloadChecksums.fromPayload(target), target));
+    }
+
+    @Test
+    public void least_recently_used_payloads_are_evicted() {
+        Payload first = payload("first", 10_000), second = payload("second", 10_000), third = payload("third", 10_000);
+        PayloadDeltaCache cache = new PayloadDeltaCache(2L * first.getData().getByteLength() + 100);
+        cache.put(PayloadChecksums.fromPayload(first), first);
+        cache.put(PayloadChecksums.fromPayload(second), second);
+        assertEquals(2, cache.payloadCount());
+        cache.put(PayloadChecksums.fromPayload(third), third);
+        assertEquals(2, cache.payloadCount());
+        assertEquals(Optional.empty(), cache.delta(PayloadChecksums.fromPayload(first), PayloadChecksums.fromPayload(third), third));
+        assertTrue(cache.delta(PayloadChecksums.fromPayload(second), PayloadChecksums.fromPayload(third), third).isPresent());
+    }
+
+    @Test
+    public void payloads_larger_than_the_byte_budget_are_not_kept() {
+        Payload small = payload("small", 10_000), large = payload("large", 100_000), target = payload("target", 10_000);
+        PayloadDeltaCache cache = new PayloadDeltaCache(small.getData().getByteLength() + 100L);
+        cache.put(PayloadChecksums.fromPayload(small), small);
+        cache.put(PayloadChecksums.fromPayload(large), large);
+        assertEquals(1, cache.payloadCount());
+        assertEquals(small.getData().getByteLength(), cache.bytes());
+        assertTrue(cache.delta(PayloadChecksums.fromPayload(small), PayloadChecksums.fromPayload(target), target).isPresent());
+    }
+
+    @Test
+    public void deltas_count_against_the_byte_budget_and_are_evicted_before_payloads() {
+        Payload base = payload("base", 10_000);
+        PayloadChecksums baseChecksums = PayloadChecksums.fromPayload(base);
+        long maxBytes = base.getData().getByteLength() + 10L * PayloadDeltaCache.deltaOverhead;
+        PayloadDeltaCache cache = new PayloadDeltaCache(maxBytes);
+        cache.put(baseChecksums, base);
+
+        for (int i = 0; i < 100; i++) {
+            Payload target = payload("target" + i, 10_000);
+            assertTrue(cache.delta(baseChecksums, PayloadChecksums.fromPayload(target), target).isPresent());
+            assertTrue(cache.bytes() <= maxBytes);
+        }
+        assertEquals(1, cache.payloadCount());
+        assertTrue(cache.deltaCount() > 0);
+        assertTrue(cache.deltaCount() < 10);
+
+        Payload other = payload("other", 10_000);
+        cache.put(PayloadChecksums.fromPayload(other), other);
+        assertEquals(0, cache.deltaCount());
+        assertEquals(1, cache.payloadCount());
+        assertEquals(other.getData().getByteLength(), cache.bytes());
+    }
+
+    private static Payload payload(String value, int size) {
+        Slime slime = new Slime();
+        Cursor root = slime.setObject();
+        root.setString("value", value);
+        Cursor array = root.setArray("entries");
+        for (int i = 0; i < size; i++)
+            array.addString("entry" + i);
+        return Payload.from(new ConfigPayload(slime));
+    }
+
+}
@@ -0,0 +1,34 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.handler.threadpool;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits the number of tasks which are running or waiting to run in a thread pool.
+ * A task must acquire a permit to be accepted, and releases it when it completes.
+ *
+ * @author bratseth
+ */
+class ConcurrencyLimiter {
+
+    private final int limit;
+    private final Semaphore permits;
+
+    ConcurrencyLimiter(int limit) {
+        if (limit < 1) throw new IllegalArgumentException("Concurrency limit must be positive, but was " + limit);
+        this.limit = limit;
+        this.permits = new Semaphore(limit);
+    }
+
+    /** Returns whether a permit was acquired, which must then be released when the task completes */
+    boolean tryAcquire() { return permits.tryAcquire(); }
+
+    void release() { permits.release(); }
+
+    /** Returns the max number of tasks which may be running or waiting at the same time */
+    int limit() { return limit; }
+
+    /** Returns the number of tasks which are currently running or waiting */
+    int tasks() { return limit - permits.availablePermits(); }
+
+}
@@ -10,9 +10,11 @@ import com.yahoo.jdisc.Metric;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
+import java.util.Optional;
 
 /**
  * Default implementation of {@link ContainerThreadPool}.
@@ -44,23 +46,36 @@ public class ContainerThreadpoolImpl extends AbstractComponent implements AutoCl
         String name = config.name();
         int maxThreads = maxThreads(config, cpus);
         int minThreads = minThreads(config, maxThreads, cpus);
-        int queueSize = queueSize(config, maxThreads);
-        log.info(String.format("Threadpool '%s': min=%d, max=%d, queue=%d", name, minThreads, maxThreads, queueSize));
-
+        int concurrencyLimit = concurrencyLimit(config, maxThreads);
         ThreadPoolMetric threadPoolMetric = new ThreadPoolMetric(metric, name);
-        WorkerCompletionTimingThreadPoolExecutor executor =
-                new WorkerCompletionTimingThreadPoolExecutor(minThreads, maxThreads,
-                        (long) config.keepAliveTime() * 1000, TimeUnit.MILLISECONDS,
-                        createQueue(queueSize),
-                        ThreadFactoryFactory.getThreadFactory(name),
-                        threadPoolMetric);
-        // Pre-start needed, if not all threads will be created by the fist N tasks and hence they might also
-        // get the dreaded thread locals initialized even if they will never run.
-        // That counters what we want to achieve with the Q that will prefer thread locality.
-        executor.prestartAllCoreThreads();
+        WorkerCompletionTimingThreadPoolExecutor executor;
+        if (concurrencyLimit > 0) {
+            log.info(String.format("Threadpool '%s': min=%d, max=%d, concurrency limit=%d", name, minThreads, maxThreads, concurrencyLimit));
+            // The queue is unbounded, so the pool will not grow beyond its core threads, which are therefore all
+            // the threads, and are started on demand and stopped when idle for too long
+            executor = new WorkerCompletionTimingThreadPoolExecutor(maxThreads, maxThreads,
+                                                                    (long) config.keepAliveTime() * 1000, TimeUnit.MILLISECONDS,
+                                                                    new LinkedBlockingQueue<>(),
+                                                                    ThreadFactoryFactory.getThreadFactory(name),
+                                                                    threadPoolMetric);
+            executor.allowCoreThreadTimeOut(true);
+        }
+        else {
+            int queueSize = queueSize(config, maxThreads);
+            log.info(String.format("Threadpool '%s': min=%d, max=%d, queue=%d", name, minThreads, maxThreads, queueSize));
+            executor = new WorkerCompletionTimingThreadPoolExecutor(minThreads, maxThreads,
+                                                                    (long) config.keepAliveTime() * 1000, TimeUnit.MILLISECONDS,
+                                                                    createQueue(queueSize),
+                                                                    ThreadFactoryFactory.getThreadFactory(name),
+                                                                    threadPoolMetric);
+            // Pre-start needed, if not all threads will be created by the fist N tasks and hence they might also
+            // get the dreaded thread locals initialized even if they will never run.
+            // That counters what we want to achieve with the Q that will prefer thread locality.
+            executor.prestartAllCoreThreads();
+        }
         threadpool = new ExecutorServiceWrapper(
                 executor, threadPoolMetric, processTerminator, config.maxThreadExecutionTimeSeconds() * 1000L,
-                name);
+                name, concurrencyLimit > 0 ? Optional.of(new ConcurrencyLimiter(concurrencyLimit)) : Optional.empty());
     }
 
     @Override public Executor executor() { return threadpool; }
@@ -110,4 +125,8 @@ public class ContainerThreadpoolImpl extends AbstractComponent implements AutoCl
         return config.queueSize() >= 0 ? config.queueSize() : Math.max(MIN_QUEUE_SIZE, Math.abs(config.queueSize()) * maxThreads);
     }
 
+    private static int concurrencyLimit(ContainerThreadpoolConfig config, int maxThreads) {
+        return config.concurrencyLimit() >= 0 ? config.concurrencyLimit() : Math.abs(config.concurrencyLimit()) * maxThreads;
+    }
+
 }
@@ -8,6 +8,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Optional;
 
 /**
  * A service executor wrapper which emits metrics and
@@ -27,6 +28,7 @@ class ExecutorServiceWrapper extends ForwardingExecutorService {
     private final int queueCapacity;
     private final Thread metricReporter;
     private final boolean threadPoolIsOnlyQ;
+    private final Optional<ConcurrencyLimiter> limiter;
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
     ExecutorServiceWrapper(WorkerCompletionTimingThreadPoolExecutor wrapped,
@@ -34,15 +36,28 @@ class ExecutorServiceWrapper extends ForwardingExecutorService {
                            ProcessTerminator processTerminator,
                            long maxThreadExecutionTimeMillis,
                            String name) {
+        this(wrapped, metric, processTerminator, maxThreadExecutionTimeMillis, name, Optional.empty());
+    }
+
+    /**
+     * Creates a wrapper which, if a limiter is given, rejects tasks beyond its limit, and reports
+     * the tasks running or waiting and the limit as the size and capacity of the work queue.
+     */
+    ExecutorServiceWrapper(WorkerCompletionTimingThreadPoolExecutor wrapped,
+                           ThreadPoolMetric metric,
+                           ProcessTerminator processTerminator,
+                           long maxThreadExecutionTimeMillis,
+                           String name,
+                           Optional<ConcurrencyLimiter> limiter) {
         this.wrapped = wrapped;
         this.metric = metric;
         this.processTerminator = processTerminator;
         this.maxThreadExecutionTimeMillis = maxThreadExecutionTimeMillis;
+        this.limiter = limiter;
         int maxQueueCapacity = wrapped.getQueue().remainingCapacity() + wrapped.getQueue().size();
         this.threadPoolIsOnlyQ = (maxQueueCapacity == 0);
-        this.queueCapacity = threadPoolIsOnlyQ
-                ? wrapped.getMaximumPoolSize()
-                : maxQueueCapacity;
+        this.queueCapacity = limiter.map(ConcurrencyLimiter::limit)
+                                    .orElse(threadPoolIsOnlyQ ? wrapped.getMaximumPoolSize() : maxQueueCapacity);
         reportMetrics();
         metricReporter = new Thread(this::reportMetricsRegularly);
         metricReporter.setName(name + "-threadpool-metric-reporter");
@@ -54,7 +69,8 @@ class ExecutorServiceWrapper extends ForwardingExecutorService {
         metric.reportThreadPoolSize(wrapped.getPoolSize());
         metric.reportMaxAllowedThreadPoolSize(wrapped.getMaximumPoolSize());
         metric.reportActiveThreads(activeThreads);
-        int queueSize = threadPoolIsOnlyQ ? activeThreads : wrapped.getQueue().size();
+        int queueSize = limiter.map(ConcurrencyLimiter::tasks)
+                               .orElse(threadPoolIsOnlyQ ? activeThreads : wrapped.getQueue().size());
         metric.reportWorkQueueSize(queueSize);
         metric.reportWorkQueueCapacity(queueCapacity);
     }
@@ -98,7 +114,10 @@ class ExecutorServiceWrapper extends ForwardingExecutorService {
     @Override
     public void execute(Runnable command) {
         try {
-            super.execute(command);
+            if (limiter.isPresent())
+                executeLimited(command, limiter.get());
+            else
+                super.execute(command);
         } catch (RejectedExecutionException e) {
             metric.reportRejectRequest();
             long timeSinceLastReturnedThreadMillis = System.currentTimeMillis() - wrapped.lastThreadAssignmentTimeMillis;
@@ -109,6 +128,24 @@ class ExecutorServiceWrapper extends ForwardingExecutorService {
         }
     }
 
+    private void executeLimited(Runnable command, ConcurrencyLimiter limiter) {
+        if ( ! limiter.tryAcquire())
+            throw new RejectedExecutionException("Already " + limiter.limit() + " tasks running or waiting");
+        try {
+            super.execute(() -> {
+                try {
+                    command.run();
+                }
+                finally {
+                    limiter.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            limiter.release();
+            throw e;
+        }
+    }
+
     @Override
     protected ExecutorService delegate() { return wrapped; }
 
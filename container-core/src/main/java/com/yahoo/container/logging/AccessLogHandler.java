@@ -2,6 +2,7 @@
 package com.yahoo.container.logging;
 
 import com.yahoo.container.core.AccessLogConfig;
+import com.yahoo.jdisc.Metric;
 
 /**
  * @author Bjorn Borud
@@ -10,10 +11,11 @@ class AccessLogHandler {
 
     private final LogFileHandler<RequestLogEntry> logFileHandler;
 
-    AccessLogHandler(AccessLogConfig.FileHandler config, LogWriter<RequestLogEntry> logWriter) {
+    AccessLogHandler(AccessLogConfig.FileHandler config, LogWriter<RequestLogEntry> logWriter, Metric metric) {
         logFileHandler = new LogFileHandler<>(
                 toCompression(config), config.bufferSize(), config.pattern(), config.rotation(),
-                config.symlink(), queueSize(config), "request-logger", logWriter);
+                config.symlink(), queueSize(config), toOverflow(config), "request-logger", logWriter,
+                new LogFileMetric(metric, "request-logger"));
     }
 
     private static int queueSize(AccessLogConfig.FileHandler config) {
@@ -35,6 +37,10 @@ class AccessLogHandler {
         }
     }
 
+    private static LogFileHandler.Overflow toOverflow(AccessLogConfig.FileHandler config) {
+        return LogFileHandler.Overflow.valueOf(config.overflow().name());
+    }
+
     void shutdown() {
         logFileHandler.close();
         logFileHandler.shutdown();
@@ -2,6 +2,8 @@
 
 package com.yahoo.container.logging;
 
+import com.yahoo.jdisc.Metric;
+
 /**
  * @author mortent
  */
@@ -9,7 +11,8 @@ class ConnectionLogHandler {
     private final LogFileHandler<ConnectionLogEntry> logFileHandler;
 
     public ConnectionLogHandler(String logDirectoryName, int bufferSize, String clusterName,
-                                int queueSize, LogWriter<ConnectionLogEntry> logWriter, boolean useClusterIdInFileName) {
+                                int queueSize, LogFileHandler.Overflow overflow, LogWriter<ConnectionLogEntry> logWriter,
+                                boolean useClusterIdInFileName, Metric metric) {
         logFileHandler = new LogFileHandler<>(
                 LogFileHandler.Compression.ZSTD,
                 bufferSize,
@@ -19,8 +22,10 @@ class ConnectionLogHandler {
                 useClusterIdInFileName ? String.format("ConnectionLog.%s", clusterName) :
                                           "ConnectionLog",
                 queueSize,
+                overflow,
                 "connection-logger",
-                logWriter);
+                logWriter,
+                new LogFileMetric(metric, "connection-logger"));
     }
 
     public void log(ConnectionLogEntry entry) {
@@ -4,6 +4,7 @@ package com.yahoo.container.logging;
 
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.component.AbstractComponent;
+import com.yahoo.jdisc.Metric;
 
 /**
  * @author mortent
@@ -13,9 +14,10 @@ public class FileConnectionLog extends AbstractComponent implements ConnectionLo
     private final ConnectionLogHandler logHandler;
 
     @Inject
-    public FileConnectionLog(ConnectionLogConfig config) {
+    public FileConnectionLog(ConnectionLogConfig config, Metric metric) {
         logHandler = new ConnectionLogHandler(config.logDirectoryName(), config.bufferSize(), config.cluster(),
-                queueSize(config), new JsonConnectionLogWriter(), config.useClusterIdInFileName());
+                queueSize(config), LogFileHandler.Overflow.valueOf(config.overflow().name()), new JsonConnectionLogWriter(),
+                config.useClusterIdInFileName(), metric);
     }
 
     private static int queueSize(ConnectionLogConfig config) {
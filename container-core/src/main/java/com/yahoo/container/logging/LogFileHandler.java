@@ -26,7 +26,10 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPOutputStream;
@@ -34,6 +37,11 @@ import java.util.zip.GZIPOutputStream;
 /**
  * Implements log file naming/rotating logic for container logs.
  *
+ * Log entries are passed to the writer thread through a preallocated, lock-free ring buffer, so publishing
+ * an entry never takes a lock, and does not block unless the {@link Overflow} policy says so.
+ * Flush, rotate and close operations, which are rare, and which callers wait for, use a separate queue,
+ * and are handled after all entries published before them are written.
+ *
  * @author Bob Travis
  * @author bjorncs
  */
@@ -41,12 +49,26 @@ class LogFileHandler <LOGTYPE> {
 
     enum Compression {NONE, GZIP, ZSTD}
 
+    /** What to do with entries published when the queue is full */
+    enum Overflow {
+        /** Wait for the writer thread to make room */
+        BLOCK,
+        /** Drop the entry */
+        DROP,
+        /** Drop the entry, and keep only a sample of entries while the queue is more than half full */
+        SAMPLE
+    }
+
+    /** One in this many entries is kept by {@link Overflow#SAMPLE} while the queue is more than half full */
+    private static final int sampleRate = 10;
+
     private final static Logger logger = Logger.getLogger(LogFileHandler.class.getName());
-    private final BlockingQueue<Operation<LOGTYPE>> logQueue;
+    private final LogRingBuffer<LOGTYPE> logBuffer;
+    private final BlockingQueue<Operation<LOGTYPE>> operations = new LinkedBlockingQueue<>();
+    private final Overflow overflow;
+    private final LongAdder dropped = new LongAdder();
     final LogThread<LOGTYPE> logThread;
 
-    @FunctionalInterface private interface Pollable<T> { Operation<T> poll() throws InterruptedException; }
-
     LogFileHandler(Compression compression, int bufferSize, String filePattern, String rotationTimes, String symlinkName,
                    int queueSize, String threadName, LogWriter<LOGTYPE> logWriter) {
         this(compression, bufferSize, filePattern, calcTimesMinutes(rotationTimes), symlinkName, queueSize, threadName, logWriter);
@@ -54,13 +76,23 @@ class LogFileHandler <LOGTYPE> {
 
     LogFileHandler(Compression compression, int bufferSize, String filePattern, long[] rotationTimes, String symlinkName,
                    int queueSize, String threadName, LogWriter<LOGTYPE> logWriter) {
-        this.logQueue = new LinkedBlockingQueue<>(queueSize);
-        this.logThread = new LogThread<>(logWriter, filePattern, compression, bufferSize, rotationTimes, symlinkName, threadName, this::poll);
-        this.logThread.start();
+        this(compression, bufferSize, filePattern, rotationTimes, symlinkName, queueSize, Overflow.BLOCK, threadName,
+             logWriter, LogFileMetric.none);
+    }
+
+    LogFileHandler(Compression compression, int bufferSize, String filePattern, String rotationTimes, String symlinkName,
+                   int queueSize, Overflow overflow, String threadName, LogWriter<LOGTYPE> logWriter, LogFileMetric metric) {
+        this(compression, bufferSize, filePattern, calcTimesMinutes(rotationTimes), symlinkName, queueSize, overflow,
+             threadName, logWriter, metric);
     }
 
-    private Operation<LOGTYPE> poll() throws InterruptedException {
-        return logQueue.poll(100, TimeUnit.MILLISECONDS);
+    LogFileHandler(Compression compression, int bufferSize, String filePattern, long[] rotationTimes, String symlinkName,
+                   int queueSize, Overflow overflow, String threadName, LogWriter<LOGTYPE> logWriter, LogFileMetric metric) {
+        this.logBuffer = new LogRingBuffer<>(queueSize);
+        this.overflow = overflow;
+        this.logThread = new LogThread<>(logWriter, filePattern, compression, bufferSize, rotationTimes, symlinkName, threadName,
+                                         logBuffer, operations, dropped, metric);
+        this.logThread.start();
     }
 
     /**
@@ -69,7 +101,19 @@ class LogFileHandler <LOGTYPE> {
      * @param r logrecord to publish
      */
     public void publish(LOGTYPE r) {
-        addOperation(new Operation<>(r));
+        if (overflow == Overflow.SAMPLE && logBuffer.size() > logBuffer.capacity() / 2
+            && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            dropped.increment();
+            return;
+        }
+        while ( ! logBuffer.offer(r)) {
+            if (overflow != Overflow.BLOCK) {
+                dropped.increment();
+                return;
+            }
+            if (Thread.currentThread().isInterrupted()) return;
+            LockSupport.parkNanos(100_000);
+        }
     }
 
     void publishAndWait(LOGTYPE r) {
@@ -91,16 +135,9 @@ class LogFileHandler <LOGTYPE> {
         addOperationAndWait(new Operation<>(Operation.Type.close));
     }
 
-    private void addOperation(Operation<LOGTYPE> op) {
-        try {
-            logQueue.put(op);
-        } catch (InterruptedException e) {
-        }
-    }
-
     private void addOperationAndWait(Operation<LOGTYPE> op) {
         try {
-            logQueue.put(op);
+            operations.put(op);
             op.countDownLatch.await();
         } catch (InterruptedException e) {
         }
@@ -183,8 +220,16 @@ class LogFileHandler <LOGTYPE> {
      * Handle logging and file operations
      */
     static class LogThread<LOGTYPE> extends Thread {
-        private final Pollable<LOGTYPE> operationProvider;
+
+        /** Max number of entries written before checking for other operations */
+        private static final int maxBatchSize = 1024;
+
+        private final LogRingBuffer<LOGTYPE> logBuffer;
+        private final BlockingQueue<Operation<LOGTYPE>> operations;
+        private final LongAdder dropped;
+        private final LogFileMetric metric;
         long lastFlush = 0;
+        private long lastMetricsReport = 0;
         private PageCacheFriendlyFileOutputStream fileOutput = null;
         private long nextRotationTime = 0;
         private final String filePattern;  // default to current directory, ms time stamp
@@ -205,7 +250,10 @@ class LogFileHandler <LOGTYPE> {
                   long[] rotationTimes,
                   String symlinkName,
                   String threadName,
-                  Pollable<LOGTYPE> operationProvider) {
+                  LogRingBuffer<LOGTYPE> logBuffer,
+                  BlockingQueue<Operation<LOGTYPE>> operations,
+                  LongAdder dropped,
+                  LogFileMetric metric) {
             super(threadName);
             setDaemon(true);
             this.logWriter = logWriter;
@@ -214,7 +262,10 @@ class LogFileHandler <LOGTYPE> {
             this.bufferSize = bufferSize;
             this.rotationTimes = rotationTimes;
             this.symlinkName = (symlinkName != null && !symlinkName.isBlank()) ? symlinkName : null;
-            this.operationProvider = operationProvider;
+            this.logBuffer = logBuffer;
+            this.operations = operations;
+            this.dropped = dropped;
+            this.metric = metric;
         }
 
         private static ExecutorService createCompressionTaskExecutor() {
@@ -240,8 +291,11 @@ class LogFileHandler <LOGTYPE> {
 
         private void handleLogOperations() throws InterruptedException {
             while (!isInterrupted()) {
-                Operation<LOGTYPE> r = operationProvider.poll();
+                boolean wrote = writeBatch();
+                // Wait a little for more entries when idle, to write them in batches.
+                Operation<LOGTYPE> r = wrote ? operations.poll() : operations.poll(10, TimeUnit.MILLISECONDS);
                 if (r != null) {
+                    while (writeBatch()) { } // Write all entries published before this operation.
                     if (r.type == Operation.Type.flush) {
                         internalFlush();
                     } else if (r.type == Operation.Type.close) {
@@ -254,12 +308,38 @@ class LogFileHandler <LOGTYPE> {
                         flushIfOld(3, TimeUnit.SECONDS);
                     }
                     r.countDownLatch.countDown();
-                } else {
+                } else if ( ! wrote) {
                     flushIfOld(100, TimeUnit.MILLISECONDS);
                 }
+                reportMetricsIfOld(1, TimeUnit.SECONDS);
             }
         }
 
+        /** Writes the entries in the buffer, up to a max batch size, and returns whether there were any. */
+        private boolean writeBatch() {
+            LOGTYPE entry = logBuffer.poll();
+            if (entry == null) return false;
+
+            long startNanos = System.nanoTime();
+            int written = 0;
+            do {
+                internalPublish(entry);
+            } while (++written < maxBatchSize && (entry = logBuffer.poll()) != null);
+            metric.reportWriteLatency((System.nanoTime() - startNanos) / 1e6);
+            flushIfOld(3, TimeUnit.SECONDS);
+            return true;
+        }
+
+        private void reportMetricsIfOld(long age, TimeUnit unit) {
+            long now = System.nanoTime();
+            if (now - lastMetricsReport < unit.toNanos(age)) return;
+
+            lastMetricsReport = now;
+            metric.reportQueueFill((double) logBuffer.size() / logBuffer.capacity());
+            long droppedSinceLast = dropped.sumThenReset();
+            if (droppedSinceLast > 0) metric.reportDropped(droppedSinceLast);
+        }
+
         private void flushIfOld(long age, TimeUnit unit) {
             long now = System.nanoTime();
             if (TimeUnit.NANOSECONDS.toMillis(now - lastFlush) > unit.toMillis(age)) {
@@ -0,0 +1,43 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.logging;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.jdisc.Metric;
+
+import java.util.Map;
+
+/**
+ * Metrics for the queue and writer thread of a {@link LogFileHandler}.
+ */
+class LogFileMetric {
+
+    private static final String LOGGER_DIMENSION = "logger";
+
+    /** Does not report anything */
+    static final LogFileMetric none = new LogFileMetric(null, (Metric.Context) null);
+
+    private final Metric metric;
+    private final Metric.Context context;
+
+    private LogFileMetric(Metric metric, Metric.Context context) {
+        this.metric = metric;
+        this.context = context;
+    }
+
+    LogFileMetric(Metric metric, String loggerName) {
+        this(metric, metric.createContext(Map.of(LOGGER_DIMENSION, loggerName)));
+    }
+
+    void reportQueueFill(double fill) {
+        if (metric != null) metric.set(ContainerMetrics.JDISC_LOGGING_QUEUE_FILL.baseName(), fill, context);
+    }
+
+    void reportDropped(long entries) {
+        if (metric != null) metric.add(ContainerMetrics.JDISC_LOGGING_DROPPED.baseName(), entries, context);
+    }
+
+    void reportWriteLatency(double millis) {
+        if (metric != null) metric.set(ContainerMetrics.JDISC_LOGGING_WRITE_LATENCY.baseName(), millis, context);
+    }
+
+}
@@ -0,0 +1,77 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free queue of log entries, with many producers and a single consumer.
+ * All slots are allocated up front, and a producer never blocks: {@link #offer} fails when the buffer is full.
+ *
+ * Each slot has a sequence number, which tells whether it is ready to be written at a given position,
+ * or ready to be read at that position, so producers only contend on the write position.
+ */
+class LogRingBuffer<T> {
+
+    private final int capacity;
+    private final Object[] entries;
+    private final AtomicLongArray sequences;
+    private final AtomicLong writePosition = new AtomicLong(0);
+    private final AtomicLong readPosition = new AtomicLong(0);
+
+    LogRingBuffer(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive, but was " + capacity);
+        this.capacity = capacity;
+        this.entries = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++)
+            sequences.set(i, i);
+    }
+
+    /** Adds the given entry, and returns true, or returns false if the buffer is full. */
+    boolean offer(T entry) {
+        long position = writePosition.get();
+        while (true) {
+            long sequence = sequences.get(index(position));
+            if (sequence == position) {
+                if (writePosition.compareAndSet(position, position + 1)) break;
+                position = writePosition.get();
+            }
+            else if (sequence < position) {
+                return false; // The entry written one lap ago is not yet read.
+            }
+            else {
+                position = writePosition.get(); // Another producer took this slot.
+            }
+        }
+        entries[index(position)] = entry;
+        sequences.lazySet(index(position), position + 1);
+        return true;
+    }
+
+    /** Removes and returns the oldest entry, or returns null if the buffer is empty. Must be called by one thread only. */
+    @SuppressWarnings("unchecked")
+    T poll() {
+        long position = readPosition.get();
+        int index = index(position);
+        if (sequences.get(index) != position + 1) return null;
+
+        T entry = (T) entries[index];
+        entries[index] = null;
+        sequences.lazySet(index, position + capacity);
+        readPosition.lazySet(position + 1);
+        return entry;
+    }
+
+    /** Returns the approximate number of entries in this. */
+    int size() {
+        return (int) Math.max(0, Math.min(capacity, writePosition.get() - readPosition.get()));
+    }
+
+    int capacity() { return capacity; }
+
+    private int index(long position) {
+        return (int) (position % capacity);
+    }
+
+}
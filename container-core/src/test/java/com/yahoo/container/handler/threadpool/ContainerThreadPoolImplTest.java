@@ -10,11 +10,14 @@ import com.yahoo.jdisc.Metric;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 /**
@@ -116,6 +119,44 @@ public class ContainerThreadPoolImplTest {
         assertEquals(CPUS * 4 * 100, executor.getQueue().remainingCapacity());
     }
 
+    @Test
+    void testThatConcurrencyLimitReplacesQueueSize() throws InterruptedException {
+        MetricMock metrics = new MetricMock();
+        ContainerThreadpoolConfig config = new ContainerThreadpoolConfig(new ContainerThreadpoolConfig.Builder()
+                                                                                 .maxThreads(2)
+                                                                                 .queueSize(1)
+                                                                                 .concurrencyLimit(5));
+        ContainerThreadpoolImpl threadPool = new ContainerThreadpoolImpl(config, metrics, new MockProcessTerminator(), CPUS);
+        ExecutorServiceWrapper wrapper = (ExecutorServiceWrapper) threadPool.executor();
+        assertEquals(5L, metrics.innvocations().get(ContainerMetrics.JDISC_THREAD_POOL_WORK_QUEUE_CAPACITY.baseName()).val);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++)
+            wrapper.execute(() -> {
+                try { release.await(); } catch (InterruptedException e) { }
+                completed.countDown();
+            });
+        assertRejected(threadPool, new Hang(0));
+        assertEquals(1L, metrics.innvocations().get(ContainerMetrics.JDISC_THREAD_POOL_REJECTED_TASKS.baseName()).val);
+        assertEquals(2, ((ThreadPoolExecutor) wrapper.delegate()).getPoolSize());
+
+        release.countDown();
+        assertTrue(completed.await(60, TimeUnit.SECONDS));
+        for (int i = 0; i < 100 && ! tryExecute(wrapper); i++)
+            Thread.sleep(10); // Permits are released just after the tasks complete
+        threadPool.close();
+    }
+
+    private static boolean tryExecute(Executor executor) {
+        try {
+            executor.execute(new Hang(0));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
     private static class FlipIt implements Runnable {
         public final Receiver<Boolean> didItRun = new Receiver<>();
 
@@ -1,8 +1,11 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.container.logging;
 
+import ai.vespa.metrics.ContainerMetrics;
 import com.yahoo.compress.ZstdCompressor;
 import com.yahoo.container.logging.LogFileHandler.Compression;
+import com.yahoo.container.logging.LogFileHandler.Overflow;
+import com.yahoo.container.test.MetricMock;
 import com.yahoo.io.IOUtils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
@@ -18,6 +21,8 @@ import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.function.BiFunction;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
@@ -206,6 +211,38 @@ public class LogFileHandlerTestCase {
         h.shutdown();
     }
 
+    @Test
+    @Timeout(300_000)
+    void drops_entries_when_queue_is_full() throws IOException, InterruptedException {
+        File logFile = File.createTempFile("testLogFileDrop.txt", null, temporaryFolder);
+        CountDownLatch writing = new CountDownLatch(1), stalled = new CountDownLatch(1);
+        LogWriter<String> stallingWriter = (record, out) -> {
+            if (record.equals("stall")) {
+                writing.countDown();
+                try { stalled.await(); } catch (InterruptedException e) { throw new RuntimeException(e); }
+            }
+            out.write(record.getBytes(StandardCharsets.UTF_8));
+        };
+        MetricMock metric = new MetricMock();
+        LogFileHandler<String> h = new LogFileHandler<>(Compression.NONE, BUFFER_SIZE, logFile.getAbsolutePath(), "0 5 ...", null, 4,
+                                                        Overflow.DROP, "thread-name", stallingWriter, new LogFileMetric(metric, "test-logger"));
+
+        // Publishing does not block while the writer is stalled, e.g., by a slow disk, but drops what does not fit in the queue.
+        h.publish("stall");
+        writing.await();
+        for (int i = 0; i < 10; i++)
+            h.publish("entry " + i);
+        stalled.countDown();
+        h.flush();
+        assertEquals(List.of("stall", "entry 0", "entry 1", "entry 2", "entry 3"), Files.readAllLines(logFile.toPath()));
+
+        while ( ! metric.innvocations().containsKey(ContainerMetrics.JDISC_LOGGING_DROPPED.baseName()))
+            Thread.sleep(10);
+        assertEquals(6L, metric.innvocations().get(ContainerMetrics.JDISC_LOGGING_DROPPED.baseName()).val);
+        assertTrue(metric.innvocations().containsKey(ContainerMetrics.JDISC_LOGGING_WRITE_LATENCY.baseName()));
+        h.shutdown();
+    }
+
     static class StringLogWriter implements LogWriter<String> {
 
         @Override
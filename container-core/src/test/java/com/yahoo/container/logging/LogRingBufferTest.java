@@ -0,0 +1,62 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogRingBufferTest {
+
+    @Test
+    void testOfferAndPoll() {
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(3);
+        assertNull(buffer.poll());
+        for (int lap = 0; lap < 3; lap++) {
+            assertTrue(buffer.offer(1));
+            assertTrue(buffer.offer(2));
+            assertTrue(buffer.offer(3));
+            assertFalse(buffer.offer(4));
+            assertEquals(3, buffer.size());
+            assertEquals(1, buffer.poll());
+            assertTrue(buffer.offer(5));
+            assertEquals(2, buffer.poll());
+            assertEquals(3, buffer.poll());
+            assertEquals(5, buffer.poll());
+            assertNull(buffer.poll());
+            assertEquals(0, buffer.size());
+        }
+    }
+
+    @Test
+    void testConcurrentProducers() throws InterruptedException {
+        int producers = 4, entries = 100_000;
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(100);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < entries; i++)
+                    while ( ! buffer.offer(producer * entries + i)) Thread.onSpinWait();
+            }));
+        }
+        threads.forEach(Thread::start);
+
+        // Entries from each producer arrive in order, and none are lost.
+        int[] next = new int[producers];
+        for (int polled = 0; polled < producers * entries; ) {
+            Integer entry = buffer.poll();
+            if (entry == null) continue;
+            assertEquals(next[entry / entries]++, entry % entries);
+            polled++;
+        }
+        for (Thread thread : threads) thread.join();
+        assertNull(buffer.poll());
+    }
+
+}
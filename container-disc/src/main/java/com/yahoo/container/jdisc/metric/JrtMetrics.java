@@ -33,6 +33,13 @@ class JrtMetrics {
         increment(ContainerMetrics.JRT_TRANSPORT_CLIENT_TLS_CONNECTIONS_ESTABLISHED.baseName(), changesSincePrevious.clientTlsConnectionsEstablished());
         increment(ContainerMetrics.JRT_TRANSPORT_CLIENT_UNENCRYPTED_CONNECTIONS_ESTABLISHED.baseName(), changesSincePrevious.serverUnencryptedConnectionsEstablished());
         increment(ContainerMetrics.JRT_TRANSPORT_CLIENT_UNENCRYPTED_CONNECTIONS_ESTABLISHED.baseName(), changesSincePrevious.clientUnencryptedConnectionsEstablished());
+        increment(ContainerMetrics.JRT_TRANSPORT_DIRECT_BUFFERS_ALLOCATED.baseName(), changesSincePrevious.directBuffersAllocated());
+        increment(ContainerMetrics.JRT_TRANSPORT_DIRECT_BUFFER_BYTES_ALLOCATED.baseName(), changesSincePrevious.directBufferBytesAllocated());
+        increment(ContainerMetrics.JRT_TRANSPORT_HEAP_BUFFERS_ALLOCATED.baseName(), changesSincePrevious.heapBuffersAllocated());
+        increment(ContainerMetrics.JRT_TRANSPORT_HEAP_BUFFER_BYTES_ALLOCATED.baseName(), changesSincePrevious.heapBufferBytesAllocated());
+        increment(ContainerMetrics.JRT_TRANSPORT_BUFFER_POOL_HITS.baseName(), changesSincePrevious.bufferPoolHits());
+        increment(ContainerMetrics.JRT_TRANSPORT_BYTES_READ.baseName(), changesSincePrevious.bytesRead());
+        increment(ContainerMetrics.JRT_TRANSPORT_BYTES_WRITTEN.baseName(), changesSincePrevious.bytesWritten());
         previousSnapshot = snapshot;
     }
 
@@ -6,6 +6,7 @@ import com.yahoo.component.ComponentId;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.compress.Compressor;
 import com.yahoo.container.handler.VipStatus;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.prelude.fastsearch.VespaBackend;
 import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.Query;
@@ -61,6 +62,8 @@ public class Dispatcher extends AbstractComponent {
     private final RpcConnectionPool rpcResourcePool;
     private final SearchCluster searchCluster;
     private final ClusterMonitor<Node> clusterMonitor;
+    private final Metric metric;
+    private final HedgingPolicy hedgingPolicy;
     private volatile VolatileItems volatileItems;
 
     private static class VolatileItems {
@@ -110,33 +113,57 @@ public class Dispatcher extends AbstractComponent {
         InvokerFactory create(RpcConnectionPool rpcConnectionPool, SearchGroups searchGroups, DispatchConfig dispatchConfig);
     }
 
-    @Inject
     public Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, DispatchNodesConfig nodesConfig, VipStatus vipStatus) {
-        this(clusterId, dispatchConfig, new RpcResourcePool(dispatchConfig, nodesConfig), nodesConfig, vipStatus, RpcInvokerFactory::new);
+        this(clusterId, dispatchConfig, nodesConfig, vipStatus, null);
+    }
+
+    @Inject
+    public Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, DispatchNodesConfig nodesConfig, VipStatus vipStatus, Metric metric) {
+        this(clusterId, dispatchConfig, new RpcResourcePool(dispatchConfig, nodesConfig), nodesConfig, vipStatus, RpcInvokerFactory::new, metric);
         initialWarmup(dispatchConfig.warmuptime());
     }
 
     Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
                DispatchNodesConfig nodesConfig, VipStatus vipStatus, InvokerFactoryFactory invokerFactories) {
+        this(clusterId, dispatchConfig, rpcConnectionPool, nodesConfig, vipStatus, invokerFactories, null);
+    }
+
+    private Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
+                       DispatchNodesConfig nodesConfig, VipStatus vipStatus, InvokerFactoryFactory invokerFactories, Metric metric) {
         this(dispatchConfig, rpcConnectionPool,
              new SearchCluster(clusterId.stringValue(), dispatchConfig.minActivedocsPercentage(),
                                toNodes(clusterId.stringValue(), nodesConfig), vipStatus, new RpcPingFactory(rpcConnectionPool)),
-             invokerFactories);
+             invokerFactories, metric);
     }
 
     Dispatcher(DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
                SearchCluster searchCluster, InvokerFactoryFactory invokerFactories) {
-        this(dispatchConfig, rpcConnectionPool, searchCluster, new ClusterMonitor<>(searchCluster, false), invokerFactories);
+        this(dispatchConfig, rpcConnectionPool, searchCluster, invokerFactories, null);
+    }
+
+    private Dispatcher(DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
+                       SearchCluster searchCluster, InvokerFactoryFactory invokerFactories, Metric metric) {
+        this(dispatchConfig, rpcConnectionPool, searchCluster, new ClusterMonitor<>(searchCluster, false), invokerFactories, metric);
         this.clusterMonitor.start(); // Populate nodes to monitor before starting it.
     }
 
     Dispatcher(DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
                SearchCluster searchCluster, ClusterMonitor<Node> clusterMonitor, InvokerFactoryFactory invokerFactories) {
+        this(dispatchConfig, rpcConnectionPool, searchCluster, clusterMonitor, invokerFactories, null);
+    }
+
+    private Dispatcher(DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool, SearchCluster searchCluster,
+                       ClusterMonitor<Node> clusterMonitor, InvokerFactoryFactory invokerFactories, Metric metric) {
         this.dispatchConfig = dispatchConfig;
         this.rpcResourcePool = rpcConnectionPool;
         this.searchCluster = searchCluster;
         this.invokerFactories = invokerFactories;
         this.clusterMonitor = clusterMonitor;
+        this.metric = metric;
+        this.hedgingPolicy = dispatchConfig.hedging().enabled()
+                             ? new HedgingPolicy(dispatchConfig.hedging().latencyPercentile(), dispatchConfig.hedging().maxFraction(),
+                                                 metric, searchCluster.name())
+                             : null;
         this.volatileItems = update();
         searchCluster.addMonitoring(clusterMonitor);
     }
@@ -200,7 +227,8 @@ public class Dispatcher extends AbstractComponent {
     }
 
     private VolatileItems update() {
-        return new VolatileItems(new LoadBalancer(searchCluster.groupList().groups(), toLoadBalancerPolicy(dispatchConfig.distributionPolicy())),
+        return new VolatileItems(new LoadBalancer(searchCluster.groupList().groups(), toLoadBalancerPolicy(dispatchConfig.distributionPolicy()),
+                                                  metric, searchCluster.name()),
                                  invokerFactories.create(rpcResourcePool, searchCluster.groupList(), dispatchConfig));
     }
 
@@ -227,6 +255,7 @@ public class Dispatcher extends AbstractComponent {
             case BEST_OF_RANDOM_2 -> LoadBalancer.Policy.BEST_OF_RANDOM_2;
             case ADAPTIVE,LATENCY_AMORTIZED_OVER_REQUESTS -> LoadBalancer.Policy.LATENCY_AMORTIZED_OVER_REQUESTS;
             case LATENCY_AMORTIZED_OVER_TIME -> LoadBalancer.Policy.LATENCY_AMORTIZED_OVER_TIME;
+            case LEAST_EXPECTED_COMPLETION_TIME -> LoadBalancer.Policy.LEAST_EXPECTED_COMPLETION_TIME;
         };
     }
     private static List<Node> toNodes(String clusterName, DispatchNodesConfig nodesConfig) {
@@ -266,7 +295,8 @@ public class Dispatcher extends AbstractComponent {
         try (var items = volatileItems()) { // Take a snapshot, and release it when we're done.
             int maxHitsPerNode = dispatchConfig.maxHitsPerNode();
             SearchInvoker invoker = getSearchPathInvoker(query, searcher, searchCluster.groupList(), items.get().invokerFactory, maxHitsPerNode)
-                    .orElseGet(() -> getInternalInvoker(query, searcher, searchCluster, items.get().loadBalancer, items.get().invokerFactory, maxHitsPerNode));
+                    .orElseGet(() -> getInternalInvoker(query, searcher, searchCluster, items.get().loadBalancer, items.get().invokerFactory,
+                                                        maxHitsPerNode, hedgingPolicy));
 
             if (query.properties().getBoolean(com.yahoo.search.query.Model.ESTIMATE)) {
                 query.setHits(0);
@@ -298,7 +328,8 @@ public class Dispatcher extends AbstractComponent {
     }
 
     private static SearchInvoker getInternalInvoker(Query query, VespaBackend searcher, SearchCluster cluster,
-                                                    LoadBalancer loadBalancer, InvokerFactory invokerFactory, int maxHitsPerNode) {
+                                                    LoadBalancer loadBalancer, InvokerFactory invokerFactory, int maxHitsPerNode,
+                                                    HedgingPolicy hedgingPolicy) {
         Optional<Node> directNode = cluster.localCorpusDispatchTarget();
         if (directNode.isPresent()) {
             Node node = directNode.get();
@@ -330,6 +361,18 @@ public class Dispatcher extends AbstractComponent {
                 query.trace(false, 2, "Dispatching to group ", group.id(), " after retries = ", i);
                 query.getModel().setSearchPath("/" + group.id());
                 invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group, success, time));
+                if (hedgingPolicy != null) {
+                    // Record the latency of all queries, also those which time out or are not hedged
+                    invoker.get().teardown((success, time) -> hedgingPolicy.recordLatency(time.duration().toNanos()));
+                    long hedgeDelayNanos = hedgingPolicy.queryStarted();
+                    if (hedgeDelayNanos >= 0 && groups > 1) {
+                        Set<Integer> rejectedForHedge = rejected == null ? new HashSet<>() : new HashSet<>(rejected);
+                        rejectedForHedge.add(group.id());
+                        return new HedgingSearchInvoker(invoker.get(), hedgingPolicy, hedgeDelayNanos,
+                                                        () -> getHedgeInvoker(query, searcher, loadBalancer, invokerFactory,
+                                                                              maxHitsPerNode, rejectedForHedge));
+                    }
+                }
                 return invoker.get();
             } else {
                 loadBalancer.releaseGroup(group, false, RequestDuration.of(Duration.ZERO));
@@ -342,6 +385,25 @@ public class Dispatcher extends AbstractComponent {
         throw new IllegalStateException("No suitable groups to dispatch query. Rejected: " + rejected);
     }
 
+    /** Returns an invoker for a group with sufficient coverage which is not rejected, if any */
+    private static Optional<HedgingSearchInvoker.Hedge> getHedgeInvoker(Query query, VespaBackend searcher, LoadBalancer loadBalancer,
+                                                                        InvokerFactory invokerFactory, int maxHitsPerNode,
+                                                                        Set<Integer> rejected) {
+        Optional<Group> groupInCluster = loadBalancer.takeGroup(rejected);
+        if (groupInCluster.isEmpty()) return Optional.empty();
+
+        Group group = groupInCluster.get();
+        Optional<SearchInvoker> invoker = group.hasSufficientCoverage()
+                                          ? invokerFactory.createSearchInvoker(searcher, query, group.nodes(), false, maxHitsPerNode)
+                                          : Optional.empty();
+        if (invoker.isEmpty()) {
+            loadBalancer.releaseGroup(group, false, RequestDuration.of(Duration.ZERO));
+            return Optional.empty();
+        }
+        invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group, success, time));
+        return Optional.of(new HedgingSearchInvoker.Hedge(invoker.get(), group.id()));
+    }
+
     /**
      * We want to avoid groups blocking feed because their data may be out of date.
      * If there is a single group blocking feed, we want to reject it.
@@ -0,0 +1,97 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.jdisc.Metric;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Decides when a query should also be sent to a second group, from the latencies of recent queries,
+ * and limits such hedged queries to a fraction of all queries.
+ *
+ * This class is thread safe.
+ */
+class HedgingPolicy {
+
+    /** The number of recent query latencies the latency percentile is computed from */
+    static final int SAMPLES = 1000;
+
+    /** The number of latencies which must be recorded before any query is hedged */
+    static final int MIN_SAMPLES = 100;
+
+    /** The max number of hedged queries which may be sent in a burst, after a period without hedging */
+    static final double MAX_BUDGET = 10;
+
+    private static final int SAMPLES_BETWEEN_PERCENTILE_UPDATES = 100;
+
+    private final double latencyPercentile;
+    private final double maxFraction;
+    private final Metric metric;
+    private final Metric.Context metricContext;
+
+    private final long[] latencies = new long[SAMPLES];
+    private long recorded = 0;
+    private long hedgeDelayNanos = -1;
+    private double budget = 0;
+
+    HedgingPolicy(double latencyPercentile, double maxFraction, Metric metric, String clusterName) {
+        if (latencyPercentile <= 0 || latencyPercentile > 100)
+            throw new IllegalArgumentException("Hedging latency percentile must be in (0, 100], got " + latencyPercentile);
+        this.latencyPercentile = latencyPercentile;
+        this.maxFraction = maxFraction;
+        this.metric = metric;
+        this.metricContext = metric == null ? null : metric.createContext(Map.of("clusterId", clusterName));
+    }
+
+    /**
+     * Registers a new query, which adds to the budget for hedged queries.
+     *
+     * @return the time in nanoseconds after which the query should be hedged, or -1 if it should not be
+     */
+    synchronized long queryStarted() {
+        budget = Math.min(MAX_BUDGET, budget + maxFraction);
+        return hedgeDelayNanos;
+    }
+
+    /** Returns whether a query may be hedged now, and if so, deducts it from the budget */
+    synchronized boolean tryHedge() {
+        if (budget < 1) return false;
+        budget -= 1;
+        return true;
+    }
+
+    /** Returns a hedged query allowed by {@link #tryHedge} to the budget, as it could not be sent */
+    synchronized void hedgeNotSent() {
+        budget = Math.min(MAX_BUDGET, budget + 1);
+    }
+
+    /**
+     * Records the time a query to a first group took until its invoker was closed. This includes queries which timed out,
+     * and for hedged queries which were answered by the second group, the time until that answer.
+     */
+    synchronized void recordLatency(long nanos) {
+        latencies[(int) (recorded++ % SAMPLES)] = nanos;
+        if (recorded >= MIN_SAMPLES && recorded % SAMPLES_BETWEEN_PERCENTILE_UPDATES == 0)
+            hedgeDelayNanos = percentile();
+    }
+
+    void hedged() {
+        if (metric != null)
+            metric.add(ContainerMetrics.DISPATCH_HEDGED_QUERIES.baseName(), 1, metricContext);
+    }
+
+    void hedgeWon() {
+        if (metric != null)
+            metric.add(ContainerMetrics.DISPATCH_HEDGE_WINS.baseName(), 1, metricContext);
+    }
+
+    private long percentile() {
+        long[] sorted = Arrays.copyOf(latencies, (int) Math.min(recorded, SAMPLES));
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(latencyPercentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+}
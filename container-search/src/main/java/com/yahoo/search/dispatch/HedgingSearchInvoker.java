@@ -0,0 +1,126 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A search invoker which sends the query to a second group if the first has not answered
+ * within the delay given by the {@link HedgingPolicy}. If the second group then answers completely and without
+ * errors before the first, within another such delay, its result is used, and the invoker of the first group is
+ * closed and its answer discarded. In all other cases, the invoker of the first
+ * group produces the result, and decides how long to wait for its nodes, as it would without hedging.
+ */
+class HedgingSearchInvoker extends SearchInvoker implements ResponseMonitor<SearchInvoker> {
+
+    /** An invoker for a second group, with the id of that group */
+    record Hedge(SearchInvoker invoker, int groupId) { }
+
+    private final SearchInvoker primary;
+    private final HedgingPolicy policy;
+    private final long hedgeDelayNanos;
+    private final Supplier<Optional<Hedge>> hedgeFactory;
+    private final LinkedBlockingQueue<SearchInvoker> answered = new LinkedBlockingQueue<>();
+
+    private Query query;
+    private Hedge hedge = null;
+
+    /**
+     * Creates an invoker which hedges the given primary invoker
+     *
+     * @param hedgeDelayNanos the time to wait for a complete answer from the primary invoker before hedging
+     * @param hedgeFactory returns an invoker for a second group, or empty if there is none
+     */
+    HedgingSearchInvoker(SearchInvoker primary, HedgingPolicy policy, long hedgeDelayNanos, Supplier<Optional<Hedge>> hedgeFactory) {
+        super(Optional.empty());
+        this.primary = primary;
+        this.policy = policy;
+        this.hedgeDelayNanos = hedgeDelayNanos;
+        this.hedgeFactory = hedgeFactory;
+    }
+
+    @Override
+    protected Object sendSearchRequest(Query query, Object context) throws IOException {
+        this.query = query;
+        primary.setMonitor(this);
+        return primary.sendSearchRequest(query, context);
+    }
+
+    @Override
+    protected InvokerResult getSearchResult() throws IOException {
+        SearchInvoker first = awaitAnswer();
+        if (first == null && query.getTimeLeft() > 0 && policy.tryHedge() && sendHedge())
+            first = awaitAnswer();
+
+        if (hedge != null && first == hedge.invoker()) {
+            InvokerResult result = hedge.invoker().getSearchResult();
+            if (result.getResult().hits().getError() == null) {
+                policy.hedgeWon();
+                query.trace(false, 2, "Using the answer from group ", hedge.groupId());
+                query.getModel().setSearchPath("/" + hedge.groupId());
+                hedge.invoker().setFinalStatus(true);
+                // The time the first group has spent so far is a lower bound of its latency, which the load balancer should learn
+                primary.setFinalStatus(true);
+                primary.close();
+                return result;
+            }
+            query.trace(false, 2, "Not using the answer with errors from group ", hedge.groupId());
+        }
+
+        // Let the primary invoker decide how long to wait for the rest of its nodes
+        if (hedge != null)
+            hedge.invoker().close();
+        InvokerResult result = primary.getSearchResult();
+        primary.setFinalStatus(result.getResult().hits().getError() == null);
+        return result;
+    }
+
+    /** Sends the query to a second group, if there is one, and returns whether it was sent */
+    private boolean sendHedge() throws IOException {
+        hedge = hedgeFactory.get().orElse(null);
+        if (hedge == null) {
+            policy.hedgeNotSent();
+            return false;
+        }
+
+        query.trace(false, 2, "No answer after ", hedgeDelayNanos / 1_000_000, " ms: Also dispatching to group ", hedge.groupId());
+        policy.hedged();
+        hedge.invoker().setMonitor(this);
+        hedge.invoker().sendSearchRequest(query, null);
+        return true;
+    }
+
+    /** Waits at most the hedge delay for a complete answer from any invoker, and returns it, or null if there is none */
+    private SearchInvoker awaitAnswer() {
+        long timeoutNanos = Math.min(hedgeDelayNanos, TimeUnit.MILLISECONDS.toNanos(query.getTimeLeft()));
+        if (timeoutNanos <= 0) return answered.poll();
+        try {
+            return answered.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Interrupted while waiting for search results", e);
+        }
+    }
+
+    @Override
+    protected void release() {
+        primary.close();
+        if (hedge != null)
+            hedge.invoker().close();
+    }
+
+    @Override
+    public void responseAvailable(SearchInvoker from) {
+        answered.add(from);
+    }
+
+    @Override
+    protected void setMonitor(ResponseMonitor<SearchInvoker> monitor) {
+        // never to be called
+    }
+
+}
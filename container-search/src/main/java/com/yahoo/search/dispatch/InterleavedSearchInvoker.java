@@ -12,7 +12,6 @@ import com.yahoo.search.searchchain.Execution;
 import com.yahoo.vespa.config.search.DispatchConfig;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
@@ -21,6 +20,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -43,6 +43,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     private final Set<Integer> alreadyFailedNodes;
     private final CoverageAggregator coverageAggregator;
     private final TopKEstimator hitEstimator;
+    private final AtomicInteger pendingResponses = new AtomicInteger();
     private Query query;
 
     private TimeoutHandler timeoutHandler;
@@ -99,6 +100,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         query.setHits(q);
         query.setOffset(0);
 
+        pendingResponses.set(invokers.size());
         Object context = null;
         for (SearchInvoker invoker : invokers) {
             context = invoker.sendSearchRequest(query, context);
@@ -113,7 +115,8 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     @Override
     protected InvokerResult getSearchResult() throws IOException {
         InvokerResult result = new InvokerResult(query, query.getHits());
-        List<LeanHit> merged = List.of();
+        int needed = query.getOffset() + query.getHits();
+        LeanHitMerger hitMerger = new LeanHitMerger(needed);
         long nextTimeout = query.getTimeLeft();
         var groupingResultAggregator = new GroupingResultAggregator();
         try {
@@ -125,7 +128,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
                     break;
                 } else {
                     InvokerResult toMerge = invoker.getSearchResult();
-                    merged = mergeResult(result.getResult(), toMerge, merged, groupingResultAggregator);
+                    mergeResult(result.getResult(), toMerge, hitMerger, groupingResultAggregator);
                     ejectInvoker(invoker);
                 }
                 nextTimeout = timeoutHandler.nextTimeoutMS(coverageAggregator.getAnsweredNodes());
@@ -139,7 +142,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         CoverageAggregator adjusted = coverageAggregator.adjustedDegradedCoverage((int)dispatchConfig.redundancy(), timeoutHandler);
         result.getResult().setCoverage(adjusted.createCoverage(timeoutHandler));
 
-        int needed = query.getOffset() + query.getHits();
+        List<LeanHit> merged = hitMerger.hits();
         for (int index = query.getOffset(); (index < merged.size()) && (index < needed); index++) {
             result.getLeanHits().add(merged.get(index));
         }
@@ -175,8 +178,8 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         }
     }
 
-    private List<LeanHit> mergeResult(Result result, InvokerResult partialResult, List<LeanHit> current,
-                                      GroupingResultAggregator groupingResultAggregator) {
+    private void mergeResult(Result result, InvokerResult partialResult, LeanHitMerger hitMerger,
+                             GroupingResultAggregator groupingResultAggregator) {
         coverageAggregator.add(partialResult.getResult().getCoverage(true));
 
         result.mergeWith(partialResult.getResult());
@@ -190,44 +193,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
                 }
             }
         }
-        if (current.isEmpty() ) {
-            return partialResult.getLeanHits();
-        }
-        List<LeanHit> partial = partialResult.getLeanHits();
-        if (partial.isEmpty()) {
-            return current;
-        }
-
-        int needed = query.getOffset() + query.getHits();
-        List<LeanHit> merged = new ArrayList<>(needed);
-        int indexCurrent = 0;
-        int indexPartial = 0;
-        while (indexCurrent < current.size() && indexPartial < partial.size() && merged.size() < needed) {
-            LeanHit incomingHit = partial.get(indexPartial);
-            LeanHit currentHit = current.get(indexCurrent);
-
-            int cmpRes = currentHit.compareTo(incomingHit);
-            if (cmpRes < 0) {
-                merged.add(currentHit);
-                indexCurrent++;
-            } else if (cmpRes > 0) {
-                merged.add(incomingHit);
-                indexPartial++;
-            } else { // Duplicates
-                merged.add(currentHit);
-                indexCurrent++;
-                indexPartial++;
-            }
-        }
-        appendRemainingIfNeeded(merged, needed, current, indexCurrent);
-        appendRemainingIfNeeded(merged, needed, partial, indexPartial);
-        return merged;
-    }
-
-    private void appendRemainingIfNeeded(List<LeanHit> merged, int needed, List<LeanHit> hits, int index) {
-        while ((index < hits.size()) && (merged.size() < needed)) {
-            merged.add(hits.get(index++));
-        }
+        hitMerger.add(partialResult.getLeanHits());
     }
 
     private void ejectInvoker(SearchInvoker invoker) {
@@ -248,11 +214,9 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         if (availableForProcessing != null) {
             availableForProcessing.add(from);
         }
-    }
-
-    @Override
-    protected void setMonitor(ResponseMonitor<SearchInvoker> monitor) {
-        // never to be called
+        if (pendingResponses.decrementAndGet() == 0) {
+            responseAvailable(); // All invokers have responded
+        }
     }
 
     // For overriding in tests
@@ -0,0 +1,96 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incrementally merges the sorted lean hit lists returned from each content node as they arrive,
+ * keeping only the best hits needed, where hits which compare as equal are only included once.
+ *
+ * Each list is merged into the current best hits by locating the position of each of its hits with an
+ * exponential search from the position of the previous one, and moving the current hits in between as
+ * blocks, so the number of comparisons grows with log(hits) rather than hits for each list.
+ * A list stops contributing at the first hit which is not better than the worst hit kept once
+ * enough hits are found, which with hit counts per node from {@link TopKEstimator} is usually early.
+ *
+ * This is not thread safe.
+ */
+class LeanHitMerger {
+
+    private final int needed;
+
+    /** The best hits merged so far, in ascending order, in the first size elements */
+    private LeanHit[] hits = new LeanHit[0];
+    private int size = 0;
+
+    /** The array the next merge writes into, swapped with hits afterwards */
+    private LeanHit[] next = new LeanHit[0];
+
+    /** Creates a merger which keeps the given number of best hits */
+    LeanHitMerger(int needed) {
+        this.needed = needed;
+    }
+
+    /** Merges a list of hits, which must be sorted in ascending order and not contain duplicates, into this */
+    void add(List<LeanHit> added) {
+        if (added.isEmpty() || needed == 0) return;
+        if (isFull() && added.get(0).compareTo(hits[size - 1]) >= 0) return; // Nothing better in this list
+
+        int capacity = Math.min(needed, size + added.size());
+        if (next.length < capacity)
+            next = new LeanHit[capacity];
+
+        int written = 0;
+        int from = 0; // The first of the current hits which is not yet written
+        for (LeanHit hit : added) {
+            if (written == capacity) break;
+            if (isFull() && hit.compareTo(hits[size - 1]) >= 0) break; // Neither this nor any later hit is kept
+
+            int position = lowerBound(hit, from);
+            int block = Math.min(position - from, capacity - written);
+            System.arraycopy(hits, from, next, written, block);
+            written += block;
+            from = position;
+            if (written == capacity) break;
+
+            if (position < size && hits[position].compareTo(hit) == 0) continue; // Duplicate
+            next[written++] = hit;
+        }
+        int block = Math.min(size - from, capacity - written);
+        System.arraycopy(hits, from, next, written, block);
+        written += block;
+
+        LeanHit[] merged = next;
+        next = hits;
+        hits = merged;
+        size = written;
+    }
+
+    /** Returns the best hits merged so far, in ascending order. This view is valid until the next call to add. */
+    List<LeanHit> hits() {
+        return Arrays.asList(hits).subList(0, size);
+    }
+
+    private boolean isFull() { return size == needed; }
+
+    /** Returns the index of the first of the current hits at or after from which is not better than the given hit */
+    private int lowerBound(LeanHit hit, int from) {
+        int low = from;
+        int bound = from;
+        for (int step = 1; bound < size && hits[bound].compareTo(hit) < 0; step <<= 1) {
+            low = bound + 1;
+            bound += step;
+        }
+        int high = Math.min(bound, size);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (hits[middle].compareTo(hit) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+}
@@ -1,6 +1,8 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch;
 
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.search.dispatch.searchcluster.Group;
 
 import java.time.Duration;
@@ -30,13 +32,28 @@ public class LoadBalancer {
     private static final double LATENCY_DECAY_TIME = Duration.ofSeconds(5).toMillis()/1000.0;
     private static final Duration INITIAL_QUERY_TIME = Duration.ofMillis(1);
     private static final double MIN_QUERY_TIME = Duration.ofMillis(1).toMillis()/1000.0;
+    private static final long SCORE_REPORT_INTERVAL_NANOS = Duration.ofSeconds(1).toNanos();
 
     private final Map<Integer, GroupStatus> scoreboard;
     private final GroupScheduler scheduler;
+    private final Metric metric;
+    private final String clusterName;
+    private final Map<Integer, Metric.Context> metricContexts = new HashMap<>();
+    private long lastScoreReport = System.nanoTime();
 
-    public enum Policy { ROUNDROBIN, LATENCY_AMORTIZED_OVER_REQUESTS, LATENCY_AMORTIZED_OVER_TIME, BEST_OF_RANDOM_2}
+    public enum Policy { ROUNDROBIN, LATENCY_AMORTIZED_OVER_REQUESTS, LATENCY_AMORTIZED_OVER_TIME, BEST_OF_RANDOM_2, LEAST_EXPECTED_COMPLETION_TIME }
 
     public LoadBalancer(Collection<Group> groups, Policy policy) {
+        this(groups, policy, null, null);
+    }
+
+    /**
+     * Creates a load balancer which reports the number of times each group is selected, and, with a policy
+     * which scores groups, the score of each group, to the given metric, if not null.
+     */
+    public LoadBalancer(Collection<Group> groups, Policy policy, Metric metric, String clusterName) {
+        this.metric = metric;
+        this.clusterName = clusterName;
         this.scoreboard = new HashMap<>();
         for (Group group : groups) {
             scoreboard.put(group.id(), new GroupStatus(group));
@@ -49,6 +66,7 @@ public class LoadBalancer {
             case BEST_OF_RANDOM_2: yield new BestOfRandom2(new Random(), scoreboard);
             case LATENCY_AMORTIZED_OVER_REQUESTS: yield new AdaptiveScheduler(AdaptiveScheduler.Type.REQUESTS, new Random(), scoreboard);
             case LATENCY_AMORTIZED_OVER_TIME: yield new AdaptiveScheduler(AdaptiveScheduler.Type.TIME, new Random(), scoreboard);
+            case LEAST_EXPECTED_COMPLETION_TIME: yield new LeastExpectedCompletionTime(new Random(), scoreboard);
         };
     }
 
@@ -66,6 +84,7 @@ public class LoadBalancer {
             if (best.isPresent()) {
                 GroupStatus gs = best.get();
                 gs.allocate();
+                report(gs);
                 Group ret = gs.group;
                 log.fine(() -> "Offering <" + ret + "> for query connection");
                 return Optional.of(ret);
@@ -89,6 +108,24 @@ public class LoadBalancer {
         }
     }
 
+    private void report(GroupStatus selected) {
+        if (metric == null) return;
+        metric.add(ContainerMetrics.DISPATCH_GROUP_SELECTIONS.baseName(), 1, metricContext(selected));
+        long now = System.nanoTime();
+        if (now - lastScoreReport < SCORE_REPORT_INTERVAL_NANOS) return;
+        lastScoreReport = now;
+        for (GroupStatus gs : scoreboard.values()) {
+            if (gs.score >= 0)
+                metric.set(ContainerMetrics.DISPATCH_GROUP_EXPECTED_COMPLETION_TIME.baseName(), gs.score * 1000, metricContext(gs));
+        }
+    }
+
+    private Metric.Context metricContext(GroupStatus gs) {
+        return metricContexts.computeIfAbsent(gs.groupId(), id -> metric.createContext(
+                clusterName == null ? Map.of("groupId", String.valueOf(id))
+                                    : Map.of("clusterId", clusterName, "groupId", String.valueOf(id))));
+    }
+
     static class GroupStatus {
 
         interface Decayer {
@@ -104,6 +141,8 @@ public class LoadBalancer {
         private final Group group;
         private int allocations = 0;
         private Decayer decayer;
+        /** The last score computed for this by the scheduler, or -1 if the scheduler does not score groups */
+        private double score = -1;
 
         GroupStatus(Group group) {
             this.group = group;
@@ -228,19 +267,24 @@ public class LoadBalancer {
         }
 
         static class DecayByTime implements GroupStatus.Decayer {
+            private final double decayTime;
             private double averageSearchTime;
             private RequestDuration prev;
             DecayByTime() {
                 this(INITIAL_QUERY_TIME, RequestDuration.of(Duration.ZERO));
             }
             DecayByTime(Duration initialSearchTime, RequestDuration start) {
+                this(initialSearchTime, start, LATENCY_DECAY_TIME);
+            }
+            DecayByTime(Duration initialSearchTime, RequestDuration start, double decayTime) {
+                this.decayTime = decayTime;
                 averageSearchTime = toDouble(initialSearchTime);
                 prev = start;
             }
             public void decay(RequestDuration duration) {
                 double searchTime = Math.max(toDouble(duration.duration()), MIN_QUERY_TIME);
                 double sampleWeight = toDouble(duration.difference(prev));
-                averageSearchTime = (sampleWeight*searchTime + LATENCY_DECAY_TIME * averageSearchTime) / (LATENCY_DECAY_TIME + sampleWeight);
+                averageSearchTime = (sampleWeight*searchTime + decayTime * averageSearchTime) / (decayTime + sampleWeight);
                 prev = duration;
             }
             public double averageCost() { return averageSearchTime; }
@@ -331,4 +375,83 @@ public class LoadBalancer {
 
     }
 
+    /**
+     * Selects the group with the least expected time to complete a new query, which is estimated as
+     * latency * (queries in flight + 1) / fraction of nodes in the group responding to pings.
+     * The latency is a short term average of search times, amplified by how much it exceeds the long term average,
+     * so that traffic moves away from a group as soon as it starts slowing down.
+     */
+    static class LeastExpectedCompletionTime implements GroupScheduler {
+
+        static final double SHORT_DECAY_TIME = Duration.ofSeconds(1).toMillis()/1000.0;
+
+        private final Random random;
+        private final Map<Integer, GroupStatus> scoreboard;
+
+        LeastExpectedCompletionTime(Random random, Map<Integer, GroupStatus> scoreboard) {
+            this.random = random;
+            this.scoreboard = scoreboard;
+            scoreboard.forEach((id, gs) -> gs.setDecayer(new TrendingLatency()));
+        }
+
+        /** Tracks a short and a long term average of search times, and uses the short one, amplified by the trend */
+        static class TrendingLatency implements GroupStatus.Decayer {
+            private final AdaptiveScheduler.DecayByTime shortTerm;
+            private final AdaptiveScheduler.DecayByTime longTerm;
+            TrendingLatency() {
+                this(RequestDuration.of(Duration.ZERO));
+            }
+            TrendingLatency(RequestDuration start) {
+                shortTerm = new AdaptiveScheduler.DecayByTime(INITIAL_QUERY_TIME, start, SHORT_DECAY_TIME);
+                longTerm = new AdaptiveScheduler.DecayByTime(INITIAL_QUERY_TIME, start, LATENCY_DECAY_TIME);
+            }
+            public void decay(RequestDuration duration) {
+                shortTerm.decay(duration);
+                longTerm.decay(duration);
+            }
+            public double averageCost() {
+                double current = shortTerm.averageCost();
+                return current * Math.max(1.0, current / longTerm.averageCost());
+            }
+        }
+
+        static double expectedCompletionTime(GroupStatus gs) {
+            int nodes = gs.group.nodes().size();
+            double workingFraction = (nodes == 0) ? 1.0 : Math.max(1, gs.group.workingNodes()) / (double) nodes;
+            return gs.decayer.averageCost() * (gs.allocations + 1) / workingFraction;
+        }
+
+        @Override
+        public Optional<GroupStatus> takeNextGroup(Set<Integer> rejectedGroups) {
+            GroupStatus gs = selectBest(rejectedGroups, true);
+            return (gs != null)
+                    ? Optional.of(gs)
+                    : Optional.ofNullable(selectBest(rejectedGroups, false)); // any coverage better than none
+        }
+
+        private GroupStatus selectBest(Set<Integer> rejectedGroups, boolean requireCoverage) {
+            List<GroupStatus> candidates = new ArrayList<>(scoreboard.size());
+            for (GroupStatus gs : scoreboard.values()) {
+                if (rejectedGroups == null || !rejectedGroups.contains(gs.group.id())) {
+                    if (!requireCoverage || gs.group.hasSufficientCoverage()) {
+                        gs.score = expectedCompletionTime(gs);
+                        candidates.add(gs);
+                    }
+                }
+            }
+            if (candidates.isEmpty()) return null;
+
+            // Start at a random candidate, so ties are not always resolved in favour of the same group
+            int start = random.nextInt(candidates.size());
+            GroupStatus best = null;
+            for (int i = 0; i < candidates.size(); i++) {
+                GroupStatus candidate = candidates.get((start + i) % candidates.size());
+                if (best == null || candidate.score < best.score)
+                    best = candidate;
+            }
+            return best;
+        }
+
+    }
+
 }
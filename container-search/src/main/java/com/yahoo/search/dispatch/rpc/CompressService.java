@@ -12,7 +12,11 @@ import com.yahoo.search.Query;
  * @author baldersheim
  */
 public class CompressService implements CompressPayload {
-    /** The compression method which will be used with rpc dispatch. "lz4" (default) and "none" is supported. */
+    /**
+     * The compression method which will be used with rpc dispatch. "lz4" (default), "zstd" and "none" is supported.
+     * Zstd is slower, but compresses the repetitive protobuf payloads better, and falls back to lz4
+     * for payloads it does not compress well.
+     */
     public static final CompoundName dispatchCompression = CompoundName.from("dispatch.compression");
     private final Compressor compressor = new Compressor(CompressionType.LZ4, 5, 0.95, 256);
 
@@ -20,6 +24,12 @@ public class CompressService implements CompressPayload {
     @Override
     public Compressor.Compression compress(Query query, byte[] payload) {
         CompressionType compression = CompressionType.valueOf(query.properties().getString(dispatchCompression, "LZ4").toUpperCase());
+        if (compression == CompressionType.ZSTD) {
+            Compressor.Compression zstd = compressor.compress(compression, payload);
+            if ( ! zstd.type().isCompressed() || zstd.data().length + 8 < payload.length * compressor.compressionThresholdFactor())
+                return zstd;
+            compression = CompressionType.LZ4;
+        }
         return compressor.compress(compression, payload);
     }
 
@@ -23,7 +23,11 @@ public class RpcClient implements Client {
     private final Supervisor supervisor;
 
     public RpcClient(String name, int transportThreads) {
-        supervisor = new Supervisor(new Transport(name, transportThreads));
+        this(name, transportThreads, false);
+    }
+
+    public RpcClient(String name, int transportThreads, boolean useDirectBuffers) {
+        supervisor = new Supervisor(new Transport(name, transportThreads)).setUseDirectBuffers(useDirectBuffers);
     }
 
     @Override
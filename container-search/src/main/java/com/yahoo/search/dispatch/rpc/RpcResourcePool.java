@@ -37,7 +37,8 @@ public class RpcResourcePool implements RpcConnectionPool {
     }
 
     public RpcResourcePool(DispatchConfig dispatchConfig, DispatchNodesConfig nodesConfig) {
-        rpcClient = new RpcClient("dispatch-client", dispatchConfig.numJrtTransportThreads());
+        rpcClient = new RpcClient("dispatch-client", dispatchConfig.numJrtTransportThreads(),
+                                  dispatchConfig.useDirectJrtBuffers());
         numConnections = dispatchConfig.numJrtConnectionsPerNode();
         updateNodes(nodesConfig).forEach(pool -> {
             try { pool.close(); } catch (Exception ignored) { } // Shouldn't throw.
@@ -15,6 +15,8 @@ import java.util.Objects;
  */
 public class GlobalPhase implements Cloneable {
 
+    public static final String BATCH_SIZE = "batchSize";
+
     /** The type representing the property arguments consumed by this */
     private static final QueryProfileType argumentType;
 
@@ -23,11 +25,13 @@ public class GlobalPhase implements Cloneable {
         argumentType.setStrict(true);
         argumentType.setBuiltin(true);
         argumentType.addField(new FieldDescription(Ranking.RERANKCOUNT, FieldType.integerType));
+        argumentType.addField(new FieldDescription(BATCH_SIZE, FieldType.integerType));
         argumentType.freeze();
     }
     public static QueryProfileType getArgumentType() { return argumentType; }
 
     private Integer rerankCount = null;
+    private Integer batchSize = null;
 
     /**
      * Sets the number of hits for which the global-phase function will be evaluated.
@@ -38,9 +42,18 @@ public class GlobalPhase implements Cloneable {
     /** Returns the rerank-count that will be used, or null if not set */
     public Integer getRerankCount() { return rerankCount; }
 
+    /**
+     * Sets the number of hits to evaluate in each batch. When set to a positive number smaller than the
+     * number of hits to rerank, the global-phase function is evaluated in parallel, one batch per task.
+     */
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    /** Returns the batch size to use for parallel evaluation, or null if not set (evaluate sequentially) */
+    public Integer getBatchSize() { return batchSize; }
+
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.rerankCount);
+        return Objects.hash(this.rerankCount, this.batchSize);
     }
 
     @Override
@@ -48,6 +61,7 @@ public class GlobalPhase implements Cloneable {
         if (o == this) return true;
         if (o instanceof GlobalPhase other) {
             if ( ! Objects.equals(this.rerankCount, other.rerankCount)) return false;
+            if ( ! Objects.equals(this.batchSize, other.batchSize)) return false;
             return true;
         }
         return false;
@@ -58,6 +72,7 @@ public class GlobalPhase implements Cloneable {
         try {
             GlobalPhase clone = (GlobalPhase)super.clone();
             clone.rerankCount = this.rerankCount;
+            clone.batchSize = this.batchSize;
             return clone;
         }
         catch (CloneNotSupportedException e) {
@@ -14,6 +14,7 @@ import com.yahoo.data.access.helpers.MatchFeatureData;
 import com.yahoo.data.access.helpers.MatchFeatureFilter;
 
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 
@@ -21,13 +22,19 @@ public class GlobalPhaseRanker {
 
     private static final Logger logger = Logger.getLogger(GlobalPhaseRanker.class.getName());
     private final RankProfilesEvaluatorFactory factory;
+    private final Executor executor;
 
     @Inject
-    public GlobalPhaseRanker(RankProfilesEvaluatorFactory factory) {
+    public GlobalPhaseRanker(RankProfilesEvaluatorFactory factory, Executor executor) {
         this.factory = factory;
+        this.executor = executor;
         logger.fine(() -> "Using factory: " + factory);
     }
 
+    public GlobalPhaseRanker(RankProfilesEvaluatorFactory factory) {
+        this(factory, null);
+    }
+
     public int getRerankCount(Query query, String schema) {
         var setup = globalPhaseSetupFor(query, schema).orElse(null);
         return resolveRerankCount(setup, query);
@@ -51,6 +58,10 @@ public class GlobalPhaseRanker {
     }
 
     static void rerankHitsImpl(GlobalPhaseSetup setup, Query query, Result result) {
+        rerankHitsImpl(setup, query, result, null);
+    }
+
+    static void rerankHitsImpl(GlobalPhaseSetup setup, Query query, Result result, Executor executor) {
         var mainSpec = setup.globalPhaseEvalSpec;
         var mainSrc = withQueryPrep(mainSpec.evalSource(), mainSpec.fromQuery(), setup.defaultValues, query);
         int rerankCount = resolveRerankCount(setup, query);
@@ -61,7 +72,7 @@ public class GlobalPhaseRanker {
             normalizers.add(new NormalizerContext(nSetup.name(), nSetup.supplier().get(), normEvalSrc, normSpec.fromMF()));
         }
         var rescorer = new HitRescorer(mainSrc, mainSpec.fromMF(), normalizers);
-        var reranker = new ResultReranker(rescorer, rerankCount);
+        var reranker = new ResultReranker(rescorer, rerankCount, batcherFor(query, executor));
         reranker.rerankHits(result);
         hideImplicitMatchFeatures(result, setup.matchFeaturesToHide);
     }
@@ -69,10 +80,16 @@ public class GlobalPhaseRanker {
     public void rerankHits(Query query, Result result, String schema) {
         var setup = globalPhaseSetupFor(query, schema);
         if (setup.isPresent()) {
-            rerankHitsImpl(setup.get(), query, result);
+            rerankHitsImpl(setup.get(), query, result, executor);
         }
     }
 
+    private static HitBatcher batcherFor(Query query, Executor executor) {
+        Integer batchSize = query.getRanking().getGlobalPhase().getBatchSize();
+        if (executor == null || batchSize == null || batchSize <= 0) return HitBatcher.sequential();
+        return new HitBatcher(executor, batchSize, query);
+    }
+
     static Supplier<Evaluator> withQueryPrep(Supplier<Evaluator> evalSource, List<String> queryFeatures, Map<String, Tensor> defaultValues, Query query) {
         var prepared = PreparedInput.findFromQuery(query, queryFeatures, defaultValues);
         Supplier<Evaluator> supplier = () -> {
@@ -144,6 +144,7 @@ class GlobalPhaseSetup {
             availableNormalizers.put(n.name(), n);
         }
         Supplier<FunctionEvaluator> functionEvaluatorSource = null;
+        boolean compiled = false;
         int rerankCount = -1;
         Set<String> namesToHide = new HashSet<>();
         Set<String> matchFeatures = new HashSet<>();
@@ -156,6 +157,9 @@ class GlobalPhaseSetup {
             if (prop.name().equals("vespa.rank.globalphase")) {
                 functionEvaluatorSource = () -> model.evaluatorOf("globalphase");
             }
+            if (prop.name().equals("vespa.globalphase.compile")) {
+                compiled = Boolean.parseBoolean(prop.value());
+            }
             if (prop.name().equals("vespa.hidden.matchfeature")) {
                 namesToHide.add(prop.value());
             }
@@ -174,6 +178,9 @@ class GlobalPhaseSetup {
         if (rerankCount < 0) {
             rerankCount = 100;
         }
+        if (functionEvaluatorSource != null && compiled) {
+            functionEvaluatorSource = () -> model.compiledEvaluatorOf("globalphase");
+        }
         if (functionEvaluatorSource != null) {
             var mainResolver = new InputResolver(matchFeatures, renameFeatures, availableNormalizers.keySet());
             var evaluator = functionEvaluatorSource.get();
@@ -0,0 +1,96 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.ranking;
+
+import com.yahoo.search.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs per-hit work for global-phase ranking, either sequentially on the calling thread,
+ * or split into batches of consecutive hits which are run in parallel on an executor.
+ * The calling thread always runs the first batch itself, and afterwards runs any batch which
+ * the executor has not yet started, so progress never depends on free executor threads.
+ */
+class HitBatcher {
+
+    private final Executor executor;
+    private final int batchSize;
+    private final Query query;
+
+    HitBatcher(Executor executor, int batchSize, Query query) {
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.query = query;
+    }
+
+    static HitBatcher sequential() {
+        return new HitBatcher(null, 0, null);
+    }
+
+    /** Returns whether work over the given number of hits will be split into more than one batch */
+    boolean isParallel(int numHits) {
+        return executor != null && batchSize > 0 && numHits > batchSize;
+    }
+
+    /** Runs the given work for each hit index in [0, numHits), returning when all of it is done */
+    void run(String phase, int numHits, IntConsumer work) {
+        if ( ! isParallel(numHits)) {
+            for (int i = 0; i < numHits; i++) {
+                work.accept(i);
+            }
+            return;
+        }
+        List<FutureTask<Long>> batches = new ArrayList<>();
+        for (int first = 0; first < numHits; first += batchSize) {
+            int from = first;
+            int to = Math.min(first + batchSize, numHits);
+            batches.add(new FutureTask<>(() -> runBatch(from, to, work)));
+        }
+        for (var batch : batches.subList(1, batches.size())) {
+            try {
+                executor.execute(batch);
+            } catch (RejectedExecutionException e) {
+                // will be run by the calling thread below
+            }
+        }
+        for (var batch : batches) {
+            batch.run(); // no-op if already started by the executor
+        }
+        for (int i = 0; i < batches.size(); i++) {
+            long nanos = await(batches.get(i));
+            if (query != null) {
+                int batchHits = Math.min(batchSize, numHits - i * batchSize);
+                query.trace(false, 3, "Global-phase ", phase, " batch ", i + 1, "/", batches.size(),
+                            " (", batchHits, " hits) took ", nanos / 1000, " us");
+            }
+        }
+    }
+
+    private static long runBatch(int from, int to, IntConsumer work) {
+        long start = System.nanoTime();
+        for (int i = from; i < to; i++) {
+            work.accept(i);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long await(FutureTask<Long> batch) {
+        try {
+            return batch.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw new IllegalStateException("Global-phase batch failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for global-phase batch", e);
+        }
+    }
+
+}
@@ -23,14 +23,32 @@ class HitRescorer {
         this.normalizers = normalizers;
     }
 
-    void preprocess(WrappedHit wrapped) {
-        for (var n : normalizers) {
+    boolean hasNormalizers() {
+        return ! normalizers.isEmpty();
+    }
+
+    /** Evaluates the inputs to all normalizers for a hit; safe to call concurrently for different hits */
+    double[] normalizerInputs(WrappedHit wrapped) {
+        double[] inputs = new double[normalizers.size()];
+        for (int i = 0; i < inputs.length; i++) {
+            var n = normalizers.get(i);
             var scorer = n.evalSource().get();
-            double val = evalScorer(wrapped, scorer, n.fromMF());
-            wrapped.setIdx(n.normalizer().addInput(val));
+            inputs[i] = evalScorer(wrapped, scorer, n.fromMF());
+        }
+        return inputs;
+    }
+
+    /** Adds normalizer inputs for a hit; must be called for one hit at a time, in rank order */
+    void addNormalizerInputs(WrappedHit wrapped, double[] inputs) {
+        for (int i = 0; i < inputs.length; i++) {
+            wrapped.setIdx(normalizers.get(i).normalizer().addInput(inputs[i]));
         }
     }
 
+    void preprocess(WrappedHit wrapped) {
+        addNormalizerInputs(wrapped, normalizerInputs(wrapped));
+    }
+
     void runNormalizers() {
         for (var n : normalizers) {
             n.normalizer().normalize();
@@ -16,12 +16,18 @@ class ResultReranker {
 
     private final HitRescorer hitRescorer;
     private final int rerankCount;
+    private final HitBatcher batcher;
     private final List<WrappedHit> hitsToRescore = new ArrayList<>();
     private final RangeAdjuster ranges = new RangeAdjuster();
 
     ResultReranker(HitRescorer hitRescorer, int rerankCount) {
+        this(hitRescorer, rerankCount, HitBatcher.sequential());
+    }
+
+    ResultReranker(HitRescorer hitRescorer, int rerankCount, HitBatcher batcher) {
         this.hitRescorer = hitRescorer;
         this.rerankCount = rerankCount;
+        this.batcher = batcher;
     }
 
     void rerankHits(Result result) {
@@ -49,25 +55,36 @@ class ResultReranker {
     private void runPreProcessing() {
         // we can't be 100% certain that hits were sorted according to relevance:
         hitsToRescore.sort(Comparator.naturalOrder());
-        int count = 0;
-        for (WrappedHit hit : hitsToRescore) {
-            if (count == rerankCount) break;
-            hitRescorer.preprocess(hit);
-            ++count;
+        if ( ! hitRescorer.hasNormalizers()) return;
+        var hits = hitsToRescore.subList(0, numToRescore());
+        if ( ! batcher.isParallel(hits.size())) {
+            hits.forEach(hitRescorer::preprocess);
+            return;
+        }
+        // normalizer inputs may be evaluated in parallel, but must be added in rank order:
+        double[][] inputs = new double[hits.size()][];
+        batcher.run("normalizer input", hits.size(), i -> inputs[i] = hitRescorer.normalizerInputs(hits.get(i)));
+        for (int i = 0; i < inputs.length; i++) {
+            hitRescorer.addNormalizerInputs(hits.get(i), inputs[i]);
         }
     }
 
     private void runProcessing() {
-        int count = 0;
-        for (var iterator = hitsToRescore.iterator(); count < rerankCount && iterator.hasNext(); ) {
-            WrappedHit wrapped = iterator.next();
-            double oldScore = wrapped.getScore();
-            double newScore = hitRescorer.rescoreHit(wrapped);
-            ranges.withInitialScore(oldScore);
-            ranges.withFinalScore(newScore);
-            ++count;
-            iterator.remove();
+        var hits = hitsToRescore.subList(0, numToRescore());
+        double[] oldScores = new double[hits.size()];
+        for (int i = 0; i < oldScores.length; i++) {
+            oldScores[i] = hits.get(i).getScore();
         }
+        batcher.run("rescoring", hits.size(), i -> hitRescorer.rescoreHit(hits.get(i)));
+        for (int i = 0; i < oldScores.length; i++) {
+            ranges.withInitialScore(oldScores[i]);
+            ranges.withFinalScore(hits.get(i).getScore());
+        }
+        hits.clear();
+    }
+
+    private int numToRescore() {
+        return Math.max(0, Math.min(rerankCount, hitsToRescore.size()));
     }
 
     private void runPostProcessing() {
@@ -149,7 +149,7 @@ public class FeatureData implements Inspectable, JsonProducer {
 
         return switch (featureValue.type()) {
             case DOUBLE -> Tensor.from(featureValue.asDouble());
-            case DATA -> TypedBinaryFormat.decode(Optional.empty(), GrowableByteBuffer.wrap(featureValue.asData()));
+            case DATA -> TypedBinaryFormat.decodeView(Optional.empty(), GrowableByteBuffer.wrap(featureValue.asData()));
             default -> throw new IllegalStateException("Unexpected feature value type " + featureValue.type());
         };
     }
@@ -204,7 +204,7 @@ public class FeatureData implements Inspectable, JsonProducer {
         @Override
         public void encodeDATA(byte[] value) {
             // This could be done more efficiently ...
-            Tensor tensor = TypedBinaryFormat.decode(Optional.empty(), GrowableByteBuffer.wrap(value));
+            Tensor tensor = TypedBinaryFormat.decodeView(Optional.empty(), GrowableByteBuffer.wrap(value));
             byte[] encodedTensor = JsonFormat.encode(tensor, tensorShortForm, tensorDirectValues);
             target().append(new String(encodedTensor, StandardCharsets.UTF_8));
         }
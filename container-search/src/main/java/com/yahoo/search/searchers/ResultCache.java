@@ -0,0 +1,125 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.searchers;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * A size-bounded cache with segmented LRU eviction: New entries are added to a probationary segment,
+ * and are promoted to a protected segment when they are hit again. This keeps entries which are
+ * looked up only once, which is common for queries, from evicting the entries which are hit repeatedly.
+ *
+ * Entries also expire after a time to live, and when a newer generation of the cached data is seen.
+ * The cache is split into stripes, each with its own lock, to avoid contention between concurrent lookups.
+ *
+ * @param <K> the key type
+ * @param <V> the value type, which must be immutable or copied by the caller
+ */
+class ResultCache<K, V> {
+
+    private static final int maxStripes = 16;
+    private static final int minStripeSize = 64;
+    private static final double protectedFraction = 0.8;
+
+    private final List<Stripe> stripes;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    ResultCache(int maxEntries, long ttlNanos, LongSupplier nanoClock) {
+        if (maxEntries < 1) throw new IllegalArgumentException("Max entries must be positive, got " + maxEntries);
+        int stripes = Math.min(maxStripes, Integer.highestOneBit(Math.max(1, maxEntries / minStripeSize)));
+        this.stripes = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++)
+            this.stripes.add(new Stripe(maxEntries / stripes));
+        this.ttlNanos = ttlNanos <= 0 ? Long.MAX_VALUE : ttlNanos;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the value cached for the given key, or null if it is not present, or is expired by time,
+     * or is of a generation older than the given one.
+     */
+    V get(K key, long generation) {
+        return stripeOf(key).get(key, generation, nanoClock.getAsLong());
+    }
+
+    /** Adds a value of the given generation to this, and returns the number of entries evicted to make room for it */
+    int put(K key, V value, long generation) {
+        return stripeOf(key).put(key, new Entry<>(value, generation, nanoClock.getAsLong()));
+    }
+
+    /** Returns the number of entries in this */
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes)
+            size += stripe.size();
+        return size;
+    }
+
+    private Stripe stripeOf(K key) {
+        int hash = key.hashCode();
+        return stripes.get((hash ^ (hash >>> 16)) & (stripes.size() - 1));
+    }
+
+    private record Entry<V>(V value, long generation, long createdNanos) { }
+
+    private class Stripe {
+
+        private final int maxProtected;
+        private final int maxEntries;
+        private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<K, Entry<V>> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+        Stripe(int maxEntries) {
+            this.maxEntries = Math.max(1, maxEntries);
+            this.maxProtected = (int) (this.maxEntries * protectedFraction);
+        }
+
+        synchronized V get(K key, long generation, long now) {
+            Entry<V> entry = protectedEntries.get(key);
+            boolean isProtected = entry != null;
+            if ( ! isProtected)
+                entry = probation.get(key);
+            if (entry == null) return null;
+
+            if (entry.generation() < generation || now - entry.createdNanos() >= ttlNanos) {
+                (isProtected ? protectedEntries : probation).remove(key);
+                return null;
+            }
+            if ( ! isProtected && maxProtected > 0) { // Promote, and demote the least recently used protected entry if full
+                probation.remove(key);
+                protectedEntries.put(key, entry);
+                if (protectedEntries.size() > maxProtected) {
+                    Iterator<Map.Entry<K, Entry<V>>> eldest = protectedEntries.entrySet().iterator();
+                    Map.Entry<K, Entry<V>> demoted = eldest.next();
+                    eldest.remove();
+                    probation.put(demoted.getKey(), demoted.getValue());
+                }
+            }
+            return entry.value();
+        }
+
+        synchronized int put(K key, Entry<V> entry) {
+            if (protectedEntries.containsKey(key)) {
+                protectedEntries.put(key, entry);
+                return 0;
+            }
+            probation.put(key, entry);
+            int evicted = 0;
+            for (Iterator<K> it = probation.keySet().iterator(); size() > maxEntries && it.hasNext(); ) {
+                it.next();
+                it.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+
+        synchronized int size() { return probation.size() + protectedEntries.size(); }
+
+    }
+
+}
@@ -0,0 +1,219 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.searchers;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.component.annotation.Inject;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.config.ResultCacheConfig;
+import com.yahoo.search.query.Model;
+import com.yahoo.search.query.Presentation;
+import com.yahoo.search.query.QueryTree;
+import com.yahoo.search.query.Ranking;
+import com.yahoo.search.query.Sorting;
+import com.yahoo.search.query.ranking.GlobalPhase;
+import com.yahoo.search.query.ranking.MatchPhase;
+import com.yahoo.search.query.ranking.Matching;
+import com.yahoo.search.query.ranking.RankProperties;
+import com.yahoo.search.query.ranking.SecondPhase;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.result.HitGroup;
+import com.yahoo.search.searchchain.Execution;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches results across queries, such that identical queries are answered from this container
+ * instead of being sent to the content nodes.
+ * <p>
+ * Queries are identical if they have the same query tree, sources, restrict and search path, rank profile,
+ * rank features and properties, sorting, location, freshness, match phase, matching, second and global phase
+ * settings, rerank and keep rank count, rank score drop limit, list features, hits, offset, summary class,
+ * bolding and summary fields, and, in streaming mode, the same user id,
+ * group name and document selection. Queries with grouping, queries without a query tree, and queries which
+ * set <code>noCache</code>, are not cached.
+ * Results with errors or with less than full coverage are not cached.
+ * <p>
+ * In FIRST_PHASE mode the hits are cached without summaries, and are filled as usual on each query, while
+ * in FILLED mode the summary class of the query is filled by this before the result is cached.
+ * <p>
+ * Cached results are returned until they are evicted, by size or time to live, or until a query with a
+ * larger <code>resultcache.generation</code> is seen. Clients may set this to e.g. a timestamp of the last
+ * write to the documents they are searching, to avoid getting stale results.
+ * <p>
+ * This is thread safe, and should be placed after any searchers which modify the query, and in front of the
+ * searchers which send the query to the content nodes.
+ */
+public class ResultCacheSearcher extends Searcher {
+
+    /** The generation of the data searched. Cached results of older generations will not be used. */
+    public static final CompoundName generationKey = CompoundName.from("resultcache.generation");
+
+    // The documents searched in streaming mode
+    private static final CompoundName streamingUseridKey = CompoundName.from("streaming.userid");
+    private static final CompoundName streamingGroupnameKey = CompoundName.from("streaming.groupname");
+    private static final CompoundName streamingSelectionKey = CompoundName.from("streaming.selection");
+
+    private final ResultCache<Key, CachedResult> cache;
+    private final boolean fill;
+    private final Metric metric;
+
+    @Inject
+    public ResultCacheSearcher(ResultCacheConfig config, Metric metric) {
+        this(config, metric, System::nanoTime);
+    }
+
+    ResultCacheSearcher(ResultCacheConfig config, Metric metric, LongSupplier nanoClock) {
+        this.cache = new ResultCache<>(config.maxEntries(), (long) (config.ttl() * 1_000_000_000), nanoClock);
+        this.fill = config.mode() == ResultCacheConfig.Mode.FILLED;
+        this.metric = metric;
+    }
+
+    @Override
+    public Result search(Query query, Execution execution) {
+        if (query.getNoCache() || ! query.getSelect().getGrouping().isEmpty() || query.getModel().getQueryTree().isEmpty())
+            return execution.search(query);
+
+        Key key = Key.of(query);
+        long generation = query.properties().getLong(generationKey, 0L);
+        CachedResult cached = cache.get(key, generation);
+        if (cached != null) {
+            metric.add(ContainerMetrics.RESULT_CACHE_HITS.baseName(), 1, null);
+            query.trace("Returning cached result", 3);
+            return cached.resultFor(query, fill);
+        }
+
+        metric.add(ContainerMetrics.RESULT_CACHE_MISSES.baseName(), 1, null);
+        Result result = execution.search(query);
+        if (isCacheable(result)) {
+            if (fill)
+                execution.fill(result, query.getPresentation().getSummary());
+            if (result.hits().getError() == null) {
+                int evicted = cache.put(key, CachedResult.of(result, fill), generation);
+                if (evicted > 0)
+                    metric.add(ContainerMetrics.RESULT_CACHE_EVICTIONS.baseName(), evicted, null);
+            }
+        }
+        return result;
+    }
+
+    private boolean isCacheable(Result result) {
+        if (result.hits().getError() != null) return false;
+        if (result.getCoverage(false) != null && ! result.getCoverage(false).getFull()) return false;
+        for (Hit hit : result.hits()) {
+            if ( ! (hit instanceof FastHit)) return false; // Other hits may depend on the query in ways we don't know about
+        }
+        return true;
+    }
+
+    /** The parts of a result which are cached, where the hits are never exposed outside this */
+    private record CachedResult(List<FastHit> hits, String id, double relevance,
+                                long totalHitCount, long deepHitCount, Coverage coverage) {
+
+        static CachedResult of(Result result, boolean filled) {
+            List<FastHit> hits = new ArrayList<>(result.hits().size());
+            for (Hit hit : result.hits())
+                hits.add(copyOf((FastHit) hit, null, filled));
+            return new CachedResult(hits, result.hits().getId().toString(), result.hits().getRelevance().getScore(),
+                                    result.getTotalHitCount(), result.getDeepHitCount(), copyOf(result.getCoverage(false)));
+        }
+
+        /** Returns a new result with a copy of the cached hits, bound to the given query */
+        Result resultFor(Query query, boolean filled) {
+            HitGroup group = new HitGroup(id, relevance);
+            for (FastHit hit : hits)
+                group.add(copyOf(hit, query, filled));
+            Result result = new Result(query, group);
+            result.setTotalHitCount(totalHitCount);
+            result.setDeepHitCount(deepHitCount);
+            result.setCoverage(copyOf(coverage));
+            return result;
+        }
+
+        /**
+         * Returns a copy of the given hit, bound to the given query, or to none if it is null.
+         * Hits which are not filled are not marked as filled in the copy, such that they are filled using
+         * the given query rather than the one they were created for.
+         */
+        private static FastHit copyOf(FastHit hit, Query query, boolean filled) {
+            FastHit copy = new FastHit(hit.getRawGlobalId(), hit.getRelevance(), hit.getPartId(), hit.getDistributionKey());
+            copy.setSource(hit.getSource());
+            copy.setQuery(query);
+            if (hit.isFillable()) {
+                copy.setFillable();
+                if (filled)
+                    hit.getFilled().forEach(copy::setFilled);
+            }
+            hit.forEachField(copy::setField);
+            return copy;
+        }
+
+        private static Coverage copyOf(Coverage coverage) {
+            if (coverage == null) return null;
+            Coverage copy = new Coverage(0, 0, 0, 0);
+            copy.merge(coverage);
+            return copy;
+        }
+
+    }
+
+    /** The parts of a query which decides its result, as values which do not refer to the query */
+    private record Key(ByteBuffer queryTree, Set<String> sources, Set<String> restrict, String searchPath,
+                       String rankProfile, Map<String, Object> rankFeatures, RankProperties rankProperties,
+                       Sorting sorting, String location, String freshness, MatchPhase matchPhase, Matching matching,
+                       SecondPhase secondPhase, GlobalPhase globalPhase, Integer rerankCount, Integer keepRankCount,
+                       Double rankScoreDropLimit, boolean listFeatures, String summary, boolean bolding,
+                       Set<String> summaryFields, int hits, int offset,
+                       String streamingUserid, String streamingGroupname, String streamingSelection) {
+
+        static Key of(Query query) {
+            Model model = query.getModel();
+            Ranking ranking = query.getRanking();
+            Presentation presentation = query.getPresentation();
+            return new Key(serialize(model.getQueryTree()), Set.copyOf(model.getSources()), Set.copyOf(model.getRestrict()),
+                           model.getSearchPath(), ranking.getProfile(), new HashMap<>(ranking.getFeatures().asMap()),
+                           ranking.getProperties().clone(),
+                           ranking.getSorting() == null ? null : ranking.getSorting().clone(),
+                           Objects.toString(ranking.getLocation(), null), Objects.toString(ranking.getFreshness(), null),
+                           ranking.getMatchPhase().clone(), ranking.getMatching().clone(),
+                           ranking.getSecondPhase().clone(), ranking.getGlobalPhase().clone(),
+                           ranking.getRerankCount(), ranking.getKeepRankCount(), ranking.getRankScoreDropLimit(),
+                           ranking.getListFeatures(),
+                           presentation.getSummary(), presentation.getBolding(), Set.copyOf(presentation.getSummaryFields()),
+                           query.getHits(), query.getOffset(),
+                           query.properties().getString(streamingUseridKey),
+                           query.properties().getString(streamingGroupnameKey),
+                           query.properties().getString(streamingSelectionKey));
+        }
+
+        /** Returns the query tree as serialized for the content nodes */
+        private static ByteBuffer serialize(QueryTree queryTree) {
+            for (int size = 1024; ; size *= 2) {
+                try {
+                    ByteBuffer buffer = ByteBuffer.allocate(size);
+                    queryTree.encode(buffer);
+                    return ByteBuffer.wrap(Arrays.copyOf(buffer.array(), buffer.position())).asReadOnlyBuffer();
+                }
+                catch (BufferOverflowException e) {
+                    // Try again with a larger buffer
+                }
+            }
+        }
+
+    }
+
+}
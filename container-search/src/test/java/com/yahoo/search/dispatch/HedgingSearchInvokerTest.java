@@ -0,0 +1,183 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.jdisc.test.MockMetric;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.ErrorMessage;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HedgingSearchInvokerTest {
+
+    @Test
+    void requireThatQueriesAreNotHedgedBeforeLatenciesAreKnown() {
+        HedgingPolicy policy = new HedgingPolicy(90, 1.0, null, "test");
+        for (int i = 0; i < HedgingPolicy.MIN_SAMPLES - 1; i++)
+            policy.recordLatency(Duration.ofMillis(i).toNanos());
+        assertEquals(-1, policy.queryStarted());
+        policy.recordLatency(Duration.ofMillis(99).toNanos());
+        assertEquals(Duration.ofMillis(89).toNanos(), policy.queryStarted());
+    }
+
+    @Test
+    void requireThatHedgingIsLimitedByBudget() {
+        HedgingPolicy policy = new HedgingPolicy(90, 0.25, null, "test");
+        for (int i = 0; i < 3; i++) policy.queryStarted();
+        assertFalse(policy.tryHedge());
+        policy.queryStarted();
+        assertTrue(policy.tryHedge());
+        assertFalse(policy.tryHedge());
+
+        for (int i = 0; i < 1000; i++) policy.queryStarted();
+        int hedges = 0;
+        while (policy.tryHedge()) hedges++;
+        assertEquals((int) HedgingPolicy.MAX_BUDGET, hedges);
+    }
+
+    @Test
+    void requireThatSecondGroupIsUsedWhenFirstIsSlow() throws IOException {
+        MockMetric metric = new MockMetric();
+        HedgingPolicy policy = primedPolicy(metric);
+        TestInvoker primary = new TestInvoker(false);
+        TestInvoker secondary = new TestInvoker(true);
+        AtomicReference<Boolean> primaryReleasedWithSuccess = new AtomicReference<>();
+        primary.teardown((success, duration) -> primaryReleasedWithSuccess.set(success));
+        Query query = new Query("?query=test");
+        query.getModel().setSearchPath("/0");
+
+        Result result = new HedgingSearchInvoker(primary, policy, policy.queryStarted(),
+                                                 () -> Optional.of(new HedgingSearchInvoker.Hedge(secondary, 1))).search(query);
+        assertNull(result.hits().getError());
+        assertTrue(secondary.searched);
+        assertTrue(primary.closed);
+        assertTrue(primaryReleasedWithSuccess.get(), "Latency of the slow group is recorded");
+        assertFalse(secondary.closed);
+        assertEquals("/1", query.getModel().getSearchPath());
+        assertEquals(1.0, metric.metrics().get("dispatch.hedged_queries").get(Map.of("clusterId", "test")), 0.0);
+        assertEquals(1.0, metric.metrics().get("dispatch.hedge_wins").get(Map.of("clusterId", "test")), 0.0);
+    }
+
+    @Test
+    void requireThatSecondGroupIsNotUsedWhenFirstIsFast() throws IOException {
+        HedgingPolicy policy = primedPolicy(null);
+        TestInvoker primary = new TestInvoker(true);
+        Query query = new Query("?query=test");
+
+        Result result = new HedgingSearchInvoker(primary, policy, policy.queryStarted(),
+                                                 () -> { throw new AssertionError("Should not hedge"); }).search(query);
+        assertNull(result.hits().getError());
+        assertTrue(primary.searched);
+        assertFalse(primary.closed);
+    }
+
+    @Test
+    void requireThatFirstGroupDecidesWhenToStopWhenNoHedgeIsSent() throws IOException {
+        HedgingPolicy policy = primedPolicy(null);
+        Query query = new Query("?query=test&timeout=60s");
+
+        TestInvoker noOtherGroup = new TestInvoker(false);
+        assertResultFrom(noOtherGroup, new HedgingSearchInvoker(noOtherGroup, policy, policy.queryStarted(), Optional::empty), query);
+
+        assertTrue(policy.tryHedge()); // Exhaust the budget
+        TestInvoker noBudget = new TestInvoker(false);
+        assertResultFrom(noBudget, new HedgingSearchInvoker(noBudget, policy, 0,
+                                                            () -> { throw new AssertionError("Should not hedge"); }), query);
+    }
+
+    @Test
+    void requireThatFirstGroupDecidesWhenToStopWhenHedgeIsAlsoSlow() throws IOException {
+        HedgingPolicy policy = primedPolicy(null);
+        Query query = new Query("?query=test&timeout=60s");
+        TestInvoker primary = new TestInvoker(false);
+        TestInvoker secondary = new TestInvoker(false);
+        assertResultFrom(primary, new HedgingSearchInvoker(primary, policy, policy.queryStarted(),
+                                                           () -> Optional.of(new HedgingSearchInvoker.Hedge(secondary, 1))), query);
+        assertFalse(secondary.searched);
+        assertTrue(secondary.closed);
+    }
+
+    @Test
+    void requireThatSecondGroupIsNotUsedWhenItAnswersWithErrors() throws IOException {
+        MockMetric metric = new MockMetric();
+        HedgingPolicy policy = primedPolicy(metric);
+        Query query = new Query("?query=test&timeout=60s");
+        query.getModel().setSearchPath("/0");
+        TestInvoker primary = new TestInvoker(false);
+        TestInvoker secondary = new TestInvoker(true, ErrorMessage.createBackendCommunicationError("failed"));
+
+        Result result = new HedgingSearchInvoker(primary, policy, policy.queryStarted(),
+                                                 () -> Optional.of(new HedgingSearchInvoker.Hedge(secondary, 1))).search(query);
+        assertNull(result.hits().getError());
+        assertTrue(primary.searched);
+        assertFalse(primary.closed);
+        assertTrue(secondary.closed);
+        assertEquals("/0", query.getModel().getSearchPath());
+        assertNull(metric.metrics().get("dispatch.hedge_wins"));
+    }
+
+    private static void assertResultFrom(TestInvoker expected, HedgingSearchInvoker invoker, Query query) throws IOException {
+        long startNanos = System.nanoTime();
+        invoker.search(query);
+        assertTrue(expected.searched);
+        assertTrue(System.nanoTime() - startNanos < Duration.ofSeconds(30).toNanos(), "Did not wait for the query timeout");
+    }
+
+    /** Returns a policy which hedges after 1 ms, and which may hedge one query */
+    private static HedgingPolicy primedPolicy(MockMetric metric) {
+        HedgingPolicy policy = new HedgingPolicy(50, 1.0, metric, "test");
+        for (int i = 0; i < HedgingPolicy.MIN_SAMPLES; i++)
+            policy.recordLatency(Duration.ofMillis(1).toNanos());
+        return policy;
+    }
+
+    private static class TestInvoker extends SearchInvoker {
+
+        private final boolean answers;
+        private final ErrorMessage error;
+        private Query query;
+        boolean searched = false;
+        boolean closed = false;
+
+        TestInvoker(boolean answers) {
+            this(answers, null);
+        }
+
+        TestInvoker(boolean answers, ErrorMessage error) {
+            super(Optional.empty());
+            this.answers = answers;
+            this.error = error;
+        }
+
+        @Override
+        protected Object sendSearchRequest(Query query, Object context) {
+            this.query = query;
+            if (answers)
+                responseAvailable();
+            return context;
+        }
+
+        @Override
+        protected InvokerResult getSearchResult() {
+            searched = true;
+            return error == null ? new InvokerResult(query, 10) : errorResult(query, error);
+        }
+
+        @Override
+        protected void release() {
+            closed = true;
+        }
+
+    }
+
+}
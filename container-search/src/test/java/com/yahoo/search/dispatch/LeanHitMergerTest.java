@@ -0,0 +1,177 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LeanHitMergerTest {
+
+    @Test
+    void testMergingNothing() {
+        LeanHitMerger merger = new LeanHitMerger(10);
+        merger.add(List.of());
+        assertEquals(List.of(), merger.hits());
+    }
+
+    @Test
+    void testSingleList() {
+        List<LeanHit> hits = List.of(hit("a", 3), hit("b", 2));
+        LeanHitMerger merger = new LeanHitMerger(10);
+        merger.add(hits);
+        merger.add(List.of());
+        assertEquals(hits, merger.hits());
+    }
+
+    @Test
+    void testMergingIsOrderedAndStopsAtNeeded() {
+        LeanHitMerger merger = new LeanHitMerger(4);
+        merger.add(List.of(hit("a", 9), hit("b", 5), hit("c", 1)));
+        assertRelevances(List.of(9.0, 5.0, 1.0), merger.hits());
+        merger.add(List.of(hit("d", 8), hit("e", 7)));
+        assertRelevances(List.of(9.0, 8.0, 7.0, 5.0), merger.hits());
+        merger.add(List.of(hit("f", 6), hit("g", 4)));
+        assertRelevances(List.of(9.0, 8.0, 7.0, 6.0), merger.hits());
+        merger.add(List.of(hit("h", 6), hit("i", 3)));
+        assertRelevances(List.of(9.0, 8.0, 7.0, 6.0), merger.hits());
+        merger.add(List.of(hit("j", 10)));
+        assertRelevances(List.of(10.0, 9.0, 8.0, 7.0), merger.hits());
+    }
+
+    @Test
+    void testNothingIsKeptWhenNoHitsAreNeeded() {
+        LeanHitMerger merger = new LeanHitMerger(0);
+        merger.add(List.of(hit("a", 9)));
+        assertEquals(List.of(), merger.hits());
+    }
+
+    @Test
+    void testDuplicatesAreRemoved() {
+        LeanHitMerger merger = new LeanHitMerger(10);
+        merger.add(List.of(hit("a", 3), hit("b", 2), hit("c", 1)));
+        merger.add(List.of(hit("a", 3), hit("c", 1)));
+        merger.add(List.of(hit("b", 2), hit("d", 2)));
+        List<LeanHit> merged = merger.hits();
+        assertEquals(4, merged.size());
+        assertRelevances(List.of(3.0, 2.0, 2.0, 1.0), merged);
+    }
+
+    @Test
+    void testMergingEqualsSortingAllHits() {
+        for (int needed : new int[] { 1, 7, 100, 1000 }) {
+            Random random = new Random(needed);
+            List<LeanHit> all = new ArrayList<>();
+            LeanHitMerger merger = new LeanHitMerger(needed);
+            for (int node = 0; node < 20; node++) {
+                List<LeanHit> hits = new ArrayList<>();
+                for (int i = 0; i < 30; i++)
+                    hits.add(new LeanHit(new byte[] { (byte) node, (byte) i }, 0, node, random.nextInt(100)));
+                Collections.sort(hits);
+                all.addAll(hits);
+                merger.add(hits);
+                if (node % 3 == 0) // Add some duplicates
+                    merger.add(hits.subList(10, 20));
+            }
+            Collections.sort(all);
+            assertEquals(all.subList(0, Math.min(needed, all.size())), merger.hits());
+        }
+    }
+
+    /** Compares merging with this to the pairwise merging it replaced, for 400 hits from groups of various sizes. */
+    @Test
+    @Disabled
+    void benchmarkMerging() {
+        int hits = 400;
+        for (int nodes : new int[] { 4, 16, 64, 128 }) {
+            List<List<LeanHit>> replies = createReplies(nodes, new TopKEstimator(30, 0.999).estimateK(hits, nodes));
+            System.out.println("Merging " + nodes + " replies of " + replies.get(0).size() + " hits: " +
+                               time(replies, hits, LeanHitMergerTest::incrementalMerge) + " ns incremental, " +
+                               time(replies, hits, LeanHitMergerTest::pairwiseMerge) + " ns pairwise");
+        }
+    }
+
+    private static long time(List<List<LeanHit>> replies, int hits, Merger merger) {
+        int iterations = 10000;
+        long found = 0;
+        for (int i = 0; i < iterations; i++) // Warm-up
+            found += merger.merge(replies, hits).size();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            found += merger.merge(replies, hits).size();
+        long elapsed = System.nanoTime() - startTime;
+        assertEquals(2L * iterations * hits, found);
+        return elapsed / iterations;
+    }
+
+    private static List<LeanHit> incrementalMerge(List<List<LeanHit>> replies, int hits) {
+        LeanHitMerger merger = new LeanHitMerger(hits);
+        replies.forEach(merger::add);
+        return merger.hits();
+    }
+
+    private static List<LeanHit> pairwiseMerge(List<List<LeanHit>> replies, int hits) {
+        List<LeanHit> current = List.of();
+        for (List<LeanHit> partial : replies) {
+            if (current.isEmpty()) {
+                current = partial;
+                continue;
+            }
+            List<LeanHit> merged = new ArrayList<>(hits);
+            int indexCurrent = 0;
+            int indexPartial = 0;
+            while (indexCurrent < current.size() && indexPartial < partial.size() && merged.size() < hits) {
+                int cmpRes = current.get(indexCurrent).compareTo(partial.get(indexPartial));
+                if (cmpRes < 0) {
+                    merged.add(current.get(indexCurrent++));
+                } else if (cmpRes > 0) {
+                    merged.add(partial.get(indexPartial++));
+                } else {
+                    merged.add(current.get(indexCurrent++));
+                    indexPartial++;
+                }
+            }
+            while (indexCurrent < current.size() && merged.size() < hits)
+                merged.add(current.get(indexCurrent++));
+            while (indexPartial < partial.size() && merged.size() < hits)
+                merged.add(partial.get(indexPartial++));
+            current = merged;
+        }
+        return current;
+    }
+
+    private static List<List<LeanHit>> createReplies(int nodes, int hitsPerNode) {
+        Random random = new Random(1);
+        List<List<LeanHit>> replies = new ArrayList<>();
+        for (int node = 0; node < nodes; node++) {
+            List<LeanHit> reply = new ArrayList<>(hitsPerNode);
+            double relevance = 1.0;
+            for (int i = 0; i < hitsPerNode; i++) {
+                relevance -= random.nextDouble() / hitsPerNode;
+                byte[] gid = new byte[12];
+                random.nextBytes(gid);
+                reply.add(new LeanHit(gid, 0, node, relevance));
+            }
+            replies.add(reply);
+        }
+        return replies;
+    }
+
+    private interface Merger {
+        List<LeanHit> merge(List<List<LeanHit>> replies, int hits);
+    }
+
+    private static LeanHit hit(String gid, double relevance) {
+        return new LeanHit(gid.getBytes(), 0, 0, relevance);
+    }
+
+    private static void assertRelevances(List<Double> expected, List<LeanHit> hits) {
+        assertEquals(expected, hits.stream().map(LeanHit::getRelevance).toList());
+    }
+
+}
@@ -4,6 +4,8 @@ package com.yahoo.search.dispatch;
 import com.yahoo.search.dispatch.LoadBalancer.AdaptiveScheduler;
 import com.yahoo.search.dispatch.LoadBalancer.BestOfRandom2;
 import com.yahoo.search.dispatch.LoadBalancer.GroupStatus;
+import com.yahoo.search.dispatch.LoadBalancer.LeastExpectedCompletionTime;
+import com.yahoo.jdisc.test.MockMetric;
 import com.yahoo.search.dispatch.searchcluster.Group;
 import com.yahoo.search.dispatch.searchcluster.Node;
 import org.junit.jupiter.api.Test;
@@ -11,10 +13,12 @@ import org.junit.jupiter.api.Test;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -184,6 +188,58 @@ public class LoadBalancerTest {
         assertEquals(0, allocate(sched.takeNextGroup(null).get()).groupId());
     }
 
+    @Test
+    void requireLeastExpectedCompletionTimeToSpreadQueriesInFlight() {
+        var scoreboard = createScoreBoard(3);
+        LeastExpectedCompletionTime sched = new LeastExpectedCompletionTime(new Random(1), scoreboard);
+        Set<Integer> selected = new HashSet<>();
+        for (int i = 0; i < 3; i++)
+            selected.add(allocate(sched.takeNextGroup(null).get()).groupId());
+        assertEquals(Set.of(0, 1, 2), selected);
+    }
+
+    @Test
+    void requireLeastExpectedCompletionTimeToAvoidGroupWhichIsSlowingDown() {
+        var scoreboard = createScoreBoard(2);
+        LeastExpectedCompletionTime sched = new LeastExpectedCompletionTime(new Random(1), scoreboard);
+        scoreboard.values().forEach(gs -> gs.setDecayer(new LeastExpectedCompletionTime.TrendingLatency(RequestDuration.of(Instant.EPOCH, Duration.ZERO))));
+        Instant time = Instant.EPOCH;
+        for (int i = 0; i < 100; i++) {
+            time = time.plusMillis(100);
+            for (GroupStatus gs : scoreboard.values())
+                updateSearchTime(gs, RequestDuration.of(time, Duration.ofMillis(10)));
+        }
+        assertEquals(LeastExpectedCompletionTime.expectedCompletionTime(scoreboard.get(0)),
+                     LeastExpectedCompletionTime.expectedCompletionTime(scoreboard.get(1)), delta);
+
+        for (int i = 0; i < 3; i++) {
+            time = time.plusMillis(100);
+            updateSearchTime(scoreboard.get(0), RequestDuration.of(time, Duration.ofMillis(30)));
+            updateSearchTime(scoreboard.get(1), RequestDuration.of(time, Duration.ofMillis(10)));
+        }
+        assertTrue(LeastExpectedCompletionTime.expectedCompletionTime(scoreboard.get(0)) >
+                   1.5 * LeastExpectedCompletionTime.expectedCompletionTime(scoreboard.get(1)));
+        assertEquals(1, allocate(sched.takeNextGroup(null).get()).groupId());
+    }
+
+    @Test
+    void requireLeastExpectedCompletionTimeToAvoidGroupWithNodesDown() {
+        Node n1 = new Node("test", 0, "test-node1", 0);
+        Node n2 = new Node("test", 1, "test-node2", 0);
+        Node n3 = new Node("test", 2, "test-node3", 1);
+        Node n4 = new Node("test", 3, "test-node4", 1);
+        n1.setWorking(false);
+        List.of(n2, n3, n4).forEach(node -> node.setWorking(true));
+        MockMetric metric = new MockMetric();
+        LoadBalancer lb = new LoadBalancer(List.of(new Group(0, List.of(n1, n2)), new Group(1, List.of(n3, n4))),
+                                           LoadBalancer.Policy.LEAST_EXPECTED_COMPLETION_TIME, metric, "test");
+        assertEquals(1, lb.takeGroup(null).get().id()); // Half the expected completion time of group 0
+        lb.takeGroup(null); // Equal
+        lb.takeGroup(null); // Whichever was not taken above
+        assertEquals(2.0, metric.metrics().get("dispatch.group.selections").get(Map.of("clusterId", "test", "groupId", "1")), delta);
+        assertEquals(1.0, metric.metrics().get("dispatch.group.selections").get(Map.of("clusterId", "test", "groupId", "0")), delta);
+    }
+
     private static int countRequestsToReach90p(Duration timeBetweenSample, Duration searchTime) {
         double p90 = 0.9*searchTime.toMillis()/1000.0;
         GroupStatus.Decayer decayer = new AdaptiveScheduler.DecayByTime(Duration.ofMillis(1), RequestDuration.of(Instant.EPOCH, Duration.ZERO));
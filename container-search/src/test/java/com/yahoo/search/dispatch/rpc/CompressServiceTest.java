@@ -0,0 +1,60 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor;
+import com.yahoo.search.Query;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CompressServiceTest {
+
+    private final CompressService service = new CompressService();
+
+    @Test
+    void requireThatLz4IsUsedByDefault() {
+        byte[] payload = repetitivePayload();
+        Compressor.Compression compression = service.compress(new Query("?query=test"), payload);
+        assertEquals(CompressionType.LZ4, compression.type());
+        assertArrayEquals(payload, service.decompress(responseOf(compression)));
+    }
+
+    @Test
+    void requireThatZstdCanBeRequested() {
+        byte[] payload = repetitivePayload();
+        Compressor.Compression compression = service.compress(new Query("?query=test&dispatch.compression=zstd"), payload);
+        assertEquals(CompressionType.ZSTD, compression.type());
+        assertArrayEquals(payload, service.decompress(responseOf(compression)));
+    }
+
+    @Test
+    void requireThatSmallPayloadsAreNotCompressed() {
+        byte[] payload = "short".getBytes(StandardCharsets.UTF_8);
+        Compressor.Compression compression = service.compress(new Query("?query=test&dispatch.compression=zstd"), payload);
+        assertEquals(CompressionType.INCOMPRESSIBLE, compression.type());
+        assertArrayEquals(payload, service.decompress(responseOf(compression)));
+    }
+
+    @Test
+    void requireThatIncompressiblePayloadsAreSentAsIs() {
+        byte[] payload = new byte[4096];
+        new Random(1).nextBytes(payload);
+        Compressor.Compression compression = service.compress(new Query("?query=test&dispatch.compression=zstd"), payload);
+        assertEquals(CompressionType.INCOMPRESSIBLE, compression.type());
+        assertArrayEquals(payload, service.decompress(responseOf(compression)));
+    }
+
+    private static byte[] repetitivePayload() {
+        return "rank-profile: default, summary: attributeprefetch, field: title ".repeat(20).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Client.ProtobufResponse responseOf(Compressor.Compression compression) {
+        return new Client.ProtobufResponse(compression.type().getCode(), compression.uncompressedSize(), compression.data());
+    }
+
+}
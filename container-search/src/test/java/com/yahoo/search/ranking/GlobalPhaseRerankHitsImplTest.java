@@ -13,6 +13,8 @@ import com.yahoo.tensor.Tensor;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -249,4 +251,37 @@ public class GlobalPhaseRerankHitsImplTest {
         GlobalPhaseRanker.rerankHitsImpl(setup, query, result);
         expect.verifyScores(result);
     }
+    @Test void parallelBatchesGiveSameResultAsSequential() {
+        var setup = setup().rerank(5).eval(makeSumSpec(List.of("x"), List.of("bar")))
+                .addNormalizer(makeNormalizer("foo", List.of(115.0, 65.0, 55.0, 45.0, 15.0), makeSumSpec(List.of("x"), List.of("bar")))).build();
+        var query = makeQuery(List.of(value("query(x)", 5)));
+        query.getRanking().getGlobalPhase().setBatchSize(2);
+        var factory = new HitFactory(List.of("bar"));
+        var result = makeResult(query, List.of(factory.create("a", 1, List.of(value("bar", 10))),
+                factory.create("b", 2, List.of(value("bar", 40))),
+                factory.create("c", 3, List.of(value("bar", 50))),
+                factory.create("d", 4, List.of(value("bar", 60))),
+                factory.create("e", 5, List.of(value("bar", 110))),
+                factory.create("f", 0.5, List.of(value("bar", 0)))));
+        var expect = Expect.make(List.of(hit("a", 20), hit("b", 49), hit("c", 58), hit("d", 67), hit("e", 116), hit("f", 0.5)));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            GlobalPhaseRanker.rerankHitsImpl(setup, query, result, executor);
+        } finally {
+            executor.shutdown();
+        }
+        expect.verifyScores(result);
+    }
+    @Test void batchesRejectedByExecutorAreRunByCaller() {
+        var setup = setup().rerank(3).eval(makeSumSpec(List.of(), List.of("bar"))).build();
+        var query = makeQuery(List.of());
+        query.getRanking().getGlobalPhase().setBatchSize(1);
+        var factory = new HitFactory(List.of("bar"));
+        var result = makeResult(query, List.of(factory.create("a", 1, List.of(value("bar", 7))),
+                factory.create("b", 2, List.of(value("bar", 8))),
+                factory.create("c", 3, List.of(value("bar", 9)))));
+        var expect = Expect.make(List.of(hit("a", 7), hit("b", 8), hit("c", 9)));
+        GlobalPhaseRanker.rerankHitsImpl(setup, query, result, task -> { throw new java.util.concurrent.RejectedExecutionException(); });
+        expect.verifyScores(result);
+    }
 }
@@ -138,6 +138,28 @@ public class GlobalPhaseSetupTest {
         assertEquals("withIndirect(foo1)", wantMF.get(3).matchFeatureName());
     }
 
+    @Test void compiledGlobalPhase() {
+        var builder = new RankProfilesConfig.Builder(readConfig("with_normalizers"));
+        builder.rankprofile.get(0).fef.property(new RankProfilesConfig.Rankprofile.Fef.Property.Builder()
+                                                        .name("vespa.globalphase.compile").value("true"));
+        RankProfilesConfig rpCfg = builder.build();
+        RankProfilesEvaluator rpEvaluator = createEvaluator(rpCfg);
+        var setup = GlobalPhaseSetup.maybeMakeSetup(rpCfg.rankprofile().get(0), rpEvaluator);
+        assertNotNull(setup);
+        assertEquals(7, setup.normalizers.size());
+
+        var model = rpEvaluator.modelForRankProfile(rpCfg.rankprofile().get(0).name());
+        var interpreted = new SimpleEvaluator(model.evaluatorOf("globalphase"));
+        var compiled = setup.globalPhaseEvalSpec.evalSource().get();
+        double value = 0.5;
+        for (String argument : model.evaluatorOf("globalphase").function().arguments()) {
+            interpreted.bind(argument, Tensor.from(value));
+            compiled.bind(argument, Tensor.from(value));
+            value *= 3;
+        }
+        assertEquals(interpreted.evaluateScore(), compiled.evaluateScore(), 0);
+    }
+
     private RankProfilesEvaluator createEvaluator(RankProfilesConfig config) {
         RankingConstantsConfig constantsConfig = new RankingConstantsConfig.Builder().build();
         RankingExpressionsConfig expressionsConfig = new RankingExpressionsConfig.Builder().build();
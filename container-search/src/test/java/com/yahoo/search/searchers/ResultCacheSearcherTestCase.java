@@ -0,0 +1,237 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.searchers;
+
+import com.yahoo.component.chain.Chain;
+import com.yahoo.jdisc.test.MockMetric;
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.config.ResultCacheConfig;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ResultCacheSearcherTestCase {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final MockMetric metric = new MockMetric();
+    private final Backend backend = new Backend();
+
+    @Test
+    void testIdenticalQueriesAreCached() {
+        Chain<Searcher> chain = chain(ResultCacheConfig.Mode.FIRST_PHASE);
+        Result first = search(chain, "?query=foo&hits=3");
+        Result second = search(chain, "?query=foo&hits=3");
+        assertEquals(1, backend.searches);
+        assertEquals(3, second.getHitCount());
+        assertEquals(first.getTotalHitCount(), second.getTotalHitCount());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(first.hits().get(i).getId(), second.hits().get(i).getId());
+            assertNotSame(first.hits().get(i), second.hits().get(i));
+            assertSame(second.getQuery(), second.hits().get(i).getQuery());
+        }
+        assertEquals(1.0, metric("result_cache.hits"), 0.0);
+        assertEquals(1.0, metric("result_cache.misses"), 0.0);
+    }
+
+    @Test
+    void testDifferentQueriesAreNotMixedUp() {
+        Chain<Searcher> chain = chain(ResultCacheConfig.Mode.FIRST_PHASE);
+        search(chain, "?query=foo&hits=3");
+        search(chain, "?query=bar&hits=3");
+        search(chain, "?query=foo&hits=4");
+        search(chain, "?query=foo&hits=3&offset=1");
+        search(chain, "?query=foo&hits=3&ranking=other");
+        search(chain, "?query=foo&hits=3&ranking.features.query(x)=1");
+        search(chain, "?query=foo&hits=3&sources=other");
+        assertEquals(7, backend.searches);
+        search(chain, "?query=foo&hits=3&ranking.features.query(x)=1");
+        assertEquals(7, backend.searches);
+    }
+
+    @Test
+    void testQueriesWithDifferentHitCollectionAreNotMixedUp() {
+        Chain<Searcher> chain = chain(ResultCacheConfig.Mode.FILLED);
+        searchAndFill(chain, "?query=foo&hits=3");
+        searchAndFill(chain, "?query=foo&hits=3&ranking.rerankCount=10");
+        searchAndFill(chain, "?query=foo&hits=3&ranking.rerankCount=20");
+        searchAndFill(chain, "?query=foo&hits=3&ranking.keepRankCount=10");
+        searchAndFill(chain, "?query=foo&hits=3&ranking.rankScoreDropLimit=0.5");
+        searchAndFill(chain, "?query=foo&hits=3&ranking.listFeatures=true");
+        assertEquals(6, backend.searches);
+        searchAndFill(chain, "?query=foo&hits=3&ranking.rerankCount=10");
+        searchAndFill(chain, "?query=foo&hits=3&ranking.listFeatures=true");
+        assertEquals(6, backend.searches);
+    }
+
+    @Test
+    void testStreamingQueriesForDifferentDocumentsAreNotMixedUp() {
+        Chain<Searcher> chain = chain(ResultCacheConfig.Mode.FIRST_PHASE);
+        search(chain, "?query=foo&streaming.userid=1");
+        search(chain, "?query=foo&streaming.userid=2");
+        assertEquals(2, backend.searches);
+        search(chain, "?query=foo&streaming.groupname=a");
+        search(chain, "?query=foo&streaming.groupname=b");
+        assertEquals(4, backend.searches);
+        search(chain, "?query=foo&streaming.selection=id.user%3D%3D1");
+        search(chain, "?query=foo&streaming.selection=id.user%3D%3D2");
+        assertEquals(6, backend.searches);
+        search(chain, "?query=foo&streaming.userid=1");
+        assertEquals(6, backend.searches);
+    }
+
+    @Test
+    void testQueriesForDifferentSummaryFieldsAreNotMixedUp() {
+        Chain<Searcher> chain = chain(ResultCacheConfig.Mode.FILLED);
+        searchAndFill(chain, "?query=foo&hits=3&presentation.summaryFields=title");
+        searchAndFill(chain, "?query=foo&hits=3&presentation.summaryFields=body");
+        assertEquals(2, backend.searches);
+        searchAndFill(chain, "?query=foo&hits=3&presentation.summaryFields=title");
+        assertEquals(2, backend.searches);
+    }
+
+    @Test
+    void testCachedHitsAreFilledInFirstPhaseMode() {
+        Chain<Searcher> chain = chain(ResultCacheConfig.Mode.FIRST_PHASE);
+        searchAndFill(chain, "?query=foo&hits=3");
+        Result cached = searchAndFill(chain, "?query=foo&hits=3");
+        assertEquals(1, backend.searches);
+        assertEquals(2, backend.fills);
+        assertEquals("filled", cached.hits().get(0).getField("title"));
+    }
+
+    @Test
+    void testCachedHitsAreNotFilledAgainInFilledMode() {
+        Chain<Searcher> chain = chain(ResultCacheConfig.Mode.FILLED);
+        searchAndFill(chain, "?query=foo&hits=3");
+        Result cached = searchAndFill(chain, "?query=foo&hits=3");
+        assertEquals(1, backend.searches);
+        assertEquals(1, backend.fills);
+        assertEquals("filled", cached.hits().get(0).getField("title"));
+    }
+
+    @Test
+    void testResultsExpireByTimeAndGeneration() {
+        Chain<Searcher> chain = chain(ResultCacheConfig.Mode.FIRST_PHASE);
+        search(chain, "?query=foo&resultcache.generation=1");
+        search(chain, "?query=foo&resultcache.generation=1");
+        assertEquals(1, backend.searches);
+        search(chain, "?query=foo&resultcache.generation=2");
+        assertEquals(2, backend.searches);
+        search(chain, "?query=foo&resultcache.generation=1");
+        assertEquals(2, backend.searches);
+
+        clock.addAndGet(Duration.ofSeconds(11).toNanos());
+        search(chain, "?query=foo&resultcache.generation=2");
+        assertEquals(3, backend.searches);
+    }
+
+    @Test
+    void testErrorsAndNoCacheQueriesAreNotCached() {
+        Chain<Searcher> chain = chain(ResultCacheConfig.Mode.FIRST_PHASE);
+        search(chain, "?query=error");
+        search(chain, "?query=error");
+        assertEquals(2, backend.searches);
+        search(chain, "?query=foo&noCache=true");
+        search(chain, "?query=foo&noCache=true");
+        assertEquals(4, backend.searches);
+    }
+
+    @Test
+    void testCachedResultsDoNotReferToTheirQuery() throws InterruptedException {
+        for (var mode : List.of(ResultCacheConfig.Mode.FIRST_PHASE, ResultCacheConfig.Mode.FILLED)) {
+            Chain<Searcher> chain = chain(mode);
+            WeakReference<Query> query = new WeakReference<>(searchAndFill(chain, "?query=foo&hits=3&ranking.features.query(x)=1").getQuery());
+            for (int i = 0; i < 100 && query.get() != null; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            assertNull(query.get(), "Query is not reachable from the cache in " + mode + " mode");
+
+            int searches = backend.searches;
+            searchAndFill(chain, "?query=foo&hits=3&ranking.features.query(x)=1");
+            assertEquals(searches, backend.searches);
+        }
+    }
+
+    @Test
+    void testEvictionIsSegmented() {
+        ResultCache<String, String> cache = new ResultCache<>(10, 0, clock::get);
+        for (int i = 0; i < 10; i++)
+            cache.put("key" + i, "value" + i, 0);
+        assertEquals("value0", cache.get("key0", 0)); // key0 is now protected
+        int evicted = 0;
+        for (int i = 10; i < 30; i++)
+            evicted += cache.put("key" + i, "value" + i, 0);
+        assertEquals(20, evicted);
+        assertEquals(10, cache.size());
+        assertEquals("value0", cache.get("key0", 0));
+        assertEquals(null, cache.get("key1", 0));
+    }
+
+    private Chain<Searcher> chain(ResultCacheConfig.Mode.Enum mode) {
+        var config = new ResultCacheConfig.Builder().maxEntries(100).ttl(10).mode(mode).build();
+        return new Chain<>(new ResultCacheSearcher(config, metric, clock::get), backend);
+    }
+
+    private Result search(Chain<Searcher> chain, String request) {
+        return new Execution(chain, Execution.Context.createContextStub()).search(new Query(request));
+    }
+
+    private Result searchAndFill(Chain<Searcher> chain, String request) {
+        Execution execution = new Execution(chain, Execution.Context.createContextStub());
+        Result result = execution.search(new Query(request));
+        execution.fill(result);
+        return result;
+    }
+
+    private double metric(String name) {
+        return metric.metrics().get(name).get(Map.of());
+    }
+
+    private static class Backend extends Searcher {
+
+        int searches = 0;
+        int fills = 0;
+
+        @Override
+        public Result search(Query query, Execution execution) {
+            searches++;
+            if (query.getModel().getQueryString().equals("error"))
+                return new Result(query, ErrorMessage.createBackendCommunicationError("failed"));
+            Result result = new Result(query);
+            for (int i = 0; i < query.getHits(); i++) {
+                FastHit hit = new FastHit(new byte[] { (byte) (query.getOffset() + i) }, 1.0 / (i + 1), 0, 0);
+                hit.setQuery(query);
+                hit.setFillable();
+                result.hits().add(hit);
+            }
+            result.setTotalHitCount(100);
+            return result;
+        }
+
+        @Override
+        public void fill(Result result, String summaryClass, Execution execution) {
+            fills++;
+            for (Hit hit : result.hits()) {
+                hit.setField("title", "filled");
+                hit.setFilled(summaryClass);
+            }
+        }
+
+    }
+
+}
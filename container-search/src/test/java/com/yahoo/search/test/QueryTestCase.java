@@ -648,9 +648,12 @@ public class QueryTestCase {
     void globalphase_parameters_are_resolved() {
         var q = new Query("?query=foo");
         assertNull(q.getRanking().getGlobalPhase().getRerankCount());
+        assertNull(q.getRanking().getGlobalPhase().getBatchSize());
         q = new Query("?query=foo&" +
-                      "ranking.globalPhase.rerankCount=42");
+                      "ranking.globalPhase.rerankCount=42&" +
+                      "ranking.globalPhase.batchSize=8");
         assertEquals(42, q.getRanking().getGlobalPhase().getRerankCount());
+        assertEquals(8, q.getRanking().getGlobalPhase().getBatchSize());
     }
 
     @Test
@@ -6,6 +6,7 @@ import java.nio.ByteBuffer;
 
 
 class Buffer {
+    private final BufferPool pool;
     private ByteBuffer buf;
     private int        readPos;
     private int        writePos;
@@ -55,18 +56,39 @@ class Buffer {
             if (buf.capacity() + free < minFree) {
                 size = buf.capacity() + minFree;
             }
-            ByteBuffer tmp = ByteBuffer.allocate(size);
+            ByteBuffer tmp = allocate(size);
             tmp.order(buf.order());
             buf.position(readPos);
             buf.limit(writePos);
             tmp.put(buf);
+            free(buf);
             buf = tmp;
             readPos = 0;
         }
     }
 
+    private ByteBuffer allocate(int size) {
+        return (pool != null) ? pool.acquire(size) : ByteBuffer.allocate(size);
+    }
+
+    private void free(ByteBuffer old) {
+        if (pool != null) {
+            pool.release(old);
+        }
+    }
+
     public Buffer(int size) {
-        buf = ByteBuffer.allocate(size);
+        this(size, null);
+    }
+
+    /**
+     * Creates a buffer which allocates its memory from the given pool,
+     * and returns it there when it grows, shrinks or is released.
+     * The buffer must then only be used by the thread owning the pool.
+     */
+    Buffer(int size, BufferPool pool) {
+        this.pool = pool;
+        buf = allocate(size);
         readPos = 0;
         writePos = 0;
         readMode = false;
@@ -79,11 +101,16 @@ class Buffer {
         if (used > size || buf.capacity() <= size) {
             return false;
         }
-        ByteBuffer tmp = ByteBuffer.allocate(size);
+        ByteBuffer tmp = allocate(size);
+        if (tmp.capacity() >= buf.capacity()) {
+            free(tmp);
+            return false;
+        }
         tmp.order(buf.order());
         buf.position(rpos);
         buf.limit(wpos);
         tmp.put(buf);
+        free(buf);
         buf = tmp;
         readPos = 0;
         writePos = used;
@@ -108,4 +135,18 @@ class Buffer {
         ensureFree(minFree);
         return buf;
     }
+
+    /**
+     * Discards the content of this buffer, and returns its memory
+     * to the pool it was allocated from, if any.
+     */
+    public void release() {
+        ByteBuffer old = buf;
+        buf = ByteBuffer.allocate(0);
+        buf.order(old.order());
+        readPos = 0;
+        writePos = 0;
+        readMode = false;
+        free(old);
+    }
 }
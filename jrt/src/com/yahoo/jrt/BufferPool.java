@@ -0,0 +1,79 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pool of direct byte buffers, owned by a single {@link TransportThread}.
+ * Buffers are handed out in power-of-two size classes, so that buffers released
+ * when a connection buffer grows or shrinks can be reused by other connections
+ * handled by the same thread. Requests larger than the largest size class get
+ * plain heap buffers, which are never pooled.
+ *
+ * This class is not thread safe, and must only be used by its transport thread.
+ */
+class BufferPool {
+
+    static final int MIN_SIZE_SHIFT = 12; // 4 KiB
+    static final int MAX_SIZE_SHIFT = 22; // 4 MiB
+
+    private final List<ArrayDeque<ByteBuffer>> free = new ArrayList<>();
+    private final long maxRetainedBytes;
+    private final TransportMetrics metrics;
+    private long retainedBytes = 0;
+
+    BufferPool(long maxRetainedBytes, TransportMetrics metrics) {
+        for (int shift = MIN_SIZE_SHIFT; shift <= MAX_SIZE_SHIFT; shift++) {
+            free.add(new ArrayDeque<>());
+        }
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.metrics = metrics;
+    }
+
+    /** Returns a cleared buffer with capacity at least the given size */
+    ByteBuffer acquire(int minSize) {
+        if (minSize == 0) {
+            return ByteBuffer.allocate(0);
+        }
+        int sizeClass = sizeClassOf(minSize);
+        if (sizeClass >= free.size()) {
+            metrics.addHeapBufferAllocation(minSize);
+            return ByteBuffer.allocate(minSize);
+        }
+        ByteBuffer buf = free.get(sizeClass).pollLast();
+        if (buf != null) {
+            retainedBytes -= buf.capacity();
+            metrics.incrementBufferPoolHits();
+            return buf;
+        }
+        int size = 1 << (sizeClass + MIN_SIZE_SHIFT);
+        metrics.addDirectBufferAllocation(size);
+        return ByteBuffer.allocateDirect(size);
+    }
+
+    /** Returns a buffer to this pool. The caller must not use the buffer afterwards. */
+    void release(ByteBuffer buf) {
+        if ( ! buf.isDirect() || Integer.bitCount(buf.capacity()) != 1) {
+            return;
+        }
+        int sizeClass = sizeClassOf(buf.capacity());
+        if (sizeClass >= free.size() || retainedBytes + buf.capacity() > maxRetainedBytes) {
+            return; // freed when garbage collected
+        }
+        buf.clear();
+        free.get(sizeClass).addLast(buf);
+        retainedBytes += buf.capacity();
+    }
+
+    /** Returns the total capacity of the free buffers in this */
+    long retainedBytes() { return retainedBytes; }
+
+    private static int sizeClassOf(int size) {
+        int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return Math.max(0, shift - MIN_SIZE_SHIFT);
+    }
+
+}
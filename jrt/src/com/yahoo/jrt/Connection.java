@@ -9,9 +9,11 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
-import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -31,18 +33,19 @@ class Connection extends Target {
     private static final int CONNECTED  = 2;
     private static final int CLOSED     = 3;
 
-    private int state = INITIAL;
-    private final Queue  queue   = new Queue();
-    private final Queue  myQueue = new Queue();
-    private final Buffer input   = new Buffer(0); // Start off with empty buffer.
-    private final Buffer output  = new Buffer(0); // Start off with empty buffer.
+    private volatile int state = INITIAL;
+    // Packets are posted by any thread without locking, and taken by the transport thread
+    private final ConcurrentLinkedQueue<Packet> queue = new ConcurrentLinkedQueue<>();
+    // Number of packets posted but not yet taken from the queue
+    private final AtomicInteger pendingPackets = new AtomicInteger(0);
+    private final Buffer input;
+    private final Buffer output;
     private final int maxInputSize;
     private final int maxOutputSize;
     private final boolean dropEmptyBuffers;
     private final boolean tcpNoDelay;
-    private final Map<Integer, ReplyHandler> replyMap = new HashMap<>();
+    private final Map<Integer, ReplyHandler> replyMap = new ConcurrentHashMap<>();
     private final Map<TargetWatcher, TargetWatcher> watchers = new IdentityHashMap<>();
-    private int writeWork  = 0;
     private boolean pendingHandshakeWork = false;
     private final TransportThread parent;
     private final Supervisor owner;
@@ -53,6 +56,7 @@ class Connection extends Target {
     private final AtomicLong requestId = new AtomicLong(0);
     private SelectionKey selectionKey;
     private Exception lostReason = null;
+    private final TransportMetrics metrics = TransportMetrics.getInstance();
 
     private void setState(int state) {
         if (state <= this.state) {
@@ -61,11 +65,11 @@ class Connection extends Target {
         }
         boolean live = (state == CONNECTED);
         boolean down = (state == CLOSED);
-        boolean pendingWrite;
         synchronized (this) {
             this.state = state;
-            pendingWrite = (writeWork > 0);
         }
+        // Read after the state is set: a concurrent postPacket either sees the new state, or is counted here
+        boolean pendingWrite = (pendingPackets.get() > 0);
         if (live) {
             enableRead();
             if (pendingWrite) {
@@ -75,8 +79,11 @@ class Connection extends Target {
             }
         }
         if (down) {
-            for (ReplyHandler rh : replyMap.values()) {
-                rh.handleConnectionDown();
+            for (Integer key : replyMap.keySet()) {
+                ReplyHandler rh = replyMap.remove(key);
+                if (rh != null) {
+                    rh.handleConnectionDown();
+                }
             }
             for (TargetWatcher watcher : watchers.values()) {
                 watcher.notifyTargetInvalid(this);
@@ -92,6 +99,8 @@ class Connection extends Target {
         this.socket = parent.transport().createServerCryptoSocket(channel);
         this.spec = null;
         this.tcpNoDelay = tcpNoDelay;
+        input = newBuffer(parent, owner);
+        output = newBuffer(parent, owner);
         maxInputSize = owner.getMaxInputBufferSize();
         maxOutputSize = owner.getMaxOutputBufferSize();
         dropEmptyBuffers = owner.getDropEmptyBuffers();
@@ -104,12 +113,19 @@ class Connection extends Target {
         this.owner = owner;
         this.spec = spec;
         this.tcpNoDelay = tcpNoDelay;
+        input = newBuffer(parent, owner);
+        output = newBuffer(parent, owner);
         maxInputSize = owner.getMaxInputBufferSize();
         maxOutputSize = owner.getMaxOutputBufferSize();
         dropEmptyBuffers = owner.getDropEmptyBuffers();
         server = false;
     }
 
+    private static Buffer newBuffer(TransportThread parent, Supervisor owner) {
+        // Start off with empty buffer.
+        return new Buffer(0, owner.getUseDirectBuffers() ? parent.bufferPool() : null);
+    }
+
     public TransportThread transportThread() {
         return parent;
     }
@@ -120,38 +136,37 @@ class Connection extends Target {
         return (int)(v & 0x7fffffff);
     }
 
-    public synchronized boolean cancelReply(ReplyHandler handler) {
+    public boolean cancelReply(ReplyHandler handler) {
         if (state == CLOSED) {
             return false;
         }
-        ReplyHandler stored = replyMap.remove(handler.key());
-        if (stored != handler) {
-            if (stored != null) {
-                replyMap.put(handler.key(), stored);
-            }
-            return false;
-        }
-        return true;
+        return replyMap.remove(handler.key(), handler);
     }
 
+    /**
+     * Posts a packet to be written by the transport thread. This never
+     * blocks, so any number of threads may post to the same connection
+     * without contending on a lock.
+     */
     public boolean postPacket(Packet packet, ReplyHandler handler) {
-        boolean accepted = false;
-        boolean enableWrite = false;
-        synchronized (this) {
-            if (state <= CONNECTED) {
-                enableWrite = (writeWork == 0 && state == CONNECTED);
-                queue.enqueue(packet);
-                writeWork++;
-                accepted = true;
-                if (handler != null) {
-                    replyMap.put(handler.key(), handler);
-                }
+        if (state == CLOSED) {
+            return false;
+        }
+        if (handler != null) {
+            replyMap.put(handler.key(), handler);
+            // The handler is registered before the state is checked again, so if the connection was
+            // closed in the meantime, either we remove it here, or the closer notifies it
+            if (state == CLOSED) {
+                return ! replyMap.remove(handler.key(), handler);
             }
         }
-        if (enableWrite) {
+        // Counted before it is queued, so the count never drops below the number of queued packets
+        boolean wasIdle = (pendingPackets.getAndIncrement() == 0);
+        queue.add(packet);
+        if (wasIdle && state == CONNECTED) {
             parent.enableWrite(this);
         }
-        return accepted;
+        return true;
     }
 
     public boolean postPacket(Packet packet) {
@@ -272,10 +287,7 @@ class Connection extends Target {
                 log.log(Level.WARNING, "got garbage; closing connection: " + this);
                 throw new IOException("jrt: decode error", e);
             }
-            ReplyHandler handler;
-            synchronized (this) {
-                handler = replyMap.remove(packet.requestId());
-            }
+            ReplyHandler handler = replyMap.remove(packet.requestId());
             if (handler != null) {
                 handler.handleReply(packet);
             } else {
@@ -288,9 +300,11 @@ class Connection extends Target {
         boolean doneRead = false;
         for (int i = 0; !doneRead && i < READ_REDO; i++) {
             ByteBuffer wb = input.getWritable(readSize);
-            if (socket.read(wb) == -1) {
+            int bytes = socket.read(wb);
+            if (bytes == -1) {
                 throw new IOException("jrt: Connection closed by peer");
             }
+            metrics.addBytesRead(bytes);
             doneRead = (wb.remaining() > 0);
             handlePackets();
         }
@@ -317,15 +331,15 @@ class Connection extends Target {
     }
 
     private void write() throws IOException {
-        synchronized (this) {
-            queue.flush(myQueue);
-        }
+        int taken = 0;
         for (int i = 0; i < WRITE_REDO; i++) {
+            // Encode as many queued packets as fit in one write to the socket
             while (output.bytes() < WRITE_SIZE) {
-                Packet packet = (Packet) myQueue.dequeue();
+                Packet packet = queue.poll();
                 if (packet == null) {
                     break;
                 }
+                taken++;
                 PacketInfo info = packet.getPacketInfo();
                 ByteBuffer wb = output.getWritable(info.packetLength());
                 owner.writePacket(info);
@@ -335,7 +349,7 @@ class Connection extends Target {
             if (rb.remaining() == 0) {
                 break;
             }
-            socket.write(rb);
+            metrics.addBytesWritten(socket.write(rb));
             if (rb.remaining() > 0) {
                 break;
             }
@@ -347,14 +361,9 @@ class Connection extends Target {
         if (socket.flush() == CryptoSocket.FlushResult.NEED_WRITE) {
             myWriteWork++;
         }
-        boolean disableWrite;
-        synchronized (this) {
-            writeWork = queue.size()
-                        + myQueue.size()
-                        + myWriteWork;
-            disableWrite = (writeWork == 0);
-        }
-        if (disableWrite) {
+        // A packet posted after this will see no pending packets, and enable write again
+        int pending = pendingPackets.addAndGet(-taken);
+        if (pending == 0 && myWriteWork == 0) {
             disableWrite();
         }
         if (dropEmptyBuffers) {
@@ -381,13 +390,15 @@ class Connection extends Target {
         if (selectionKey != null) {
             selectionKey.cancel();
         }
+        input.release();
+        output.release();
     }
 
     public boolean isClosed() {
         return (state == CLOSED);
     }
 
-    public synchronized boolean isConnected() {
+    public boolean isConnected() {
         return (state == CONNECTED);
     }
 
@@ -416,13 +427,7 @@ class Connection extends Target {
     }
 
     public boolean completeRequest(TieBreaker done) {
-        synchronized (this) {
-            if (!done.first()) {
-                return false;
-            }
-        }
-
-        return true;
+        return done.first();
     }
 
     // -------------------------------------------------------------------------
@@ -21,6 +21,7 @@ public class Supervisor {
     private int                     maxInputBufferSize  = 64*1024;
     private int                     maxOutputBufferSize = 64*1024;
     private boolean                 dropEmptyBuffers = false;
+    private boolean                 useDirectBuffers = false;
 
     /**
      * Creates a new Supervisor based on the given {@link Transport}
@@ -46,6 +47,25 @@ public class Supervisor {
     }
     boolean getDropEmptyBuffers() { return dropEmptyBuffers; }
 
+    /**
+     * Sets whether connections should use direct buffers for input
+     * and output, taken from a pool owned by their transport
+     * thread. This avoids copying data between heap and native
+     * memory on each socket read and write, and reuses buffer memory
+     * across connections. Each transport thread may keep up to
+     * 16 MiB of free direct buffers, and single buffers may be up to
+     * 4 MiB, so this should only be enabled by processes with enough
+     * direct memory available (see -XX:MaxDirectMemorySize).
+     * Disabled by default.
+     *
+     * @param value true means use pooled direct buffers
+     */
+    public Supervisor setUseDirectBuffers(boolean value) {
+        useDirectBuffers = value;
+        return this;
+    }
+    boolean getUseDirectBuffers() { return useDirectBuffers; }
+
     /**
      * Sets maximum input buffer size. This value will only affect
      * connections that use a common input buffer when decoding
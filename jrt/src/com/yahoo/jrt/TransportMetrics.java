@@ -2,6 +2,7 @@
 package com.yahoo.jrt;
 
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.ToLongFunction;
 
 /**
@@ -19,8 +20,15 @@ public class TransportMetrics {
     private final AtomicLong clientTlsConnectionsEstablished = new AtomicLong(0);
     private final AtomicLong serverUnencryptedConnectionsEstablished = new AtomicLong(0);
     private final AtomicLong clientUnencryptedConnectionsEstablished = new AtomicLong(0);
+    private final AtomicLong directBuffersAllocated = new AtomicLong(0);
+    private final AtomicLong directBufferBytesAllocated = new AtomicLong(0);
+    private final AtomicLong heapBuffersAllocated = new AtomicLong(0);
+    private final AtomicLong heapBufferBytesAllocated = new AtomicLong(0);
+    private final LongAdder bufferPoolHits = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
 
-    private TransportMetrics() {}
+    TransportMetrics() {}
 
     public static TransportMetrics getInstance() { return instance; }
 
@@ -48,6 +56,37 @@ public class TransportMetrics {
         return clientUnencryptedConnectionsEstablished.get();
     }
 
+    /** Returns the number of direct buffers allocated for connection input and output */
+    public long directBuffersAllocated() {
+        return directBuffersAllocated.get();
+    }
+
+    public long directBufferBytesAllocated() {
+        return directBufferBytesAllocated.get();
+    }
+
+    /** Returns the number of heap buffers allocated for connection input and output, because they were too large to pool */
+    public long heapBuffersAllocated() {
+        return heapBuffersAllocated.get();
+    }
+
+    public long heapBufferBytesAllocated() {
+        return heapBufferBytesAllocated.get();
+    }
+
+    /** Returns the number of connection buffers which were reused from a transport thread buffer pool */
+    public long bufferPoolHits() {
+        return bufferPoolHits.sum();
+    }
+
+    public long bytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long bytesWritten() {
+        return bytesWritten.sum();
+    }
+
     public Snapshot snapshot() { return new Snapshot(this); }
 
     void incrementTlsCertificateVerificationFailures() {
@@ -74,6 +113,28 @@ public class TransportMetrics {
         clientUnencryptedConnectionsEstablished.incrementAndGet();
     }
 
+    void addDirectBufferAllocation(int bytes) {
+        directBuffersAllocated.incrementAndGet();
+        directBufferBytesAllocated.addAndGet(bytes);
+    }
+
+    void addHeapBufferAllocation(int bytes) {
+        heapBuffersAllocated.incrementAndGet();
+        heapBufferBytesAllocated.addAndGet(bytes);
+    }
+
+    void incrementBufferPoolHits() {
+        bufferPoolHits.increment();
+    }
+
+    void addBytesRead(int bytes) {
+        bytesRead.add(bytes);
+    }
+
+    void addBytesWritten(int bytes) {
+        bytesWritten.add(bytes);
+    }
+
     @Override
     public String toString() {
         return "TransportMetrics{" +
@@ -83,11 +144,18 @@ public class TransportMetrics {
                 ", clientTlsConnectionsEstablished=" + clientTlsConnectionsEstablished +
                 ", serverUnencryptedConnectionsEstablished=" + serverUnencryptedConnectionsEstablished +
                 ", clientUnencryptedConnectionsEstablished=" + clientUnencryptedConnectionsEstablished +
+                ", directBuffersAllocated=" + directBuffersAllocated +
+                ", directBufferBytesAllocated=" + directBufferBytesAllocated +
+                ", heapBuffersAllocated=" + heapBuffersAllocated +
+                ", heapBufferBytesAllocated=" + heapBufferBytesAllocated +
+                ", bufferPoolHits=" + bufferPoolHits +
+                ", bytesRead=" + bytesRead +
+                ", bytesWritten=" + bytesWritten +
                 '}';
     }
 
     public static class Snapshot {
-        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0);
+        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
 
         private final long tlsCertificateVerificationFailures;
         private final long peerAuthorizationFailures;
@@ -95,6 +163,13 @@ public class TransportMetrics {
         private final long clientTlsConnectionsEstablished;
         private final long serverUnencryptedConnectionsEstablished;
         private final long clientUnencryptedConnectionsEstablished;
+        private final long directBuffersAllocated;
+        private final long directBufferBytesAllocated;
+        private final long heapBuffersAllocated;
+        private final long heapBufferBytesAllocated;
+        private final long bufferPoolHits;
+        private final long bytesRead;
+        private final long bytesWritten;
 
         private Snapshot(TransportMetrics metrics) {
             this(metrics.tlsCertificateVerificationFailures.get(),
@@ -102,7 +177,14 @@ public class TransportMetrics {
                  metrics.serverTlsConnectionsEstablished.get(),
                  metrics.clientTlsConnectionsEstablished.get(),
                  metrics.serverUnencryptedConnectionsEstablished.get(),
-                 metrics.clientUnencryptedConnectionsEstablished.get());
+                 metrics.clientUnencryptedConnectionsEstablished.get(),
+                 metrics.directBuffersAllocated.get(),
+                 metrics.directBufferBytesAllocated.get(),
+                 metrics.heapBuffersAllocated.get(),
+                 metrics.heapBufferBytesAllocated.get(),
+                 metrics.bufferPoolHits.sum(),
+                 metrics.bytesRead.sum(),
+                 metrics.bytesWritten.sum());
         }
 
         private Snapshot(long tlsCertificateVerificationFailures,
@@ -110,13 +192,27 @@ public class TransportMetrics {
                         long serverTlsConnectionsEstablished,
                         long clientTlsConnectionsEstablished,
                         long serverUnencryptedConnectionsEstablished,
-                        long clientUnencryptedConnectionsEstablished) {
+                        long clientUnencryptedConnectionsEstablished,
+                        long directBuffersAllocated,
+                        long directBufferBytesAllocated,
+                        long heapBuffersAllocated,
+                        long heapBufferBytesAllocated,
+                        long bufferPoolHits,
+                        long bytesRead,
+                        long bytesWritten) {
             this.tlsCertificateVerificationFailures = tlsCertificateVerificationFailures;
             this.peerAuthorizationFailures = peerAuthorizationFailures;
             this.serverTlsConnectionsEstablished = serverTlsConnectionsEstablished;
             this.clientTlsConnectionsEstablished = clientTlsConnectionsEstablished;
             this.serverUnencryptedConnectionsEstablished = serverUnencryptedConnectionsEstablished;
             this.clientUnencryptedConnectionsEstablished = clientUnencryptedConnectionsEstablished;
+            this.directBuffersAllocated = directBuffersAllocated;
+            this.directBufferBytesAllocated = directBufferBytesAllocated;
+            this.heapBuffersAllocated = heapBuffersAllocated;
+            this.heapBufferBytesAllocated = heapBufferBytesAllocated;
+            this.bufferPoolHits = bufferPoolHits;
+            this.bytesRead = bytesRead;
+            this.bytesWritten = bytesWritten;
         }
 
         public long tlsCertificateVerificationFailures() { return tlsCertificateVerificationFailures; }
@@ -125,6 +221,13 @@ public class TransportMetrics {
         public long clientTlsConnectionsEstablished() { return clientTlsConnectionsEstablished; }
         public long serverUnencryptedConnectionsEstablished() { return serverUnencryptedConnectionsEstablished; }
         public long clientUnencryptedConnectionsEstablished() { return clientUnencryptedConnectionsEstablished; }
+        public long directBuffersAllocated() { return directBuffersAllocated; }
+        public long directBufferBytesAllocated() { return directBufferBytesAllocated; }
+        public long heapBuffersAllocated() { return heapBuffersAllocated; }
+        public long heapBufferBytesAllocated() { return heapBufferBytesAllocated; }
+        public long bufferPoolHits() { return bufferPoolHits; }
+        public long bytesRead() { return bytesRead; }
+        public long bytesWritten() { return bytesWritten; }
 
         public Snapshot changesSince(Snapshot base) {
             return new Snapshot(
@@ -133,7 +236,14 @@ public class TransportMetrics {
                 changesSince(base, Snapshot::serverTlsConnectionsEstablished),
                 changesSince(base, Snapshot::clientTlsConnectionsEstablished),
                 changesSince(base, Snapshot::serverUnencryptedConnectionsEstablished),
-                changesSince(base, Snapshot::clientUnencryptedConnectionsEstablished));
+                changesSince(base, Snapshot::clientUnencryptedConnectionsEstablished),
+                changesSince(base, Snapshot::directBuffersAllocated),
+                changesSince(base, Snapshot::directBufferBytesAllocated),
+                changesSince(base, Snapshot::heapBuffersAllocated),
+                changesSince(base, Snapshot::heapBufferBytesAllocated),
+                changesSince(base, Snapshot::bufferPoolHits),
+                changesSince(base, Snapshot::bytesRead),
+                changesSince(base, Snapshot::bytesWritten));
         }
 
         private long changesSince(Snapshot base, ToLongFunction<Snapshot> metricProperty) {
@@ -149,6 +259,13 @@ public class TransportMetrics {
                     ", clientTlsConnectionsEstablished=" + clientTlsConnectionsEstablished +
                     ", serverUnencryptedConnectionsEstablished=" + serverUnencryptedConnectionsEstablished +
                     ", clientUnencryptedConnectionsEstablished=" + clientUnencryptedConnectionsEstablished +
+                    ", directBuffersAllocated=" + directBuffersAllocated +
+                    ", directBufferBytesAllocated=" + directBufferBytesAllocated +
+                    ", heapBuffersAllocated=" + heapBuffersAllocated +
+                    ", heapBufferBytesAllocated=" + heapBufferBytesAllocated +
+                    ", bufferPoolHits=" + bufferPoolHits +
+                    ", bytesRead=" + bytesRead +
+                    ", bytesWritten=" + bytesWritten +
                     '}';
         }
     }
@@ -67,6 +67,9 @@ public class TransportThread {
 
     private static final Logger log = Logger.getLogger(TransportThread.class.getName());
 
+    /** Max total size of free direct buffers kept for reuse by each transport thread */
+    private static final long MAX_POOLED_BUFFER_BYTES = 16 * 1024 * 1024;
+
     private final Transport parent;
     private final Thread    thread;
     private final Queue     queue;
@@ -74,6 +77,7 @@ public class TransportThread {
     private final Scheduler scheduler;
     private int             state;
     private final Selector  selector;
+    private final BufferPool bufferPool = new BufferPool(MAX_POOLED_BUFFER_BYTES, TransportMetrics.getInstance());
 
     private void handleAddConnection(Connection conn) {
         if (conn.isClosed()) {
@@ -184,6 +188,11 @@ public class TransportThread {
         return parent;
     }
 
+    /** Returns the pool of direct buffers used by connections handled by this thread */
+    BufferPool bufferPool() {
+        return bufferPool;
+    }
+
     /**
      * Proxy method used to dispatch fatal errors to the enclosing
      * Transport.
@@ -222,4 +222,63 @@ public class BufferTest {
         }
     }
 
+    @org.junit.Test
+    public void testPooledBuffer() {
+        TransportMetrics metrics = new TransportMetrics();
+        BufferPool pool = new BufferPool(1024*1024, metrics);
+
+        Buffer buf = new Buffer(0, pool);
+        ByteBuffer b = buf.getWritable(100);
+        assertTrue(b.isDirect());
+        assertEquals(4096, b.capacity());
+        for (int i = 0; i < 100; i++) {
+            b.put((byte)i);
+        }
+        b = buf.getWritable(5000);
+        assertTrue(b.isDirect());
+        assertEquals(8192, b.capacity());
+        assertEquals(4096, pool.retainedBytes());
+        b = buf.getReadable();
+        for (int i = 0; i < 100; i++) {
+            assertEquals((byte)i, b.get());
+        }
+
+        Buffer other = new Buffer(1000, pool);
+        assertEquals(4096, other.getWritable(1).capacity());
+        assertEquals(0, pool.retainedBytes());
+
+        assertTrue(buf.shrink(0));
+        assertEquals(8192, pool.retainedBytes());
+        other.release();
+        assertEquals(8192 + 4096, pool.retainedBytes());
+        assertEquals(0, other.bytes());
+
+        assertEquals(2, metrics.directBuffersAllocated());
+        assertEquals(4096 + 8192, metrics.directBufferBytesAllocated());
+        assertEquals(1, metrics.bufferPoolHits());
+    }
+
+    @org.junit.Test
+    public void testBufferPoolLimits() {
+        TransportMetrics metrics = new TransportMetrics();
+        BufferPool pool = new BufferPool(8192, metrics);
+
+        ByteBuffer huge = pool.acquire((1 << BufferPool.MAX_SIZE_SHIFT) + 1);
+        assertFalse(huge.isDirect());
+        pool.release(huge);
+        assertEquals(0, pool.retainedBytes());
+        assertEquals(1, metrics.heapBuffersAllocated());
+
+        ByteBuffer a = pool.acquire(4096);
+        ByteBuffer b = pool.acquire(4097);
+        ByteBuffer c = pool.acquire(1);
+        assertEquals(4096, a.capacity());
+        assertEquals(8192, b.capacity());
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        assertEquals(8192, pool.retainedBytes());
+        assertEquals(0, pool.acquire(0).capacity());
+    }
+
 }
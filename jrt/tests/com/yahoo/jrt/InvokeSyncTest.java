@@ -101,5 +101,29 @@ public class InvokeSyncTest {
         assertTrue(filter.invoked);
     }
 
+    @org.junit.Test
+    public void testSyncWithDirectBuffers() throws ListenFailedException {
+        Supervisor directServer = new Supervisor(new Transport()).setUseDirectBuffers(true);
+        Supervisor directClient = new Supervisor(new Transport()).setUseDirectBuffers(true);
+        directServer.addMethod(new Method("concat", "ss", "s", this::rpc_concat));
+        Acceptor directAcceptor = directServer.listen(new Spec(0));
+        Target directTarget = directClient.connect(new Spec("localhost", directAcceptor.port()));
+        try {
+            String large = "x".repeat(1 << 20);
+            Request req = new Request("concat");
+            req.parameters().add(new StringValue(large));
+            req.parameters().add(new StringValue("def"));
+            directTarget.invokeSync(req, Duration.ofSeconds(10));
+            assertFalse(req.isError());
+            assertEquals(large + "def", req.returnValues().get(0).asString());
+        }
+        finally {
+            directTarget.close();
+            directAcceptor.shutdown().join();
+            directClient.transport().shutdown().join();
+            directServer.transport().shutdown().join();
+        }
+    }
+
 
 }
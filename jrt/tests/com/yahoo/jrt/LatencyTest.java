@@ -65,6 +65,7 @@ public class LatencyTest {
 
         private final boolean reconnect;
         private final Network network;
+        private final Target sharedTarget;
         private final CyclicBarrier barrier;
         private final CountDownLatch latch;
         private final Throwable[] issues;
@@ -96,7 +97,7 @@ public class LatencyTest {
                 int s1 = 0;
                 int s2 = 0;
                 double minLatency = 1.0e99;
-                Target target = network.connect();
+                Target target = (sharedTarget != null) ? sharedTarget : network.connect();
                 for (long t = System.nanoTime();
                      state != State.COOLDOWN || t < cooldownEnd;
                      t = System.nanoTime())
@@ -127,7 +128,9 @@ public class LatencyTest {
                         minLatency = latency;
                     }
                 }
-                target.close();
+                if (target != sharedTarget) {
+                    target.close();
+                }
                 double benchTime = (t2 - t1) / 1000_000_000.0;
                 results[threadId] = new Result(minLatency, (s2 - s1) / benchTime);
             } catch (Throwable issue) {
@@ -137,18 +140,22 @@ public class LatencyTest {
             }
         }
 
-        public Client(boolean reconnect, Network network, int numThreads,
+        public Client(boolean reconnect, Network network, Target sharedTarget, int numThreads,
                       double warmup, double benchmark, double cooldown)
         {
             this.reconnect = reconnect;
             this.network = network;
+            this.sharedTarget = sharedTarget;
             this.barrier = new CyclicBarrier(numThreads, ()->setupBenchmark(warmup, benchmark, cooldown));
             this.latch = new CountDownLatch(numThreads);
             this.issues = new Throwable[numThreads];
             this.results = new Result[numThreads];
         }
         public Client(boolean reconnect, Network network, int numThreads) {
-            this(reconnect, network, numThreads, 0.1, 0.5, 0.1);
+            this(reconnect, network, null, numThreads, 0.1, 0.5, 0.1);
+        }
+        public Client(Network network, Target sharedTarget, int numThreads) {
+            this(false, network, sharedTarget, numThreads, 0.1, 0.5, 0.1);
         }
 
         public void measureLatency(String prefix) throws Throwable {
@@ -199,4 +206,15 @@ public class LatencyTest {
             new Client(false, network, 64).measureLatency("[64 clients, 4/4 transport] ");
         }
     }
+
+    @org.junit.Test
+    public void testSharedTargetContention() throws Throwable {
+        try (Network network = new Network(new NullCryptoEngine(), 4)) {
+            Target target = network.connect();
+            for (int threads : new int[] { 1, 4, 16, 64 }) {
+                new Client(network, target, threads).measureLatency("[" + threads + " clients, 1 shared target] ");
+            }
+            target.close();
+        }
+    }
 }
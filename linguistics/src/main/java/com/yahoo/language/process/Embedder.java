@@ -79,6 +79,23 @@ public interface Embedder {
         /** Add a sample embedding length to this */
         void sampleSequenceLength(long length, Context ctx);
 
+        /** Add a sample size of a batch of embed requests evaluated together to this */
+        default void sampleBatchSize(int size, Context ctx) { }
+
+        /**
+         * Returns the embedding for the given key from a cache shared by all requests and documents
+         * processed in this container, computing and caching it if it is not present.
+         * The default implementation does not cache.
+         *
+         * @param key identifies the embedding: Must have value semantics and capture everything the embedding
+         *            depends on, including the embedder instance producing it
+         * @param ctx the context of the embedding, used for metrics
+         * @param embedding computes the embedding if it is not present in the cache
+         */
+        default Tensor computeCachedEmbeddingIfAbsent(Object key, Context ctx, Supplier<Tensor> embedding) {
+            return embedding.get();
+        }
+
         static Runtime testInstance() {
             return new Runtime() {
                 @Override public void sampleEmbeddingLatency(double millis, Context ctx) { }
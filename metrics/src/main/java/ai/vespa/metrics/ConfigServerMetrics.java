@@ -24,6 +24,8 @@ public enum ConfigServerMetrics implements VespaMetrics {
     ADDED_SESSIONS("configserver.addedSessions", Unit.SESSION, "Added config sessions"),
     REMOVED_SESSIONS("configserver.removedSessions", Unit.SESSION, "Removed config sessions"),
     RPC_SERVER_WORK_QUEUE_SIZE("configserver.rpcServerWorkQueueSize", Unit.ITEM, "Number of elements in the RPC server work queue"),
+    DELTA_RESPONSES("configserver.deltaResponses", Unit.RESPONSE, "Number of config responses which were deltas to the config of the client"),
+    DELTA_BYTES_SAVED("configserver.deltaBytesSaved", Unit.BYTE, "Uncompressed config bytes not sent because responses were deltas"),
 
     MAINTENANCE_DEPLOYMENT_TRANSIENT_FAILURE("maintenanceDeployment.transientFailure", Unit.OPERATION, "Number of maintenance deployments that failed with a transient failure"),
     MAINTENANCE_DEPLOYMENT_FAILURE("maintenanceDeployment.failure", Unit.OPERATION, "Number of maintenance deployments that failed with a permanent failure"),
@@ -29,6 +29,10 @@ public enum ContainerMetrics implements VespaMetrics {
     JDISC_THREAD_POOL_SIZE("jdisc.thread_pool.size", Unit.THREAD, "Size of the thread pool"),
     JDISC_THREAD_POOL_MAX_ALLOWED_SIZE("jdisc.thread_pool.max_allowed_size", Unit.THREAD, "The maximum allowed number of threads in the pool"),
     JDISC_THREAD_POOL_ACTIVE_THREADS("jdisc.thread_pool.active_threads", Unit.THREAD, "Number of threads that are active"),
+
+    JDISC_LOGGING_QUEUE_FILL("jdisc.logging.queue.fill", Unit.FRACTION, "Fraction of the queue of a log file handler which holds entries waiting to be written"),
+    JDISC_LOGGING_DROPPED("jdisc.logging.dropped", Unit.RECORD, "Number of log entries dropped because the queue of a log file handler was full"),
+    JDISC_LOGGING_WRITE_LATENCY("jdisc.logging.write_latency", Unit.MILLISECOND, "Time spent by a log file handler writing a batch of log entries"),
     
     JDISC_DEACTIVATED_CONTAINERS_TOTAL("jdisc.deactivated_containers.total", Unit.ITEM, "JDISC Deactivated container instances"),
     JDISC_DEACTIVATED_CONTAINERS_WITH_RETAINED_REFS("jdisc.deactivated_containers.with_retained_refs.last", Unit.ITEM, "JDISC Deactivated container nodes with retained refs"),
@@ -89,6 +93,8 @@ public enum ContainerMetrics implements VespaMetrics {
     
     HTTPAPI_LATENCY("httpapi_latency", Unit.MILLISECOND, "Duration for requests to the HTTP document APIs"),
     HTTPAPI_PENDING("httpapi_pending", Unit.OPERATION, "Document operations pending execution"),
+    HTTPAPI_QUEUED_OPERATIONS("httpapi_queued_operations", Unit.OPERATION, "Document operations waiting in a dispatch queue"),
+    HTTPAPI_DISPATCH_LATENCY("httpapi_dispatch_latency", Unit.MILLISECOND, "Time from a document operation is received until it is dispatched"),
     HTTPAPI_NUM_OPERATIONS("httpapi_num_operations", Unit.OPERATION, "Total number of document operations performed"),
     HTTPAPI_NUM_UPDATES("httpapi_num_updates", Unit.OPERATION, "Document update operations performed"),
     HTTPAPI_NUM_REMOVES("httpapi_num_removes", Unit.OPERATION, "Document remove operations performed"),
@@ -148,6 +154,14 @@ public enum ContainerMetrics implements VespaMetrics {
     RELEVANCE_AT_3("relevance.at_3", Unit.SCORE, "The relevance of hit number 3"),
     RELEVANCE_AT_10("relevance.at_10", Unit.SCORE, "The relevance of hit number 10"),
 
+    DISPATCH_GROUP_SELECTIONS("dispatch.group.selections", Unit.QUERY, "The number of queries dispatched to each content group"),
+    DISPATCH_GROUP_EXPECTED_COMPLETION_TIME("dispatch.group.expected_completion_time", Unit.MILLISECOND, "The expected completion time of a new query in each content group, as estimated by the least-expected-completion-time dispatch policy"),
+    DISPATCH_HEDGED_QUERIES("dispatch.hedged_queries", Unit.QUERY, "The number of queries also sent to a second content group because the first was slow to answer"),
+    DISPATCH_HEDGE_WINS("dispatch.hedge_wins", Unit.QUERY, "The number of hedged queries where the second content group answered first"),
+    RESULT_CACHE_HITS("result_cache.hits", Unit.QUERY, "The number of queries answered from the result cache"),
+    RESULT_CACHE_MISSES("result_cache.misses", Unit.QUERY, "The number of queries looked up in the result cache without finding a result"),
+    RESULT_CACHE_EVICTIONS("result_cache.evictions", Unit.ITEM, "The number of results evicted from the result cache to make room for new ones"),
+
     // Errors from search container
     ERROR_TIMEOUT("error.timeout", Unit.OPERATION, "Requests that timed out"),
     ERROR_BACKENDS_OOS("error.backends_oos", Unit.OPERATION, "Requests that failed due to no available backends nodes"),
@@ -176,6 +190,15 @@ public enum ContainerMetrics implements VespaMetrics {
     JRT_TRANSPORT_SERVER_UNENCRYPTED_CONNECTIONS_ESTABLISHED("jrt.transport.server.unencrypted-connections-established", Unit.CONNECTION, "Unencrypted server connections established"),
     JRT_TRANSPORT_CLIENT_UNENCRYPTED_CONNECTIONS_ESTABLISHED("jrt.transport.client.unencrypted-connections-established", Unit.CONNECTION, "Unencrypted client connections established"),
 
+    // Java (JRT) buffer and throughput metrics
+    JRT_TRANSPORT_DIRECT_BUFFERS_ALLOCATED("jrt.transport.direct-buffers-allocated", Unit.ITEM, "Direct buffers allocated for connection input and output"),
+    JRT_TRANSPORT_DIRECT_BUFFER_BYTES_ALLOCATED("jrt.transport.direct-buffer-bytes-allocated", Unit.BYTE, "Bytes of direct buffers allocated for connection input and output"),
+    JRT_TRANSPORT_HEAP_BUFFERS_ALLOCATED("jrt.transport.heap-buffers-allocated", Unit.ITEM, "Heap buffers allocated for connection input and output, because they were too large to pool"),
+    JRT_TRANSPORT_HEAP_BUFFER_BYTES_ALLOCATED("jrt.transport.heap-buffer-bytes-allocated", Unit.BYTE, "Bytes of heap buffers allocated for connection input and output"),
+    JRT_TRANSPORT_BUFFER_POOL_HITS("jrt.transport.buffer-pool-hits", Unit.ITEM, "Connection buffers reused from a transport thread buffer pool"),
+    JRT_TRANSPORT_BYTES_READ("jrt.transport.bytes-read", Unit.BYTE, "Bytes read from connections"),
+    JRT_TRANSPORT_BYTES_WRITTEN("jrt.transport.bytes-written", Unit.BYTE, "Bytes written to connections"),
+
     MAX_QUERY_LATENCY("max_query_latency", Unit.MILLISECOND, "Deprecated. Use query_latency.max instead"), // TODO: Remove in Vespa 9
     MEAN_QUERY_LATENCY("mean_query_latency", Unit.MILLISECOND, "Deprecated. Use the expression (query_latency.sum / query_latency.count) instead"),// TODO: Remove in Vespa 9
 
@@ -207,7 +230,11 @@ public enum ContainerMetrics implements VespaMetrics {
     SERVER_STARTED_MILLIS("serverStartedMillis", Unit.MILLISECOND, "Time since the service was started"),
 
     EMBEDDER_LATENCY("embedder.latency", Unit.MILLISECOND, "Time spent creating an embedding"),
-    EMBEDDER_SEQUENCE_LENGTH("embedder.sequence_length", Unit.BYTE, "Size of sequence produced by tokenizer");
+    EMBEDDER_SEQUENCE_LENGTH("embedder.sequence_length", Unit.BYTE, "Size of sequence produced by tokenizer"),
+    EMBEDDER_BATCH_SIZE("embedder.batch_size", Unit.OPERATION, "Number of concurrent embed requests evaluated together in one model invocation"),
+    EMBEDDER_CACHE_HITS("embedder.cache.hits", Unit.OPERATION, "Number of embeddings found in the embedding cache shared between requests"),
+    EMBEDDER_CACHE_MISSES("embedder.cache.misses", Unit.OPERATION, "Number of embeddings not found in the embedding cache shared between requests"),
+    EMBEDDER_CACHE_EVICTIONS("embedder.cache.evictions", Unit.OPERATION, "Number of embeddings evicted from the embedding cache to make room for new ones");
 
     private final String name;
     private final Unit unit;
@@ -50,6 +50,8 @@ public class InfrastructureMetricSet {
         addMetric(metrics, ConfigServerMetrics.CACHE_CHECKSUM_ELEMS.last());
         addMetric(metrics, ConfigServerMetrics.HOSTS.last());
         addMetric(metrics, ConfigServerMetrics.DELAYED_RESPONSES.count());
+        addMetric(metrics, ConfigServerMetrics.DELTA_RESPONSES.count());
+        addMetric(metrics, ConfigServerMetrics.DELTA_BYTES_SAVED.count());
         addMetric(metrics, ConfigServerMetrics.SESSION_CHANGE_ERRORS.count());
 
         addMetric(metrics, ConfigServerMetrics.ZK_Z_NODES.max());
@@ -91,6 +91,15 @@ public class Vespa9VespaMetricSet {
         addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_SERVER_UNENCRYPTED_CONNECTIONS_ESTABLISHED.baseName());
         addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_CLIENT_UNENCRYPTED_CONNECTIONS_ESTABLISHED.baseName());
 
+        // Java (JRT) buffer and throughput metrics
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_DIRECT_BUFFERS_ALLOCATED.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_DIRECT_BUFFER_BYTES_ALLOCATED.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_HEAP_BUFFERS_ALLOCATED.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_HEAP_BUFFER_BYTES_ALLOCATED.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_BUFFER_POOL_HITS.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_BYTES_READ.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_BYTES_WRITTEN.baseName());
+
         // C++ TLS metrics
         addMetric(metrics, StorageMetrics.VDS_SERVER_NETWORK_TLS_HANDSHAKES_FAILED.count());
         addMetric(metrics, StorageMetrics.VDS_SERVER_NETWORK_PEER_AUTHORIZATION_FAILURES.count());
@@ -140,12 +149,18 @@ public class Vespa9VespaMetricSet {
         addMetric(metrics, ContainerMetrics.JDISC_THREAD_POOL_MAX_ALLOWED_SIZE.max());
         addMetric(metrics, ContainerMetrics.JDISC_THREAD_POOL_ACTIVE_THREADS, EnumSet.of(sum, count, min, max));
 
+        addMetric(metrics, ContainerMetrics.JDISC_LOGGING_QUEUE_FILL, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.JDISC_LOGGING_DROPPED.rate());
+        addMetric(metrics, ContainerMetrics.JDISC_LOGGING_WRITE_LATENCY, EnumSet.of(max, sum, count));
+
         addMetric(metrics, ContainerMetrics.JETTY_THREADPOOL_BUSY_THREADS, EnumSet.of(sum, count, max));
         addMetric(metrics, ContainerMetrics.JETTY_THREADPOOL_TOTAL_THREADS.max());
         addMetric(metrics, ContainerMetrics.JETTY_THREADPOOL_QUEUE_SIZE.max());
 
         addMetric(metrics, ContainerMetrics.HTTPAPI_LATENCY, EnumSet.of(max, sum, count));
         addMetric(metrics, ContainerMetrics.HTTPAPI_PENDING, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.HTTPAPI_QUEUED_OPERATIONS, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.HTTPAPI_DISPATCH_LATENCY, EnumSet.of(max, sum, count));
         addMetric(metrics, ContainerMetrics.HTTPAPI_NUM_OPERATIONS.rate());
         addMetric(metrics, ContainerMetrics.HTTPAPI_NUM_UPDATES.rate());
         addMetric(metrics, ContainerMetrics.HTTPAPI_NUM_REMOVES.rate());
@@ -214,6 +229,10 @@ public class Vespa9VespaMetricSet {
         // Embedders
         addMetric(metrics, ContainerMetrics.EMBEDDER_LATENCY, EnumSet.of(max, sum, count));
         addMetric(metrics, ContainerMetrics.EMBEDDER_SEQUENCE_LENGTH, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_BATCH_SIZE, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_HITS, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_MISSES, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_EVICTIONS, EnumSet.of(rate, count));
 
         return metrics;
     }
@@ -288,6 +307,14 @@ public class Vespa9VespaMetricSet {
         addMetric(metrics, ContainerMetrics.RELEVANCE_AT_3, EnumSet.of(sum, count));
         addMetric(metrics, ContainerMetrics.RELEVANCE_AT_10, EnumSet.of(sum, count));
 
+        addMetric(metrics, ContainerMetrics.DISPATCH_GROUP_SELECTIONS, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.DISPATCH_GROUP_EXPECTED_COMPLETION_TIME, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.DISPATCH_HEDGED_QUERIES, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.DISPATCH_HEDGE_WINS, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.RESULT_CACHE_HITS, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.RESULT_CACHE_MISSES, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.RESULT_CACHE_EVICTIONS, EnumSet.of(rate, count));
+
         // Errors from search container
         addMetric(metrics, ContainerMetrics.ERROR_TIMEOUT.rate());
         addMetric(metrics, ContainerMetrics.ERROR_BACKENDS_OOS.rate());
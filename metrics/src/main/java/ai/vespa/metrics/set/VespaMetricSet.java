@@ -93,6 +93,15 @@ public class VespaMetricSet {
         addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_SERVER_UNENCRYPTED_CONNECTIONS_ESTABLISHED.baseName());
         addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_CLIENT_UNENCRYPTED_CONNECTIONS_ESTABLISHED.baseName());
 
+        // Java (JRT) buffer and throughput metrics
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_DIRECT_BUFFERS_ALLOCATED.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_DIRECT_BUFFER_BYTES_ALLOCATED.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_HEAP_BUFFERS_ALLOCATED.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_HEAP_BUFFER_BYTES_ALLOCATED.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_BUFFER_POOL_HITS.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_BYTES_READ.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_BYTES_WRITTEN.baseName());
+
         // C++ TLS metrics
         addMetric(metrics, StorageMetrics.VDS_SERVER_NETWORK_TLS_HANDSHAKES_FAILED.count());
         addMetric(metrics, StorageMetrics.VDS_SERVER_NETWORK_PEER_AUTHORIZATION_FAILURES.count());
@@ -148,6 +157,10 @@ public class VespaMetricSet {
         addMetric(metrics, ContainerMetrics.JDISC_THREAD_POOL_MAX_ALLOWED_SIZE, EnumSet.of(sum, count, last, min, max)); // TODO: Vespa 9: Remove sum, count, last, min
         addMetric(metrics, ContainerMetrics.JDISC_THREAD_POOL_ACTIVE_THREADS, EnumSet.of(sum, count, last, min, max)); // TODO: Vespa 9: Remove last
 
+        addMetric(metrics, ContainerMetrics.JDISC_LOGGING_QUEUE_FILL, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.JDISC_LOGGING_DROPPED.rate());
+        addMetric(metrics, ContainerMetrics.JDISC_LOGGING_WRITE_LATENCY, EnumSet.of(max, sum, count));
+
         addMetric(metrics, ContainerMetrics.JETTY_THREADPOOL_MAX_THREADS, EnumSet.of(sum, count, last, min, max)); // TODO: Vespa 9: Remove.
         addMetric(metrics, ContainerMetrics.JETTY_THREADPOOL_MIN_THREADS, EnumSet.of(sum, count, last, min, max)); // TODO: Vespa 9: Remove.
         addMetric(metrics, ContainerMetrics.JETTY_THREADPOOL_RESERVED_THREADS, EnumSet.of(sum, count, last, min, max)); // TODO: Vespa 9: Remove.
@@ -157,6 +170,8 @@ public class VespaMetricSet {
 
         addMetric(metrics, ContainerMetrics.HTTPAPI_LATENCY, EnumSet.of(max, sum, count));
         addMetric(metrics, ContainerMetrics.HTTPAPI_PENDING, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.HTTPAPI_QUEUED_OPERATIONS, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.HTTPAPI_DISPATCH_LATENCY, EnumSet.of(max, sum, count));
         addMetric(metrics, ContainerMetrics.HTTPAPI_NUM_OPERATIONS.rate());
         addMetric(metrics, ContainerMetrics.HTTPAPI_NUM_UPDATES.rate());
         addMetric(metrics, ContainerMetrics.HTTPAPI_NUM_REMOVES.rate());
@@ -236,6 +251,10 @@ public class VespaMetricSet {
         // Embedders
         addMetric(metrics, ContainerMetrics.EMBEDDER_LATENCY, EnumSet.of(max, sum, count));
         addMetric(metrics, ContainerMetrics.EMBEDDER_SEQUENCE_LENGTH, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_BATCH_SIZE, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_HITS, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_MISSES, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_EVICTIONS, EnumSet.of(rate, count));
 
         // Deprecated metrics. TODO: Remove on Vespa 9.
         addMetric(metrics, ContainerMetrics.SERVER_REJECTED_REQUESTS, EnumSet.of(rate, count));
@@ -319,6 +338,14 @@ public class VespaMetricSet {
         addMetric(metrics, ContainerMetrics.RELEVANCE_AT_3, EnumSet.of(sum, count));
         addMetric(metrics, ContainerMetrics.RELEVANCE_AT_10, EnumSet.of(sum, count));
 
+        addMetric(metrics, ContainerMetrics.DISPATCH_GROUP_SELECTIONS, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.DISPATCH_GROUP_EXPECTED_COMPLETION_TIME, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.DISPATCH_HEDGED_QUERIES, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.DISPATCH_HEDGE_WINS, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.RESULT_CACHE_HITS, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.RESULT_CACHE_MISSES, EnumSet.of(rate, count));
+        addMetric(metrics, ContainerMetrics.RESULT_CACHE_EVICTIONS, EnumSet.of(rate, count));
+
         // Errors from search container
         addMetric(metrics, ContainerMetrics.ERROR_TIMEOUT.rate());
         addMetric(metrics, ContainerMetrics.ERROR_BACKENDS_OOS.rate());
@@ -2,6 +2,7 @@
 package ai.vespa.models.evaluation;
 
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.evaluation.CompiledExpression;
 import com.yahoo.searchlib.rankingexpression.evaluation.StringValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
 import com.yahoo.tensor.Tensor;
@@ -21,6 +22,7 @@ public class FunctionEvaluator {
 
     private final ExpressionFunction function;
     private final LazyArrayContext context;
+    private CompiledExpression compiled = null;
     private boolean evaluated = false;
 
     FunctionEvaluator(ExpressionFunction function, LazyArrayContext context) {
@@ -28,6 +30,11 @@ public class FunctionEvaluator {
         this.context = context;
     }
 
+    /** Sets a compiled version of the function of this, which is then evaluated instead of the function */
+    void setCompiled(CompiledExpression compiled) {
+        this.compiled = compiled;
+    }
+
     /**
      * Binds the given variable referred in this expression to the given value.
      *
@@ -106,6 +113,8 @@ public class FunctionEvaluator {
                 .forEach(argument -> checkArgument(argument.getKey(), argument.getValue()));
         evaluated = true;
         evaluateOnnxModels();
+        if (compiled != null)
+            return Tensor.Builder.of(TensorType.empty).cell(compiled.evaluate(context)).build();
         return function.getBody().evaluate(context).asTensor();
     }
 
@@ -140,6 +149,9 @@ public class FunctionEvaluator {
         }
     }
 
+    /** Returns whether this evaluates a compiled version of its function */
+    boolean isCompiled() { return compiled != null; }
+
     /** Returns the function evaluated by this */
     public ExpressionFunction function() { return function; }
 
@@ -3,6 +3,7 @@ package ai.vespa.models.evaluation;
 
 import com.yahoo.api.annotations.Beta;
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.evaluation.CompiledExpression;
 import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
 import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
 import com.yahoo.stream.CustomCollectors;
@@ -20,6 +21,8 @@ import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -52,6 +55,9 @@ public class Model implements AutoCloseable {
 
     private final ExpressionOptimizer expressionOptimizer = new ExpressionOptimizer();
 
+    /** Compiled free functions, or empty for those which cannot be compiled, created on first use, indexed by name */
+    private final Map<String, Optional<CompiledExpression>> compiledFunctions = new ConcurrentHashMap<>();
+
     private final List<Runnable> closeActions;
 
     /** Programmatically create a model containing functions without constant of function references only */
@@ -290,11 +296,38 @@ public class Model implements AutoCloseable {
                                            Arrays.toString(names));
     }
 
+    /**
+     * Returns an evaluator of the function identified by the given names, as {@link #evaluatorOf}, which evaluates
+     * a compiled version of the function if it has a scalar value, and uses no ONNX models.
+     * Otherwise, the function is interpreted as with {@link #evaluatorOf}. Compiled functions give the same results,
+     * but are faster when evaluated repeatedly, as they create no intermediate values.
+     */
+    public FunctionEvaluator compiledEvaluatorOf(String ... names) {
+        FunctionEvaluator evaluator = evaluatorOf(names);
+        compiledFunctions.computeIfAbsent(evaluator.function().getName(), __ -> compile(evaluator.function()))
+                         .ifPresent(evaluator::setCompiled);
+        return evaluator;
+    }
+
     /** Returns a single-use evaluator of a function */
     private FunctionEvaluator evaluatorOf(ExpressionFunction function) {
         return new FunctionEvaluator(function, requireContextPrototype(function.getName()).copy());
     }
 
+    /** Returns the given function compiled, or empty if it cannot be */
+    private Optional<CompiledExpression> compile(ExpressionFunction function) {
+        LazyArrayContext context = requireContextPrototype(function.getName());
+        if (function.returnType().map(type -> type.rank() > 0).orElse(false)) return Optional.empty();
+        if ( ! context.onnxModels().isEmpty()) return Optional.empty();
+        try {
+            return Optional.of(CompiledExpression.compile(function.getBody(), context, Map.of()));
+        }
+        catch (IllegalArgumentException e) {
+            logger.fine(() -> "Interpreting " + function + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
     private void throwUndeterminedFunction(String message) {
         throw new IllegalArgumentException(message + ". Available functions: " +
                                            functions.stream().map(ExpressionFunction::getName).collect(Collectors.joining(", ")));
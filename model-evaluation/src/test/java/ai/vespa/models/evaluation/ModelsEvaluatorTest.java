@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -61,6 +62,29 @@ public class ModelsEvaluatorTest {
         }
     }
 
+    @Test
+    public void testCompiledEvaluation() {
+        ModelsEvaluator models = createModels();
+        FunctionEvaluator macros = models.requireModel("macros").compiledEvaluatorOf("secondphase");
+        macros.bind("match", 3);
+        macros.bind("rankBoost", 5);
+        assertEquals(32.0, macros.evaluate().asDouble(), delta);
+
+        List<ExpressionFunction> functions = new ArrayList<>();
+        functions.add(new ExpressionFunction("linear", RankingExpression.from("2 * a + (2 * b + 2 * c)")));
+        functions.add(new ExpressionFunction("tensor", RankingExpression.from("tensor(x[2])(x + a)")));
+        Model model = new Model("test-model", functions);
+
+        FunctionEvaluator linear = model.compiledEvaluatorOf("linear");
+        assertTrue(linear.isCompiled());
+        for (FunctionEvaluator evaluator : List.of(linear, model.evaluatorOf("linear")))
+            assertEquals(Tensor.from(0.0), evaluator.bind("a", 1e16).bind("b", -1e16).bind("c", 1).evaluate());
+
+        FunctionEvaluator tensor = model.compiledEvaluatorOf("tensor");
+        assertFalse(tensor.isCompiled());
+        assertEquals(Tensor.from("tensor(x[2]):[1.0, 2.0]"), tensor.bind("a", 1).evaluate());
+    }
+
     @Test
     public void testBindingValidation() {
         List<ExpressionFunction> functions = new ArrayList<>();
@@ -44,6 +44,7 @@ public class BertBaseEmbedder extends AbstractComponent implements Embedder {
     private final Embedder.Runtime runtime;
     private final WordPieceEmbedder tokenizer;
     private final OnnxEvaluator evaluator;
+    private final Object cacheScope = new Object();
 
     @Inject
     public BertBaseEmbedder(OnnxRuntime onnx, Embedder.Runtime runtime, BertBaseEmbedderConfig config) {
@@ -99,13 +100,18 @@ public class BertBaseEmbedder extends AbstractComponent implements Embedder {
 
     @Override
     public Tensor embed(String text, Context context, TensorType type) {
-        var start = System.nanoTime();
         if (type.dimensions().size() != 1) {
             throw new IllegalArgumentException("Error in embedding to type '" + type + "': should only have one dimension.");
         }
         if (!type.dimensions().get(0).isIndexed()) {
             throw new IllegalArgumentException("Error in embedding to type '" + type + "': dimension should be indexed.");
         }
+        return runtime.computeCachedEmbeddingIfAbsent(EmbeddingCacheKey.of(cacheScope, text, context, type), context,
+                                                      () -> evaluate(text, context, type));
+    }
+
+    private Tensor evaluate(String text, Context context, TensorType type) {
+        var start = System.nanoTime();
         List<Integer> tokens = embedWithSeparatorTokens(text, context, maxTokens);
         runtime.sampleSequenceLength(tokens.size(), context);
         var embedding = embedTokens(tokens, type);
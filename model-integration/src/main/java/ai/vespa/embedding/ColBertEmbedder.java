@@ -48,6 +48,7 @@ public class ColBertEmbedder extends AbstractComponent implements Embedder {
     private final String outputName;
     private final HuggingFaceTokenizer tokenizer;
     private final OnnxEvaluator evaluator;
+    private final Object cacheScope = new Object();
     private final int maxTransformerTokens;
     private final int maxQueryTokens;
     private final int maxDocumentTokens;
@@ -136,11 +137,10 @@ public class ColBertEmbedder extends AbstractComponent implements Embedder {
             throw new IllegalArgumentException("Invalid colbert embedder tensor target destination. " +
                                                "Wanted a mixed 2-d mapped-indexed tensor, got " + tensorType);
         }
-        if (context.getDestination().startsWith("query")) {
-            return embedQuery(text, context, tensorType);
-        } else {
-            return embedDocument(text, context, tensorType);
-        }
+        return runtime.computeCachedEmbeddingIfAbsent(EmbeddingCacheKey.of(cacheScope, text, context, tensorType), context,
+                                                      () -> context.getDestination().startsWith("query")
+                                                            ? embedQuery(text, context, tensorType)
+                                                            : embedDocument(text, context, tensorType));
     }
     @Override
     public void deconstruct() {
@@ -6,12 +6,16 @@ import ai.vespa.metrics.ContainerMetrics;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.language.Language;
 import com.yahoo.language.process.Embedder;
+import com.yahoo.metrics.simple.Counter;
 import com.yahoo.metrics.simple.Gauge;
 import com.yahoo.metrics.simple.MetricReceiver;
 import com.yahoo.metrics.simple.Point;
+import com.yahoo.tensor.Tensor;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * @author bjorncs
@@ -20,12 +24,28 @@ public class EmbedderRuntime implements Embedder.Runtime {
 
     private final Gauge embedLatency;
     private final Gauge sequenceLength;
+    private final Gauge batchSize;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter cacheEvictions;
     private final Map<MetricDimensions, Point> metricPointCache = new ConcurrentHashMap<>();
+    private final EmbeddingCache cache;
 
-    @Inject
     public EmbedderRuntime(MetricReceiver metrics) {
+        this(metrics, new EmbeddingCacheConfig.Builder().build());
+    }
+
+    @Inject
+    public EmbedderRuntime(MetricReceiver metrics, EmbeddingCacheConfig cacheConfig) {
         embedLatency = metrics.declareGauge(ContainerMetrics.EMBEDDER_LATENCY.baseName());
         sequenceLength = metrics.declareGauge(ContainerMetrics.EMBEDDER_SEQUENCE_LENGTH.baseName());
+        batchSize = metrics.declareGauge(ContainerMetrics.EMBEDDER_BATCH_SIZE.baseName());
+        cacheHits = metrics.declareCounter(ContainerMetrics.EMBEDDER_CACHE_HITS.baseName());
+        cacheMisses = metrics.declareCounter(ContainerMetrics.EMBEDDER_CACHE_MISSES.baseName());
+        cacheEvictions = metrics.declareCounter(ContainerMetrics.EMBEDDER_CACHE_EVICTIONS.baseName());
+        cache = cacheConfig.maxSizeBytes() > 0
+                ? new EmbeddingCache(cacheConfig.maxSizeBytes(), Duration.ofMillis((long) (cacheConfig.ttlSeconds() * 1000)))
+                : null;
     }
 
     @Override
@@ -38,6 +58,29 @@ public class EmbedderRuntime implements Embedder.Runtime {
         sequenceLength.sample(length, metricPoint(ctx));
     }
 
+    @Override
+    public void sampleBatchSize(int size, Embedder.Context ctx) {
+        batchSize.sample(size, metricPoint(ctx));
+    }
+
+    @Override
+    public Tensor computeCachedEmbeddingIfAbsent(Object key, Embedder.Context ctx, Supplier<Tensor> embedding) {
+        if (cache == null) return embedding.get();
+
+        Tensor cached = cache.get(key);
+        if (cached != null) {
+            cacheHits.add(metricPoint(ctx));
+            return cached;
+        }
+        cacheMisses.add(metricPoint(ctx));
+        // Computed outside the cache lock: Concurrent misses on the same key may both compute it
+        Tensor computed = embedding.get();
+        int evicted = cache.put(key, computed);
+        if (evicted > 0)
+            cacheEvictions.add(evicted, metricPoint(ctx));
+        return computed;
+    }
+
     private Point metricPoint(Embedder.Context ctx) {
         var dimensions = new MetricDimensions(ctx.getEmbedderId(), ctx.getLanguage(), ctx.getDestination());
         return metricPointCache.computeIfAbsent(
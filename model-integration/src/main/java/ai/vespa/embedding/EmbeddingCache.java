@@ -0,0 +1,140 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * A size-bounded cache of embeddings, shared by all requests and documents processed in a container.
+ * Entries are evicted in least-recently-used order when the cache is full, and, if a time-to-live is set,
+ * when they have been in the cache for longer than that.
+ *
+ * The cache is split into segments, each with its own lock and an equal share of the total size,
+ * to avoid contention between concurrent lookups.
+ */
+class EmbeddingCache {
+
+    private static final int segmentCount = 16;
+
+    /** Estimated fixed cost in bytes of an entry, including the key, map node and tensor object */
+    static final long entryOverheadBytes = 128;
+
+    private final Segment[] segments = new Segment[segmentCount];
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    EmbeddingCache(long maxSizeBytes, Duration ttl) {
+        this(maxSizeBytes, ttl, System::nanoTime);
+    }
+
+    EmbeddingCache(long maxSizeBytes, Duration ttl, LongSupplier nanoClock) {
+        if (maxSizeBytes <= 0) throw new IllegalArgumentException("Cache size must be positive, got " + maxSizeBytes);
+        for (int i = 0; i < segmentCount; i++)
+            segments[i] = new Segment(Math.max(1, maxSizeBytes / segmentCount));
+        this.ttlNanos = ttl.isZero() || ttl.isNegative() ? Long.MAX_VALUE : ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /** Returns the embedding cached for the given key, or null if it is not present or has expired */
+    Tensor get(Object key) {
+        return segmentOf(key).get(key, nanoClock.getAsLong());
+    }
+
+    /** Adds an embedding to this, and returns the number of other entries evicted to make room for it */
+    int put(Object key, Tensor embedding) {
+        return segmentOf(key).put(key, new Entry(embedding, estimateSizeBytes(key, embedding), nanoClock.getAsLong()));
+    }
+
+    /** Returns the total estimated size in bytes of the entries in this */
+    long sizeBytes() {
+        long size = 0;
+        for (Segment segment : segments)
+            size += segment.sizeBytes();
+        return size;
+    }
+
+    /** Returns the number of entries in this */
+    int size() {
+        int size = 0;
+        for (Segment segment : segments)
+            size += segment.size();
+        return size;
+    }
+
+    private Segment segmentOf(Object key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segmentCount - 1)];
+    }
+
+    static long estimateSizeBytes(Object key, Tensor embedding) {
+        long cellBytes = switch (embedding.type().valueType()) {
+            case DOUBLE -> 8;
+            case FLOAT -> 4;
+            case BFLOAT16 -> 2;
+            case INT8 -> 1;
+        };
+        if ( ! (embedding instanceof IndexedTensor))
+            cellBytes += 8L * embedding.type().dimensions().stream().filter(TensorType.Dimension::isMapped).count();
+        long keyBytes = key instanceof EmbeddingCacheKey cacheKey ? 2L * cacheKey.text().length() : 0;
+        return entryOverheadBytes + embedding.size() * cellBytes + keyBytes;
+    }
+
+    private record Entry(Tensor embedding, long sizeBytes, long createdNanos) {}
+
+    private class Segment {
+
+        private final long maxSizeBytes;
+        private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long sizeBytes = 0;
+
+        Segment(long maxSizeBytes) {
+            this.maxSizeBytes = maxSizeBytes;
+        }
+
+        synchronized Tensor get(Object key, long now) {
+            Entry entry = entries.get(key);
+            if (entry == null) return null;
+            if (now - entry.createdNanos() >= ttlNanos) {
+                remove(key);
+                return null;
+            }
+            return entry.embedding();
+        }
+
+        synchronized int put(Object key, Entry entry) {
+            if (entry.sizeBytes() > maxSizeBytes) return 0;
+            Entry previous = entries.put(key, entry);
+            if (previous != null)
+                sizeBytes -= previous.sizeBytes();
+            sizeBytes += entry.sizeBytes();
+            int evicted = 0;
+            for (Iterator<Map.Entry<Object, Entry>> it = entries.entrySet().iterator(); sizeBytes > maxSizeBytes && it.hasNext(); ) {
+                Entry eldest = it.next().getValue();
+                if (eldest == entry) continue;
+                sizeBytes -= eldest.sizeBytes();
+                it.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+
+        private void remove(Object key) {
+            Entry removed = entries.remove(key);
+            if (removed != null)
+                sizeBytes -= removed.sizeBytes();
+        }
+
+        synchronized long sizeBytes() { return sizeBytes; }
+
+        synchronized int size() { return entries.size(); }
+
+    }
+
+}
@@ -0,0 +1,27 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.language.Language;
+import com.yahoo.language.process.Embedder;
+import com.yahoo.tensor.TensorType;
+
+/**
+ * The key of an embedding in the cache shared between requests,
+ * see {@link Embedder.Runtime#computeCachedEmbeddingIfAbsent}.
+ *
+ * @param scope an object owned by the embedder instance producing the embedding, compared by identity,
+ *              such that embeddings from a previous instance with the same id are never returned
+ * @param embedderId the id of the embedder
+ * @param destination the destination of the embedding, as embedders may embed queries and documents differently
+ * @param language the language of the text
+ * @param type the tensor type of the embedding
+ * @param text the text which is embedded
+ */
+public record EmbeddingCacheKey(Object scope, String embedderId, String destination, Language language,
+                                TensorType type, String text) {
+
+    public static EmbeddingCacheKey of(Object scope, String text, Embedder.Context context, TensorType type) {
+        return new EmbeddingCacheKey(scope, context.getEmbedderId(), context.getDestination(), context.getLanguage(), type, text);
+    }
+
+}
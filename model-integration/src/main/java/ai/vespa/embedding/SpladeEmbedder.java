@@ -40,6 +40,7 @@ public class SpladeEmbedder extends AbstractComponent implements Embedder {
     private final boolean useCustomReduce;
     private final HuggingFaceTokenizer tokenizer;
     private final OnnxEvaluator evaluator;
+    private final Object cacheScope = new Object();
 
     @Inject
     public SpladeEmbedder(OnnxRuntime onnx, Embedder.Runtime runtime, SpladeEmbedderConfig config) {
@@ -115,6 +116,11 @@ public class SpladeEmbedder extends AbstractComponent implements Embedder {
             throw new IllegalArgumentException("Invalid splade embedder tensor destination. " +
                                                "Wanted a mapped 1-d tensor, got " + tensorType);
         }
+        return runtime.computeCachedEmbeddingIfAbsent(EmbeddingCacheKey.of(cacheScope, text, context, tensorType), context,
+                                                      () -> evaluate(text, context, tensorType));
+    }
+
+    private Tensor evaluate(String text, Context context, TensorType tensorType) {
         var start = System.nanoTime();
 
         var encoding = tokenizer.encode(text, context.getLanguage());
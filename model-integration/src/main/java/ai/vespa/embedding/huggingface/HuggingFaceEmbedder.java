@@ -1,7 +1,9 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package ai.vespa.embedding.huggingface;
 
+import ai.vespa.embedding.EmbeddingCacheKey;
 import ai.vespa.embedding.PoolingStrategy;
+import ai.vespa.modelintegration.evaluator.BatchingOnnxEvaluator;
 import ai.vespa.modelintegration.evaluator.OnnxEvaluator;
 import ai.vespa.modelintegration.evaluator.OnnxEvaluatorOptions;
 import ai.vespa.modelintegration.evaluator.OnnxRuntime;
@@ -17,6 +19,7 @@ import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
@@ -37,7 +40,9 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
     private final boolean normalize;
     private final HuggingFaceTokenizer tokenizer;
     private final OnnxEvaluator evaluator;
+    private final BatchingOnnxEvaluator batchingEvaluator;
     private final PoolingStrategy poolingStrategy;
+    private final Object cacheScope = new Object();
 
     private final String prependQuery;
 
@@ -76,6 +81,8 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
         onnxOpts.setThreads(config.transformerInterOpThreads(), config.transformerIntraOpThreads());
         evaluator = onnx.evaluatorOf(config.transformerModel().toString(), onnxOpts);
         validateModel();
+        batchingEvaluator = new BatchingOnnxEvaluator(evaluator, config.transformerBatchingMaxSize(),
+                                                      Duration.ofNanos(config.transformerBatchingMaxDelayMicros() * 1000L));
     }
 
     private void validateModel() {
@@ -119,6 +126,11 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
         if (!tensorType.dimensions().get(0).isIndexed()) {
             throw new IllegalArgumentException("Error in embedding to type '" + tensorType + "': dimension should be indexed.");
         }
+        return runtime.computeCachedEmbeddingIfAbsent(EmbeddingCacheKey.of(cacheScope, text, context, tensorType), context,
+                                                      () -> embedUncached(text, context, tensorType));
+    }
+
+    private Tensor embedUncached(String text, Context context, TensorType tensorType) {
         var embeddingResult = lookupOrEvaluate(context, prependInstruction(text, context));
         IndexedTensor tokenEmbeddings = embeddingResult.output;
         if (tensorType.valueType() == TensorType.Value.INT8) {
@@ -180,7 +192,8 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
                     attentionMaskName, attentionMask.expand("d0"),
                     tokenTypeIdsName, tokenTypeIds.expand("d0"));
         }
-        IndexedTensor tokenEmbeddings = (IndexedTensor) evaluator.evaluate(inputs).get(outputName);
+        IndexedTensor tokenEmbeddings = (IndexedTensor) batchingEvaluator.evaluate(inputs, size -> runtime.sampleBatchSize(size, context))
+                                                                         .get(outputName);
         long[] resultShape = tokenEmbeddings.shape();
         //shape batch, sequence, embedding dimensionality
         if (resultShape.length != 3) {
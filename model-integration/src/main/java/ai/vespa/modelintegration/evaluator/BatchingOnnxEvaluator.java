@@ -0,0 +1,218 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.modelintegration.evaluator;
+
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Evaluates concurrent requests to an ONNX model together, in batches.
+ *
+ * Each request must consist of inputs of shape [1, sequence], where the first dimension is the batch dimension.
+ * The first request to arrive when no batch is open starts a new batch, and waits until either the batch
+ * is full, or the max delay has passed, before it evaluates the model once with all the requests in the batch.
+ * Shorter sequences are padded with zeros, and rank 3 outputs of shape [batch, sequence, d] are trimmed back to
+ * the sequence length of each request. Other outputs are only split along the batch dimension.
+ *
+ * Callers must therefore ensure that the model evaluates each entry along the batch dimension independently,
+ * and that zero is a valid padding value for all inputs, such as when the model has an attention mask input.
+ */
+public class BatchingOnnxEvaluator {
+
+    private final OnnxEvaluator evaluator;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+
+    private final Object monitor = new Object();
+    private Batch open = null;
+
+    public BatchingOnnxEvaluator(OnnxEvaluator evaluator, int maxBatchSize, Duration maxDelay) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("Max batch size must be positive, got " + maxBatchSize);
+        this.evaluator = evaluator;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    /** Returns whether this evaluates requests in batches, i.e. whether the max batch size is larger than 1 */
+    public boolean isBatching() { return maxBatchSize > 1; }
+
+    public Map<String, Tensor> evaluate(Map<String, Tensor> inputs) {
+        return evaluate(inputs, batchSize -> { });
+    }
+
+    /**
+     * Evaluates the model with the given inputs, possibly together with concurrent requests.
+     *
+     * @param inputs the inputs of this request, each with shape [1, sequence]
+     * @param batchSizeListener called with the size of the batch, if the batch is evaluated by this thread
+     * @return the outputs for this request, with the batch dimension of size 1
+     */
+    public Map<String, Tensor> evaluate(Map<String, Tensor> inputs, IntConsumer batchSizeListener) {
+        if ( ! isBatching()) {
+            batchSizeListener.accept(1);
+            return evaluator.evaluate(inputs);
+        }
+
+        Batch batch;
+        int index;
+        boolean leader;
+        synchronized (monitor) {
+            leader = open == null;
+            if (leader)
+                open = new Batch();
+            batch = open;
+            index = batch.inputs.size();
+            batch.inputs.add(inputs);
+            if (batch.inputs.size() >= maxBatchSize) {
+                open = null;
+                batch.full.countDown();
+            }
+        }
+        if (leader) {
+            awaitFull(batch);
+            synchronized (monitor) {
+                if (open == batch)
+                    open = null;
+            }
+            try {
+                batch.outputs.complete(evaluateBatch(batch.inputs));
+                batchSizeListener.accept(batch.inputs.size());
+            } catch (RuntimeException e) {
+                batch.outputs.completeExceptionally(e);
+            } finally {
+                // An Error is thrown from this thread, but the other requests in the batch must not wait forever
+                if ( ! batch.outputs.isDone())
+                    batch.outputs.completeExceptionally(new IllegalStateException("Evaluation of the batch failed"));
+            }
+        }
+        try {
+            return batch.outputs.join().get(index);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private void awaitFull(Batch batch) {
+        try {
+            batch.full.await(maxDelayNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<Map<String, Tensor>> evaluateBatch(List<Map<String, Tensor>> requests) {
+        if (requests.size() == 1 || ! isPaddable(requests)) {
+            List<Map<String, Tensor>> outputs = new ArrayList<>(requests.size());
+            for (var request : requests)
+                outputs.add(evaluator.evaluate(request));
+            return outputs;
+        }
+
+        int[] sequenceLengths = new int[requests.size()];
+        for (int i = 0; i < sequenceLengths.length; i++)
+            sequenceLengths[i] = (int) ((IndexedTensor) requests.get(i).values().iterator().next()).shape()[1];
+        Map<String, Tensor> batchedInputs = new HashMap<>();
+        for (String name : requests.get(0).keySet())
+            batchedInputs.put(name, pad(name, requests));
+        Map<String, Tensor> batchedOutputs = evaluator.evaluate(batchedInputs);
+
+        List<Map<String, Tensor>> outputs = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            Map<String, Tensor> output = new HashMap<>();
+            for (var entry : batchedOutputs.entrySet())
+                output.put(entry.getKey(), slice((IndexedTensor) entry.getValue(), i, sequenceLengths[i]));
+            outputs.add(output);
+        }
+        return outputs;
+    }
+
+    /** Returns whether all requests have the same inputs, and all of them are of shape [1, sequence] */
+    private static boolean isPaddable(List<Map<String, Tensor>> requests) {
+        var names = requests.get(0).keySet();
+        for (var request : requests) {
+            if ( ! request.keySet().equals(names)) return false;
+            long sequenceLength = -1;
+            for (Tensor input : request.values()) {
+                if ( ! (input instanceof IndexedTensor indexed) || indexed.shape().length != 2 || indexed.shape()[0] != 1)
+                    return false;
+                if (sequenceLength >= 0 && indexed.shape()[1] != sequenceLength) return false;
+                sequenceLength = indexed.shape()[1];
+            }
+        }
+        return true;
+    }
+
+    private static Tensor pad(String name, List<Map<String, Tensor>> requests) {
+        long maxLength = 0;
+        for (var request : requests)
+            maxLength = Math.max(maxLength, ((IndexedTensor) request.get(name)).shape()[1]);
+        TensorType type = requests.get(0).get(name).type();
+        var batchedType = new TensorType.Builder(type.valueType())
+                .indexed(type.dimensions().get(0).name(), requests.size())
+                .indexed(type.dimensions().get(1).name(), maxLength)
+                .build();
+        var builder = IndexedTensor.Builder.of(batchedType);
+        for (int i = 0; i < requests.size(); i++) {
+            IndexedTensor input = (IndexedTensor) requests.get(i).get(name);
+            long length = input.shape()[1];
+            for (long j = 0; j < maxLength; j++)
+                builder.cell(j < length ? input.get(0, j) : 0, i, j);
+        }
+        return builder.build();
+    }
+
+    private static Tensor slice(IndexedTensor output, int batchIndex, int sequenceLength) {
+        long[] shape = output.shape();
+        TensorType type = output.type();
+        long[] sliceShape = shape.clone();
+        sliceShape[0] = 1;
+        if (shape.length == 3)
+            sliceShape[1] = Math.min(shape[1], sequenceLength);
+
+        var typeBuilder = new TensorType.Builder(type.valueType());
+        for (int d = 0; d < shape.length; d++)
+            typeBuilder.indexed(type.dimensions().get(d).name(), sliceShape[d]);
+        var builder = IndexedTensor.Builder.of(typeBuilder.build());
+
+        long[] index = new long[shape.length];
+        long[] batchedIndex = new long[shape.length];
+        long size = 1;
+        for (long s : sliceShape) size *= s;
+        for (long i = 0; i < size; i++) {
+            System.arraycopy(index, 0, batchedIndex, 0, index.length);
+            batchedIndex[0] = batchIndex;
+            builder.cell(output.get(batchedIndex), index);
+            increment(index, sliceShape);
+        }
+        return builder.build();
+    }
+
+    /** Advances the given index in row-major order */
+    private static void increment(long[] index, long[] shape) {
+        for (int d = index.length - 1; d >= 0; d--) {
+            if (++index[d] < shape[d]) return;
+            index[d] = 0;
+        }
+    }
+
+    private static class Batch {
+
+        final List<Map<String, Tensor>> inputs = new ArrayList<>();
+        final CountDownLatch full = new CountDownLatch(1);
+        final CompletableFuture<List<Map<String, Tensor>>> outputs = new CompletableFuture<>();
+
+    }
+
+}
@@ -0,0 +1,90 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.language.Language;
+import com.yahoo.language.process.Embedder;
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EmbeddingCacheTest {
+
+    private static final TensorType type = TensorType.fromSpec("tensor<float>(x[4])");
+    private static final Object scope = new Object();
+
+    @Test
+    public void least_recently_used_entries_are_evicted_when_full() {
+        long entrySize = EmbeddingCache.estimateSizeBytes(key("text 99"), embedding(1));
+        // One entry per segment, so keys landing in the same segment evict each other
+        var cache = new EmbeddingCache(16 * entrySize, Duration.ZERO);
+        int evicted = 0;
+        for (int i = 0; i < 100; i++)
+            evicted += cache.put(key("text " + i), embedding(i));
+        assertEquals(100, cache.size() + evicted);
+        assertTrue(cache.sizeBytes() <= 16 * entrySize);
+        assertNotNull(cache.get(key("text 99")));
+    }
+
+    @Test
+    public void entries_expire_after_ttl() {
+        var clock = new AtomicLong(0);
+        var cache = new EmbeddingCache(1 << 20, Duration.ofSeconds(10), clock::get);
+        cache.put(key("a"), embedding(1));
+        clock.set(Duration.ofSeconds(9).toNanos());
+        assertNotNull(cache.get(key("a")));
+        clock.set(Duration.ofSeconds(10).toNanos());
+        assertNull(cache.get(key("a")));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.sizeBytes());
+    }
+
+    @Test
+    public void keys_differ_by_every_component() {
+        var cache = new EmbeddingCache(1 << 20, Duration.ZERO);
+        var key = key("a");
+        cache.put(key, embedding(1));
+        assertNotNull(cache.get(key("a")));
+        assertNull(cache.get(new EmbeddingCacheKey(new Object(), key.embedderId(), key.destination(), key.language(), type, "a")));
+        assertNull(cache.get(new EmbeddingCacheKey(scope, key.embedderId(), "schema.field", key.language(), type, "a")));
+        assertNull(cache.get(new EmbeddingCacheKey(scope, key.embedderId(), key.destination(), Language.ENGLISH, type, "a")));
+        assertNull(cache.get(new EmbeddingCacheKey(scope, key.embedderId(), key.destination(), key.language(),
+                                                   TensorType.fromSpec("tensor<bfloat16>(x[4])"), "a")));
+    }
+
+    @Test
+    public void runtime_computes_each_embedding_once_when_cache_is_enabled() {
+        var config = new EmbeddingCacheConfig.Builder().maxSizeBytes(1 << 20).build();
+        var runtime = new EmbedderRuntime(MetricReceiver.nullImplementation, config);
+        var context = new Embedder.Context("query(q)").setEmbedderId("my-embedder");
+        var computations = new AtomicInteger();
+        Tensor first = runtime.computeCachedEmbeddingIfAbsent(key("a"), context, () -> { computations.incrementAndGet(); return embedding(1); });
+        Tensor second = runtime.computeCachedEmbeddingIfAbsent(key("a"), context, () -> { computations.incrementAndGet(); return embedding(1); });
+        assertSame(first, second);
+        assertEquals(1, computations.get());
+
+        var uncached = new EmbedderRuntime(MetricReceiver.nullImplementation);
+        uncached.computeCachedEmbeddingIfAbsent(key("a"), context, () -> { computations.incrementAndGet(); return embedding(1); });
+        uncached.computeCachedEmbeddingIfAbsent(key("a"), context, () -> { computations.incrementAndGet(); return embedding(1); });
+        assertEquals(3, computations.get());
+    }
+
+    private static EmbeddingCacheKey key(String text) {
+        return EmbeddingCacheKey.of(scope, text, new Embedder.Context("query(q)").setEmbedderId("my-embedder"), type);
+    }
+
+    private static Tensor embedding(double value) {
+        return Tensor.Builder.of(type).cell(value, 0).cell(value, 1).cell(value, 2).cell(value, 3).build();
+    }
+
+}
@@ -0,0 +1,107 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.modelintegration.evaluator;
+
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class BatchingOnnxEvaluatorTest {
+
+    @Test
+    public void concurrentRequestsAreEvaluatedInBatches() throws Exception {
+        assumeTrue(OnnxRuntime.isRuntimeAvailable());
+        OnnxEvaluator evaluator = new OnnxRuntime().evaluatorOf("src/test/models/onnx/transformer/dummy_transformer.onnx");
+        var batching = new BatchingOnnxEvaluator(evaluator, 4, Duration.ofSeconds(10));
+        AtomicInteger maxBatchSize = new AtomicInteger();
+
+        List<Map<String, Tensor>> requests = List.of(inputs(3), inputs(3), inputs(5), inputs(2));
+        ExecutorService executor = Executors.newFixedThreadPool(requests.size());
+        try {
+            List<Future<Map<String, Tensor>>> results = new ArrayList<>();
+            for (var request : requests)
+                results.add(executor.submit(() -> batching.evaluate(request, size -> maxBatchSize.accumulateAndGet(size, Math::max))));
+
+            for (int i = 0; i < requests.size(); i++) {
+                IndexedTensor output = (IndexedTensor) results.get(i).get().get("output_0");
+                long length = ((IndexedTensor) requests.get(i).get("input_ids")).shape()[1];
+                assertArrayEquals(new long[] { 1, length, 16 }, output.shape());
+            }
+            assertEquals(4, maxBatchSize.get());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void singleRequestIsEvaluatedAfterMaxDelay() {
+        assumeTrue(OnnxRuntime.isRuntimeAvailable());
+        OnnxEvaluator evaluator = new OnnxRuntime().evaluatorOf("src/test/models/onnx/transformer/dummy_transformer.onnx");
+        var batching = new BatchingOnnxEvaluator(evaluator, 8, Duration.ofMillis(1));
+        AtomicInteger batchSize = new AtomicInteger();
+
+        Map<String, Tensor> request = inputs(3);
+        var output = batching.evaluate(request, batchSize::set).get("output_0");
+        assertEquals(1, batchSize.get());
+        assertEquals(evaluator.evaluate(request).get("output_0"), output);
+    }
+
+    @Test
+    public void allRequestsInBatchFailWhenEvaluationFails() throws Exception {
+        assumeTrue(OnnxRuntime.isRuntimeAvailable());
+        OnnxEvaluator evaluator = new OnnxEvaluator("src/test/models/onnx/transformer/dummy_transformer.onnx", null, new OnnxRuntime()) {
+            @Override public Map<String, Tensor> evaluate(Map<String, Tensor> inputs) { throw new Error("evaluation failed"); }
+        };
+        var batching = new BatchingOnnxEvaluator(evaluator, 2, Duration.ofSeconds(10));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Map<String, Tensor>>> results = List.of(executor.submit(() -> batching.evaluate(inputs(3))),
+                                                                executor.submit(() -> batching.evaluate(inputs(5))));
+            int errors = 0;
+            for (var result : results) {
+                try {
+                    result.get(1, TimeUnit.MINUTES);
+                    fail("Expected evaluation to fail");
+                }
+                catch (ExecutionException e) {
+                    if (e.getCause() instanceof Error) errors++;
+                    else assertEquals("Evaluation of the batch failed", e.getCause().getMessage());
+                }
+            }
+            assertEquals(1, errors);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Map<String, Tensor> inputs(int length) {
+        var ids = Tensor.Builder.of("tensor<float>(d0[1],d1[" + length + "])");
+        var mask = Tensor.Builder.of("tensor<float>(d0[1],d1[" + length + "])");
+        var types = Tensor.Builder.of("tensor<float>(d0[1],d1[" + length + "])");
+        for (int i = 0; i < length; i++) {
+            ids.cell(i + 1, 0, i);
+            mask.cell(1, 0, i);
+            types.cell(0, 0, i);
+        }
+        return Map.of("input_ids", ids.build(), "attention_mask", mask.build(), "token_type_ids", types.build());
+    }
+
+}
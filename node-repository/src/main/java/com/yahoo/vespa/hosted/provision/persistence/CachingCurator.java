@@ -7,18 +7,20 @@ import com.yahoo.path.Path;
 import com.yahoo.transaction.NestedTransaction;
 import com.yahoo.vespa.curator.Curator;
 import com.yahoo.vespa.curator.Lock;
-import com.yahoo.vespa.curator.recipes.CuratorCounter;
 import com.yahoo.vespa.curator.transaction.CuratorTransaction;
 import org.apache.zookeeper.data.Stat;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.OptionalInt;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 /**
@@ -26,7 +28,8 @@ import java.util.function.Supplier;
  *
  * It serves reads from an in-memory cache of the content which is invalidated when changed on another node
  * using a global, shared counter. The counter is updated on all write operations, ensured by wrapping write
- * operations in a try block, with the counter increment in a finally block.
+ * operations in a try block, with the counter increment in a finally block. Each increment records the paths
+ * which were written in a {@link ChangeLog}, so only the cached content of those paths is invalidated.
  *
  * Locks must be used to ensure consistency.
  *
@@ -37,8 +40,8 @@ public class CachingCurator {
 
     private final Curator curator;
 
-    /** A shared atomic counter which is incremented every time we write to the curator database */
-    private final CuratorCounter changeGenerationCounter;
+    /** A shared atomic counter which is incremented every time we write to the curator database, with the paths written */
+    private final ChangeLog changeLog;
 
     /** A partial cache of the Curator database, which is only valid if generations match */
     private final AtomicReference<Cache> cache = new AtomicReference<>();
@@ -48,6 +51,10 @@ public class CachingCurator {
 
     private final Object cacheCreationLock = new Object();
 
+    /** Statistics of all the caches of this */
+    private final AbstractCache.SimpleStatsCounter statistics = new AbstractCache.SimpleStatsCounter();
+    private final LongAdder evictions = new LongAdder();
+
     /**
      * Creates a curator database
      *
@@ -57,8 +64,8 @@ public class CachingCurator {
     public CachingCurator(Curator curator, Path root, boolean enabled) {
         this.enabled = enabled;
         this.curator = curator;
-        changeGenerationCounter = new CuratorCounter(curator, root.append("changeCounter"));
-        cache.set(newCache(changeGenerationCounter.get()));
+        changeLog = new ChangeLog(curator, root.append("changeCounter"), root.append("changeLog"));
+        cache.set(newCache(changeLog.generation()));
     }
 
     /** Returns all hosts configured to be part of this ZooKeeper cluster */
@@ -84,15 +91,20 @@ public class CachingCurator {
      */
     public CuratorTransaction newCuratorTransactionIn(NestedTransaction transaction) {
         // Wrap the curator transaction with an increment of the generation counter.
-        CountingCuratorTransaction curatorTransaction = new CountingCuratorTransaction(curator, changeGenerationCounter);
+        CountingCuratorTransaction curatorTransaction = new CountingCuratorTransaction(curator, changeLog);
         transaction.add(curatorTransaction);
         return curatorTransaction;
     }
 
     /** Creates a path in curator and all its parents as necessary. If the path already exists this does nothing. */
     void create(Path path) {
-        if (curator.create(path))
-            changeGenerationCounter.next(); // Increment counter to ensure getChildren sees any change.
+        if (curator.create(path)) {
+            // Increment counter to ensure getChildren sees any change, also of any parents created.
+            List<Path> created = new ArrayList<>();
+            for (Path parent = path; ! parent.isRoot(); parent = parent.getParentPath())
+                created.add(parent);
+            changeLog.next(Optional.of(created));
+        }
     }
 
     /** Returns whether given path exists */
@@ -102,7 +114,7 @@ public class CachingCurator {
 
     // --------- Read operations -------------------------------------------------------------------------------
     // These can read from the memory file system, which accurately mirrors the ZooKeeper content IF
-    // the current generation counter is the same as it was when data was put into the cache, AND
+    // the data was not written since the generation it was put into the cache, AND
     // the data to read is protected by a lock which is held now, and during any writes of the data.
 
     /** Returns the immediate, local names of the children under this node in any order */
@@ -110,30 +122,53 @@ public class CachingCurator {
 
     Optional<byte[]> getData(Path path) { return getSession().getData(path); }
 
-    /** Invalidates the current cache if outdated. */
+    /**
+     * Invalidates what has changed in the current cache if outdated.
+     * Only one thread reads the change log, while any others wait for it to replace the cache.
+     */
     Session getSession() {
-        if (changeGenerationCounter.get() != cache.get().generation)
+        if (changeLog.generation() != cache.get().generation) {
             synchronized (cacheCreationLock) {
-                while (changeGenerationCounter.get() != cache.get().generation)
-                    cache.set(newCache(changeGenerationCounter.get()));
+                long generation;
+                Cache current;
+                while ((generation = changeLog.generation()) != (current = cache.get()).generation) {
+                    Optional<Set<Path>> changed = enabled ? changeLog.changes(current.generation, generation) : Optional.empty();
+                    cache.set(nextCache(current, generation, changed));
+                }
             }
-            
+        }
         return cache.get();
     }
 
     CacheStats cacheStats() {
-        return cache.get().stats();
+        return new CacheStats(statistics.snapshot().hitRate(), evictions.sum(), cache.get().size());
+    }
+
+    /**
+     * Returns a cache of the given generation, with the content of the given cache except the given changed paths,
+     * or with nothing if no changed paths are given
+     */
+    private Cache nextCache(Cache current, long generation, Optional<Set<Path>> changed) {
+        if ( ! enabled) return newCache(generation);
+
+        if (changed.isEmpty()) {
+            evictions.add(current.size());
+            return newCache(generation);
+        }
+        Cache next = newCache(generation);
+        current.copyUnchangedTo(next, changed.get());
+        return next;
     }
 
     /** Caches must only be instantiated using this method */
     private Cache newCache(long generation) {
-        return enabled ? new Cache(generation, curator) : new NoCache(generation, curator);
+        return enabled ? new Cache(generation, curator, statistics, evictions) : new NoCache(generation, curator);
     }
 
     /**
      * A thread safe partial snapshot of the curator database content with a given generation.
-     * This is merely a recording of what Curator returned at various points in time when 
-     * it had the counter at this generation.
+     * This is merely a recording of what Curator returned at various points in time when
+     * it had the counter at this generation, or before, for content which did not change since.
      */
     private static class Cache implements Session {
 
@@ -149,12 +184,15 @@ public class CachingCurator {
         private final Map<Path, Optional<byte[]>> data = new ConcurrentHashMap<>();
         private final Map<Path, Optional<Integer>> stats = new ConcurrentHashMap<>();
 
-        private final AbstractCache.SimpleStatsCounter statistics = new AbstractCache.SimpleStatsCounter();
+        private final AbstractCache.StatsCounter statistics;
+        private final LongAdder evictions;
 
         /** Create an empty snapshot at a given generation (as an empty snapshot is a valid partial snapshot) */
-        private Cache(long generation, Curator curator) {
+        private Cache(long generation, Curator curator, AbstractCache.StatsCounter statistics, LongAdder evictions) {
             this.generation = generation;
             this.curator = curator;
+            this.statistics = statistics;
+            this.evictions = evictions;
         }
 
         @Override
@@ -183,9 +221,29 @@ public class CachingCurator {
             });
         }
 
-        public CacheStats stats() {
-            var stats = this.statistics.snapshot();
-            return new CacheStats(stats.hitRate(), stats.evictionCount(), children.size() + data.size());
+        /** Copies the content of this to the given cache of a later generation, except what changed since this */
+        private void copyUnchangedTo(Cache next, Set<Path> changed) {
+            // Changing a path may also change the children of its parent
+            Set<Path> changedChildren = new HashSet<>(changed);
+            for (Path path : changed)
+                changedChildren.add(path.getParentPath());
+
+            copyUnchanged(children, next.children, changedChildren);
+            copyUnchanged(data, next.data, changed);
+            copyUnchanged(stats, next.stats, changed);
+        }
+
+        private <T> void copyUnchanged(Map<Path, T> values, Map<Path, T> nextValues, Set<Path> changed) {
+            values.forEach((path, value) -> {
+                if (changed.contains(path))
+                    evictions.increment();
+                else
+                    nextValues.put(path, value);
+            });
+        }
+
+        long size() {
+            return children.size() + data.size();
         }
 
     }
@@ -193,7 +251,9 @@ public class CachingCurator {
     /** An implementation of the curator database cache which does no caching */
     private static class NoCache extends Cache {
 
-        private NoCache(long generation, Curator curator) { super(generation, curator); }
+        private NoCache(long generation, Curator curator) {
+            super(generation, curator, new AbstractCache.SimpleStatsCounter(), new LongAdder());
+        }
 
         @Override
         public List<String> getChildren(Path path) { return curator.getChildren(path); }
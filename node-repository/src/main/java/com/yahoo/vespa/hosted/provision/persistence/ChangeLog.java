@@ -0,0 +1,183 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision.persistence;
+
+import com.yahoo.path.Path;
+import com.yahoo.vespa.curator.Curator;
+import com.yahoo.vespa.curator.recipes.CuratorCounter;
+import com.yahoo.yolean.Exceptions;
+import org.apache.curator.framework.api.transaction.CuratorTransaction;
+import org.apache.curator.framework.api.transaction.CuratorTransactionBridge;
+import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * A generation counter, with a log in ZooKeeper of the paths changed in each recent generation.
+ * This lets a cache of the content under these paths drop only what changed when the generation moves.
+ *
+ * The counter is incremented and its log entry written in a single ZooKeeper transaction, so a reader never
+ * sees a generation before its entry. The counter is stored in the format of a
+ * {@link org.apache.curator.framework.recipes.atomic.DistributedAtomicLong}, so writers which do not know
+ * which paths they change, such as those of earlier versions, or this when the transaction fails,
+ * may still increment it that way. Readers consider anything as changed in generations without an entry.
+ *
+ * Old entries are deleted in batches, by the writer of every {@link #pruneInterval}th generation.
+ */
+class ChangeLog {
+
+    private static final Logger log = Logger.getLogger(ChangeLog.class.getName());
+
+    /** The number of most recent generations which have an entry in the log */
+    static final int maxEntries = 1000;
+
+    /** The number of generations between each deletion of the entries which are too old */
+    static final int pruneInterval = 100;
+
+    /** Readers which are more than this many generations behind consider everything as changed */
+    static final int maxEntriesToRead = 100;
+
+    /** The number of times to try incrementing the counter when other writers increment it concurrently */
+    private static final int maxAttempts = 10;
+
+    private final Curator curator;
+    private final CuratorCounter counter;
+    private final Path counterPath;
+    private final Path root;
+
+    ChangeLog(Curator curator, Path counterPath, Path root) {
+        this.curator = curator;
+        this.counter = new CuratorCounter(curator, counterPath);
+        this.counterPath = counterPath;
+        this.root = root;
+        curator.create(root);
+    }
+
+    /** Returns the current generation */
+    long generation() {
+        return curator.getData(counterPath).map(ChangeLog::toGeneration).orElse(0L);
+    }
+
+    /**
+     * Increments the generation, and records that the given paths were changed in the new generation,
+     * or that anything may have changed, if no paths are given. If this fails, the generation is
+     * incremented without an entry, such that readers consider anything as changed.
+     *
+     * @return the new generation
+     */
+    long next(Optional<? extends Collection<Path>> changed) {
+        try {
+            for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+                OptionalLong generation = tryNext(changed);
+                if (generation.isPresent()) return generation.getAsLong();
+            }
+            log.log(Level.WARNING, "Unable to increment " + this + " in " + maxAttempts + " attempts, " +
+                                   "incrementing it without a log entry");
+        }
+        catch (Exception e) {
+            log.log(Level.WARNING, "Unable to increment " + this + ", incrementing it without a log entry: " +
+                                   Exceptions.toMessageString(e));
+        }
+        return counter.next();
+    }
+
+    /** Increments the generation with its log entry, and returns it, or empty if another writer incremented it first */
+    @SuppressWarnings("deprecation")
+    private OptionalLong tryNext(Optional<? extends Collection<Path>> changed) throws Exception {
+        Stat stat = new Stat();
+        Optional<byte[]> current = curator.getData(counterPath, stat);
+        long generation = current.map(ChangeLog::toGeneration).orElse(0L) + 1;
+        try {
+            CuratorTransaction transaction = curator.framework().inTransaction();
+            CuratorTransactionBridge bridge = current.isPresent()
+                    ? transaction.setData().withVersion(stat.getVersion()).forPath(counterPath.getAbsolute(), toBytes(generation))
+                    : transaction.create().forPath(counterPath.getAbsolute(), toBytes(generation));
+            if (changed.isPresent())
+                bridge = bridge.and().create().forPath(entryPath(generation).getAbsolute(), serialize(changed.get()));
+            bridge.and().commit();
+        }
+        catch (KeeperException.BadVersionException | KeeperException.NodeExistsException e) {
+            // Another writer incremented the counter first, or there is an entry left from before the counter was reset
+            if (changed.isPresent() && e instanceof KeeperException.NodeExistsException)
+                curator.delete(entryPath(generation), false); // Without an entry, readers consider anything as changed
+            return OptionalLong.empty();
+        }
+        if (generation % pruneInterval == 0)
+            prune(generation - maxEntries);
+        return OptionalLong.of(generation);
+    }
+
+    /**
+     * Returns the paths changed after the given generation, up to and including the given later generation,
+     * or empty if anything may have changed.
+     */
+    Optional<Set<Path>> changes(long fromGeneration, long toGeneration) {
+        if (toGeneration < fromGeneration || toGeneration - fromGeneration > maxEntriesToRead) return Optional.empty();
+
+        Set<Path> changed = new HashSet<>();
+        for (long generation = fromGeneration + 1; generation <= toGeneration; generation++) {
+            Optional<byte[]> entry = curator.getData(entryPath(generation));
+            if (entry.isEmpty()) return Optional.empty();
+            changed.addAll(deserialize(entry.get()));
+        }
+        return Optional.of(changed);
+    }
+
+    @Override
+    public String toString() {
+        return "generation counter " + counterPath.getAbsolute() + " with change log " + root.getAbsolute();
+    }
+
+    /** Deletes the entries of the given generation and all earlier ones, in a single transaction */
+    @SuppressWarnings("deprecation")
+    private void prune(long lastGeneration) {
+        try {
+            List<Path> pruned = curator.getChildren(root).stream()
+                                       .filter(name -> Long.parseLong(name) <= lastGeneration)
+                                       .map(root::append)
+                                       .toList();
+            if (pruned.isEmpty()) return;
+
+            CuratorTransaction transaction = curator.framework().inTransaction();
+            for (Path path : pruned)
+                transaction = transaction.delete().forPath(path.getAbsolute()).and();
+            ((CuratorTransactionFinal) transaction).commit();
+        }
+        catch (Exception e) { // Pruned by another writer, or left to the next one
+            log.log(Level.FINE, () -> "Failed pruning " + this + " up to generation " + lastGeneration + ": " + e.getMessage());
+        }
+    }
+
+    private Path entryPath(long generation) {
+        return root.append(Long.toString(generation));
+    }
+
+    /** Returns the generation stored in the given counter data, as stored by DistributedAtomicLong */
+    private static long toGeneration(byte[] data) {
+        return data.length == 0 ? 0 : ByteBuffer.wrap(data).getLong();
+    }
+
+    private static byte[] toBytes(long generation) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(generation).array();
+    }
+
+    private static byte[] serialize(Collection<Path> paths) {
+        return paths.stream().map(Path::getAbsolute).collect(Collectors.joining("\n")).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Set<Path> deserialize(byte[] entry) {
+        return new String(entry, StandardCharsets.UTF_8).lines().map(Path::fromString).collect(Collectors.toSet());
+    }
+
+}
@@ -1,10 +1,16 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.hosted.provision.persistence;
 
+import com.yahoo.path.Path;
+import com.yahoo.transaction.Transaction;
 import com.yahoo.vespa.curator.Curator;
-import com.yahoo.vespa.curator.recipes.CuratorCounter;
+import com.yahoo.vespa.curator.transaction.CuratorOperation;
 import com.yahoo.vespa.curator.transaction.CuratorTransaction;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * CuratorTransaction wrapper which increments a counter, to signal invalidation of node repository caches.
  *
@@ -17,26 +23,28 @@ import com.yahoo.vespa.curator.transaction.CuratorTransaction;
  * The usual locking for modifications of shared data is then enough to ensure the cache provides a
  * consistent view of the shared data, with one exception: when incrementing the counter fails. This is
  * assumed to be extremely rare, and the consequence is temporary neglect of cache invalidation.
+ * Each increment also records the paths this may have changed in the {@link ChangeLog}, so caches only
+ * need to drop those.
  *
  * @author jonmv
  */
 class CountingCuratorTransaction extends CuratorTransaction {
 
-    private final CuratorCounter counter;
+    private final ChangeLog changeLog;
 
-    public CountingCuratorTransaction(Curator curator, CuratorCounter counter) {
+    public CountingCuratorTransaction(Curator curator, ChangeLog changeLog) {
         super(curator);
-        this.counter = counter;
+        this.changeLog = changeLog;
     }
 
     @Override
     public void prepare() {
         try {
-            counter.get();
+            changeLog.generation();
             super.prepare();
         }
         finally {
-            counter.next();
+            changeLog.next(changedPaths());
         }
     }
 
@@ -46,13 +54,24 @@ class CountingCuratorTransaction extends CuratorTransaction {
             super.commit();
         }
         finally {
-            counter.next();
+            changeLog.next(changedPaths());
+        }
+    }
+
+    /** Returns the paths changed by this, or empty if some operation does not know what it changes */
+    private Optional<List<Path>> changedPaths() {
+        List<Path> paths = new ArrayList<>();
+        for (Transaction.Operation operation : operations()) {
+            Optional<Path> path = ((CuratorOperation) operation).path();
+            if (path.isEmpty()) return Optional.empty();
+            paths.add(path.get());
         }
+        return Optional.of(paths);
     }
 
     @Override
     public String toString() {
-        return "(" + super.toString() + "), INCREMENT " + counter;
+        return "(" + super.toString() + "), INCREMENT " + changeLog;
     }
 
 }
@@ -9,14 +9,18 @@ import com.yahoo.vespa.curator.transaction.CuratorOperation;
 import com.yahoo.vespa.curator.transaction.CuratorOperations;
 import com.yahoo.vespa.curator.transaction.CuratorTransaction;
 import com.yahoo.vespa.curator.transaction.TransactionChanges;
+import org.apache.curator.test.TestingServer;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 
 /**
@@ -33,13 +37,13 @@ public class CachingCuratorTest {
         MockCurator curator = new MockCurator();
         CachingCurator database = new CachingCurator(curator, Path.fromString("/"), true);
 
-        assertEquals(0L, (long)curator.counter("/changeCounter").get().get().postValue());
+        assertEquals(0L, generation(curator));
 
         commitCreate("/1", database);
         commitCreate("/2", database);
         commitCreate("/1/1", database);
         commitCreate("/2/1", database);
-        assertEquals(8L, (long)curator.counter("/changeCounter").get().get().postValue());
+        assertEquals(8L, generation(curator));
 
         List<String> children1Call1 = database.getChildren(Path.fromString("/1"));
         List<String> children1Call2 = database.getChildren(Path.fromString("/1"));
@@ -49,8 +53,34 @@ public class CachingCuratorTest {
         commitCreate("/2/2", database);
         List<String> children1Call3 = database.getChildren(Path.fromString("/1"));
         assertEquals(2, database.getChildren(Path.fromString("/2")).size());
-        assertFalse("We do not reuse cached data in different parts of the tree when there are commits",
-                    children1Call3 == children1Call2);
+        assertTrue("We reuse cached data in different parts of the tree when there are commits",
+                   children1Call3 == children1Call2);
+    }
+
+    @Test
+    public void testOnlyChangedPathsAreInvalidated() throws Exception {
+        MockCurator curator = new MockCurator();
+        CachingCurator database = new CachingCurator(curator, Path.fromString("/"), true);
+        commitCreate("/1", database);
+        commitCreate("/2", database);
+
+        byte[] data1 = database.getData(Path.fromString("/1")).get();
+        database.getData(Path.fromString("/2"));
+        assertEquals(0, database.cacheStats().evictionCount());
+
+        commitSetData("/2", "hello".getBytes(), database);
+        assertArrayEquals(data1, database.getData(Path.fromString("/1")).get());
+        assertArrayEquals("hello".getBytes(), database.getData(Path.fromString("/2")).get());
+        assertEquals("Only the data of /2 is invalidated", 1, database.cacheStats().evictionCount());
+        assertEquals(1.0 / 4, database.cacheStats().hitRate(), 1e-9);
+
+        // Without a log of the changes in a generation, everything is invalidated
+        long generation = generation(curator);
+        commitSetData("/2", "world".getBytes(), database);
+        curator.delete(Path.fromString("/changeLog/" + (generation + 1)));
+        assertArrayEquals("world".getBytes(), database.getData(Path.fromString("/2")).get());
+        assertEquals(3, database.cacheStats().evictionCount());
+        assertArrayEquals(data1, database.getData(Path.fromString("/1")).get());
     }
 
     @Test
@@ -58,12 +88,12 @@ public class CachingCuratorTest {
         MockCurator curator = new MockCurator();
         CachingCurator database = new CachingCurator(curator, Path.fromString("/"), true);
 
-        assertEquals(0L, (long)curator.counter("/changeCounter").get().get().postValue());
+        assertEquals(0L, generation(curator));
         commitCreate("/1", database);
         assertArrayEquals(new byte[0], database.getData(Path.fromString("/1")).get());
         commitReadingWrite("/1", "hello".getBytes(), database);
         // Data cached during commit of write transaction. Should be invalid now, and re-read.
-        assertEquals(4L, (long)curator.counter("/changeCounter").get().get().postValue());
+        assertEquals(4L, generation(curator));
         assertArrayEquals("hello".getBytes(), database.getData(Path.fromString("/1")).get());
 
         assertEquals(0, database.getChildren(Path.fromString("/1")).size());
@@ -76,13 +106,13 @@ public class CachingCuratorTest {
         MockCurator curator = new MockCurator();
         CachingCurator database = new CachingCurator(curator, Path.fromString("/"), false);
 
-        assertEquals(0L, (long)curator.counter("/changeCounter").get().get().postValue());
+        assertEquals(0L, generation(curator));
 
         commitCreate("/1", database);
         commitCreate("/2", database);
         commitCreate("/1/1", database);
         commitCreate("/2/1", database);
-        assertEquals(8L, (long)curator.counter("/changeCounter").get().get().postValue());
+        assertEquals(8L, generation(curator));
 
         List<String> children1Call0 = database.getChildren(Path.fromString("/1")); // prime the db; this call returns a different instance
         List<String> children1Call1 = database.getChildren(Path.fromString("/1"));
@@ -95,7 +125,7 @@ public class CachingCuratorTest {
         MockCurator curator = new MockCurator();
         CachingCurator database = new CachingCurator(curator, Path.fromString("/"), true);
 
-        assertEquals(0L, (long)curator.counter("/changeCounter").get().get().postValue());
+        assertEquals(0L, generation(curator));
 
         try {
             commitCreate("/1/2", database); // fail as parent does not exist
@@ -105,7 +135,7 @@ public class CachingCuratorTest {
             // expected because the parent does not exist
         }
         // Counter increased once, since prepare failed.
-        assertEquals(1L, (long)curator.counter("/changeCounter").get().get().postValue());
+        assertEquals(1L, generation(curator));
 
         try {
             commitFailing(database); // fail during commit
@@ -113,7 +143,63 @@ public class CachingCuratorTest {
         }
         catch (Exception expected) { }
         // Counter increased, even though commit failed.
-        assertEquals(3L, (long)curator.counter("/changeCounter").get().get().postValue());
+        assertEquals(3L, generation(curator));
+    }
+
+    @Test
+    public void testChangeLogIsPrunedInBatches() {
+        MockCurator curator = new MockCurator();
+        ChangeLog changeLog = new ChangeLog(curator, Path.fromString("/changeCounter"), Path.fromString("/changeLog"));
+        for (int i = 0; i < ChangeLog.maxEntries + ChangeLog.pruneInterval - 1; i++)
+            changeLog.next(Optional.of(List.of(Path.fromString("/" + i))));
+        assertEquals(ChangeLog.maxEntries + ChangeLog.pruneInterval - 1, curator.getChildren(Path.fromString("/changeLog")).size());
+
+        long generation = changeLog.next(Optional.of(List.of(Path.fromString("/last"))));
+        assertEquals(ChangeLog.maxEntries, curator.getChildren(Path.fromString("/changeLog")).size());
+        assertEquals(Optional.of(Set.of(Path.fromString("/last"))), changeLog.changes(generation - 1, generation));
+        assertEquals(Optional.empty(), changeLog.changes(generation - ChangeLog.maxEntriesToRead - 1, generation));
+    }
+
+    @Test
+    public void testGenerationsWithoutChangeLogEntriesInvalidateEverything() {
+        MockCurator curator = new MockCurator();
+        CachingCurator database = new CachingCurator(curator, Path.fromString("/"), true);
+        commitCreate("/1", database);
+        byte[] data1 = database.getData(Path.fromString("/1")).get();
+
+        // A writer which does not know what it changes, e.g., of an earlier version, only increments the counter
+        curator.set(Path.fromString("/changeCounter"), ByteBuffer.allocate(Long.BYTES).putLong(generation(curator) + 1).array());
+        assertArrayEquals(data1, database.getData(Path.fromString("/1")).get());
+        assertEquals(1, database.cacheStats().evictionCount());
+    }
+
+    @Test
+    public void testChangeLogOnZooKeeper() throws Exception {
+        try (TestingServer server = new TestingServer(); Curator curator = Curator.create(server.getConnectString(), Optional.empty())) {
+            curator.framework().blockUntilConnected(1, TimeUnit.MINUTES);
+            CachingCurator database = new CachingCurator(curator, Path.fromString("/"), true);
+            commitCreate("/1", database);
+            commitCreate("/2", database);
+            assertEquals(4L, generation(curator));
+
+            byte[] data1 = database.getData(Path.fromString("/1")).get();
+            database.getData(Path.fromString("/2"));
+            commitSetData("/2", "hello".getBytes(), database);
+            assertArrayEquals("hello".getBytes(), database.getData(Path.fromString("/2")).get());
+            assertArrayEquals(data1, database.getData(Path.fromString("/1")).get());
+            assertEquals("Only the data of /2 is invalidated", 1, database.cacheStats().evictionCount());
+
+            // Writing the log entry fails, as its parent is gone, so the counter is incremented without one
+            curator.delete(Path.fromString("/changeLog"));
+            commitSetData("/2", "world".getBytes(), database);
+            assertEquals(8L, generation(curator));
+            assertArrayEquals("world".getBytes(), database.getData(Path.fromString("/2")).get());
+            assertEquals("Everything is invalidated", 3, database.cacheStats().evictionCount());
+        }
+    }
+
+    private static long generation(Curator curator) {
+        return curator.getData(Path.fromString("/changeCounter")).map(data -> ByteBuffer.wrap(data).getLong()).orElse(0L);
     }
 
     private void commitCreate(String path, CachingCurator database) {
@@ -133,6 +219,13 @@ public class CachingCuratorTest {
         transaction.commit();
     }
 
+    private void commitSetData(String path, byte[] data, CachingCurator database) {
+        NestedTransaction t = new NestedTransaction();
+        CuratorTransaction c = database.newCuratorTransactionIn(t);
+        c.add(CuratorOperations.setData(path, data));
+        t.commit();
+    }
+
     /** Commit an operation which fails during commit. */
     private void commitFailing(CachingCurator database) {
         NestedTransaction t = new NestedTransaction();
@@ -0,0 +1,84 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+
+import java.util.Map;
+
+/**
+ * A ranking expression with a scalar value, compiled to evaluate on primitive doubles without creating
+ * any intermediate values. Variables are read by index, functions without arguments are inlined,
+ * and constant subexpressions are folded. Subexpressions which cannot be compiled, such as tensor functions,
+ * are evaluated by the interpreter. Clients using compiled expressions will do
+ *
+ * <code>
+ * // Set up once
+ * RankingExpression expression = new RankingExpression(myExpressionString);
+ * DoubleOnlyArrayContext context = new DoubleOnlyArrayContext(expression);
+ * CompiledExpression compiled = CompiledExpression.compile(expression, context);
+ *
+ * // Execute repeatedly
+ * context.put("featureName1", value1);
+ * ...
+ * compiled.evaluate(context);
+ * </code>
+ * <p>
+ * A compiled expression may be used by multiple threads at the same time, each with its own clone of the context
+ * it was compiled with. It gives the same results as the interpreter, except that variables are always
+ * read as doubles.
+ */
+public final class CompiledExpression {
+
+    private final String name;
+    private final ExpressionCompiler.Node root;
+    private final int interpretedNodes;
+
+    private CompiledExpression(String name, ExpressionCompiler.Node root, int interpretedNodes) {
+        this.name = name;
+        this.root = root;
+        this.interpretedNodes = interpretedNodes;
+    }
+
+    /**
+     * Compiles an expression to evaluate with the given context, or clones of it.
+     *
+     * @throws IllegalArgumentException if the expression does not have a scalar value
+     */
+    public static CompiledExpression compile(RankingExpression expression, AbstractArrayContext context) {
+        return compile(expression, context, Map.of());
+    }
+
+    /**
+     * Compiles an expression.
+     *
+     * @param expression the expression to compile
+     * @param context the context this will be evaluated with, or a prototype of those contexts,
+     *                which decides the index and types of the variables of the expression
+     * @param functions the functions which may be inlined into the compiled expression, by name
+     * @throws IllegalArgumentException if the expression does not have a scalar value
+     */
+    public static <CONTEXT extends Context & ContextIndex> CompiledExpression compile(RankingExpression expression, CONTEXT context,
+                                                                                     Map<String, ExpressionFunction> functions) {
+        ExpressionCompiler compiler = new ExpressionCompiler(context, context.names(), context, functions);
+        ExpressionCompiler.Node root = compiler.compile(expression.getRoot())
+                .orElseThrow(() -> new IllegalArgumentException("Cannot compile " + expression +
+                                                                ": Only expressions with a scalar value can be compiled"));
+        return new CompiledExpression(expression.getName(), root, compiler.interpretedNodes());
+    }
+
+    /** Evaluates this in the given context, which must have the index this was compiled with */
+    public double evaluate(Context context) {
+        return root.evaluate(context);
+    }
+
+    /** Returns the number of subexpressions of this which are evaluated by the interpreter */
+    public int interpretedNodes() { return interpretedNodes; }
+
+    @Override
+    public String toString() {
+        return "compiled ranking expression '" + name + "'" +
+               (interpretedNodes > 0 ? " [" + interpretedNodes + " interpreted subexpressions]" : "");
+    }
+
+}
@@ -0,0 +1,385 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.NegativeNode;
+import com.yahoo.searchlib.rankingexpression.rule.NotNode;
+import com.yahoo.searchlib.rankingexpression.rule.OperationNode;
+import com.yahoo.searchlib.rankingexpression.rule.Operator;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.SetMembershipNode;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.TypeContext;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Compiles the scalar parts of an expression node tree into a tree of closures over primitive doubles.
+ * Subexpressions which are not scalar are not compiled: If their value is scalar, such as a reduce,
+ * they are evaluated by the interpreter, otherwise the enclosing expression cannot be compiled.
+ */
+class ExpressionCompiler {
+
+    /** A compiled expression node */
+    @FunctionalInterface
+    interface Node {
+
+        double evaluate(Context context);
+
+    }
+
+    private final ContextIndex index;
+    private final Set<String> boundNames;
+    private final TypeContext<Reference> types;
+    private final Map<String, ExpressionFunction> functions;
+    private final Deque<String> inlinePath = new ArrayDeque<>();
+    private int interpretedNodes = 0;
+
+    ExpressionCompiler(ContextIndex index, Set<String> boundNames, TypeContext<Reference> types,
+                       Map<String, ExpressionFunction> functions) {
+        this.index = index;
+        this.boundNames = boundNames;
+        this.types = types;
+        this.functions = functions;
+    }
+
+    /** Returns the number of subexpressions which are left to the interpreter in the nodes compiled by this */
+    int interpretedNodes() { return interpretedNodes; }
+
+    /** Returns the given node compiled, or empty if it does not produce a scalar value */
+    Optional<Node> compile(ExpressionNode node) {
+        return Optional.ofNullable(compileNode(node));
+    }
+
+    private Node compileNode(ExpressionNode node) {
+        int interpretedBefore = interpretedNodes;
+        Node compiled = compileNative(node);
+        if (compiled != null) return compiled;
+        interpretedNodes = interpretedBefore; // Any interpreted children are replaced by interpreting this
+        if ( ! isScalar(node)) return null;
+
+        interpretedNodes++;
+        return context -> node.evaluate(context).asDouble();
+    }
+
+    /** Returns the given node compiled, or null if it, or any of its children, cannot be */
+    private Node compileNative(ExpressionNode node) {
+        if (node instanceof ConstantNode constant)
+            return constant.getValue() instanceof DoubleCompatibleValue ? new Constant(constant.getValue().asDouble()) : null;
+        if (node instanceof ReferenceNode reference)
+            return compileReference(reference);
+        if (node instanceof EmbracedNode embraced)
+            return compileNode(embraced.getValue());
+        if (node instanceof NegativeNode negative)
+            return compileNegative(negative);
+        if (node instanceof NotNode not)
+            return compileNot(not);
+        if (node instanceof OperationNode operation)
+            return compileOperation(operation);
+        if (node instanceof IfNode ifNode)
+            return compileIf(ifNode);
+        if (node instanceof SetMembershipNode membership)
+            return compileMembership(membership);
+        if (node instanceof FunctionNode function)
+            return compileFunction(function);
+        if (node instanceof GBDTNode tree) {
+            double[] values = tree.values();
+            return context -> GBDTNode.evaluate(values, 0, context);
+        }
+        if (node instanceof GBDTForestNode forest)
+            return context -> forest.evaluate(context).asDouble();
+        return null;
+    }
+
+    private Node compileReference(ReferenceNode node) {
+        Optional<ExpressionFunction> function = calledFunction(node);
+        if (function.isPresent()) {
+            String name = function.get().getName();
+            if (inlinePath.contains(name))
+                throw new IllegalArgumentException("Invocation loop: " + String.join(" -> ", inlinePath) + " -> " + name);
+            inlinePath.addLast(name);
+            try {
+                return compileNode(function.get().getBody().getRoot());
+            }
+            finally {
+                inlinePath.removeLast();
+            }
+        }
+
+        TensorType type;
+        try {
+            type = types.getType(node.reference());
+        }
+        catch (RuntimeException e) { // Type resolution failed
+            return null;
+        }
+        if (type != null && type.rank() > 0) return null;
+        String name = node.toString();
+        if ( ! boundNames.contains(name)) return null;
+        return new Variable(index.getIndex(name));
+    }
+
+    /** Returns the function without arguments which is invoked by the given reference, if any */
+    private Optional<ExpressionFunction> calledFunction(ReferenceNode node) {
+        Reference reference = node.reference();
+        String name = null;
+        if (reference.isIdentifier())
+            name = reference.name();
+        else if (reference.isSimpleRankingExpressionWrapper())
+            name = reference.simpleArgument().get();
+        if (name == null) return Optional.empty();
+
+        ExpressionFunction function = functions.get(name);
+        if (function == null || ! function.arguments().isEmpty()) return Optional.empty();
+        return Optional.of(function);
+    }
+
+    private Node compileNegative(NegativeNode node) {
+        Node value = compileNode(node.getValue());
+        if (value == null) return null;
+        if (value instanceof Constant c) return new Constant(-c.value());
+        return context -> - value.evaluate(context);
+    }
+
+    private Node compileNot(NotNode node) {
+        Node value = compileNode(node.getValue());
+        if (value == null) return null;
+        if (value instanceof Constant c) return new Constant(c.value() != 0 ? 0 : 1);
+        return context -> value.evaluate(context) != 0 ? 0 : 1;
+    }
+
+    /** Compiles an operation, applying operators in the same order as {@link OperationNode#evaluate} */
+    private Node compileOperation(OperationNode node) {
+        Iterator<ExpressionNode> children = node.children().iterator();
+        Deque<Operand> stack = new ArrayDeque<>();
+        Node first = compileNode(children.next());
+        if (first == null) return null;
+        stack.push(new Operand(null, first));
+        for (Iterator<Operator> it = node.operators().iterator(); it.hasNext() && children.hasNext(); ) {
+            Operator operator = it.next();
+            while (stack.size() > 1 && ! operator.hasPrecedenceOver(stack.peek().operator))
+                popStack(stack);
+            Node next = compileNode(children.next());
+            if (next == null) return null;
+            stack.push(new Operand(operator, next));
+        }
+        while (stack.size() > 1)
+            popStack(stack);
+        return stack.getFirst().node;
+    }
+
+    private void popStack(Deque<Operand> stack) {
+        Operand right = stack.pop();
+        Operand left = stack.peek();
+        left.node = combine(right.operator, left.node, right.node);
+    }
+
+    private Node combine(Operator operator, Node left, Node right) {
+        if (left instanceof Constant l && right instanceof Constant r)
+            return new Constant(apply(operator, l.value(), r.value()));
+        if (operator == Operator.plus)
+            return Sum.of(left, right);
+        if (operator == Operator.multiply && left instanceof Constant c && right instanceof Variable v)
+            return new WeightedSum(new int[] { v.index() }, new double[] { c.value() });
+        if (operator == Operator.multiply && left instanceof Variable v && right instanceof Constant c)
+            return new WeightedSum(new int[] { v.index() }, new double[] { c.value() });
+        if (left instanceof Variable v && right instanceof Constant c && isComparison(operator))
+            return compileComparison(operator, v.index(), c.value());
+        return switch (operator) {
+            case or -> context -> left.evaluate(context) != 0 | right.evaluate(context) != 0 ? 1 : 0;
+            case and -> context -> left.evaluate(context) != 0 & right.evaluate(context) != 0 ? 1 : 0;
+            case largerOrEqual -> context -> left.evaluate(context) >= right.evaluate(context) ? 1 : 0;
+            case larger -> context -> left.evaluate(context) > right.evaluate(context) ? 1 : 0;
+            case smallerOrEqual -> context -> left.evaluate(context) <= right.evaluate(context) ? 1 : 0;
+            case smaller -> context -> left.evaluate(context) < right.evaluate(context) ? 1 : 0;
+            case approxEqual -> context -> DoubleCompatibleValue.approxEqual(left.evaluate(context), right.evaluate(context)) ? 1 : 0;
+            case notEqual -> context -> left.evaluate(context) != right.evaluate(context) ? 1 : 0;
+            case equal -> context -> left.evaluate(context) == right.evaluate(context) ? 1 : 0;
+            case plus -> throw new IllegalStateException("Handled above");
+            case minus -> context -> left.evaluate(context) - right.evaluate(context);
+            case multiply -> context -> left.evaluate(context) * right.evaluate(context);
+            case divide -> context -> left.evaluate(context) / right.evaluate(context);
+            case modulo -> context -> left.evaluate(context) % right.evaluate(context);
+            case power -> context -> Function.pow.evaluate(left.evaluate(context), right.evaluate(context));
+        };
+    }
+
+    private static boolean isComparison(Operator operator) {
+        return switch (operator) {
+            case largerOrEqual, larger, smallerOrEqual, smaller, notEqual, equal -> true;
+            default -> false;
+        };
+    }
+
+    /** Compiles a comparison of a variable and a constant, which is what decision trees consist of */
+    private Node compileComparison(Operator operator, int index, double c) {
+        return switch (operator) {
+            case largerOrEqual -> context -> context.getDouble(index) >= c ? 1 : 0;
+            case larger -> context -> context.getDouble(index) > c ? 1 : 0;
+            case smallerOrEqual -> context -> context.getDouble(index) <= c ? 1 : 0;
+            case smaller -> new SmallerThan(index, c);
+            case notEqual -> context -> context.getDouble(index) != c ? 1 : 0;
+            case equal -> context -> context.getDouble(index) == c ? 1 : 0;
+            default -> throw new IllegalArgumentException(operator + " is not a comparison");
+        };
+    }
+
+    private static double apply(Operator operator, double x, double y) {
+        return operator.evaluate(DoubleValue.frozen(x), DoubleValue.frozen(y)).asDouble();
+    }
+
+    private Node compileIf(IfNode node) {
+        Node condition = compileNode(node.getCondition());
+        Node trueBranch = compileNode(node.getTrueExpression());
+        Node falseBranch = compileNode(node.getFalseExpression());
+        if (condition == null || trueBranch == null || falseBranch == null) return null;
+        if (condition instanceof Constant c)
+            return c.value() != 0 ? trueBranch : falseBranch;
+        if (condition instanceof SmallerThan smaller) {
+            int index = smaller.index();
+            double value = smaller.value();
+            return context -> context.getDouble(index) < value ? trueBranch.evaluate(context) : falseBranch.evaluate(context);
+        }
+        return context -> condition.evaluate(context) != 0 ? trueBranch.evaluate(context) : falseBranch.evaluate(context);
+    }
+
+    private Node compileMembership(SetMembershipNode node) {
+        Node value = compileNode(node.getTestValue());
+        if (value == null) return null;
+        double[] set = new double[node.getSetValues().size()];
+        for (int i = 0; i < set.length; i++) {
+            if ( ! (node.getSetValues().get(i) instanceof ConstantNode constant)) return null;
+            if ( ! (constant.getValue() instanceof DoubleCompatibleValue)) return null;
+            set[i] = constant.getValue().asDouble();
+        }
+        return context -> {
+            double testValue = value.evaluate(context);
+            for (double member : set)
+                if (member == testValue) return 1;
+            return 0;
+        };
+    }
+
+    private Node compileFunction(FunctionNode node) {
+        List<ExpressionNode> arguments = node.children();
+        Function function = node.getFunction();
+        Node x = arguments.size() > 0 ? compileNode(arguments.get(0)) : new Constant(0);
+        Node y = arguments.size() > 1 ? compileNode(arguments.get(1)) : new Constant(0);
+        if (x == null || y == null) return null;
+        if (x instanceof Constant cx && y instanceof Constant cy)
+            return new Constant(function.evaluate(cx.value(), cy.value()));
+        return context -> function.evaluate(x.evaluate(context), y.evaluate(context));
+    }
+
+    private boolean isScalar(ExpressionNode node) {
+        if (node instanceof ConstantNode constant) return constant.getValue() instanceof DoubleCompatibleValue;
+        try {
+            return node.type(types).rank() == 0;
+        }
+        catch (RuntimeException e) { // Type resolution failed
+            return false;
+        }
+    }
+
+    private static class Operand {
+
+        final Operator operator;
+        Node node;
+
+        Operand(Operator operator, Node node) {
+            this.operator = operator;
+            this.node = node;
+        }
+
+    }
+
+    record Constant(double value) implements Node {
+
+        @Override
+        public double evaluate(Context context) { return value; }
+
+    }
+
+    record Variable(int index) implements Node {
+
+        @Override
+        public double evaluate(Context context) { return context.getDouble(index); }
+
+    }
+
+    record SmallerThan(int index, double value) implements Node {
+
+        @Override
+        public double evaluate(Context context) { return context.getDouble(index) < value ? 1 : 0; }
+
+    }
+
+    /**
+     * A sum of compiled nodes, such that the terms of e.g. decision tree forests are added in a loop rather
+     * than by nesting. The terms are added in the order of the expression, which gives the same result as the interpreter.
+     */
+    record Sum(Node[] terms) implements Node {
+
+        /**
+         * Returns the sum of the given nodes, where sums on the left are extended rather than nested.
+         * A sum on the right is kept as one term, as floating point addition is not associative.
+         */
+        static Node of(Node left, Node right) {
+            if (left instanceof WeightedSum l && right instanceof WeightedSum r && r.indexes.length == 1)
+                return l.plus(r);
+            if (left instanceof Sum sum) {
+                Node[] terms = Arrays.copyOf(sum.terms, sum.terms.length + 1);
+                terms[sum.terms.length] = right;
+                return new Sum(terms);
+            }
+            return new Sum(new Node[] { left, right });
+        }
+
+        @Override
+        public double evaluate(Context context) {
+            double sum = terms[0].evaluate(context);
+            for (int i = 1; i < terms.length; i++)
+                sum += terms[i].evaluate(context);
+            return sum;
+        }
+
+    }
+
+    /** A sum of variables multiplied by constant weights, i.e. a linear model */
+    record WeightedSum(int[] indexes, double[] weights) implements Node {
+
+        WeightedSum plus(WeightedSum other) {
+            int[] newIndexes = Arrays.copyOf(indexes, indexes.length + other.indexes.length);
+            double[] newWeights = Arrays.copyOf(weights, weights.length + other.weights.length);
+            System.arraycopy(other.indexes, 0, newIndexes, indexes.length, other.indexes.length);
+            System.arraycopy(other.weights, 0, newWeights, weights.length, other.weights.length);
+            return new WeightedSum(newIndexes, newWeights);
+        }
+
+        @Override
+        public double evaluate(Context context) {
+            double sum = weights[0] * context.getDouble(indexes[0]);
+            for (int i = 1; i < indexes.length; i++)
+                sum += weights[i] * context.getDouble(indexes[i]);
+            return sum;
+        }
+
+    }
+
+}
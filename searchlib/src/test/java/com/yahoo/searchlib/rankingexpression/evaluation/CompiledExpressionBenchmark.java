@@ -0,0 +1,107 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.io.IOUtils;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the interpreter, the GBDT optimizer and compiled expressions on decision tree forests and a linear model.
+ */
+public class CompiledExpressionBenchmark {
+
+    private static final int iterations = 200_000;
+    private static final Pattern feature = Pattern.compile("\\b(?!if\\b)[a-zA-Z]\\w*\\s*\\([\\w, ]+\\)(\\.\\w+)*");
+
+    public void run() throws ParseException {
+        benchmark("GBDT ranking02", gbdt("src/test/files/ranking02.expression"), true);
+        benchmark("GBDT ranking03", gbdt("src/test/files/ranking03.expression"), true);
+        benchmark("Linear 200 features", linear(200), false);
+    }
+
+    private void benchmark(String name, String expressionString, boolean optimize) throws ParseException {
+        System.out.println(name + ":");
+        RankingExpression expression = new RankingExpression(expressionString);
+        DoubleOnlyArrayContext context = new DoubleOnlyArrayContext(expression);
+        List<double[]> inputs = inputs(context.size());
+
+        double interpreted = time("Interpreted", context, inputs, c -> expression.evaluate(c).asDouble());
+
+        if (optimize) {
+            RankingExpression optimized = expression.copy();
+            new ExpressionOptimizer().optimize(optimized, context);
+            assertEqual(interpreted, time("GBDT optimized", context, inputs, c -> optimized.evaluate(c).asDouble()));
+        }
+
+        CompiledExpression compiled = CompiledExpression.compile(expression, context);
+        assertEqual(interpreted, time("Compiled", context, inputs, compiled::evaluate));
+    }
+
+    private double time(String description, DoubleOnlyArrayContext context, List<double[]> inputs,
+                        ToDoubleFunction<Context> evaluator) {
+        evaluate(context, inputs, evaluator, iterations); // warmup
+        long startTime = System.nanoTime();
+        double total = evaluate(context, inputs, evaluator, iterations);
+        long nanos = System.nanoTime() - startTime;
+        System.out.printf("  %-15s %8.1f ns/evaluation%n", description, (double) nanos / iterations);
+        return total;
+    }
+
+    private double evaluate(DoubleOnlyArrayContext context, List<double[]> inputs, ToDoubleFunction<Context> evaluator, int count) {
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            double[] input = inputs.get(i % inputs.size());
+            for (int j = 0; j < input.length; j++)
+                context.put(j, input[j]);
+            total += evaluator.applyAsDouble(context);
+        }
+        return total;
+    }
+
+    private List<double[]> inputs(int size) {
+        Random random = new Random(42);
+        double[] scales = { 1, 1000, 1_000_000 }; // The thresholds of the trees are in these ranges
+        return random.ints(1000).mapToObj(seed -> {
+            double[] values = new double[size];
+            for (int i = 0; i < size; i++)
+                values[i] = random.nextDouble() * scales[random.nextInt(scales.length)];
+            return values;
+        }).toList();
+    }
+
+    /** Reads a decision tree forest, rewriting features with arguments to names which can be bound in array contexts */
+    private String gbdt(String file) {
+        try {
+            return feature.matcher(IOUtils.readFile(new File(file)))
+                          .replaceAll(match -> match.group().replaceAll("\\W+", "_"));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /** Returns a logistic regression model over the given number of features */
+    private String linear(int features) {
+        Random random = new Random(42);
+        StringBuilder b = new StringBuilder("sigmoid(");
+        for (int i = 0; i < features; i++)
+            b.append(random.nextGaussian()).append(" * feature").append(i).append(" + ");
+        return b.append(random.nextGaussian()).append(")").toString();
+    }
+
+    private void assertEqual(double expected, double actual) {
+        if (expected != actual)
+            throw new IllegalStateException("Expected " + expected + " but got " + actual);
+    }
+
+    public static void main(String[] args) throws ParseException {
+        new CompiledExpressionBenchmark().run();
+    }
+
+}
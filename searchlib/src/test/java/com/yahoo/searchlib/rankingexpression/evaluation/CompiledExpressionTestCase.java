@@ -0,0 +1,140 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.io.IOUtils;
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that compiled expressions evaluate to the same values as the interpreter
+ */
+public class CompiledExpressionTestCase {
+
+    @Test
+    public void testScalarExpressions() throws ParseException {
+        assertCompiles(0, "0.5 + a * -b - c / 2");
+        assertCompiles(0, "1 - 2 - a - 3");
+        assertCompiles(0, "a + b * c ^ 2 % 3");
+        assertCompiles(0, "2 ^ 3 ^ a");
+        assertCompiles(0, "(a + b) * (c - a) / (b + 1)");
+        assertCompiles(0, "a < b && b >= c || !(c == a) && a != 0.5");
+        assertCompiles(0, "if (a > 0.3, a <= b, if (c ~= a, 7, -c))");
+        assertCompiles(0, "if (a in [0.5, 0.25, 0], 1, 2) + if (b in [4], 3, 4)");
+        assertCompiles(1, "if (a in [0.5, 0.25, 0], 1, 2) + if (4 in [a, 4], 3, 4)");
+        assertCompiles(0, "max(a, b) + min(a, 0.5) + pow(b, c) + sqrt(a) + log(b + 1) + sigmoid(c) + fmod(a, 0.3)");
+        assertCompiles(0, "0.5 * a + 0.25 * b - 3 * c + a * 2 + c");
+        assertCompiles(0, "if (1 > 0, 2, 3) * (4 + 5) - a");
+        assertCompiles(0, "0.5 * a + (0.25 * b + 3 * c)");
+        assertCompiles(0, "(0.5 * a + 0.25 * b) + (3 * c + a * 2)");
+    }
+
+    @Test
+    public void testDecisionTreeExpressions() throws ParseException {
+        for (int i = 3; i <= 6; i++)
+            assertCompiles(0, readFile("src/test/files/ranking0" + i + ".expression"));
+    }
+
+    @Test
+    public void testTensorFunctionsAreInterpreted() throws ParseException {
+        assertCompiles(1, "a + reduce(tensor(x[3])(x + a), sum) * b");
+        try {
+            CompiledExpression.compile(new RankingExpression("tensor(x[3])(x + a) * b"),
+                                       new DoubleOnlyArrayContext(new RankingExpression("a + b")));
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().endsWith("Only expressions with a scalar value can be compiled"));
+        }
+    }
+
+    @Test
+    public void testFunctionsAreInlined() throws ParseException {
+        RankingExpression expression = new RankingExpression("f + g * 2");
+        ArrayContext context = new ArrayContext(expression);
+        context.put("f", 1000); // not used, as the functions are inlined
+        context.put("g", 1000);
+        Map<String, ExpressionFunction> functions = Map.of("f", new ExpressionFunction("f", new RankingExpression("3 + 4")),
+                                                           "g", new ExpressionFunction("g", new RankingExpression("f * 5")));
+        CompiledExpression compiled = CompiledExpression.compile(expression, context, functions);
+        assertEquals(7 + 35 * 2, compiled.evaluate(context), 0);
+
+        try {
+            Map<String, ExpressionFunction> loop = Map.of("f", new ExpressionFunction("f", new RankingExpression("g")),
+                                                          "g", new ExpressionFunction("g", new RankingExpression("f + 1")));
+            CompiledExpression.compile(expression, context, loop);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Invocation loop: f -> g -> f", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSumsKeepTheirAssociation() throws ParseException {
+        RankingExpression expression = new RankingExpression("2 * a + (2 * b + 2 * c)");
+        ArrayContext context = new ArrayContext(expression);
+        CompiledExpression compiled = CompiledExpression.compile(expression, context);
+        context.put("a", 1e16);
+        context.put("b", -1e16);
+        context.put("c", 1);
+        assertEquals(0, expression.evaluate(context).asDouble(), 0);
+        assertEquals(0, compiled.evaluate(context), 0);
+    }
+
+    @Test
+    public void testOptimizedExpressions() throws ParseException {
+        RankingExpression expression = new RankingExpression(readFile("src/test/files/ranking03.expression"));
+        DoubleOnlyArrayContext context = new DoubleOnlyArrayContext(expression);
+        RankingExpression optimized = expression.copy();
+        new ExpressionOptimizer().optimize(optimized, context);
+        CompiledExpression compiled = CompiledExpression.compile(optimized, context);
+        assertEquals(0, compiled.interpretedNodes());
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            bindRandomValues(context, random);
+            assertEquals(expression.evaluate(context).asDouble(), compiled.evaluate(context), 0);
+        }
+    }
+
+    private void assertCompiles(int expectedInterpretedNodes, String expressionString) throws ParseException {
+        RankingExpression expression = new RankingExpression(expressionString);
+        ArrayContext context = new ArrayContext(expression);
+        CompiledExpression compiled = CompiledExpression.compile(expression, context);
+        assertEquals(expectedInterpretedNodes, compiled.interpretedNodes());
+
+        Random random = new Random(expressionString.hashCode());
+        for (int i = 0; i < 100; i++) {
+            bindRandomValues(context, random);
+            assertEquals(expressionString, expression.evaluate(context).asDouble(), compiled.evaluate(context), 0);
+        }
+    }
+
+    /** Binds values which hit both branches of the comparisons of decision trees as well as the constants of tests */
+    private void bindRandomValues(AbstractArrayContext context, Random random) {
+        double[] candidates = { 0, 0.25, 0.5, 1, 4, -1, 1000, 250000, 400000 };
+        for (String name : context.names()) {
+            double value = random.nextBoolean() ? candidates[random.nextInt(candidates.length)] : random.nextDouble();
+            context.put(name, value);
+        }
+    }
+
+    private String readFile(String file) {
+        try {
+            return IOUtils.readFile(new File(file));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+}
@@ -33,6 +33,33 @@ public interface FeedClient extends Closeable {
      */
     CompletableFuture<Result> update(DocumentId documentId, String updateJson, OperationParameters params);
 
+    /**
+     * Send a document put with the given parameters, returning a future with the result of the operation.
+     * The document is given in the binary serialization format of Vespa documents, as written by the serializer from
+     * {@code com.yahoo.document.serialization.DocumentSerializerFactory.createHead}, and must have the given id.
+     * It is sent with content type {@value #serializedContentType}, which spares the server from parsing any JSON.
+     * {@link JsonFeeder} sends operations this way when it is built with an {@link OperationSerializer}.
+     * Exceptional completion will use be an instance of {@link FeedException} or one of its sub-classes,
+     * and clients which do not support this complete all such operations with a {@link FeedException}.
+     */
+    default CompletableFuture<Result> putSerialized(DocumentId documentId, byte[] serializedDocument, OperationParameters params) {
+        return CompletableFuture.failedFuture(new FeedException(documentId, "Serialized puts are not supported by " + this));
+    }
+
+    /**
+     * Send a document update with the given parameters, returning a future with the result of the operation.
+     * The update is given in the binary serialization format of Vespa document updates, as written by the serializer
+     * from {@code com.yahoo.document.serialization.DocumentSerializerFactory.createHead}, and must have the given id.
+     * Exceptional completion will use be an instance of {@link FeedException} or one of its sub-classes,
+     * and clients which do not support this complete all such operations with a {@link FeedException}.
+     */
+    default CompletableFuture<Result> updateSerialized(DocumentId documentId, byte[] serializedUpdate, OperationParameters params) {
+        return CompletableFuture.failedFuture(new FeedException(documentId, "Serialized updates are not supported by " + this));
+    }
+
+    /** The content type of operations serialized in the binary format of Vespa documents and document updates. */
+    String serializedContentType = "application/x-vespa-document";
+
     /**
      * Send a document remove with the given parameters, returning a future with the result of the operation.
      * Exceptional completion will use be an instance of {@link FeedException} or one of its sub-classes.
@@ -66,6 +66,14 @@ public interface FeedClientBuilder {
     /** Sets a duration after which this client will recycle active connections. This is off ({@code Duration.ZERO}) by default. */
     FeedClientBuilder setConnectionTimeToLive(Duration ttl);
 
+    /**
+     * Sets a target for the latency of feed operations. The client then limits the number of inflight operations
+     * to keep the latency of nearly all operations below this, and backs off when the server signals it is overloaded,
+     * rather than maximising throughput. This leaves capacity for other traffic to the same nodes, such as queries.
+     * There is no latency target by default.
+     */
+    FeedClientBuilder setLatencyTarget(Duration target);
+
     /** Sets {@link SSLContext} instance. */
     FeedClientBuilder setSslContext(SSLContext context);
 
@@ -9,17 +9,23 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.StreamReadConstraints;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -47,12 +53,26 @@ public class JsonFeeder implements Closeable {
     });
     private final FeedClient client;
     private final OperationParameters protoParameters;
+    private final int parserThreads;
+    private final OperationSerializer serializer;
+    private final ExecutorService parserExecutor;
     private final AtomicInteger globalInflightOperations = new AtomicInteger(0);
+    private final LongAdder parsedOperations = new LongAdder();
+    private final LongAdder parsedBytes = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
     private volatile boolean closed = false;
 
-    private JsonFeeder(FeedClient client, OperationParameters protoParameters) {
+    private JsonFeeder(FeedClient client, OperationParameters protoParameters, int parserThreads, OperationSerializer serializer) {
         this.client = client;
         this.protoParameters = protoParameters;
+        this.parserThreads = parserThreads;
+        this.serializer = serializer;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.parserExecutor = parserThreads == 1 ? null : Executors.newFixedThreadPool(parserThreads, r -> {
+            Thread t = new Thread(r, "json-feeder-parser-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
     }
 
     public interface ResultCallback {
@@ -78,6 +98,11 @@ public class JsonFeeder implements Closeable {
 
     public static Builder builder(FeedClient client) { return new Builder(client); }
 
+    /** Returns a snapshot of the stats of the feed client of this, with those of the operations parsed by this added. */
+    public OperationStats stats() {
+        return client.stats().withParsing(parsedOperations.sum(), parsedBytes.sum(), parseNanos.sum());
+    }
+
     /** Feeds single JSON feed operations on the form
      *  <pre>
      *    {
@@ -134,6 +159,8 @@ public class JsonFeeder implements Closeable {
      * Note that {@code "id"} is an alias for the document put operation.
      * Exceptional completion will use be an instance of {@link FeedException} or one of its sub-classes.
      * The input stream will be closed upon exhaustion, or error.
+     * If this has more than one parser thread, the stream is split into its operations, which are parsed in parallel,
+     * and dispatched in the order they appear in the stream.
      */
     public CompletableFuture<Void> feedMany(InputStream jsonStream, ResultCallback resultCallback) {
         return feedMany(jsonStream, 1 << 26, resultCallback);
@@ -153,8 +180,9 @@ public class JsonFeeder implements Closeable {
         CompletableFuture<Result> result;
         AtomicInteger localInflightOperations = new AtomicInteger(1); // The below dispatch loop itself is counted as a single pending operation
         AtomicBoolean finalCallbackInvoked = new AtomicBoolean();
-        try (RingBufferStream buffer = new RingBufferStream(jsonStream, size)) {
-            while ((result = buffer.next()) != null) {
+        try (OperationSource operations = parserThreads == 1 ? new RingBufferStream(jsonStream, size)
+                                                             : new ParallelParser(jsonStream)) {
+            while ((result = operations.next()) != null) {
                 localInflightOperations.incrementAndGet();
                 globalInflightOperations.incrementAndGet();
                 result.whenCompleteAsync((r, t) -> {
@@ -203,6 +231,7 @@ public class JsonFeeder implements Closeable {
         closed = true;
         awaitInflightOperations();
         client.close();
+        if (parserExecutor != null) parserExecutor.shutdown();
         resultExecutor.shutdown();
         try {
             if (!resultExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
@@ -229,7 +258,193 @@ public class JsonFeeder implements Closeable {
         return new FeedException(e);
     }
 
-    private class RingBufferStream extends InputStream {
+    /** A source of operations, which are dispatched as they are read. */
+    private interface OperationSource extends Closeable {
+
+        /** Dispatches the next operation, and returns its result, or returns null if there are no more operations */
+        CompletableFuture<Result> next() throws IOException;
+
+    }
+
+    /**
+     * Splits a stream of operations into the bytes of each operation, parses these on the parser threads of this,
+     * and dispatches them in the order they appear in the stream, such that operations on the same document are
+     * dispatched in order. A bounded number of operations are parsed ahead of the one to dispatch next.
+     */
+    private class ParallelParser implements OperationSource {
+
+        private final OperationSplitter splitter;
+        private final Deque<CompletableFuture<ParsedOperation>> parsing = new ArrayDeque<>();
+        private final int maxParsing = 16 * parserThreads;
+        private IOException splitFailure = null;
+        private RuntimeException splitRuntimeFailure = null;
+
+        ParallelParser(InputStream in) {
+            this.splitter = new OperationSplitter(in);
+        }
+
+        @Override
+        public CompletableFuture<Result> next() throws IOException {
+            fill();
+            CompletableFuture<ParsedOperation> first = parsing.poll();
+            if (first != null) return await(first).dispatch();
+
+            // Failure to split the stream is reported only after all operations before the failure are dispatched.
+            if (splitFailure != null) throw splitFailure;
+            if (splitRuntimeFailure != null) throw splitRuntimeFailure;
+            return null;
+        }
+
+        private void fill() {
+            try {
+                byte[] operation;
+                while (splitFailure == null && splitRuntimeFailure == null && parsing.size() < maxParsing && (operation = splitter.next()) != null)
+                    parsing.add(parse(operation));
+            }
+            catch (IOException e) {
+                splitFailure = e;
+            }
+            catch (RuntimeException e) {
+                splitRuntimeFailure = e;
+            }
+        }
+
+        private CompletableFuture<ParsedOperation> parse(byte[] operation) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return new SingleOperationParserAndExecutor(operation).nextOperation();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, parserExecutor);
+        }
+
+        private ParsedOperation await(CompletableFuture<ParsedOperation> operation) throws IOException {
+            try {
+                return operation.join();
+            }
+            catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            parsing.forEach(operation -> operation.cancel(false));
+            splitter.close();
+        }
+
+    }
+
+    /**
+     * Splits a stream holding a JSON array of operations, or JSONL operations, into the bytes of each operation.
+     * This only tracks strings and the nesting of objects, and leaves the parsing of each operation to others.
+     */
+    private static class OperationSplitter implements Closeable {
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position = 0;
+        private int limit = 0;
+        private long offset = 0; // The offset into the stream of the start of the buffer.
+        private boolean started = false;
+        private boolean inArray = false;
+        private boolean ended = false;
+
+        OperationSplitter(InputStream in) {
+            this.in = in;
+        }
+
+        /** Returns the bytes of the next operation, or null if there are no more operations */
+        byte[] next() throws IOException {
+            if (ended) return null;
+            int next = nextNonWhitespace();
+            if ( ! started) {
+                started = true;
+                if (next == '[') {
+                    inArray = true;
+                    next = nextNonWhitespace();
+                    if (next == ']') return end();
+                }
+            }
+            else if (inArray) {
+                if (next == ']') return end();
+                if (next != ',') throw parseException("Expected ',' or ']'");
+                next = nextNonWhitespace();
+            }
+            if (next == -1) {
+                if (inArray) throw parseException("Unexpected end of input");
+                return end();
+            }
+            if (next != '{') throw parseException("Unexpected character '" + (char) next + "'");
+            return readObject();
+        }
+
+        private byte[] end() {
+            ended = true;
+            return null;
+        }
+
+        /** Reads the rest of the object whose opening brace was just read */
+        private byte[] readObject() throws IOException {
+            ByteArrayOutputStream operation = new ByteArrayOutputStream();
+            int start = position - 1;
+            int depth = 1;
+            boolean inString = false;
+            boolean escaped = false;
+            while (depth > 0) {
+                if (position == limit) {
+                    operation.write(buffer, start, position - start);
+                    if ( ! fill()) throw parseException("Unexpected end of input");
+                    start = 0;
+                }
+                byte next = buffer[position++];
+                if (inString) {
+                    if (escaped) escaped = false;
+                    else if (next == '\\') escaped = true;
+                    else if (next == '"') inString = false;
+                }
+                else if (next == '"') inString = true;
+                else if (next == '{') ++depth;
+                else if (next == '}') --depth;
+            }
+            operation.write(buffer, start, position - start);
+            return operation.toByteArray();
+        }
+
+        private int nextNonWhitespace() throws IOException {
+            while (true) {
+                if (position == limit && ! fill()) return -1;
+                byte next = buffer[position++];
+                if (next != ' ' && next != '\n' && next != '\r' && next != '\t') return next & 0xff;
+            }
+        }
+
+        private boolean fill() throws IOException {
+            offset += limit;
+            position = limit = 0;
+            int read;
+            while ((read = in.read(buffer)) == 0) { }
+            if (read < 0) return false;
+            limit = read;
+            return true;
+        }
+
+        private OperationParseException parseException(String error) {
+            return new OperationParseException(error + " at offset " + (offset + position - 1));
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+    }
+
+    private class RingBufferStream extends InputStream implements OperationSource {
 
         private final byte[] b = new byte[1];
         private final InputStream in;
@@ -289,6 +504,7 @@ public class JsonFeeder implements Closeable {
             }
         }
 
+        @Override
         public CompletableFuture<Result> next() throws IOException {
            return parserAndExecutor.next();
         }
@@ -422,6 +638,13 @@ public class JsonFeeder implements Closeable {
         }
 
         CompletableFuture<Result> next() throws IOException {
+            ParsedOperation operation = nextOperation();
+            return operation == null ? null : operation.dispatch();
+        }
+
+        /** Parses the next operation, or returns null if there are no more operations */
+        ParsedOperation nextOperation() throws IOException {
+            long startNanos = System.nanoTime();
             JsonToken token = parser.nextToken();
             if (multipleOperations && ! arrayPrefixParsed && token == JsonToken.START_ARRAY) {
                 arrayPrefixParsed = true;
@@ -430,6 +653,7 @@ public class JsonFeeder implements Closeable {
             if (token == JsonToken.END_ARRAY && multipleOperations) return null;
             else if (token == null && ! arrayPrefixParsed) return null;
             else if (token != JsonToken.START_OBJECT) throw parseException("Unexpected token '" + parser.currentToken() + "'");
+            long operationStart = parser.currentTokenLocation().getByteOffset();
             long start = 0, end = -1;
             OperationType type = null;
             DocumentId id = null;
@@ -477,12 +701,23 @@ public class JsonFeeder implements Closeable {
             else if (end < start)
                 throw parseException("No 'fields' object for document");
 
+            long operationEnd = parser.currentTokenLocation().getByteOffset() + 1;
             String payload = getDocumentJson(start, end);
-            switch (type) {
-                case PUT:    return client.put   (id, payload, parameters);
-                case UPDATE: return client.update(id, payload, parameters);
-                case REMOVE: return client.remove(id, parameters);
-                default: throw new OperationParseException("Unexpected operation type '" + type + "'");
+            byte[] serialized = serialize(type, id, payload);
+            parsedOperations.increment();
+            parsedBytes.add(operationEnd - operationStart);
+            parseNanos.add(System.nanoTime() - startNanos);
+            return new ParsedOperation(type, id, payload, serialized, parameters);
+        }
+
+        /** Returns the given put or update serialized, if this has a serializer, or null otherwise */
+        private byte[] serialize(OperationType type, DocumentId id, String payload) {
+            if (serializer == null || type == REMOVE) return null;
+            try {
+                return type == PUT ? serializer.serializePut(id, payload) : serializer.serializeUpdate(id, payload);
+            }
+            catch (IllegalArgumentException e) {
+                throw parseException("Could not serialize " + type.name().toLowerCase() + " of '" + id + "': " + e.getMessage());
             }
         }
 
@@ -517,10 +752,42 @@ public class JsonFeeder implements Closeable {
 
     }
 
+    /** An operation which is parsed, and ready to be dispatched to the feed client */
+    private class ParsedOperation {
+
+        private final OperationType type;
+        private final DocumentId id;
+        private final String payload;
+        private final byte[] serialized;
+        private final OperationParameters parameters;
+
+        ParsedOperation(OperationType type, DocumentId id, String payload, byte[] serialized, OperationParameters parameters) {
+            this.type = type;
+            this.id = id;
+            this.payload = payload;
+            this.serialized = serialized;
+            this.parameters = parameters;
+        }
+
+        CompletableFuture<Result> dispatch() {
+            switch (type) {
+                case PUT:    return serialized != null ? client.putSerialized   (id, serialized, parameters)
+                                                       : client.put             (id, payload, parameters);
+                case UPDATE: return serialized != null ? client.updateSerialized(id, serialized, parameters)
+                                                       : client.update          (id, payload, parameters);
+                case REMOVE: return client.remove(id, parameters);
+                default: throw new OperationParseException("Unexpected operation type '" + type + "'");
+            }
+        }
+
+    }
+
     public static class Builder {
 
         final FeedClient client;
         OperationParameters parameters = OperationParameters.empty();
+        int parserThreads = 1;
+        OperationSerializer serializer = null;
 
         private Builder(FeedClient client) {
             this.client = requireNonNull(client);
@@ -541,8 +808,28 @@ public class JsonFeeder implements Closeable {
             return this;
         }
 
+        /**
+         * Sets the number of threads parsing the operations of each stream fed with {@code feedMany}.
+         * With more than one thread, the stream is split into its operations, which are parsed in parallel.
+         * Default is 1, which parses the operations in the thread reading the stream.
+         */
+        public Builder withParserThreads(int parserThreads) {
+            if (parserThreads < 1) throw new IllegalArgumentException("Number of parser threads must be positive, but was " + parserThreads);
+            this.parserThreads = parserThreads;
+            return this;
+        }
+
+        /**
+         * Sets a serializer which converts each put and update to the binary format of Vespa documents when parsed,
+         * such that it is sent without JSON. Default is none, which sends the operations as JSON.
+         */
+        public Builder withOperationSerializer(OperationSerializer serializer) {
+            this.serializer = requireNonNull(serializer);
+            return this;
+        }
+
         public JsonFeeder build() {
-            return new JsonFeeder(client, parameters);
+            return new JsonFeeder(client, parameters, parserThreads, serializer);
         }
 
     }
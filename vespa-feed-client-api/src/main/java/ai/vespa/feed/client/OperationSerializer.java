@@ -0,0 +1,27 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client;
+
+/**
+ * Converts document puts and updates from JSON to the binary serialization format of Vespa documents and
+ * document updates, which {@link JsonFeeder} then sends with {@link FeedClient#putSerialized} and
+ * {@link FeedClient#updateSerialized}. This moves the cost of parsing the JSON from the server to the feeding
+ * client, which must therefore know the document types. This is typically implemented with
+ * {@code com.yahoo.document.json.JsonReader} and a {@code DocumentTypeManager} for the application.
+ */
+public interface OperationSerializer {
+
+    /**
+     * Returns the given document put serialized, where the JSON is on the form used by the /document/v1 HTTP API.
+     *
+     * @throws IllegalArgumentException if the document is invalid
+     */
+    byte[] serializePut(DocumentId documentId, String documentJson);
+
+    /**
+     * Returns the given document update serialized, where the JSON is on the form used by the /document/v1 HTTP API.
+     *
+     * @throws IllegalArgumentException if the update is invalid
+     */
+    byte[] serializeUpdate(DocumentId documentId, String updateJson);
+
+}
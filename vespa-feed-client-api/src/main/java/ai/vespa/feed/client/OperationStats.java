@@ -23,10 +23,21 @@ public class OperationStats {
     private final long maxLatencyMillis;
     private final long bytesSent;
     private final long bytesReceived;
+    private final long parsedOperations;
+    private final long parsedBytes;
+    private final long parseNanos;
 
     public OperationStats(double duration, long requests, Map<Integer, Long> responsesByCode, long exceptions,
                           long inflight, long targetInFlight, long averageLatencyMillis, long minLatencyMillis,
                           long maxLatencyMillis, long bytesSent, long bytesReceived) {
+        this(duration, requests, responsesByCode, exceptions, inflight, targetInFlight, averageLatencyMillis,
+             minLatencyMillis, maxLatencyMillis, bytesSent, bytesReceived, 0, 0, 0);
+    }
+
+    public OperationStats(double duration, long requests, Map<Integer, Long> responsesByCode, long exceptions,
+                          long inflight, long targetInFlight, long averageLatencyMillis, long minLatencyMillis,
+                          long maxLatencyMillis, long bytesSent, long bytesReceived,
+                          long parsedOperations, long parsedBytes, long parseNanos) {
         this.duration = duration;
         this.requests = requests;
         this.responsesByCode = responsesByCode;
@@ -38,6 +49,16 @@ public class OperationStats {
         this.maxLatencyMillis = maxLatencyMillis;
         this.bytesSent = bytesSent;
         this.bytesReceived = bytesReceived;
+        this.parsedOperations = parsedOperations;
+        this.parsedBytes = parsedBytes;
+        this.parseNanos = parseNanos;
+    }
+
+    /** Returns a copy of this with the given stats for parsing of feed operations. */
+    public OperationStats withParsing(long parsedOperations, long parsedBytes, long parseNanos) {
+        return new OperationStats(duration, requests, responsesByCode, exceptions, inflight, targetInflight,
+                                  averageLatencyMillis, minLatencyMillis, maxLatencyMillis, bytesSent, bytesReceived,
+                                  parsedOperations, parsedBytes, parseNanos);
     }
 
     /** Returns the difference between this and the initial.
@@ -58,7 +79,10 @@ public class OperationStats {
                                   minLatencyMillis,
                                   maxLatencyMillis,
                                   bytesSent - initial.bytesSent,
-                                  bytesReceived - initial.bytesReceived);
+                                  bytesReceived - initial.bytesReceived,
+                                  parsedOperations - initial.parsedOperations,
+                                  parsedBytes - initial.parsedBytes,
+                                  parseNanos - initial.parseNanos);
     }
 
     /** Number of HTTP requests attempted. */
@@ -116,17 +140,37 @@ public class OperationStats {
         return bytesReceived;
     }
 
+    /** Number of feed operations parsed, or 0 if these stats are not from a {@link JsonFeeder}. */
+    public long parsedOperations() {
+        return parsedOperations;
+    }
+
+    /** Number of bytes of feed operations parsed. */
+    public long parsedBytes() {
+        return parsedBytes;
+    }
+
+    /** Time spent parsing feed operations, summed over all parser threads. */
+    public long parseNanos() {
+        return parseNanos;
+    }
+
+    /** Bytes of feed operations parsed per second spent parsing, summed over all parser threads, or 0 if none were parsed. */
+    public double parsedBytesPerSecond() {
+        return parseNanos == 0 ? 0 : parsedBytes * 1e9 / parseNanos;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         OperationStats that = (OperationStats) o;
-        return requests == that.requests && inflight == that.inflight && exceptions == that.exceptions && averageLatencyMillis == that.averageLatencyMillis && minLatencyMillis == that.minLatencyMillis && maxLatencyMillis == that.maxLatencyMillis && bytesSent == that.bytesSent && bytesReceived == that.bytesReceived && responsesByCode.equals(that.responsesByCode);
+        return requests == that.requests && inflight == that.inflight && exceptions == that.exceptions && averageLatencyMillis == that.averageLatencyMillis && minLatencyMillis == that.minLatencyMillis && maxLatencyMillis == that.maxLatencyMillis && bytesSent == that.bytesSent && bytesReceived == that.bytesReceived && responsesByCode.equals(that.responsesByCode) && parsedOperations == that.parsedOperations && parsedBytes == that.parsedBytes && parseNanos == that.parseNanos;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(requests, responsesByCode, inflight, exceptions, averageLatencyMillis, minLatencyMillis, maxLatencyMillis, bytesSent, bytesReceived);
+        return Objects.hash(requests, responsesByCode, inflight, exceptions, averageLatencyMillis, minLatencyMillis, maxLatencyMillis, bytesSent, bytesReceived, parsedOperations, parsedBytes, parseNanos);
     }
 
     @Override
@@ -145,6 +189,9 @@ public class OperationStats {
                ", maxLatencyMillis=" + maxLatencyMillis +
                ", bytesSent=" + bytesSent +
                ", bytesReceived=" + bytesReceived +
+               ", parsedOperations=" + parsedOperations +
+               ", parsedBytes=" + parsedBytes +
+               ", parseNanos=" + parseNanos +
                '}';
     }
 
@@ -10,6 +10,7 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashMap;
@@ -166,31 +167,126 @@ class JsonFeederTest {
         }
     }
 
+    @Test
+    public void operationsAreSerializedWhenFeederHasSerializer() throws IOException, ExecutionException, InterruptedException {
+        OperationSerializer serializer = new OperationSerializer() {
+            @Override public byte[] serializePut(DocumentId documentId, String documentJson) {
+                if (documentJson.contains("bad")) throw new IllegalArgumentException("No field 'bad'");
+                return ("put " + documentId + " " + documentJson).getBytes(UTF_8);
+            }
+            @Override public byte[] serializeUpdate(DocumentId documentId, String updateJson) {
+                return ("update " + documentId + " " + updateJson).getBytes(UTF_8);
+            }
+        };
+        String json = "{\"put\": \"id:ns:type::abc1\", \"fields\": {\"lul\": \"lal\"}}\n" +
+                      "{\"update\": \"id:ns:type::abc2\", \"fields\": {\"lul\": {\"assign\": \"lal\"}}}\n" +
+                      "{\"remove\": \"id:ns:type::abc3\"}\n";
+        for (int parserThreads : List.of(1, 2)) {
+            MockClient client = new MockClient();
+            try (JsonFeeder feeder = JsonFeeder.builder(client).withParserThreads(parserThreads).withOperationSerializer(serializer).build()) {
+                feeder.feedMany(new ByteArrayInputStream(json.getBytes(UTF_8))).get();
+                assertEquals(List.of("putSerialized id:ns:type::abc1 put id:ns:type::abc1 {\"fields\":{\"lul\": \"lal\"}} " + OperationParameters.empty(),
+                                     "updateSerialized id:ns:type::abc2 update id:ns:type::abc2 {\"fields\":{\"lul\": {\"assign\": \"lal\"}}} " + OperationParameters.empty(),
+                                     "remove id:ns:type::abc3 " + OperationParameters.empty()),
+                             client.operations);
+
+                ExecutionException e = assertThrows(ExecutionException.class,
+                                                    () -> feeder.feedSingle("{\"put\": \"id:ns:type::abc4\", \"fields\": {\"bad\": 1}}").get());
+                assertTrue(e.getCause() instanceof OperationParseException, e.getCause().toString());
+                assertTrue(e.getCause().getMessage().startsWith("Could not serialize put of 'id:ns:type::abc4': No field 'bad'"),
+                           e.getCause().getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void parallelParsingDispatchesSameOperationsInOrder() throws IOException, ExecutionException, InterruptedException {
+        List<String> operations = IntStream.range(0, 1000).mapToObj(i -> {
+            String id = "\"id:ns:type::abc" + (i % 7) + "\"";
+            switch (i % 3) {
+                case 0: return "{\"put\": " + id + ", \"fields\": { \"lul\": \"l}a{l \\\" }" + i + "\", \"map\": { \"a\": { \"b\": [" + i + "] } } } }";
+                case 1: return "{\"fields\": { \"lul\": { \"assign\": \"lal" + i + "\" } }, \"update\": " + id + ", \"create\": true}";
+                default: return "\n {\"remove\": " + id + ", \"condition\": \"type.lul == \\\"}\\\"\"}";
+            }
+        }).collect(Collectors.toList());
+
+        for (String json : List.of("[" + String.join(",\n", operations) + "]", String.join("\n", operations))) {
+            MockClient expected = new MockClient();
+            try (JsonFeeder feeder = JsonFeeder.builder(expected).build()) {
+                feeder.feedMany(new ByteArrayInputStream(json.getBytes(UTF_8))).get();
+            }
+            MockClient actual = new MockClient();
+            try (JsonFeeder feeder = JsonFeeder.builder(actual).withParserThreads(4).build()) {
+                feeder.feedMany(new ByteArrayInputStream(json.getBytes(UTF_8))).get();
+                assertEquals(1000, feeder.stats().parsedOperations());
+                assertEquals(operations.stream().mapToInt(operation -> operation.trim().getBytes(UTF_8).length).sum(),
+                             feeder.stats().parsedBytes());
+            }
+            assertEquals(1000, actual.operations.size());
+            assertEquals(expected.operations, actual.operations);
+        }
+    }
+
+    @Test
+    public void parallelParsingFailsAfterDispatchingPrecedingOperations() throws IOException {
+        String valid = "{\"put\": \"id:ns:type::abc1\", \"fields\": {}},\n" +
+                       "{\"put\": \"id:ns:type::abc2\", \"fields\": {}},\n";
+        for (String invalid : List.of("{\"put\": \"id:ns:type::abc3\", \"fields\": {}, \"lul\": 1}]",
+                                      "{\"put\": \"id:ns:type::abc3\", \"fields\": {\"lul\": \"}\"}",
+                                      "x]")) {
+            MockClient client = new MockClient();
+            try (JsonFeeder feeder = JsonFeeder.builder(client).withParserThreads(2).build()) {
+                ExecutionException e = assertThrows(ExecutionException.class,
+                                                    () -> feeder.feedMany(new ByteArrayInputStream(("[" + valid + invalid).getBytes(UTF_8))).get());
+                assertTrue(e.getCause() instanceof OperationParseException, e.getCause().toString());
+            }
+            client.assertPutDocumentIds("abc1", "abc2");
+        }
+    }
+
     private static class MockClient implements FeedClient {
+        final List<String> operations = new ArrayList<>();
         final Map<DocumentId, String> putOperations = new LinkedHashMap<>();
         final Map<DocumentId, String> updateOperations = new LinkedHashMap<>();
         final Map<DocumentId, String> removeOperations = new LinkedHashMap<>();
 
         @Override
         public CompletableFuture<Result> put(DocumentId documentId, String documentJson, OperationParameters params) {
+            operations.add("put " + documentId + " " + documentJson + " " + params);
             putOperations.put(documentId, documentJson);
             return createSuccessResult(documentId);
         }
 
         @Override
         public CompletableFuture<Result> update(DocumentId documentId, String updateJson, OperationParameters params) {
+            operations.add("update " + documentId + " " + updateJson + " " + params);
             updateOperations.put(documentId, updateJson);
             return createSuccessResult(documentId);
         }
 
+        @Override
+        public CompletableFuture<Result> putSerialized(DocumentId documentId, byte[] serializedDocument, OperationParameters params) {
+            operations.add("putSerialized " + documentId + " " + new String(serializedDocument, UTF_8) + " " + params);
+            putOperations.put(documentId, null);
+            return createSuccessResult(documentId);
+        }
+
+        @Override
+        public CompletableFuture<Result> updateSerialized(DocumentId documentId, byte[] serializedUpdate, OperationParameters params) {
+            operations.add("updateSerialized " + documentId + " " + new String(serializedUpdate, UTF_8) + " " + params);
+            updateOperations.put(documentId, null);
+            return createSuccessResult(documentId);
+        }
+
         @Override
         public CompletableFuture<Result> remove(DocumentId documentId, OperationParameters params) {
+            operations.add("remove " + documentId + " " + params);
             removeOperations.put(documentId, null);
             return createSuccessResult(documentId);
         }
 
         @Override
-        public OperationStats stats() { return null; }
+        public OperationStats stats() { return new OperationStats(0, 0, Map.of(), 0, 0, 0, -1, -1, -1, 0, 0); }
 
         @Override
         public CircuitBreaker.State circuitBreakerState() { return null; }
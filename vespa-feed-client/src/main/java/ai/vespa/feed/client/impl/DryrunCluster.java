@@ -6,11 +6,15 @@ import ai.vespa.feed.client.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Dryrun implementation that reports every request/operation as successful
+ * Dryrun implementation that reports every request/operation as successful, or, when simulating a server,
+ * which responds after the delay the server would need, and rejects operations when it is overloaded.
  *
  * @author bjorncs
  */
@@ -20,8 +24,32 @@ class DryrunCluster implements Cluster {
 
     static final Duration DELAY = Duration.ofMillis(1);
 
+    private final Simulation simulation;
+
+    DryrunCluster() {
+        this.simulation = null;
+    }
+
+    private DryrunCluster(Simulation simulation) {
+        this.simulation = simulation;
+    }
+
+    /**
+     * Returns a dryrun cluster which simulates a server with the given number of workers, each spending the given
+     * time on each operation. Operations wait in a queue for a free worker, and are rejected with status 429
+     * if they would have to wait longer than the given time. Use this to observe how a {@link Throttler}
+     * behaves against a server with limited capacity.
+     */
+    static DryrunCluster simulating(int workers, Duration serviceTime, Duration maxQueueTime) {
+        return new DryrunCluster(new Simulation(workers, serviceTime, maxQueueTime));
+    }
+
     @Override
     public void dispatch(HttpRequest request, CompletableFuture<HttpResponse> vessel) {
+        if (simulation != null) {
+            simulation.dispatch(vessel);
+            return;
+        }
         long millis = DELAY.toMillis();
         log.log(Level.FINE, "Dryrun of request '{0}' with delay of {1}ms", new Object[]{request, millis});
         if (millis > 0) {
@@ -36,6 +64,52 @@ class DryrunCluster implements Cluster {
         vessel.complete(new SimpleOkResponse());
     }
 
+    @Override
+    public void close() {
+        if (simulation != null) simulation.executor.shutdownNow();
+    }
+
+    /** Assigns each operation to the worker which is free first, and completes it when that worker is done with it. */
+    private static class Simulation {
+
+        private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dryrun-cluster-simulation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final long[] freeAtNanos;
+        private final long serviceNanos;
+        private final long maxQueueNanos;
+
+        Simulation(int workers, Duration serviceTime, Duration maxQueueTime) {
+            this.freeAtNanos = new long[workers];
+            this.serviceNanos = serviceTime.toNanos();
+            this.maxQueueNanos = maxQueueTime.toNanos();
+        }
+
+        void dispatch(CompletableFuture<HttpResponse> vessel) {
+            long delayNanos = schedule(System.nanoTime());
+            if (delayNanos < 0)
+                vessel.complete(HttpResponse.of(429, "{\"message\":\"Rejecting execution due to overload\"}".getBytes(StandardCharsets.UTF_8)));
+            else
+                executor.schedule(() -> vessel.complete(new SimpleOkResponse()), delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /** Returns the time until the operation is done, or -1 if it would be queued for too long. */
+        private synchronized long schedule(long nowNanos) {
+            int worker = 0;
+            for (int i = 1; i < freeAtNanos.length; i++)
+                if (freeAtNanos[i] < freeAtNanos[worker]) worker = i;
+
+            long startNanos = Math.max(nowNanos, freeAtNanos[worker]);
+            if (startNanos - nowNanos > maxQueueNanos) return -1;
+
+            freeAtNanos[worker] = startNanos + serviceNanos;
+            return freeAtNanos[worker] - nowNanos;
+        }
+
+    }
+
     private static class SimpleOkResponse implements HttpResponse {
         @Override public int code() { return 200; }
         @Override public byte[] body() { return "{\"message\":\"dummy dryrun message\"}".getBytes(StandardCharsets.UTF_8); }
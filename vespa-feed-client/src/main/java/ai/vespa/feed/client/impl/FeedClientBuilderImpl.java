@@ -58,6 +58,7 @@ public class FeedClientBuilderImpl implements FeedClientBuilder {
     Compression compression = auto;
     URI proxy;
     Duration connectionTtl = Duration.ZERO;
+    Duration latencyTarget;
     LongSupplier nanoClock = System::nanoTime;
 
     public FeedClientBuilderImpl() { }
@@ -99,6 +100,13 @@ public class FeedClientBuilderImpl implements FeedClientBuilder {
         return this;
     }
 
+    @Override
+    public FeedClientBuilderImpl setLatencyTarget(Duration target) {
+        if (target.isNegative() || target.isZero()) throw new IllegalArgumentException("Latency target must be positive, but was " + target);
+        this.latencyTarget = target;
+        return this;
+    }
+
     /** Sets {@link SSLContext} instance. */
     @Override
     public FeedClientBuilderImpl setSslContext(SSLContext context) {
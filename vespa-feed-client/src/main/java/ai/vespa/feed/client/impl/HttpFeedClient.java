@@ -89,6 +89,16 @@ class HttpFeedClient implements FeedClient {
         return send("DELETE", documentId, null, params);
     }
 
+    @Override
+    public CompletableFuture<Result> putSerialized(DocumentId documentId, byte[] serializedDocument, OperationParameters params) {
+        return send("POST", documentId, requireNonNull(serializedDocument), serializedContentType, params);
+    }
+
+    @Override
+    public CompletableFuture<Result> updateSerialized(DocumentId documentId, byte[] serializedUpdate, OperationParameters params) {
+        return send("PUT", documentId, requireNonNull(serializedUpdate), serializedContentType, params);
+    }
+
     @Override
     public OperationStats stats() {
         return requestStrategy.stats();
@@ -109,6 +119,11 @@ class HttpFeedClient implements FeedClient {
     }
 
     private CompletableFuture<Result> send(String method, DocumentId documentId, String operationJson, OperationParameters params) {
+        return send(method, documentId, operationJson == null ? null : operationJson.getBytes(UTF_8), // TODO: make it bytes all the way?
+                    "application/json", params);
+    }
+
+    private CompletableFuture<Result> send(String method, DocumentId documentId, byte[] operation, String contentType, OperationParameters params) {
         if (closed.get())
             throw new IllegalStateException("Client is closed");
 
@@ -116,7 +131,8 @@ class HttpFeedClient implements FeedClient {
                                               getPath(documentId),
                                               getQuery(params, speedTest),
                                               requestHeaders,
-                                              operationJson == null ? null : operationJson.getBytes(UTF_8), // TODO: make it bytes all the way?
+                                              operation,
+                                              contentType,
                                               params.timeout().orElse(maxTimeout),
                                               nanoClock);
 
@@ -13,16 +13,22 @@ class HttpRequest {
     private final String query;
     private final Map<String, Supplier<String>> headers;
     private final byte[] body;
+    private final String contentType;
     private final Duration timeout;
     private final long deadlineNanos;
     private final LongSupplier nanoClock;
 
     public HttpRequest(String method, String path, String query, Map<String, Supplier<String>> headers, byte[] body, Duration timeout, LongSupplier nanoClock) {
+        this(method, path, query, headers, body, "application/json", timeout, nanoClock);
+    }
+
+    public HttpRequest(String method, String path, String query, Map<String, Supplier<String>> headers, byte[] body, String contentType, Duration timeout, LongSupplier nanoClock) {
         this.method = method;
         this.path = path;
         this.query = query;
         this.headers = headers;
         this.body = body;
+        this.contentType = contentType;
         this.deadlineNanos = nanoClock.getAsLong() + timeout.toNanos();
         this.timeout = timeout;
         this.nanoClock = nanoClock;
@@ -44,6 +50,10 @@ class HttpRequest {
         return body;
     }
 
+    public String contentType() {
+        return contentType;
+    }
+
     public Duration timeLeft() {
         return Duration.ofNanos(deadlineNanos - nanoClock.getAsLong());
     }
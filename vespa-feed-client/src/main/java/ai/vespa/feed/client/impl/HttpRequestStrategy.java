@@ -82,7 +82,7 @@ class HttpRequestStrategy implements RequestStrategy {
     private final AtomicBoolean reset = new AtomicBoolean(false);
 
     HttpRequestStrategy(FeedClientBuilderImpl builder, ClusterFactory clusterFactory) throws IOException {
-        this.throttler = new DynamicThrottler(builder);
+        this.throttler = builder.latencyTarget == null ? new DynamicThrottler(builder) : new LatencyTargetThrottler(builder);
         this.resettableCluster = new ResettableCluster(clusterFactory);
         this.cluster = builder.benchmark ? new BenchmarkingCluster(resettableCluster, throttler) : resettableCluster;
         this.strategy = builder.retryStrategy;
@@ -188,6 +188,7 @@ class HttpRequestStrategy implements RequestStrategy {
         logResponse(FINE, response, request, attempt);
         if (response.code() == 503) { // Hopefully temporary errors.
             breaker.failure(response);
+            throttler.unavailable(inflight.get() - delayedCount.get());
             return retry(request, attempt);
         }
 
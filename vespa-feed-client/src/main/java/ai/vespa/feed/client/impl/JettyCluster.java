@@ -56,7 +56,6 @@ import java.util.zip.GZIPOutputStream;
 import static ai.vespa.feed.client.FeedClientBuilder.Compression.auto;
 import static ai.vespa.feed.client.FeedClientBuilder.Compression.gzip;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
-import static org.eclipse.jetty.http.MimeTypes.Type.APPLICATION_JSON;
 
 /**
  * Client implementation based on Jetty HTTP Client
@@ -109,7 +108,7 @@ class JettyCluster implements Cluster {
                     } else {
                         bytes = req.body();
                     }
-                    jettyReq.body(new BytesRequestContent(APPLICATION_JSON.asString(), bytes));
+                    jettyReq.body(new BytesRequestContent(req.contentType(), bytes));
                 }
                 log.log(Level.FINER, () ->
                         String.format("Dispatching request %s (%s)", req, System.identityHashCode(vessel)));
@@ -0,0 +1,137 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import ai.vespa.feed.client.HttpResponse;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+/**
+ * Keeps the latency of operations below a given target, while maximising throughput under that constraint.
+ *
+ * Operation latencies are sampled in windows of roughly one round of inflight operations. After each window,
+ * the limit is adjusted, much like TCP congestion control:
+ * <ul>
+ *     <li>it doubles during an initial slow start, until latency starts to grow;</li>
+ *     <li>it decreases multiplicatively when the 99th percentile latency exceeds the target,
+ *         and is halved when the server signals it is overloaded, with a 429 or 503 response;</li>
+ *     <li>otherwise, it follows the gradient between the long-term and the current median latency,
+ *         as growing latency means requests are queued on the server, and grows additively
+ *         by an amount which shrinks as the 99th percentile latency approaches the target.</li>
+ * </ul>
+ * Keeping the queues short this way also leaves capacity for other traffic on the same nodes, such as queries.
+ */
+public class LatencyTargetThrottler extends StaticThrottler {
+
+    /** Ratio of current to long-term median latency which is tolerated without reducing the limit */
+    private static final double tolerance = 1.5;
+
+    /** Weight of each new window when smoothing changes to the limit */
+    private static final double smoothing = 0.2;
+
+    /** Weight of each new window in the long-term median latency */
+    private static final double longTermSmoothing = 0.05;
+
+    private static final int minWindow = 32;
+
+    private final LongSupplier nanoClock;
+    private final long targetNanos;
+    private final long[] samples = new long[1024];
+    private int sampled = 0;
+    private double limit;
+    private volatile long targetInflight;
+    private double longTermNanos = -1;
+    private boolean slowStart = true;
+    private long lastDecreaseNanos;
+
+    public LatencyTargetThrottler(FeedClientBuilderImpl builder) {
+        super(builder);
+        this.nanoClock = builder.nanoClock;
+        this.targetNanos = builder.latencyTarget.toNanos();
+        this.limit = minInflight;
+        this.targetInflight = minInflight;
+        this.lastDecreaseNanos = nanoClock.getAsLong();
+    }
+
+    @Override
+    public void sent(long inflight, CompletableFuture<HttpResponse> vessel) {
+        if (vessel == null) return;
+        long sentNanos = nanoClock.getAsLong();
+        vessel.whenComplete((response, thrown) -> {
+            if (thrown == null) sampled(nanoClock.getAsLong() - sentNanos);
+        });
+    }
+
+    @Override
+    public void success() { }
+
+    @Override
+    public void throttled(long inflight) {
+        backOff(inflight);
+    }
+
+    @Override
+    public void unavailable(long inflight) {
+        backOff(inflight);
+    }
+
+    @Override
+    public long targetInflight() {
+        return targetInflight;
+    }
+
+    synchronized void sampled(long latencyNanos) {
+        samples[sampled++] = latencyNanos;
+        if (sampled >= min(samples.length, max(minWindow, targetInflight)))
+            adjust();
+    }
+
+    /** Halves the limit, unless it was already reduced within the last round trip, as signals may come in bursts. */
+    private synchronized void backOff(long inflight) {
+        long nowNanos = nanoClock.getAsLong();
+        if (nowNanos - lastDecreaseNanos < max(longTermNanos, 0)) return;
+
+        slowStart = false;
+        lastDecreaseNanos = nowNanos;
+        sampled = 0; // Samples from before the reduction do not reflect the new limit.
+        setLimit(min(limit, inflight) * 0.5);
+    }
+
+    private void adjust() {
+        Arrays.sort(samples, 0, sampled);
+        double median = samples[sampled / 2];
+        double p99 = samples[(int) (0.99 * (sampled - 1))];
+        sampled = 0;
+
+        if (longTermNanos < 0) longTermNanos = median;
+        longTermNanos += longTermSmoothing * (median - longTermNanos);
+        if (longTermNanos > 2 * median) longTermNanos *= 0.9; // Latency dropped a lot; adapt faster.
+
+        if (p99 > targetNanos) {
+            slowStart = false;
+            lastDecreaseNanos = nanoClock.getAsLong();
+            setLimit(limit * max(0.5, targetNanos / p99));
+        }
+        else if (slowStart && median <= tolerance * longTermNanos) {
+            setLimit(2 * limit);
+        }
+        else {
+            slowStart = false;
+            double gradient = max(0.5, min(1, tolerance * longTermNanos / median));
+            double headroom = 1 - p99 / targetNanos;
+            double next = limit * gradient + sqrt(limit) * headroom;
+            setLimit(limit + smoothing * (next - limit));
+        }
+    }
+
+    private void setLimit(double limit) {
+        this.limit = max(minInflight, min(maxInflight, limit));
+        targetInflight = (long) this.limit;
+    }
+
+}
@@ -27,6 +27,11 @@ interface Throttler {
      */
     void throttled(long inflight);
 
+    /**
+     * The server was temporarily unavailable, which may be because it is overloaded.
+     */
+    default void unavailable(long inflight) { }
+
     /**
      * The target inflight operations right now.
      */
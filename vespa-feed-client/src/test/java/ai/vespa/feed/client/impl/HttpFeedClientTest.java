@@ -22,6 +22,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -211,6 +212,27 @@ class HttpFeedClientTest {
                                                  OperationParameters.empty())
                                             .get());
         assertEquals("(id:ns:type::0) Status 500 executing 'POST /document/v1/ns/type/docid/0': Alla ska i jorden.", expected.getCause().getMessage());
+
+        // Serialized operations are sent as they are, with their own content type.
+        byte[] serialized = { 0, 8, 1, 42 };
+        for (String method : List.of("POST", "PUT")) {
+            dispatch.set((documentId, request) -> {
+                try {
+                    assertEquals(method, request.method());
+                    assertEquals(FeedClient.serializedContentType, request.contentType());
+                    assertArrayEquals(serialized, request.body());
+                    return CompletableFuture.completedFuture(HttpResponse.of(200, "{}".getBytes(UTF_8)));
+                }
+                catch (Throwable thrown) {
+                    CompletableFuture<HttpResponse> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(thrown);
+                    return failed;
+                }
+            });
+            result = method.equals("POST") ? client.putSerialized(id, serialized, OperationParameters.empty()).get()
+                                           : client.updateSerialized(id, serialized, OperationParameters.empty()).get();
+            assertEquals(Result.Type.success, result.type());
+        }
     }
 
     @Test
@@ -0,0 +1,91 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import ai.vespa.feed.client.DocumentId;
+import ai.vespa.feed.client.HttpResponse;
+import ai.vespa.feed.client.OperationStats;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyTargetThrottlerTest {
+
+    @Test
+    void testThrottler() {
+        AtomicLong nowNanos = new AtomicLong(0);
+        LatencyTargetThrottler throttler = new LatencyTargetThrottler(new FeedClientBuilderImpl(List.of(URI.create("http://localhost:8080")))
+                                                                              .setConnectionsPerEndpoint(1)
+                                                                              .setLatencyTarget(Duration.ofMillis(10))
+                                                                              .setNanoClock(nowNanos::get));
+        assertEquals(2, throttler.targetInflight());
+
+        // Slow start doubles the limit while latency is stable.
+        for (int i = 0; i < 5; i++)
+            window(throttler, nowNanos, 32, 1);
+        assertEquals(64, throttler.targetInflight());
+
+        // Growing latency ends slow start, and reduces the limit along the latency gradient.
+        window(throttler, nowNanos, 64, 4);
+        assertEquals(58, throttler.targetInflight());
+
+        // Latency above the target reduces the limit proportionally.
+        window(throttler, nowNanos, 58, 20);
+        assertEquals(29, throttler.targetInflight());
+
+        // Server backpressure halves the limit, but only once per round trip.
+        throttler.throttled(20);
+        assertEquals(29, throttler.targetInflight());
+        nowNanos.addAndGet(1_000_000_000);
+        throttler.unavailable(20);
+        assertEquals(10, throttler.targetInflight());
+
+        // The limit grows again, slowly, while latency is well below the target.
+        for (int i = 0; i < 20; i++)
+            window(throttler, nowNanos, 32, 1);
+        assertEquals(24, throttler.targetInflight());
+    }
+
+    @Test
+    void testSimulatedServer() throws IOException {
+        int documents = 5000;
+        Duration target = Duration.ofMillis(20);
+        Cluster cluster = DryrunCluster.simulating(4, Duration.ofMillis(1), Duration.ofSeconds(1));
+        HttpRequestStrategy strategy = new HttpRequestStrategy(new FeedClientBuilderImpl(List.of(URI.create("https://dummy.com:123")))
+                                                                       .setConnectionsPerEndpoint(1)
+                                                                       .setLatencyTarget(target),
+                                                               () -> cluster);
+        HttpRequest request = new HttpRequest("PUT", "/", "", null, null, Duration.ofSeconds(60), System::nanoTime);
+        for (int i = 0; i < documents; i++)
+            strategy.enqueue(DocumentId.of("ns", "type", Integer.toString(i)), request);
+        strategy.await();
+        OperationStats stats = strategy.stats();
+        strategy.destroy();
+
+        // Without a latency target, the client would keep 512 operations inflight, queued for 128ms on the server.
+        assertEquals(documents, stats.responsesByCode().get(200));
+        assertTrue(stats.averageLatencyMillis() < target.toMillis(), stats.toString());
+    }
+
+    /** Sends and completes the given number of operations, which each take the given time. */
+    private static void window(Throttler throttler, AtomicLong nowNanos, int operations, int latencyMillis) {
+        List<CompletableFuture<HttpResponse>> vessels = new ArrayList<>();
+        for (int i = 0; i < operations; i++) {
+            CompletableFuture<HttpResponse> vessel = new CompletableFuture<>();
+            throttler.sent(i, vessel);
+            vessels.add(vessel);
+        }
+        nowNanos.addAndGet(latencyMillis * 1_000_000L);
+        for (CompletableFuture<HttpResponse> vessel : vessels)
+            vessel.complete(HttpResponse.of(200, null));
+    }
+
+}
@@ -14,6 +14,7 @@ import com.yahoo.container.core.documentapi.VespaDocumentAccess;
 import com.yahoo.container.jdisc.ContentChannelOutputStream;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentOperation;
 import com.yahoo.document.DocumentPut;
 import com.yahoo.document.DocumentRemove;
 import com.yahoo.document.DocumentTypeManager;
@@ -30,6 +31,8 @@ import com.yahoo.document.json.JsonWriter;
 import com.yahoo.document.json.ParsedDocumentOperation;
 import com.yahoo.document.restapi.DocumentOperationExecutorConfig;
 import com.yahoo.document.select.parser.ParseException;
+import com.yahoo.document.serialization.DocumentDeserializer;
+import com.yahoo.document.serialization.DocumentDeserializerFactory;
 import com.yahoo.documentapi.AckToken;
 import com.yahoo.documentapi.AsyncParameters;
 import com.yahoo.documentapi.AsyncSession;
@@ -49,6 +52,7 @@ import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
 import com.yahoo.documentapi.messagebus.protocol.RemoveDocumentMessage;
 import com.yahoo.documentapi.metrics.DocumentApiMetrics;
 import com.yahoo.documentapi.metrics.DocumentOperationStatus;
+import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.jdisc.Metric;
 import com.yahoo.jdisc.Request;
 import com.yahoo.jdisc.Response;
@@ -81,10 +85,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
@@ -102,6 +108,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -137,6 +144,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
     private static final Duration defaultTimeout = Duration.ofSeconds(180); // Match document API default timeout.
     private static final Duration handlerTimeout = Duration.ofMillis(100); // Extra time to allow for handler, JDisc and jetty to complete.
+    private static final int maxParallelSlices = 64; // Each slice of a visit has its own visitor session.
 
     private static final Logger log = Logger.getLogger(DocumentV1ApiHandler.class.getName());
     private static final Parser<Integer> integerParser = Integer::parseInt;
@@ -156,6 +164,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         @Override public void close(CompletionHandler handler) { handler.completed(); }
     };
 
+    /** The content type of document operations in the binary serialization format, which needs no JSON parsing */
+    static final String SERIALIZED_CONTENT_TYPE = "application/x-vespa-document";
+
     private static final JsonFactory jsonFactory = new JsonFactoryBuilder()
             .streamReadConstraints(StreamReadConstraints.builder().maxStringLength(Integer.MAX_VALUE).build())
             .build();
@@ -177,6 +188,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
     private static final String STREAM = "stream";
     private static final String SLICES = "slices";
     private static final String SLICE_ID = "sliceId";
+    private static final String PARALLEL_SLICES = "parallelSlices";
     private static final String DRY_RUN = "dryRun";
     private static final String FROM_TIMESTAMP = "fromTimestamp";
     private static final String TO_TIMESTAMP = "toTimestamp";
@@ -192,12 +204,11 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
     private final DocumentAccess access;
     private final AsyncSession asyncSession;
     private final Map<String, StorageCluster> clusters;
-    private final Deque<Operation> operations;
+    private final List<OperationQueue> queues;
     private final Deque<BooleanSupplier> visitOperations = new ConcurrentLinkedDeque<>();
     private final AtomicLong enqueued = new AtomicLong();
     private final AtomicLong outstanding = new AtomicLong();
     private final Map<VisitorControlHandler, VisitorSession> visits = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("document-api-handler-"));
     private final ScheduledExecutorService visitDispatcher = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("document-api-handler-visit-"));
     private final Map<String, Map<Method, Handler>> handlers = defineApi();
 
@@ -226,11 +237,15 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         this.access = access;
         this.asyncSession = access.createAsyncSession(new AsyncParameters());
         this.clusters = parseClusters(clusterListConfig, bucketSpacesConfig);
-        this.operations = new ConcurrentLinkedDeque<>();
         long resendDelayMS = SystemTimer.adjustTimeoutByDetectedHz(Duration.ofMillis(executorConfig.resendDelayMillis())).toMillis();
+        int dispatchThreads = Math.max(1, executorConfig.dispatchThreads());
+        long maxThrottledPerQueue = (maxThrottled + dispatchThreads - 1) / dispatchThreads;
+        List<OperationQueue> queues = new ArrayList<>(dispatchThreads);
+        for (int i = 0; i < dispatchThreads; i++)
+            queues.add(new OperationQueue(i, maxThrottledPerQueue, resendDelayMS));
+        this.queues = List.copyOf(queues);
 
         // TODO: Here it would be better to have dedicated threads with different wait depending on blocked or empty.
-        this.dispatcher.scheduleWithFixedDelay(this::dispatchEnqueued, resendDelayMS, resendDelayMS, MILLISECONDS);
         this.visitDispatcher.scheduleWithFixedDelay(this::dispatchVisitEnqueued, resendDelayMS, resendDelayMS, MILLISECONDS);
     }
 
@@ -288,26 +303,27 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         visits.values().forEach(VisitorSession::abort);
         visits.values().forEach(VisitorSession::destroy);
 
-        // Shut down both dispatchers, so only we empty the queues of outstanding operations, and can be sure they're empty.
-        dispatcher.shutdown();
+        // Shut down all dispatchers, so only we empty the queues of outstanding operations, and can be sure they're empty.
+        queues.forEach(queue -> queue.dispatcher.shutdown());
         visitDispatcher.shutdown();
-        while ( ! (operations.isEmpty() && visitOperations.isEmpty()) && clock.instant().isBefore(doom)) {
+        while ( ! (enqueued.get() == 0 && visitOperations.isEmpty()) && clock.instant().isBefore(doom)) {
             dispatchEnqueued();
             dispatchVisitEnqueued();
         }
 
-        if ( ! operations.isEmpty())
-            log.log(WARNING, "Failed to empty request queue before shutdown timeout — " + operations.size() + " requests left");
+        if (enqueued.get() != 0)
+            log.log(WARNING, "Failed to empty request queue before shutdown timeout — " + enqueued.get() + " requests left");
 
         if ( ! visitOperations.isEmpty())
-            log.log(WARNING, "Failed to empty visitor operations queue before shutdown timeout — " + operations.size() + " operations left");
+            log.log(WARNING, "Failed to empty visitor operations queue before shutdown timeout — " + visitOperations.size() + " operations left");
 
         try {
             while (outstanding.get() > 0 && clock.instant().isBefore(doom))
                 Thread.sleep(Math.max(1, Duration.between(clock.instant(), doom).toMillis()));
 
-            if ( ! dispatcher.awaitTermination(Duration.between(clock.instant(), doom).toMillis(), MILLISECONDS))
-                dispatcher.shutdownNow();
+            for (OperationQueue queue : queues)
+                if ( ! queue.dispatcher.awaitTermination(Duration.between(clock.instant(), doom).toMillis(), MILLISECONDS))
+                    queue.dispatcher.shutdownNow();
 
             if ( ! visitDispatcher.awaitTermination(Duration.between(clock.instant(), doom).toMillis(), MILLISECONDS))
                 visitDispatcher.shutdownNow();
@@ -379,9 +395,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         disallow(request, DRY_RUN);
         enqueueAndDispatch(request, handler, () -> {
             boolean streamed = getProperty(request, STREAM, booleanParser).orElse(false);
-            VisitorParameters parameters = parseGetParameters(request, path, streamed);
+            List<VisitorParameters> slices = parseGetSlices(request, path, streamed);
             return () -> {
-                visitAndWrite(request, parameters, handler, streamed);
+                visitAndWrite(request, slices, handler, streamed);
                 return true; // VisitorSession has its own throttle handling.
             };
         });
@@ -470,7 +486,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
         return new ForwardingContentChannel(in -> {
             enqueueAndDispatch(request, handler, () -> {
-                ParsedDocumentOperation parsed = parser.parsePut(in, path.id().toString());
+                ParsedDocumentOperation parsed = parser.parsePut(request, in, path.id().toString());
                 DocumentPut put = (DocumentPut)parsed.operation();
                 getProperty(request, CONDITION).map(TestAndSetCondition::new).ifPresent(put::setCondition);
                 getProperty(request, CREATE, booleanParser).ifPresent(put::setCreateIfNonExistent);
@@ -495,7 +511,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
         return new ForwardingContentChannel(in -> {
             enqueueAndDispatch(request, handler, () -> {
-                ParsedDocumentOperation parsed = parser.parseUpdate(in, path.id().toString());
+                ParsedDocumentOperation parsed = parser.parseUpdate(request, in, path.id().toString());
                 DocumentUpdate update = (DocumentUpdate)parsed.operation();
                 getProperty(request, CONDITION).map(TestAndSetCondition::new).ifPresent(update::setCondition);
                 getProperty(request, CREATE, booleanParser).ifPresent(update::setCreateIfNonExistent);
@@ -551,28 +567,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         return parameters;
     }
 
-    /** Dispatches enqueued requests until one is blocked. */
+    /** Dispatches enqueued requests in each queue until one is blocked. */
     void dispatchEnqueued() {
-        try {
-            while (dispatchFirst());
-        }
-        catch (Exception e) {
-            log.log(WARNING, "Uncaught exception in /document/v1 dispatch thread", e);
-        }
-    }
-
-    /** Attempts to dispatch the first enqueued operations, and returns whether this was successful. */
-    private boolean dispatchFirst() {
-        Operation operation = operations.poll();
-        if (operation == null)
-            return false;
-
-        if (operation.dispatch()) {
-            enqueued.decrementAndGet();
-            return true;
-        }
-        operations.push(operation);
-        return false;
+        queues.forEach(OperationQueue::dispatchEnqueued);
     }
 
     /** Dispatches enqueued requests until one is blocked. */
@@ -598,18 +595,32 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         return false;
     }
 
+    /** Returns the age of the oldest operation enqueued in any queue, relative to the given request */
     private long qAgeNS(HttpRequest request) {
-        Operation oldest = operations.peek();
-        return (oldest != null)
-                ? (request.relativeCreatedAtNanoTime() - oldest.request.relativeCreatedAtNanoTime())
-                : 0;
+        long ageNS = 0;
+        for (OperationQueue queue : queues) {
+            Operation oldest = queue.operations.peek();
+            if (oldest != null)
+                ageNS = Math.max(ageNS, request.relativeCreatedAtNanoTime() - oldest.request.relativeCreatedAtNanoTime());
+        }
+        return ageNS;
     }
 
     /**
-     * Enqueues the given request and operation, or responds with "overload" if the queue is full,
-     * and then attempts to dispatch an enqueued operation from the head of the queue.
+     * Returns the queue of the given request. Requests are spread over the queues by their raw path,
+     * which identifies the document of document operations, such that these are dispatched in order.
+     */
+    private OperationQueue queueOf(HttpRequest request) {
+        if (queues.size() == 1) return queues.get(0);
+        return queues.get(Math.floorMod(request.getUri().getRawPath().hashCode(), queues.size()));
+    }
+
+    /**
+     * Enqueues the given request and operation, or responds with "overload" if the queues are full,
+     * and then attempts to dispatch an enqueued operation from the head of the queue of the request.
      */
     private void enqueueAndDispatch(HttpRequest request, ResponseHandler handler, Supplier<BooleanSupplier> operationParser) {
+        OperationQueue queue = queueOf(request);
         long numQueued = enqueued.incrementAndGet();
         if (numQueued > maxThrottled) {
             enqueued.decrementAndGet();
@@ -617,17 +628,72 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
                     + maxThrottled + " requests already enqueued", handler);
             return;
         }
+        if (queue.enqueued.incrementAndGet() > queue.maxThrottled) {
+            queue.enqueued.decrementAndGet();
+            enqueued.decrementAndGet();
+            overload(request, "Rejecting execution due to overload: "
+                    + queue.maxThrottled + " requests already enqueued in dispatch queue " + queue.index, handler);
+            return;
+        }
         if (numQueued > 1) {
             long ageNS = qAgeNS(request);
             if (ageNS > maxThrottledAgeNS) {
+                queue.enqueued.decrementAndGet();
                 enqueued.decrementAndGet();
                 overload(request, "Rejecting execution due to overload: "
                         + maxThrottledAgeNS / 1_000_000_000.0 + " seconds worth of work enqueued", handler);
                 return;
             }
         }
-        operations.offer(new Operation(request, handler, operationParser));
-        dispatchFirst();
+        queue.operations.offer(new Operation(request, handler, operationParser));
+        queue.dispatchFirst();
+    }
+
+    /** A queue of operations which is dispatched in order by its own thread. */
+    private class OperationQueue {
+
+        private final int index;
+        private final long maxThrottled;
+        private final Deque<Operation> operations = new ConcurrentLinkedDeque<>();
+        private final AtomicLong enqueued = new AtomicLong();
+        private final ScheduledExecutorService dispatcher;
+        private final Metric.Context metricContext;
+
+        OperationQueue(int index, long maxThrottled, long resendDelayMS) {
+            this.index = index;
+            this.maxThrottled = maxThrottled;
+            this.dispatcher = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("document-api-handler-" + index + "-"));
+            this.metricContext = metric.createContext(Map.of("dispatcher", String.valueOf(index)));
+            this.dispatcher.scheduleWithFixedDelay(this::dispatchEnqueued, resendDelayMS, resendDelayMS, MILLISECONDS);
+        }
+
+        /** Dispatches enqueued requests until one is blocked. */
+        void dispatchEnqueued() {
+            try {
+                while (dispatchFirst());
+                metric.set(MetricNames.QUEUED_OPERATIONS, enqueued.get(), metricContext);
+            }
+            catch (Exception e) {
+                log.log(WARNING, "Uncaught exception in /document/v1 dispatch thread", e);
+            }
+        }
+
+        /** Attempts to dispatch the first enqueued operations, and returns whether this was successful. */
+        boolean dispatchFirst() {
+            Operation operation = operations.poll();
+            if (operation == null)
+                return false;
+
+            if (operation.dispatch()) {
+                enqueued.decrementAndGet();
+                DocumentV1ApiHandler.this.enqueued.decrementAndGet();
+                metric.set(MetricNames.DISPATCH_LATENCY, (System.nanoTime() - operation.request.relativeCreatedAtNanoTime()) * 1e-6, metricContext);
+                return true;
+            }
+            operations.push(operation);
+            return false;
+        }
+
     }
 
 
@@ -880,6 +946,18 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             json.writeStringField("continuation", token);
         }
 
+        synchronized void writeSliceContinuations(List<SliceContinuation> continuations) throws IOException {
+            json.writeArrayFieldStart("sliceContinuations");
+            for (SliceContinuation continuation : continuations) {
+                json.writeStartObject();
+                json.writeNumberField("slices", continuation.slices());
+                json.writeNumberField("sliceId", continuation.sliceId());
+                json.writeStringField("continuation", continuation.token());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+
     }
 
     private static void options(Collection<Method> methods, ResponseHandler handler) {
@@ -1077,6 +1155,18 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             return parse(inputStream, docId, DocumentOperationType.UPDATE);
         }
 
+        /** Parses the operation from JSON, or deserializes it if the request has the content type of serialized operations */
+        ParsedDocumentOperation parsePut(HttpRequest request, InputStream inputStream, String docId) {
+            return isSerialized(request) ? deserialize(inputStream, docId, DocumentOperationType.PUT)
+                                         : parse(inputStream, docId, DocumentOperationType.PUT);
+        }
+
+        /** Parses the operation from JSON, or deserializes it if the request has the content type of serialized operations */
+        ParsedDocumentOperation parseUpdate(HttpRequest request, InputStream inputStream, String docId) {
+            return isSerialized(request) ? deserialize(inputStream, docId, DocumentOperationType.UPDATE)
+                                         : parse(inputStream, docId, DocumentOperationType.UPDATE);
+        }
+
         private ParsedDocumentOperation parse(InputStream inputStream, String docId, DocumentOperationType operation) {
             try {
                 return new JsonReader(manager, inputStream, jsonFactory).readSingleDocumentStreaming(operation, docId);
@@ -1086,6 +1176,34 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             }
         }
 
+        private ParsedDocumentOperation deserialize(InputStream inputStream, String docId, DocumentOperationType type) {
+            try {
+                GrowableByteBuffer buffer = GrowableByteBuffer.wrap(inputStream.readAllBytes());
+                DocumentDeserializer deserializer = DocumentDeserializerFactory.createHead(manager, buffer);
+                DocumentOperation operation = type == DocumentOperationType.PUT ? new DocumentPut(new Document(deserializer))
+                                                                                : new DocumentUpdate(deserializer);
+                if (buffer.remaining() > 0)
+                    throw new IllegalArgumentException(buffer.remaining() + " bytes left after the serialized " + type.name().toLowerCase());
+                if ( ! operation.getId().toString().equals(docId))
+                    throw new IllegalArgumentException("Serialized document id '" + operation.getId() +
+                                                       "' does not match document id '" + docId + "' of the path");
+                return new ParsedDocumentOperation(operation, true);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            catch (RuntimeException e) {
+                incrementMetricParseError();
+                if (e instanceof IllegalArgumentException) throw e;
+                throw new IllegalArgumentException("Failed to deserialize " + type.name().toLowerCase() + ": " + Exceptions.toMessageString(e), e);
+            }
+        }
+
+        private boolean isSerialized(HttpRequest request) {
+            String contentType = request.headers().getFirst("Content-Type");
+            return contentType != null && contentType.trim().toLowerCase().startsWith(SERIALIZED_CONTENT_TYPE);
+        }
+
     }
 
     interface SuccessCallback {
@@ -1188,6 +1306,31 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
     // ------------------------------------------------- Visits ------------------------------------------------
 
+    /**
+     * Returns the parameters of each of the visitor sessions to run for a GET, which are more than one when a streamed
+     * visit is split into parallel slices. These subdivide the slice given by the request, if any, such that
+     * slice i of the k parallel slices of slice s of n is slice s + n * i of n * k.
+     */
+    private List<VisitorParameters> parseGetSlices(HttpRequest request, DocumentPath path, boolean streamed) {
+        int parallelSlices = getProperty(request, PARALLEL_SLICES, integerParser).orElse(1);
+        if (parallelSlices < 1 || parallelSlices > maxParallelSlices)
+            throw new IllegalArgumentException("parallelSlices must be in [1, " + maxParallelSlices + "]");
+        if (parallelSlices == 1)
+            return List.of(parseGetParameters(request, path, streamed));
+
+        if ( ! streamed)
+            throw new IllegalArgumentException("parallelSlices requires 'stream=true'");
+        // A single continuation token or document limit can not be shared by the sessions of the parallel slices.
+        disallow(request, CONTINUATION, WANTED_DOCUMENT_COUNT);
+        List<VisitorParameters> slices = new ArrayList<>(parallelSlices);
+        for (int i = 0; i < parallelSlices; i++) {
+            VisitorParameters slice = parseGetParameters(request, path, true);
+            slice.slice(slice.getSlices() * parallelSlices, slice.getSliceId() + slice.getSlices() * i);
+            slices.add(slice);
+        }
+        return slices;
+    }
+
     private VisitorParameters parseGetParameters(HttpRequest request, DocumentPath path, boolean streamed) {
         int wantedDocumentCount = getProperty(request, WANTED_DOCUMENT_COUNT, integerParser)
                 .orElse(streamed ? Integer.MAX_VALUE : 1);
@@ -1349,8 +1492,8 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         });
     }
 
-    private void visitAndWrite(HttpRequest request, VisitorParameters parameters, ResponseHandler handler, boolean streamed) {
-        visit(request, parameters, streamed, true, handler, new VisitCallback() {
+    private void visitAndWrite(HttpRequest request, List<VisitorParameters> slices, ResponseHandler handler, boolean streamed) {
+        visit(request, slices, streamed, true, handler, new VisitCallback() {
             @Override public void onStart(JsonResponse response, boolean fullyApplied) throws IOException {
                 if (streamed)
                     response.commit(Response.Status.OK, fullyApplied);
@@ -1390,93 +1533,84 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         visit(request, parameters, false, true, handler, new VisitCallback() { });
     }
 
-    @SuppressWarnings("fallthrough")
     private void visit(HttpRequest request, VisitorParameters parameters, boolean streaming, boolean fullyApplied, ResponseHandler handler, VisitCallback callback) {
+        visit(request, List.of(parameters), streaming, fullyApplied, handler, callback);
+    }
+
+    /** Visits the given slices, each with its own visitor session, and writes the combined result to one response. */
+    private void visit(HttpRequest request, List<VisitorParameters> slices, boolean streaming, boolean fullyApplied, ResponseHandler handler, VisitCallback callback) {
+        List<SliceControlHandler> controllers = new ArrayList<>();
         try {
             JsonResponse response = JsonResponse.create(request, handler);
-            Phaser phaser = new Phaser(2); // Synchronize this thread (dispatch) with the visitor callback thread.
             AtomicReference<String> error = new AtomicReference<>(); // Set if error occurs during processing of visited documents.
             callback.onStart(response, fullyApplied);
             final AtomicLong locallyReceivedDocCount = new AtomicLong(0);
-            VisitorControlHandler controller = new VisitorControlHandler() {
-                final ScheduledFuture<?> abort = streaming ? visitDispatcher.schedule(this::abort, visitTimeout(request), MILLISECONDS) : null;
-                final AtomicReference<VisitorSession> session = new AtomicReference<>();
-                @Override public void setSession(VisitorControlSession session) { // Workaround for broken session API ಠ_ಠ
-                    super.setSession(session);
-                    if (session instanceof VisitorSession visitorSession) this.session.set(visitorSession);
-                }
-                @Override public void onDone(CompletionCode code, String message) {
-                    super.onDone(code, message);
-                    loggingException(() -> {
-                        try (response) {
-                            callback.onEnd(response);
-
-                            // Locally tracked document count is only correct if we have a local data handler.
-                            // Otherwise, we have to report the statistics received transitively from the content nodes.
-                            long statsDocCount = (getVisitorStatistics() != null ? getVisitorStatistics().getDocumentsVisited() : 0);
-                            response.writeDocumentCount(parameters.getLocalDataHandler() != null ? locallyReceivedDocCount.get() : statsDocCount);
-
-                            if (session.get() != null)
-                                response.writeTrace(session.get().getTrace());
-
-                            int status = Status.INTERNAL_SERVER_ERROR;
-                            switch (code) {
-                                case TIMEOUT: // Intentional fallthrough.
-                                case ABORTED:
-                                    if (error.get() == null && ! hasVisitedAnyBuckets() && parameters.getVisitInconsistentBuckets()) {
-                                        response.writeMessage("No buckets visited within timeout of " +
-                                                              parameters.getSessionTimeoutMs() + "ms (request timeout -5s)");
-                                        status = Response.Status.GATEWAY_TIMEOUT;
-                                        break;
-                                    }
-                                case SUCCESS:
-                                    if (error.get() == null) {
-                                        ProgressToken progress = getProgress() != null ? getProgress() : parameters.getResumeToken();
-                                        if (progress != null && ! progress.isFinished())
-                                            response.writeContinuation(progress.serializeToString());
-
-                                        status = Response.Status.OK;
-                                        break;
-                                    }
-                                default:
-                                    response.writeMessage(error.get() != null ? error.get() : message != null ? message : "Visiting failed");
+            AtomicInteger remaining = new AtomicInteger(slices.size());
+            Consumer<String> onError = errorMessage -> {
+                error.set(errorMessage);
+                controllers.forEach(SliceControlHandler::abortIfStarted);
+            };
+            for (VisitorParameters parameters : slices) {
+                SliceControlHandler controller = new SliceControlHandler(parameters, streaming ? visitTimeout(request) : -1) {
+                    @Override public void onDone(CompletionCode code, String message) {
+                        super.onDone(code, message);
+                        if (remaining.decrementAndGet() == 0) loggingException(() -> {
+                            try (response) {
+                                callback.onEnd(response);
+
+                                // Locally tracked document count is only correct if we have a local data handler.
+                                // Otherwise, we have to report the statistics received transitively from the content nodes.
+                                long statsDocCount = 0;
+                                for (SliceControlHandler slice : controllers)
+                                    statsDocCount += slice.getVisitorStatistics() != null ? slice.getVisitorStatistics().getDocumentsVisited() : 0;
+                                response.writeDocumentCount(parameters.getLocalDataHandler() != null ? locallyReceivedDocCount.get() : statsDocCount);
+
+                                if (controllers.size() == 1 && session.get() != null)
+                                    response.writeTrace(session.get().getTrace());
+
+                                int status = writeVisitResult(response, controllers, error.get());
+                                if ( ! streaming)
+                                    response.commit(status, fullyApplied);
                             }
-                            if ( ! streaming)
-                                response.commit(status, fullyApplied);
+                        });
+                        if (abort != null) abort.cancel(false); // Avoid keeping scheduled future alive if this completes in any other fashion.
+                        visitDispatcher.execute(() -> {
+                            phaser.arriveAndAwaitAdvance(); // We may get here while dispatching thread is still putting us in the map.
+                            visits.remove(this).destroy();
+                        });
+                    }
+                };
+                if (parameters.getRemoteDataHandler() == null) {
+                    parameters.setLocalDataHandler(new VisitorDataHandler() {
+                        @Override public void onMessage(Message m, AckToken token) {
+                            Document document = null;
+                            DocumentId removeId = null;
+                            if (m instanceof PutDocumentMessage put) document = put.getDocumentPut().getDocument();
+                            else if (parameters.visitRemoves() && m instanceof RemoveDocumentMessage remove) removeId = remove.getDocumentId();
+                            else throw new UnsupportedOperationException("Got unsupported message type: " + m.getClass().getName());
+                            locallyReceivedDocCount.getAndAdd(1);
+                            callback.onDocument(response,
+                                                document,
+                                                removeId,
+                                                () -> ack(token),
+                                                onError);
                         }
                     });
-                    if (abort != null) abort.cancel(false); // Avoid keeping scheduled future alive if this completes in any other fashion.
-                    visitDispatcher.execute(() -> {
-                        phaser.arriveAndAwaitAdvance(); // We may get here while dispatching thread is still putting us in the map.
-                        visits.remove(this).destroy();
-                    });
                 }
-            };
-            if (parameters.getRemoteDataHandler() == null) {
-                parameters.setLocalDataHandler(new VisitorDataHandler() {
-                    @Override public void onMessage(Message m, AckToken token) {
-                        Document document = null;
-                        DocumentId removeId = null;
-                        if (m instanceof PutDocumentMessage put) document = put.getDocumentPut().getDocument();
-                        else if (parameters.visitRemoves() && m instanceof RemoveDocumentMessage remove) removeId = remove.getDocumentId();
-                        else throw new UnsupportedOperationException("Got unsupported message type: " + m.getClass().getName());
-                        locallyReceivedDocCount.getAndAdd(1);
-                        callback.onDocument(response,
-                                            document,
-                                            removeId,
-                                            () -> ack(token),
-                                            errorMessage -> {
-                                                error.set(errorMessage);
-                                                controller.abort();
-                                            });
-                    }
-                });
+                parameters.setControlHandler(controller);
+                controllers.add(controller);
+            }
+            for (SliceControlHandler controller : controllers) {
+                visits.put(controller, access.createVisitorSession(controller.parameters));
+                controller.phaser.arriveAndDeregister();
+                if (error.get() != null) controller.abort(); // Another slice failed before this one was started.
             }
-            parameters.setControlHandler(controller);
-            visits.put(controller, access.createVisitorSession(parameters));
-            phaser.arriveAndDeregister();
         }
         catch (ParseException e) {
+            for (SliceControlHandler controller : controllers) {
+                if (controller.abort != null) controller.abort.cancel(false);
+                controller.abortIfStarted();
+            }
             badRequest(request, new IllegalArgumentException(e), handler);
         }
         catch (IOException e) {
@@ -1484,6 +1618,75 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         }
     }
 
+    /** Writes the outcome of the visit with the given slice controllers, and returns the status code of the response. */
+    @SuppressWarnings("fallthrough")
+    private static int writeVisitResult(JsonResponse response, List<SliceControlHandler> controllers, String error) throws IOException {
+        boolean visitedAnyBuckets = false;
+        for (SliceControlHandler controller : controllers)
+            visitedAnyBuckets |= controller.hasVisitedAnyBuckets();
+
+        List<SliceContinuation> continuations = new ArrayList<>();
+        for (SliceControlHandler controller : controllers) {
+            VisitorParameters parameters = controller.parameters;
+            VisitorControlHandler.Result result = controller.getResult();
+            switch (result.getCode()) {
+                case TIMEOUT: // Intentional fallthrough.
+                case ABORTED:
+                    if (error == null && ! visitedAnyBuckets && parameters.getVisitInconsistentBuckets()) {
+                        response.writeMessage("No buckets visited within timeout of " +
+                                              parameters.getSessionTimeoutMs() + "ms (request timeout -5s)");
+                        return Response.Status.GATEWAY_TIMEOUT;
+                    }
+                case SUCCESS:
+                    if (error == null) {
+                        ProgressToken progress = controller.getProgress() != null ? controller.getProgress() : parameters.getResumeToken();
+                        if (progress != null && ! progress.isFinished())
+                            continuations.add(new SliceContinuation(parameters.getSlices(), parameters.getSliceId(), progress.serializeToString()));
+                        break;
+                    }
+                default:
+                    response.writeMessage(error != null ? error : result.getMessage() != null ? result.getMessage() : "Visiting failed");
+                    return Response.Status.INTERNAL_SERVER_ERROR;
+            }
+        }
+        if (controllers.size() == 1) {
+            if ( ! continuations.isEmpty())
+                response.writeContinuation(continuations.get(0).token());
+        }
+        else if ( ! continuations.isEmpty())
+            response.writeSliceContinuations(continuations);
+
+        return Response.Status.OK;
+    }
+
+    /** A token for resuming visiting of a slice which did not complete. */
+    private record SliceContinuation(int slices, int sliceId, String token) { }
+
+    /** Controls the visitor session of one of the slices of a visit. */
+    private class SliceControlHandler extends VisitorControlHandler {
+
+        final Phaser phaser = new Phaser(2); // Synchronize the dispatching thread with the visitor callback thread.
+        final AtomicReference<VisitorSession> session = new AtomicReference<>();
+        final VisitorParameters parameters;
+        final ScheduledFuture<?> abort;
+
+        SliceControlHandler(VisitorParameters parameters, long timeoutMillis) {
+            this.parameters = parameters;
+            this.abort = timeoutMillis >= 0 ? visitDispatcher.schedule(this::abort, timeoutMillis, MILLISECONDS) : null;
+        }
+
+        @Override public void setSession(VisitorControlSession session) { // Workaround for broken session API ಠ_ಠ
+            super.setSession(session);
+            if (session instanceof VisitorSession visitorSession) this.session.set(visitorSession);
+        }
+
+        /** Aborts the session of this, if it has been created. */
+        void abortIfStarted() {
+            if (session.get() != null) abort();
+        }
+
+    }
+
     // ------------------------------------------------ Helpers ------------------------------------------------
 
     private static long doomMillis(HttpRequest request) {
@@ -17,6 +17,8 @@ import com.yahoo.document.datatypes.StringFieldValue;
 import com.yahoo.document.datatypes.TensorFieldValue;
 import com.yahoo.document.restapi.DocumentOperationExecutorConfig;
 import com.yahoo.document.restapi.resource.DocumentV1ApiHandler.StorageCluster;
+import com.yahoo.document.serialization.DocumentSerializer;
+import com.yahoo.document.serialization.DocumentSerializerFactory;
 import com.yahoo.document.update.FieldUpdate;
 import com.yahoo.documentapi.AckToken;
 import com.yahoo.documentapi.AsyncParameters;
@@ -44,6 +46,7 @@ import com.yahoo.documentapi.VisitorResponse;
 import com.yahoo.documentapi.VisitorSession;
 import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
 import com.yahoo.documentapi.messagebus.protocol.RemoveDocumentMessage;
+import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.jdisc.test.MockMetric;
 import com.yahoo.messagebus.StaticThrottlePolicy;
 import com.yahoo.messagebus.Trace;
@@ -64,6 +67,7 @@ import org.junit.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
@@ -72,6 +76,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
@@ -228,6 +233,186 @@ public class DocumentV1ApiTest {
         driver.close();
     }
 
+    @Test
+    public void testOverLoadByQueueSize() {
+        handler.destroy();
+        handler = new DocumentV1ApiHandler(clock, Duration.ofMillis(1), metric, metrics, access, docConfig,
+                                           new DocumentOperationExecutorConfig.Builder(executorConfig).dispatchThreads(2).build(),
+                                           clusterConfig, bucketConfig);
+        RequestHandlerTestDriver driver = new RequestHandlerTestDriver(handler);
+        // Operations on the same document share a queue, which holds half of the enqueued operations
+        access.session.expect((id, parameters) -> new Result(Result.ResultType.TRANSIENT_ERROR, Result.toError(Result.ResultType.TRANSIENT_ERROR)));
+        var response1 = driver.sendRequest("http://localhost/document/v1/space/music/number/1/two", POST, "{\"fields\": {}}");
+        var response2 = driver.sendRequest("http://localhost/document/v1/space/music/number/1/two", POST, "{\"fields\": {}}");
+        assertTrue(response2.readAll().contains("Rejecting execution due to overload: 1 requests already enqueued in dispatch queue "));
+        assertEquals(429, response2.getStatus());
+
+        access.session.expect((id, parameters) -> new Result(Result.ResultType.FATAL_ERROR, Result.toError(Result.ResultType.FATAL_ERROR)));
+        handler.dispatchEnqueued();
+        assertSameJson("{" +
+                "  \"pathId\": \"/document/v1/space/music/number/1/two\"," +
+                "  \"message\": \"[FATAL_ERROR @ localhost]: FATAL_ERROR\"" +
+                "}", response1.readAll());
+        assertEquals(500, response1.getStatus());
+        driver.close();
+    }
+
+    @Test
+    public void testSerializedOperations() {
+        RequestHandlerTestDriver driver = new RequestHandlerTestDriver(handler);
+
+        // A serialized document is put as it is.
+        access.session.expect((put, parameters) -> {
+            assertEquals(new DocumentPut(doc1), put);
+            parameters.responseHandler().get().handleResponse(new Response(0, null, Response.Outcome.SUCCESS));
+            return new Result();
+        });
+        var response = driver.sendRequest("http://localhost/document/v1/space/music/docid/one", POST,
+                                          serialized(serializer -> serializer.write(doc1)), DocumentV1ApiHandler.SERIALIZED_CONTENT_TYPE);
+        assertSameJson("{" +
+                       "  \"pathId\": \"/document/v1/space/music/docid/one\"," +
+                       "  \"id\": \"id:space:music::one\"" +
+                       "}", response.readAll());
+        assertEquals(200, response.getStatus());
+
+        // A serialized update is applied as it is, with parameters from the request.
+        DocumentUpdate update = new DocumentUpdate(doc3.getDataType(), doc3.getId());
+        update.addFieldUpdate(FieldUpdate.createAssign(doc3.getField("artist"), new StringFieldValue("Lisa Ekdahl")));
+        access.session.expect((actual, parameters) -> {
+            DocumentUpdate expected = new DocumentUpdate(update);
+            expected.setCondition(new TestAndSetCondition("true"));
+            assertEquals(expected, actual);
+            parameters.responseHandler().get().handleResponse(new Response(0, null, Response.Outcome.SUCCESS));
+            return new Result();
+        });
+        response = driver.sendRequest("http://localhost/document/v1/space/music/group/a/three?condition=true", PUT,
+                                      serialized(serializer -> serializer.write(update)), DocumentV1ApiHandler.SERIALIZED_CONTENT_TYPE);
+        assertSameJson("{" +
+                       "  \"pathId\": \"/document/v1/space/music/group/a/three\"," +
+                       "  \"id\": \"id:space:music:g=a:three\"" +
+                       "}", response.readAll());
+        assertEquals(200, response.getStatus());
+
+        // The serialized document must have the id of the path.
+        access.session.expect((put, parameters) -> { throw new AssertionError("Not supposed to happen"); });
+        response = driver.sendRequest("http://localhost/document/v1/space/music/docid/two", POST,
+                                      serialized(serializer -> serializer.write(doc1)), DocumentV1ApiHandler.SERIALIZED_CONTENT_TYPE);
+        assertSameJson("{" +
+                       "  \"pathId\": \"/document/v1/space/music/docid/two\"," +
+                       "  \"message\": \"Serialized document id 'id:space:music::one' does not match document id 'id:space:music::two' of the path\"" +
+                       "}", response.readAll());
+        assertEquals(400, response.getStatus());
+
+        // Data which is not a serialized document is a bad request.
+        response = driver.sendRequest("http://localhost/document/v1/space/music/docid/one", POST,
+                                      ByteBuffer.wrap(new byte[] { 0, 8, 1, 42 }), DocumentV1ApiHandler.SERIALIZED_CONTENT_TYPE);
+        assertTrue(response.readAll().contains("Failed to deserialize put"));
+        assertEquals(400, response.getStatus());
+        driver.close();
+    }
+
+    private static ByteBuffer serialized(Consumer<DocumentSerializer> writer) {
+        GrowableByteBuffer buffer = new GrowableByteBuffer();
+        writer.accept(DocumentSerializerFactory.createHead(buffer));
+        buffer.flip();
+        return buffer.getByteBuffer();
+    }
+
+    @Test
+    public void testParallelSlices() {
+        RequestHandlerTestDriver driver = new RequestHandlerTestDriver(handler);
+        ProgressToken progress = new ProgressToken();
+        VisitorIterator.createFromExplicitBucketSet(Set.of(new BucketId(1), new BucketId(2)), 8, progress)
+                       .update(new BucketId(1), new BucketId(1));
+
+        // A streamed visit with parallel slices has one session per slice, which subdivide the requested slice.
+        List<Document> documents = List.of(doc1, doc2, doc3);
+        List<Integer> sliceIds = new CopyOnWriteArrayList<>();
+        access.expect(parameters -> {
+            assertEquals(6, parameters.getSlices());
+            assertEquals(1, ((StaticThrottlePolicy) parameters.getThrottlePolicy()).getMaxPendingCount());
+            int index = sliceIds.size();
+            sliceIds.add(parameters.getSliceId());
+            AckToken token = new AckToken(null);
+            access.expect(List.of(token));
+            parameters.getLocalDataHandler().onMessage(new PutDocumentMessage(new DocumentPut(documents.get(index))), token);
+            VisitorStatistics statistics = new VisitorStatistics();
+            statistics.setBucketsVisited(1);
+            statistics.setDocumentsVisited(1);
+            parameters.getControlHandler().onVisitorStatistics(statistics);
+            if (index == 2) {
+                parameters.getControlHandler().onProgress(progress);
+                parameters.getControlHandler().onDone(VisitorControlHandler.CompletionCode.TIMEOUT, "timeout is OK");
+            }
+            else
+                parameters.getControlHandler().onDone(VisitorControlHandler.CompletionCode.SUCCESS, "done");
+        });
+        var response = driver.sendRequest("http://localhost/document/v1?cluster=content&fieldSet=[id]&concurrency=1" +
+                                          "&stream=true&slices=2&sliceId=1&parallelSlices=3");
+        assertSameJson("""
+                       {
+                         "pathId": "/document/v1",
+                         "documents": [
+                           {
+                             "id": "id:space:music::one",
+                             "fields": {
+                               "artist": "Tom Waits",
+                               "embedding": { "type": "tensor(x[3])", "values": [1.0,2.0,3.0] }
+                             }
+                           },
+                           {
+                             "id": "id:space:music:n=1:two",
+                             "fields": {
+                               "artist": "Asa-Chan & Jun-Ray",
+                               "embedding": { "type": "tensor(x[3])", "values": [4.0,5.0,6.0] }
+                             }
+                           },
+                           {
+                             "id": "id:space:music:g=a:three",
+                             "fields": {}
+                           }
+                         ],
+                         "documentCount": 3,
+                         "sliceContinuations": [
+                           {
+                             "slices": 6,
+                             "sliceId": 5,
+                             "continuation": "%s"
+                           }
+                         ]
+                       }""".formatted(progress.serializeToString()), response.readAll());
+        assertEquals(200, response.getStatus());
+        assertEquals(List.of(1, 3, 5), sliceIds);
+
+        // Parallel slices require a streamed response, and can not be resumed from a single continuation token.
+        access.expect(parameters -> { fail("unreachable"); });
+        response = driver.sendRequest("http://localhost/document/v1?cluster=content&parallelSlices=3");
+        assertSameJson("""
+                       {
+                         "pathId": "/document/v1",
+                         "message": "parallelSlices requires 'stream=true'"
+                       }""", response.readAll());
+        assertEquals(400, response.getStatus());
+
+        response = driver.sendRequest("http://localhost/document/v1?cluster=content&stream=true&parallelSlices=3&continuation=" +
+                                      progress.serializeToString());
+        assertSameJson("""
+                       {
+                         "pathId": "/document/v1",
+                         "message": "May not specify 'continuation' at '/document/v1'"
+                       }""", response.readAll());
+        assertEquals(400, response.getStatus());
+
+        response = driver.sendRequest("http://localhost/document/v1?cluster=content&stream=true&parallelSlices=65");
+        assertSameJson("""
+                       {
+                         "pathId": "/document/v1",
+                         "message": "parallelSlices must be in [1, 64]"
+                       }""", response.readAll());
+        assertEquals(400, response.getStatus());
+        driver.close();
+    }
+
     @Test
     public void testOverLoadByAge() {
         RequestHandlerTestDriver driver = new RequestHandlerTestDriver(handler);
@@ -150,15 +150,13 @@ public class Compressor {
                     throw new IllegalStateException("Compressed size mismatch. Expected " + compressedSize + ". Got " + expectedCompressedSize.get());
                 return uncompressedLZ4Data;
             case ZSTD:
-                int compressedLength = expectedCompressedSize.orElseThrow(() -> new IllegalArgumentException("Zstd decompressor requires input size"));
-                ZstdCompressor zstdCompressor = new ZstdCompressor();
-                byte[] decompressedData = zstdCompressor.decompress(compressedData, compressedDataOffset, compressedLength);
-                expectedCompressedSize.ifPresent(expectedSize -> {
-                    if (compressedData.length != expectedSize) {
-                        throw new IllegalStateException("Compressed size mismatch. Expected " + expectedSize + ". Got " + decompressedData.length);
-                    }
-                });
-                return decompressedData;
+                int compressedLength = expectedCompressedSize.orElse(compressedData.length - compressedDataOffset);
+                byte[] uncompressedZstdData = new byte[expectedUncompressedSize];
+                int uncompressedSize = new ZstdCompressor().decompress(compressedData, compressedDataOffset, compressedLength,
+                                                                       uncompressedZstdData, 0, expectedUncompressedSize);
+                if (uncompressedSize != expectedUncompressedSize)
+                    throw new IllegalStateException("Uncompressed size mismatch. Expected " + expectedUncompressedSize + ". Got " + uncompressedSize);
+                return uncompressedZstdData;
             default:
                 throw new IllegalArgumentException(compression + " is not supported");
         }
@@ -0,0 +1,118 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import com.yahoo.tensor.impl.DenseValues;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only indexed tensor which reads its values from a buffer holding them in their serialized form,
+ * in the standard value order. Values are decoded when they are accessed, until a tensor function accesses
+ * all of them through {@link DenseValues}: They are then decoded once into an array of the narrowest type
+ * which holds them, doubles or floats, which is used for all later accesses.
+ */
+class IndexedBufferTensor extends IndexedTensor implements DenseValues {
+
+    /** The values of this, accessed only by absolute reads such that this can be read concurrently */
+    private final ByteBuffer values;
+
+    /** The value type of the serialized values, which stays the same when this is given another type */
+    private final TensorType.Value cellType;
+
+    private final int size;
+
+    /** The values of this decoded by the first call to doubleValues, if they are doubles */
+    private volatile double[] doubleValues = null;
+
+    /** The values of this decoded by the first call to floatValues, if they are not doubles */
+    private volatile float[] floatValues = null;
+
+    IndexedBufferTensor(TensorType type, DimensionSizes dimensionSizes, ByteBuffer values) {
+        this(type, dimensionSizes, type.valueType(), values.slice().asReadOnlyBuffer().order(values.order()));
+        if (values.remaining() != (long)size * cellType.sizeOfCell())
+            throw new IllegalArgumentException("Expected " + size + " " + cellType + " values, but got " +
+                                               values.remaining() + " bytes");
+    }
+
+    private IndexedBufferTensor(TensorType type, DimensionSizes dimensionSizes, TensorType.Value cellType, ByteBuffer values) {
+        super(type, dimensionSizes);
+        this.values = values;
+        this.cellType = cellType;
+        this.size = (int)dimensionSizes.totalSize();
+    }
+
+    @Override
+    public long size() { return size; }
+
+    @Override
+    public int sizeAsInt() { return size; }
+
+    @Override
+    public double get(long valueIndex) {
+        if (cellType == TensorType.Value.DOUBLE) {
+            double[] decoded = doubleValues;
+            return decoded != null ? decoded[checked(valueIndex)] : values.getDouble(checked(valueIndex) * 8);
+        }
+        return getFloat(valueIndex);
+    }
+
+    @Override
+    public float getFloat(long valueIndex) {
+        int index = checked(valueIndex);
+        float[] decoded = floatValues;
+        if (decoded != null) return decoded[index];
+        return switch (cellType) {
+            case DOUBLE -> (float)values.getDouble(index * 8);
+            case FLOAT -> values.getFloat(index * 4);
+            case BFLOAT16 -> Float.intBitsToFloat(values.getShort(index * 2) << 16);
+            case INT8 -> values.get(index);
+        };
+    }
+
+    @Override
+    public double[] doubleValues() {
+        if (cellType != TensorType.Value.DOUBLE) return null;
+        double[] decoded = doubleValues;
+        if (decoded == null) {
+            decoded = new double[size];
+            values.asDoubleBuffer().get(0, decoded);
+            doubleValues = decoded;
+        }
+        return decoded;
+    }
+
+    @Override
+    public float[] floatValues() {
+        if (cellType == TensorType.Value.DOUBLE) return null;
+        float[] decoded = floatValues;
+        if (decoded == null) {
+            decoded = new float[size];
+            for (int i = 0; i < size; i++)
+                decoded[i] = getFloat(i);
+            floatValues = decoded;
+        }
+        return decoded;
+    }
+
+    private int checked(long valueIndex) {
+        if (valueIndex < 0 || valueIndex >= size)
+            throw new IndexOutOfBoundsException("Index " + valueIndex + " out of bounds for size " + size);
+        return (int)valueIndex;
+    }
+
+    @Override
+    public IndexedTensor withType(TensorType type) {
+        throwOnIncompatibleType(type);
+        return new IndexedBufferTensor(type, dimensionSizes(), cellType, values);
+    }
+
+    /** Returns the same hash code as the tensors holding values of this value type in arrays */
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (int i = 0; i < size; i++)
+            hashCode = 31 * hashCode + (cellType == TensorType.Value.DOUBLE ? Double.hashCode(get(i)) : Float.hashCode(getFloat(i)));
+        return hashCode;
+    }
+
+}
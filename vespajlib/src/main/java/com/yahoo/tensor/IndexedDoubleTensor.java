@@ -1,6 +1,8 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.tensor;
 
+import com.yahoo.tensor.impl.DenseValues;
+
 import java.util.Arrays;
 
 /**
@@ -8,7 +10,7 @@ import java.util.Arrays;
  *
  * @author bratseth
  */
-class IndexedDoubleTensor extends IndexedTensor {
+class IndexedDoubleTensor extends IndexedTensor implements DenseValues {
 
     private final double[] values;
 
@@ -32,6 +34,12 @@ class IndexedDoubleTensor extends IndexedTensor {
     @Override
     public float getFloat(long valueIndex) { return (float)get(valueIndex); }
 
+    @Override
+    public double[] doubleValues() { return values; }
+
+    @Override
+    public float[] floatValues() { return null; }
+
     @Override
     public IndexedTensor withType(TensorType type) {
         throwOnIncompatibleType(type);
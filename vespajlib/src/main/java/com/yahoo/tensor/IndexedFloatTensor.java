@@ -1,6 +1,8 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.tensor;
 
+import com.yahoo.tensor.impl.DenseValues;
+
 import java.util.Arrays;
 
 /**
@@ -8,7 +10,7 @@ import java.util.Arrays;
  *
  * @author bratseth
  */
-class IndexedFloatTensor extends IndexedTensor {
+class IndexedFloatTensor extends IndexedTensor implements DenseValues {
 
     private final float[] values;
 
@@ -30,6 +32,12 @@ class IndexedFloatTensor extends IndexedTensor {
     @Override
     public float getFloat(long valueIndex) { return values[(int)valueIndex]; }
 
+    @Override
+    public float[] floatValues() { return values; }
+
+    @Override
+    public double[] doubleValues() { return null; }
+
     @Override
     public IndexedTensor withType(TensorType type) {
         throwOnIncompatibleType(type);
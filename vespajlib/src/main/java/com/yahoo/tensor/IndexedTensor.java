@@ -3,6 +3,7 @@ package com.yahoo.tensor;
 
 import com.google.common.collect.ImmutableMap;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -35,6 +36,22 @@ public abstract class IndexedTensor implements Tensor {
         this.dimensionSizes = dimensionSizes;
     }
 
+    /**
+     * Returns a read-only tensor which reads its values from the given buffer when they are accessed,
+     * instead of decoding them all up front. Values of smaller value types are never widened in memory.
+     *
+     * @param type the type of the tensor
+     * @param sizes the sizes of the dimensions of the tensor
+     * @param values a buffer whose remaining bytes are the values of the tensor in the standard value order,
+     *               in the binary form of the value type of the type. This is not copied, so the content
+     *               must not be changed while the tensor is in use
+     * @throws IllegalArgumentException if the number of remaining bytes does not match the type and sizes
+     */
+    public static IndexedTensor fromBuffer(TensorType type, DimensionSizes sizes, ByteBuffer values) {
+        Builder.validate(type, sizes);
+        return new IndexedBufferTensor(type, sizes, values);
+    }
+
     /**
      * Returns an iterator over the cells of this in the <i>standard value order</i>.
      */
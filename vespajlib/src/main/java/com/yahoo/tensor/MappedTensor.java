@@ -2,55 +2,81 @@
 package com.yahoo.tensor;
 
 import com.google.common.collect.ImmutableMap;
+import com.yahoo.tensor.impl.LabelIndex;
+import com.yahoo.tensor.impl.SparseValues;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
- * A sparse implementation of a tensor backed by a Map of cells to values.
+ * A sparse implementation of a tensor backed by an index of the cell addresses and an array of values.
  *
  * @author bratseth
  */
-public class MappedTensor implements Tensor {
+public class MappedTensor implements Tensor, SparseValues {
 
     private final TensorType type;
 
-    private final ImmutableMap<TensorAddress, Double> cells;
+    /** The addresses of the cells of this */
+    private final LabelIndex index;
+
+    /** The values of the cells of this, by entry in the index. This may be longer than the number of cells. */
+    private final double[] values;
 
     /** Creates a sparse tensor. The cell addresses must match the type. */
-    private MappedTensor(TensorType type, Map<TensorAddress, Double> cells) {
+    private MappedTensor(TensorType type, LabelIndex index, double[] values) {
         this.type = type;
-        this.cells = ImmutableMap.copyOf(cells);
+        this.index = index;
+        this.values = values;
     }
 
     @Override
     public TensorType type() { return type; }
 
     @Override
-    public long size() { return cells.size(); }
+    public long size() { return index.size(); }
 
     /** Once we can store more cells than an int we should drop this. */
     @Override
-    public int sizeAsInt() { return cells.size(); }
+    public int sizeAsInt() { return index.size(); }
 
     @Override
-    public double get(TensorAddress address) { return cells.getOrDefault(address, 0.0); }
+    public double get(TensorAddress address) {
+        int entry = index.indexOf(address);
+        return entry < 0 ? 0.0 : values[entry];
+    }
 
     @Override
-    public boolean has(TensorAddress address) { return cells.containsKey(address); }
+    public boolean has(TensorAddress address) { return index.indexOf(address) >= 0; }
 
     @Override
-    public Double getAsDouble(TensorAddress address) { return cells.get(address); }
+    public Double getAsDouble(TensorAddress address) {
+        int entry = index.indexOf(address);
+        return entry < 0 ? null : values[entry];
+    }
 
     @Override
-    public Iterator<Cell> cellIterator() { return new CellIteratorAdaptor(cells.entrySet().iterator()); }
+    public Iterator<Cell> cellIterator() { return new CellIterator(); }
 
     @Override
-    public Iterator<Double> valueIterator() { return cells.values().iterator(); }
+    public Iterator<Double> valueIterator() { return new ValueIterator(); }
 
     @Override
-    public Map<TensorAddress, Double> cells() { return cells; }
+    public Map<TensorAddress, Double> cells() {
+        ImmutableMap.Builder<TensorAddress, Double> cells = ImmutableMap.builderWithExpectedSize(index.size());
+        for (int entry = 0; entry < index.size(); entry++)
+            cells.put(index.address(entry), values[entry]);
+        return cells.build();
+    }
+
+    @Override
+    public LabelIndex labelIndex() { return index; }
+
+    @Override
+    public double[] sparseValues() { return values; }
 
     @Override
     public Tensor withType(TensorType other) {
@@ -58,7 +84,7 @@ public class MappedTensor implements Tensor {
             throw new IllegalArgumentException("MappedTensor.withType: types are not compatible. Current type: '" +
                     this.type + "', requested type: '" + type.toString() + "'");
         }
-        return new MappedTensor(other, cells);
+        return new MappedTensor(other, index, values);
     }
 
     @Override
@@ -74,8 +100,14 @@ public class MappedTensor implements Tensor {
         return builder.build();
     }
 
+    /** Returns the same hash code as the map returned by {@link #cells} */
     @Override
-    public int hashCode() { return cells.hashCode(); }
+    public int hashCode() {
+        int hashCode = 0;
+        for (int entry = 0; entry < index.size(); entry++)
+            hashCode += index.address(entry).hashCode() ^ Double.hashCode(values[entry]);
+        return hashCode;
+    }
 
     @Override
     public String toString() { return toString(true, true); }
@@ -100,13 +132,24 @@ public class MappedTensor implements Tensor {
 
     public static class Builder implements Tensor.Builder {
 
+        private static final int initialCapacity = 16;
+
         private final TensorType type;
-        private final ImmutableMap.Builder<TensorAddress, Double> cells = new ImmutableMap.Builder<>();
+        private LabelIndex index;
+        private double[] values;
 
-        public static Builder of(TensorType type) { return new Builder(type); }
+        /** Whether the index and values of this are owned by a built tensor, such that they must be copied before changes */
+        private boolean built = false;
 
-        private Builder(TensorType type) {
+        public static Builder of(TensorType type) { return new Builder(type, initialCapacity); }
+
+        /** Returns a builder which makes room for the given number of cells initially */
+        public static Builder of(TensorType type, int expectedSize) { return new Builder(type, expectedSize); }
+
+        private Builder(TensorType type, int expectedSize) {
             this.type = type;
+            this.index = new LabelIndex(type.rank(), expectedSize);
+            this.values = new double[Math.max(1, expectedSize)];
         }
 
         public CellBuilder cell() {
@@ -123,8 +166,11 @@ public class MappedTensor implements Tensor {
 
         @Override
         public Builder cell(TensorAddress address, double value) {
-            cells.put(address, value);
-            return this;
+            if (address.size() != type.rank())
+                throw new IllegalArgumentException(address + " is not a valid address in " + type);
+            prepareForChange();
+            int size = index.size();
+            return set(index.add(address), size, value);
         }
 
         @Override
@@ -134,32 +180,66 @@ public class MappedTensor implements Tensor {
 
         @Override
         public Builder cell(double value, long... labels) {
-            cells.put(TensorAddress.of(labels), value);
+            if (labels.length != type.rank())
+                throw new IllegalArgumentException(Arrays.toString(labels) + " is not a valid address in " + type);
+            prepareForChange();
+            int size = index.size();
+            return set(index.add(labels), size, value);
+        }
+
+        private Builder set(int entry, int previousSize, double value) {
+            if (entry < previousSize)
+                throw new IllegalArgumentException("Multiple entries with same key: " + index.address(entry) + "=" + value +
+                                                   " and " + index.address(entry) + "=" + values[entry]);
+            if (entry == values.length)
+                values = Arrays.copyOf(values, values.length * 2);
+            values[entry] = value;
             return this;
         }
 
+        private void prepareForChange() {
+            if ( ! built) return;
+            index = index.copy();
+            values = values.clone();
+            built = false;
+        }
+
         @Override
         public MappedTensor build() {
-            return new MappedTensor(type, cells.build());
+            built = true;
+            return new MappedTensor(type, index, values);
         }
 
     }
 
-    private static class CellIteratorAdaptor implements Iterator<Cell> {
+    private class CellIterator implements Iterator<Cell> {
 
-        private final Iterator<Map.Entry<TensorAddress, Double>> adaptedIterator;
+        private int entry = 0;
 
-        private CellIteratorAdaptor(Iterator<Map.Entry<TensorAddress, Double>> adaptedIterator) {
-            this.adaptedIterator = adaptedIterator;
+        @Override
+        public boolean hasNext() { return entry < index.size(); }
+
+        @Override
+        public Cell next() {
+            if ( ! hasNext()) throw new NoSuchElementException();
+            Cell cell = new Cell(index.address(entry), values[entry]);
+            entry++;
+            return cell;
         }
 
+    }
+
+    private class ValueIterator implements Iterator<Double> {
+
+        private int entry = 0;
+
         @Override
-        public boolean hasNext() { return adaptedIterator.hasNext(); }
+        public boolean hasNext() { return entry < index.size(); }
 
         @Override
-        public Cell next() {
-            Map.Entry<TensorAddress, Double> entry = adaptedIterator.next();
-            return new Cell(entry.getKey(), entry.getValue());
+        public Double next() {
+            if ( ! hasNext()) throw new NoSuchElementException();
+            return values[entry++];
         }
 
     }
@@ -4,14 +4,18 @@ package com.yahoo.tensor;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.yahoo.tensor.impl.LabelIndex;
 
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.Set;
 
 /**
@@ -61,6 +65,28 @@ public class MixedTensor implements Tensor {
         this.index = index;
     }
 
+    /**
+     * Returns a read-only tensor which decodes each dense subspace from the given buffer when it is first
+     * accessed, instead of decoding them all up front.
+     *
+     * @param type the type of the tensor, where all indexed dimensions must be bound
+     * @param sparseAddresses the addresses in the mapped dimensions of the dense subspaces of the tensor
+     * @param valueOffsets the offset in the buffer of the values of each dense subspace, in the same order as the
+     *                     addresses. The values of a subspace are in the standard value order, in the binary form
+     *                     of the value type of the type
+     * @param values a buffer whose remaining bytes hold the values of the dense subspaces. This is not copied,
+     *               so the content must not be changed while the tensor is in use
+     * @throws IllegalArgumentException if some subspace is outside the buffer, or the same address is given twice
+     */
+    public static MixedTensor fromBuffer(TensorType type, List<TensorAddress> sparseAddresses, int[] valueOffsets,
+                                         ByteBuffer values) {
+        var indexBuilder = new Index.Builder(type);
+        var subspaces = new BufferSubspaces(type.valueType(), indexBuilder.index().denseSubspaceSize(),
+                                            sparseAddresses, valueOffsets,
+                                            values.slice().asReadOnlyBuffer().order(values.order()));
+        return new MixedTensor(type, indexBuilder.build(sparseAddresses, subspaces));
+    }
+
     /** Returns the tensor type */
     @Override
     public TensorType type() { return type; }
@@ -289,17 +315,20 @@ public class MixedTensor implements Tensor {
      */
     public static class BoundBuilder extends Builder {
 
-        /** For each sparse partial address, hold a dense subspace */
-        private final Map<TensorAddress, double[]> denseSubspaceMap;
+        /** The sparse partial addresses of the dense subspaces, by entry */
+        private final LabelIndex sparseIndex;
+        /** The dense subspaces, by entry in the sparse index */
+        private final List<double[]> denseSubspaces;
         private final Index.Builder indexBuilder;
         private final Index index;
         private final TensorType denseSubtype;
 
         private BoundBuilder(TensorType type, int expectedSize) {
             super(type);
-            denseSubspaceMap = new LinkedHashMap<>(expectedSize, 0.5f);
             indexBuilder = new Index.Builder(type);
             index = indexBuilder.index();
+            sparseIndex = new LabelIndex(index.mappedDimensions.size(), expectedSize);
+            denseSubspaces = new ArrayList<>(expectedSize);
             denseSubtype = new TensorType(type.valueType(),
                                           type.dimensions().stream().filter(TensorType.Dimension::isIndexed).toList());
         }
@@ -308,13 +337,19 @@ public class MixedTensor implements Tensor {
             return index.denseSubspaceSize();
         }
 
-        private double[] denseSubspace(TensorAddress sparseAddress) {
-            return denseSubspaceMap.computeIfAbsent(sparseAddress, (key) -> new double[(int)denseSubspaceSize()]);
+        private double[] denseSubspace(int entry) {
+            if (entry == denseSubspaces.size())
+                denseSubspaces.add(new double[(int)denseSubspaceSize()]);
+            return denseSubspaces.get(entry);
         }
 
         public IndexedTensor.DirectIndexBuilder denseSubspaceBuilder(TensorAddress sparseAddress) {
             double[] values = new double[(int)denseSubspaceSize()];
-            denseSubspaceMap.put(sparseAddress, values);
+            int entry = sparseIndex.add(sparseAddress);
+            if (entry == denseSubspaces.size())
+                denseSubspaces.add(values);
+            else
+                denseSubspaces.set(entry, values);
             return new DenseSubspaceBuilder(denseSubtype, values);
         }
 
@@ -325,9 +360,9 @@ public class MixedTensor implements Tensor {
 
         @Override
         public Tensor.Builder cell(TensorAddress address, double value) {
-            TensorAddress sparsePart = address.mappedPartialAddress(index.sparseType, index.type.dimensions());
+            index.validateSize(address);
             int denseOffset = index.denseOffsetOf(address);
-            double[] denseSubspace = denseSubspace(sparsePart);
+            double[] denseSubspace = denseSubspace(sparseIndex.add(address, index.mappedDimensionIndexes));
             denseSubspace[denseOffset] = value;
             return this;
         }
@@ -337,22 +372,17 @@ public class MixedTensor implements Tensor {
             if (values.length < denseSubspaceSize)
                 throw new IllegalArgumentException("Block should have " + denseSubspaceSize +
                                                    " values, but has only " + values.length);
-            double[] denseSubspace = denseSubspace(sparsePart);
+            double[] denseSubspace = denseSubspace(sparseIndex.add(sparsePart));
             System.arraycopy(values, 0, denseSubspace, 0, denseSubspaceSize);
             return this;
         }
 
         @Override
         public MixedTensor build() {
-            //TODO This can be solved more efficiently with a single map.
-            Set<Map.Entry<TensorAddress, double[]>> entrySet = denseSubspaceMap.entrySet();
-            for (Map.Entry<TensorAddress, double[]> entry : entrySet) {
-                TensorAddress sparsePart = entry.getKey();
-                double[] denseSubspace = entry.getValue();
-                var block = new DenseSubspace(sparsePart, denseSubspace);
-                indexBuilder.addBlock(block);
-            }
-            return new MixedTensor(type, indexBuilder.build());
+            List<DenseSubspace> blocks = new ArrayList<>(denseSubspaces.size());
+            for (int entry = 0; entry < denseSubspaces.size(); entry++)
+                blocks.add(new DenseSubspace(sparseIndex.address(entry), denseSubspaces.get(entry)));
+            return new MixedTensor(type, indexBuilder.build(sparseIndex.copy(), blocks));
         }
 
         public static BoundBuilder of(TensorType type) {
@@ -371,12 +401,14 @@ public class MixedTensor implements Tensor {
      */
     private static class UnboundBuilder extends Builder {
 
-        private final Map<TensorAddress, Double> cells;
+        private final LabelIndex index;
+        private double[] values;
         private final long[] dimensionBounds;
 
         private UnboundBuilder(TensorType type, int expectedSize) {
             super(type);
-            cells = new LinkedHashMap<>(expectedSize, 0.5f);
+            index = new LabelIndex(type.rank(), expectedSize);
+            values = new double[expectedSize];
             dimensionBounds = new long[type.dimensions().size()];
         }
 
@@ -387,7 +419,10 @@ public class MixedTensor implements Tensor {
 
         @Override
         public Tensor.Builder cell(TensorAddress address, double value) {
-            cells.put(address, value);
+            int entry = index.add(address);
+            if (entry == values.length)
+                values = Arrays.copyOf(values, values.length * 2);
+            values[entry] = value;
             trackBounds(address);
             return this;
         }
@@ -395,9 +430,9 @@ public class MixedTensor implements Tensor {
         @Override
         public MixedTensor build() {
             TensorType boundType = createBoundType();
-            BoundBuilder builder = new BoundBuilder(boundType, cells.size());
-            for (Map.Entry<TensorAddress, Double> cell : cells.entrySet()) {
-                builder.cell(cell.getKey(), cell.getValue());
+            BoundBuilder builder = new BoundBuilder(boundType, index.size());
+            for (int entry = 0; entry < index.size(); entry++) {
+                builder.cell(index.address(entry), values[entry]);
             }
             return builder.build();
         }
@@ -440,13 +475,15 @@ public class MixedTensor implements Tensor {
     private static class Index {
 
         private final TensorType type;
-        private final TensorType sparseType;
         private final TensorType denseType;
         private final List<TensorType.Dimension> mappedDimensions;
         private final List<TensorType.Dimension> indexedDimensions;
         private final int[] indexedDimensionsSize;
+        /** The indexes of the mapped dimensions in the type */
+        private final int[] mappedDimensionIndexes;
 
-        private ImmutableMap<TensorAddress, Integer> sparseMap;
+        /** The sparse addresses of the dense subspaces, where the entry of each is its position in the subspace list */
+        private LabelIndex sparseIndex;
         private List<DenseSubspace> denseSubspaces;
         private final int denseSubspaceSize;
 
@@ -464,13 +501,13 @@ public class MixedTensor implements Tensor {
             this.mappedDimensions = type.dimensions().stream().filter(d -> !d.isIndexed()).toList();
             this.indexedDimensions = type.dimensions().stream().filter(TensorType.Dimension::isIndexed).toList();
             this.indexedDimensionsSize = new int[indexedDimensions.size()];
+            this.mappedDimensionIndexes = mappedDimensions.stream().mapToInt(d -> type.indexOfDimensionAsInt(d.name())).toArray();
             for (int i = 0; i < indexedDimensions.size(); i++) {
                 long dimensionSize = indexedDimensions.get(i).size().orElseThrow(() ->
                         new IllegalArgumentException("Unknown size of indexed dimension."));
                 indexedDimensionsSize[i] = (int)dimensionSize;
             }
 
-            this.sparseType = createPartialType(type.valueType(), mappedDimensions);
             this.denseType = createPartialType(type.valueType(), indexedDimensions);
             this.denseSubspaceSize = computeDSS(this.indexedDimensions);
             if (this.denseSubspaceSize < 1) {
@@ -479,14 +516,19 @@ public class MixedTensor implements Tensor {
         }
 
         private DenseSubspace blockOf(TensorAddress address) {
-            TensorAddress sparsePart = address.mappedPartialAddress(sparseType, type.dimensions());
-            Integer blockNum = sparseMap.get(sparsePart);
-            if (blockNum == null || blockNum >= denseSubspaces.size()) {
+            validateSize(address);
+            int blockNum = sparseIndex.indexOf(address, mappedDimensionIndexes);
+            if (blockNum < 0 || blockNum >= denseSubspaces.size()) {
                 return null;
             }
             return denseSubspaces.get(blockNum);
         }
 
+        private void validateSize(TensorAddress address) {
+            if (address.size() != type.rank())
+                throw new IllegalArgumentException("Tensor type of " + address + " is not the same size as " + address);
+        }
+
         private int denseOffsetOf(TensorAddress address) {
             long innerSize = 1;
             long offset = 0;
@@ -538,15 +580,16 @@ public class MixedTensor implements Tensor {
 
             // Exactly 1 mapped dimension
             StringBuilder b = new StringBuilder("{");
-            var cellEntries = new ArrayList<>(sparseMap.entrySet());
-            cellEntries.sort(Map.Entry.comparingByKey());
+            var subspaces = new ArrayList<>(denseSubspaces);
+            subspaces.sort(Comparator.comparing(subspace -> subspace.sparseAddress));
             int cellsWritten = 0;
-            for (int index = 0; index < cellEntries.size() && cellsWritten < maxCells; index++) {
+            for (int index = 0; index < subspaces.size() && cellsWritten < maxCells; index++) {
                 if (index > 0)
                     b.append(", ");
-                b.append(TensorAddress.labelToString(cellEntries.get(index).getKey().label(0)));
+                TensorAddress sparseAddress = subspaces.get(index).sparseAddress;
+                b.append(TensorAddress.labelToString(sparseAddress.label(0)));
                 b.append(":");
-                cellsWritten += denseSubspaceToString(tensor, cellEntries.get(index).getValue(), maxCells - cellsWritten, b);
+                cellsWritten += denseSubspaceToString(tensor, sparseIndex.indexOf(sparseAddress), maxCells - cellsWritten, b);
             }
             if (cellsWritten >= maxCells && cellsWritten < tensor.size())
                 b.append(", ...");
@@ -595,26 +638,54 @@ public class MixedTensor implements Tensor {
         private static class Builder {
 
             private final Index index;
-            private final ImmutableMap.Builder<TensorAddress, Integer> builder = new ImmutableMap.Builder<>();
+            private final LabelIndex sparseIndex;
             private final ImmutableList.Builder<DenseSubspace> listBuilder = new ImmutableList.Builder<>();
-            private int count = 0;
 
             Builder(TensorType type) {
                 index = new Index(type);
+                sparseIndex = new LabelIndex(index.mappedDimensions.size(), 16);
             }
 
             void addBlock(DenseSubspace block) {
+                validateSubspaceSize(block);
+                int count = sparseIndex.size();
+                if (sparseIndex.add(block.sparseAddress) < count)
+                    throw new IllegalArgumentException("Multiple dense subspaces with sparse address " + block.sparseAddress);
+                listBuilder.add(block);
+            }
+
+            private void validateSubspaceSize(DenseSubspace block) {
                 if (block.cells.length != index.denseSubspaceSize) {
                     throw new IllegalStateException("dense subspace size mismatch, expected " + index.denseSubspaceSize
                             + " cells, but got: " + block.cells.length);
                 }
-                builder.put(block.sparseAddress, count++);
-                listBuilder.add(block);
             }
 
             Index build() {
-                index.sparseMap = builder.build();
-                index.denseSubspaces = listBuilder.build();
+                return build(sparseIndex, listBuilder.build());
+            }
+
+            /**
+             * Builds an index of the given blocks without accessing them, where the address of each block
+             * is at the same position in the given list of addresses
+             */
+            Index build(List<TensorAddress> sparseAddresses, List<DenseSubspace> blocks) {
+                for (TensorAddress sparseAddress : sparseAddresses) {
+                    int count = sparseIndex.size();
+                    if (sparseIndex.add(sparseAddress) < count)
+                        throw new IllegalArgumentException("Multiple dense subspaces with sparse address " + sparseAddress);
+                }
+                index.sparseIndex = sparseIndex;
+                index.denseSubspaces = blocks;
+                return index;
+            }
+
+            /** Builds an index of the given blocks, where the entry of the address of each block in the sparse index is its position */
+            Index build(LabelIndex sparseIndex, List<DenseSubspace> blocks) {
+                for (DenseSubspace block : blocks)
+                    validateSubspaceSize(block);
+                index.sparseIndex = sparseIndex;
+                index.denseSubspaces = List.copyOf(blocks);
                 return index;
             }
 
@@ -624,6 +695,67 @@ public class MixedTensor implements Tensor {
         }
     }
 
+    /**
+     * Dense subspaces which are decoded from a buffer holding their values in serialized form when they are first
+     * accessed. Concurrent readers may decode the same subspace more than once, which is harmless, as subspaces
+     * are immutable and the buffer is only accessed by absolute reads.
+     */
+    private static class BufferSubspaces extends AbstractList<DenseSubspace> implements RandomAccess {
+
+        private final TensorType.Value cellType;
+        private final int subspaceSize;
+        private final List<TensorAddress> sparseAddresses;
+        private final int[] valueOffsets;
+        private final ByteBuffer values;
+        private final DenseSubspace[] decoded;
+
+        BufferSubspaces(TensorType.Value cellType, int subspaceSize,
+                        List<TensorAddress> sparseAddresses, int[] valueOffsets, ByteBuffer values) {
+            if (sparseAddresses.size() != valueOffsets.length)
+                throw new IllegalArgumentException("Got " + sparseAddresses.size() + " sparse addresses, but " +
+                                                   valueOffsets.length + " value offsets");
+            long subspaceBytes = (long)subspaceSize * cellType.sizeOfCell();
+            for (int offset : valueOffsets) {
+                if (offset < 0 || offset + subspaceBytes > values.limit())
+                    throw new IllegalArgumentException("Expected " + subspaceSize + " " + cellType + " values at offset " +
+                                                       offset + ", but got " + values.limit() + " bytes");
+            }
+            this.cellType = cellType;
+            this.subspaceSize = subspaceSize;
+            this.sparseAddresses = List.copyOf(sparseAddresses);
+            this.valueOffsets = valueOffsets.clone();
+            this.values = values;
+            this.decoded = new DenseSubspace[valueOffsets.length];
+        }
+
+        @Override
+        public int size() { return decoded.length; }
+
+        @Override
+        public DenseSubspace get(int index) {
+            DenseSubspace subspace = decoded[index];
+            if (subspace == null) {
+                subspace = new DenseSubspace(sparseAddresses.get(index), decode(valueOffsets[index]));
+                decoded[index] = subspace;
+            }
+            return subspace;
+        }
+
+        private double[] decode(int offset) {
+            double[] cells = new double[subspaceSize];
+            for (int i = 0; i < subspaceSize; i++) {
+                cells[i] = switch (cellType) {
+                    case DOUBLE -> values.getDouble(offset + i * 8);
+                    case FLOAT -> values.getFloat(offset + i * 4);
+                    case BFLOAT16 -> Float.intBitsToFloat(values.getShort(offset + i * 2) << 16);
+                    case INT8 -> values.get(offset + i);
+                };
+            }
+            return cells;
+        }
+
+    }
+
     private record DenseSubspaceBuilder(TensorType type, double[] values) implements IndexedTensor.DirectIndexBuilder {
 
         @Override
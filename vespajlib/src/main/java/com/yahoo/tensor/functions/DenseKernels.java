@@ -0,0 +1,122 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.DimensionSizes;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.impl.DenseValues;
+
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Loops over the value arrays of dense tensors, used by the tensor functions when their arguments are
+ * held in arrays. These avoid boxing and virtual calls per value such that the loops can be unrolled
+ * and, where the order of operations permits, vectorized by the JIT compiler.
+ *
+ * All values are combined and aggregated as doubles in the standard value order,
+ * such that the results are the same as those of the general implementations.
+ * These are disabled by setting the system property vespa.tensor.dense_kernels to false.
+ */
+final class DenseKernels {
+
+    private static final boolean enabled = System.getProperty("vespa.tensor.dense_kernels", "true").equals("true");
+
+    private DenseKernels() {}
+
+    /**
+     * Returns the result of joining the first values of two tensors into a tensor of the given type and sizes,
+     * or null if the values of these tensors are not held in arrays of the same type.
+     * Values are combined as doubles, and stored as floats if that is the value type of the result,
+     * as when they are added to a builder.
+     */
+    static Tensor join(IndexedTensor a, IndexedTensor b, TensorType type, DimensionSizes sizes, DoubleBinaryOperator combinator) {
+        if ( ! enabled) return null;
+        if ( ! (a instanceof DenseValues aValues) || ! (b instanceof DenseValues bValues)) return null;
+        int size = (int) sizes.totalSize();
+        if (aValues.doubleValues() != null && bValues.doubleValues() != null && type.valueType() == TensorType.Value.DOUBLE)
+            return IndexedTensor.Builder.of(type, sizes, join(aValues.doubleValues(), bValues.doubleValues(), size, combinator)).build();
+        if (aValues.floatValues() != null && bValues.floatValues() != null && type.valueType() != TensorType.Value.DOUBLE)
+            return IndexedTensor.Builder.of(type, sizes, join(aValues.floatValues(), bValues.floatValues(), size, combinator)).build();
+        return null;
+    }
+
+    private static double[] join(double[] a, double[] b, int size, DoubleBinaryOperator combinator) {
+        double[] result = new double[size];
+        if (combinator instanceof ScalarFunctions.Add)
+            for (int i = 0; i < size; i++) result[i] = a[i] + b[i];
+        else if (combinator instanceof ScalarFunctions.Subtract)
+            for (int i = 0; i < size; i++) result[i] = a[i] - b[i];
+        else if (combinator instanceof ScalarFunctions.Multiply)
+            for (int i = 0; i < size; i++) result[i] = a[i] * b[i];
+        else if (combinator instanceof ScalarFunctions.Divide)
+            for (int i = 0; i < size; i++) result[i] = a[i] / b[i];
+        else if (combinator instanceof ScalarFunctions.Max)
+            for (int i = 0; i < size; i++) result[i] = Math.max(a[i], b[i]);
+        else if (combinator instanceof ScalarFunctions.Min)
+            for (int i = 0; i < size; i++) result[i] = Math.min(a[i], b[i]);
+        else
+            for (int i = 0; i < size; i++) result[i] = combinator.applyAsDouble(a[i], b[i]);
+        return result;
+    }
+
+    private static float[] join(float[] a, float[] b, int size, DoubleBinaryOperator combinator) {
+        float[] result = new float[size];
+        if (combinator instanceof ScalarFunctions.Add)
+            for (int i = 0; i < size; i++) result[i] = (float) ((double) a[i] + b[i]);
+        else if (combinator instanceof ScalarFunctions.Subtract)
+            for (int i = 0; i < size; i++) result[i] = (float) ((double) a[i] - b[i]);
+        else if (combinator instanceof ScalarFunctions.Multiply)
+            for (int i = 0; i < size; i++) result[i] = (float) ((double) a[i] * b[i]);
+        else if (combinator instanceof ScalarFunctions.Divide)
+            for (int i = 0; i < size; i++) result[i] = (float) ((double) a[i] / b[i]);
+        else if (combinator instanceof ScalarFunctions.Max)
+            for (int i = 0; i < size; i++) result[i] = Math.max(a[i], b[i]);
+        else if (combinator instanceof ScalarFunctions.Min)
+            for (int i = 0; i < size; i++) result[i] = Math.min(a[i], b[i]);
+        else
+            for (int i = 0; i < size; i++) result[i] = (float) combinator.applyAsDouble(a[i], b[i]);
+        return result;
+    }
+
+    /**
+     * Returns whether products of the given tensors, joined with the given combinator and reduced with
+     * the given aggregator, can be computed by {@link #dotProduct}.
+     */
+    static boolean canComputeDotProducts(IndexedTensor a, IndexedTensor b,
+                                         DoubleBinaryOperator combinator, Reduce.Aggregator aggregator) {
+        if ( ! enabled) return false;
+        if (aggregator != Reduce.Aggregator.sum || ! (combinator instanceof ScalarFunctions.Multiply)) return false;
+        if ( ! (a instanceof DenseValues aValues) || ! (b instanceof DenseValues bValues)) return false;
+        return (aValues.doubleValues() != null && bValues.doubleValues() != null) ||
+               (aValues.floatValues() != null && bValues.floatValues() != null);
+    }
+
+    /**
+     * Returns the sum of the products of <code>length</code> values of two tensors accepted by
+     * {@link #canComputeDotProducts}, starting at the given offsets into their values.
+     */
+    static double dotProduct(IndexedTensor a, int aOffset, IndexedTensor b, int bOffset, int length) {
+        DenseValues aValues = (DenseValues) a;
+        DenseValues bValues = (DenseValues) b;
+        if (aValues.doubleValues() != null)
+            return dotProduct(aValues.doubleValues(), aOffset, bValues.doubleValues(), bOffset, length);
+        else
+            return dotProduct(aValues.floatValues(), aOffset, bValues.floatValues(), bOffset, length);
+    }
+
+    private static double dotProduct(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++)
+            sum += a[aOffset + i] * b[bOffset + i];
+        return sum;
+    }
+
+    private static double dotProduct(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++)
+            sum += (double) a[aOffset + i] * b[bOffset + i];
+        return sum;
+    }
+
+}
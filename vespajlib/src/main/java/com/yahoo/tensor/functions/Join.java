@@ -4,6 +4,7 @@ package com.yahoo.tensor.functions;
 import com.google.common.collect.Sets;
 import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.MappedTensor;
 import com.yahoo.tensor.PartialAddress;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
@@ -12,6 +13,8 @@ import com.yahoo.tensor.TypeResolver;
 import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
 import com.yahoo.tensor.evaluation.TypeContext;
+import com.yahoo.tensor.impl.LabelIndex;
+import com.yahoo.tensor.impl.SparseValues;
 import com.yahoo.tensor.impl.TensorAddressAny;
 
 import java.util.ArrayList;
@@ -100,7 +103,9 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         if (hasSingleIndexedDimension(a) && hasSingleIndexedDimension(b) && a.type().dimensions().get(0).name().equals(b.type().dimensions().get(0).name()))
             return indexedVectorJoin((IndexedTensor)a, (IndexedTensor)b, joinedType, combinator);
         else if (joinedType.dimensions().size() == a.type().dimensions().size() && joinedType.dimensions().size() == b.type().dimensions().size())
-            return singleSpaceJoin(a, b, joinedType, combinator);
+            return denseSingleSpaceJoin(a, b, joinedType, combinator)
+                           .or(() -> sparseSingleSpaceJoin(a, b, joinedType, combinator))
+                           .orElseGet(() -> singleSpaceJoin(a, b, joinedType, combinator));
         else if (a.type().dimensions().containsAll(b.type().dimensions()))
             return subspaceJoin(b, a, joinedType, true, combinator);
         else if (b.type().dimensions().containsAll(a.type().dimensions()))
@@ -116,14 +121,45 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
 
     private static Tensor indexedVectorJoin(IndexedTensor a, IndexedTensor b, TensorType type, DoubleBinaryOperator combinator) {
         int joinedRank = (int)Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
+        DimensionSizes joinedSizes = new DimensionSizes.Builder(1).set(0, joinedRank).build();
+        Tensor joined = DenseKernels.join(a, b, type, joinedSizes, combinator);
+        if (joined != null) return joined;
+
         Iterator<Double> aIterator = a.valueIterator();
         Iterator<Double> bIterator = b.valueIterator();
-        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type, new DimensionSizes.Builder(1).set(0, joinedRank).build());
+        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type, joinedSizes);
         for (int i = 0; i < joinedRank; i++)
             builder.cell(combinator.applyAsDouble(aIterator.next(), bIterator.next()), i);
         return builder.build();
     }
 
+    /** When both tensors are dense with the same dimensions and sizes, their values can be joined in order */
+    private static Optional<Tensor> denseSingleSpaceJoin(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
+        if ( ! (a instanceof IndexedTensor indexedA) || ! (b instanceof IndexedTensor indexedB)) return Optional.empty();
+        if ( ! indexedA.dimensionSizes().equals(indexedB.dimensionSizes())) return Optional.empty();
+        return Optional.ofNullable(DenseKernels.join(indexedA, indexedB, joinedType, indexedA.dimensionSizes(), combinator));
+    }
+
+    /** When both tensors are mapped with the same dimensions, cells can be matched by their labels */
+    private static Optional<Tensor> sparseSingleSpaceJoin(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
+        if ( ! (a instanceof SparseValues sparseA) || ! (b instanceof SparseValues sparseB)) return Optional.empty();
+        if (joinedType.hasIndexedDimensions()) return Optional.empty();
+        LabelIndex aIndex = sparseA.labelIndex();
+        LabelIndex bIndex = sparseB.labelIndex();
+        double[] aValues = sparseA.sparseValues();
+        double[] bValues = sparseB.sparseValues();
+        Tensor.Builder builder = Tensor.Builder.of(joinedType);
+        long[] labels = new long[aIndex.rank()];
+        for (int aCell = 0; aCell < aIndex.size(); aCell++) {
+            for (int i = 0; i < labels.length; i++)
+                labels[i] = aIndex.label(aCell, i);
+            int bCell = bIndex.indexOf(labels);
+            if (bCell >= 0)
+                builder.cell(combinator.applyAsDouble(aValues[aCell], bValues[bCell]), labels);
+        }
+        return Optional.of(builder.build());
+    }
+
     /** When both tensors have the same dimensions, at most one cell matches a cell in the other tensor */
     private static Tensor singleSpaceJoin(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
         Tensor.Builder builder = Tensor.Builder.of(joinedType);
@@ -204,6 +240,8 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
 
     private static Tensor generalSubspaceJoin(Tensor subspace, Tensor superspace, TensorType joinedType, boolean reversedArgumentOrder, DoubleBinaryOperator combinator) {
         int[] subspaceIndexes = subspaceIndexes(superspace.type(), subspace.type());
+        if (subspace instanceof SparseValues sparseSubspace && superspace instanceof SparseValues sparseSuperspace && ! joinedType.hasIndexedDimensions())
+            return sparseSubspaceJoin(sparseSubspace, sparseSuperspace, subspaceIndexes, joinedType, reversedArgumentOrder, combinator);
         Tensor.Builder builder = Tensor.Builder.of(joinedType);
         for (Iterator<Tensor.Cell> i = superspace.cellIterator(); i.hasNext(); ) {
             Map.Entry<TensorAddress, Double> supercell = i.next();
@@ -219,6 +257,31 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         return builder.build();
     }
 
+    /** Joins a mapped tensor into a mapped superspace by looking up the subspace labels of each cell in the subspace index */
+    private static Tensor sparseSubspaceJoin(SparseValues subspace, SparseValues superspace, int[] subspaceIndexes,
+                                             TensorType joinedType, boolean reversedArgumentOrder, DoubleBinaryOperator combinator) {
+        LabelIndex subIndex = subspace.labelIndex();
+        LabelIndex superIndex = superspace.labelIndex();
+        double[] subValues = subspace.sparseValues();
+        double[] superValues = superspace.sparseValues();
+        Tensor.Builder builder = MappedTensor.Builder.of(joinedType, superIndex.size());
+        long[] subLabels = new long[subspaceIndexes.length];
+        long[] superLabels = new long[superIndex.rank()];
+        for (int superCell = 0; superCell < superIndex.size(); superCell++) {
+            for (int i = 0; i < subLabels.length; i++)
+                subLabels[i] = superIndex.label(superCell, subspaceIndexes[i]);
+            int subCell = subIndex.indexOf(subLabels);
+            if (subCell < 0) continue;
+            for (int i = 0; i < superLabels.length; i++)
+                superLabels[i] = superIndex.label(superCell, i);
+            builder.cell(reversedArgumentOrder
+                         ? combinator.applyAsDouble(superValues[superCell], subValues[subCell])
+                         : combinator.applyAsDouble(subValues[subCell], superValues[superCell]),
+                         superLabels);
+        }
+        return builder.build();
+    }
+
     /** Returns the indexes in the superspace type which should be retained to create the subspace type */
     private static int[] subspaceIndexes(TensorType supertype, TensorType subtype) {
         int[] subspaceIndexes = new int[subtype.dimensions().size()];
@@ -333,6 +396,10 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         int[] aIndexesInJoined = mapIndexes(a.type(), joinedType);
         int[] bIndexesInJoined = mapIndexes(b.type(), joinedType);
 
+        if (a instanceof SparseValues sparseA && b instanceof SparseValues sparseB && ! joinedType.hasIndexedDimensions())
+            return sparseHashJoin(sparseA, sparseB, swapTensors, aIndexesInCommon, bIndexesInCommon,
+                                  aIndexesInJoined, bIndexesInJoined, joinedType, combinator);
+
         // Iterate once through the smaller tensor and construct a hash map for common dimensions
         Map<TensorAddress, List<Tensor.Cell>> aCellsByCommonAddress = new HashMap<>(a.sizeAsInt());
         for (Iterator<Tensor.Cell> cellIterator = a.cellIterator(); cellIterator.hasNext(); ) {
@@ -360,6 +427,52 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         return builder.build();
     }
 
+    /** Hash joins two mapped tensors on their label indexes, without creating any objects per cell */
+    private static Tensor sparseHashJoin(SparseValues a, SparseValues b, boolean swapTensors,
+                                         int[] aIndexesInCommon, int[] bIndexesInCommon,
+                                         int[] aIndexesInJoined, int[] bIndexesInJoined,
+                                         TensorType joinedType, DoubleBinaryOperator combinator) {
+        LabelIndex aIndex = a.labelIndex();
+        LabelIndex bIndex = b.labelIndex();
+        double[] aValues = a.sparseValues();
+        double[] bValues = b.sparseValues();
+
+        // Chain the cells of the smaller tensor by their labels in the common dimensions, in cell order
+        LabelIndex commonIndex = new LabelIndex(aIndexesInCommon.length, aIndex.size());
+        long[] commonLabels = new long[aIndexesInCommon.length];
+        int[] firstCell = new int[aIndex.size()];
+        int[] nextCell = new int[aIndex.size()];
+        Arrays.fill(firstCell, -1);
+        for (int aCell = aIndex.size() - 1; aCell >= 0; aCell--) {
+            for (int i = 0; i < commonLabels.length; i++)
+                commonLabels[i] = aIndex.label(aCell, aIndexesInCommon[i]);
+            int common = commonIndex.add(commonLabels);
+            nextCell[aCell] = firstCell[common];
+            firstCell[common] = aCell;
+        }
+
+        // Look up the cells of the larger tensor in the chains
+        Tensor.Builder builder = MappedTensor.Builder.of(joinedType, aIndex.size());
+        long[] joinedLabels = new long[joinedType.rank()];
+        for (int bCell = 0; bCell < bIndex.size(); bCell++) {
+            for (int i = 0; i < commonLabels.length; i++)
+                commonLabels[i] = bIndex.label(bCell, bIndexesInCommon[i]);
+            int common = commonIndex.indexOf(commonLabels);
+            if (common < 0) continue;
+            for (int i = 0; i < bIndexesInJoined.length; i++)
+                joinedLabels[bIndexesInJoined[i]] = bIndex.label(bCell, i);
+            for (int aCell = firstCell[common]; aCell >= 0; aCell = nextCell[aCell]) {
+                for (int i = 0; i < aIndexesInJoined.length; i++)
+                    joinedLabels[aIndexesInJoined[i]] = aIndex.label(aCell, i);
+                double combinedValue = swapTensors ?
+                        combinator.applyAsDouble(bValues[bCell], aValues[aCell]) :
+                        combinator.applyAsDouble(aValues[aCell], bValues[bCell]);
+                builder.cell(combinedValue, joinedLabels);
+            }
+        }
+        return builder.build();
+    }
+
     /**
      * Returns an array having one entry in order for each dimension of fromType
      * containing the index at which toType contains the same dimension name.
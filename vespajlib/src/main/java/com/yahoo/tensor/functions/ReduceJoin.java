@@ -165,6 +165,13 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         DimensionSizes sizesA = a.dimensionSizes();
         DimensionSizes sizesB = b.dimensionSizes();
 
+        if (DenseKernels.canComputeDotProducts(a, b, combinator, aggregator)) { // multiplication commutes, so swapped does not matter
+            int commonSize = (int) Math.min(sizesA.size(0), sizesB.size(1));
+            for (int ib = 0; ib < sizesB.size(0); ++ib)
+                builder.cellByDirectIndex(ib, DenseKernels.dotProduct(a, 0, b, (int) (ib * sizesB.size(1)), commonSize));
+            return builder.build();
+        }
+
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
         for (int ib = 0; ib < sizesB.size(0); ++ib) {
             agg.reset();
@@ -191,6 +198,17 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         long strideA = iaToReduced < ibToReduced ? sizesB.size(0) : 1;
         long strideB = ibToReduced < iaToReduced ? sizesA.size(0) : 1;
 
+        if (DenseKernels.canComputeDotProducts(a, b, combinator, aggregator)) {
+            int commonSize = (int) Math.min(sizesA.size(1), sizesB.size(1));
+            for (int ia = 0; ia < sizesA.size(0); ++ia) {
+                for (int ib = 0; ib < sizesB.size(0); ++ib) {
+                    double product = DenseKernels.dotProduct(a, (int) (ia * sizesA.size(1)), b, (int) (ib * sizesB.size(1)), commonSize);
+                    builder.cellByDirectIndex(ia * strideA + ib * strideB, product);
+                }
+            }
+            return builder.build();
+        }
+
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
         for (int ia = 0; ia < sizesA.size(0); ++ia) {
             for (int ib = 0; ib < sizesB.size(0); ++ib) {
@@ -0,0 +1,18 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.impl;
+
+/**
+ * Direct access to the array holding the values of a dense tensor, in the standard value order,
+ * for tensor functions which operate on all the values at once. The returned arrays must not be modified.
+ *
+ * Exactly one of the methods returns a non-null array.
+ */
+public interface DenseValues {
+
+    /** Returns the values of this if they are held as doubles, and null otherwise */
+    double[] doubleValues();
+
+    /** Returns the values of this if they are held as floats, and null otherwise */
+    float[] floatValues();
+
+}
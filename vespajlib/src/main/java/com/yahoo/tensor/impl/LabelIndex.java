@@ -0,0 +1,224 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.impl;
+
+import com.yahoo.tensor.TensorAddress;
+
+import java.util.Arrays;
+
+/**
+ * An insertion ordered set of label tuples of a given rank, where each tuple is assigned the entry number
+ * given by the order it was added in. The numeric labels (see {@link Label}) of all the tuples are held in a
+ * single long array, and are found through a hash table of entry numbers chained in an int array,
+ * such that no objects are created per entry. This is used to store the cells of mapped tensors,
+ * and their sparse subspaces, in arrays indexed by entry number.
+ *
+ * This is not thread safe while entries are added.
+ */
+public final class LabelIndex {
+
+    private static final int minCapacity = 8;
+
+    private final int rank;
+
+    /** The labels of each entry, entry i at [i * rank, (i + 1) * rank) */
+    private long[] labels;
+
+    /** The first entry + 1 of each hash bucket, or 0 if it is empty */
+    private int[] buckets;
+
+    /** The next entry + 1 in the bucket of each entry, or 0 if it is the last */
+    private int[] next;
+
+    private int size = 0;
+
+    /**
+     * Creates an empty index
+     *
+     * @param rank the number of labels of each entry in this
+     * @param expectedSize the number of entries to make room for initially
+     */
+    public LabelIndex(int rank, int expectedSize) {
+        this.rank = rank;
+        int capacity = Math.max(minCapacity, expectedSize);
+        this.labels = new long[capacity * rank];
+        this.next = new int[capacity];
+        this.buckets = new int[bucketCountFor(capacity)];
+    }
+
+    private LabelIndex(LabelIndex other) {
+        this.rank = other.rank;
+        this.labels = other.labels.clone();
+        this.buckets = other.buckets.clone();
+        this.next = other.next.clone();
+        this.size = other.size;
+    }
+
+    /** Returns the number of labels in each entry of this */
+    public int rank() { return rank; }
+
+    /** Returns the number of entries in this */
+    public int size() { return size; }
+
+    /** Returns the label of the given dimension of the given entry */
+    public long label(int entry, int dimension) {
+        return labels[entry * rank + dimension];
+    }
+
+    /** Returns the labels of the given entry as an address */
+    public TensorAddress address(int entry) {
+        int start = entry * rank;
+        return switch (rank) {
+            case 0 -> TensorAddressEmpty.empty;
+            case 1 -> new TensorAddressAny1(labels[start]);
+            case 2 -> new TensorAddressAny2(labels[start], labels[start + 1]);
+            case 3 -> new TensorAddressAny3(labels[start], labels[start + 1], labels[start + 2]);
+            case 4 -> new TensorAddressAny4(labels[start], labels[start + 1], labels[start + 2], labels[start + 3]);
+            default -> new TensorAddressAnyN(Arrays.copyOfRange(labels, start, start + rank));
+        };
+    }
+
+    /** Returns the entry of the given address, adding it if it is not present. The address must have the rank of this. */
+    public int add(TensorAddress address) {
+        return add(address, null);
+    }
+
+    /**
+     * Returns the entry of the labels of the given dimensions of the given address, adding it if it is not present.
+     *
+     * @param address the address containing the labels of the entry
+     * @param dimensions the dimensions of the address holding the labels of this, in the order of this,
+     *                   or null to use all the dimensions of the address
+     */
+    public int add(TensorAddress address, int[] dimensions) {
+        int hash = hash(address, dimensions);
+        int entry = find(hash, address, dimensions);
+        if (entry >= 0) return entry;
+        entry = append();
+        for (int i = 0; i < rank; i++)
+            labels[entry * rank + i] = address.numericLabel(dimensions == null ? i : dimensions[i]);
+        link(entry, hash);
+        return entry;
+    }
+
+    /** Returns the entry of the given labels, adding it if it is not present. The array is not retained. */
+    public int add(long[] labels) {
+        int hash = hash(labels, 0);
+        int entry = find(hash, labels);
+        if (entry >= 0) return entry;
+        entry = append();
+        System.arraycopy(labels, 0, this.labels, entry * rank, rank);
+        link(entry, hash);
+        return entry;
+    }
+
+    /** Returns the entry of the given address, or -1 if it is not present */
+    public int indexOf(TensorAddress address) {
+        if (address.size() != rank) return -1;
+        return indexOf(address, null);
+    }
+
+    /**
+     * Returns the entry of the labels of the given dimensions of the given address, or -1 if it is not present.
+     *
+     * @param address the address containing the labels to look up
+     * @param dimensions the dimensions of the address holding the labels of this, in the order of this,
+     *                   or null to use all the dimensions of the address
+     */
+    public int indexOf(TensorAddress address, int[] dimensions) {
+        return find(hash(address, dimensions), address, dimensions);
+    }
+
+    /** Returns the entry of the given labels, or -1 if it is not present */
+    public int indexOf(long[] labels) {
+        return find(hash(labels, 0), labels);
+    }
+
+    /** Returns a copy of this which can be modified independently of it */
+    public LabelIndex copy() {
+        return new LabelIndex(this);
+    }
+
+    private int find(int hash, TensorAddress address, int[] dimensions) {
+        for (int entry = buckets[hash & (buckets.length - 1)] - 1; entry >= 0; entry = next[entry] - 1) {
+            if (labelsEqual(entry, address, dimensions))
+                return entry;
+        }
+        return -1;
+    }
+
+    private int find(int hash, long[] labels) {
+        for (int entry = buckets[hash & (buckets.length - 1)] - 1; entry >= 0; entry = next[entry] - 1) {
+            if (labelsEqual(entry, labels))
+                return entry;
+        }
+        return -1;
+    }
+
+    private boolean labelsEqual(int entry, TensorAddress address, int[] dimensions) {
+        for (int i = 0; i < rank; i++) {
+            if (labels[entry * rank + i] != address.numericLabel(dimensions == null ? i : dimensions[i])) return false;
+        }
+        return true;
+    }
+
+    private boolean labelsEqual(int entry, long[] labels) {
+        for (int i = 0; i < rank; i++) {
+            if (this.labels[entry * rank + i] != labels[i]) return false;
+        }
+        return true;
+    }
+
+    /** Adds a new entry and returns it. The caller must set the labels of the entry and then link it. */
+    private int append() {
+        if (size == next.length) {
+            labels = Arrays.copyOf(labels, labels.length * 2);
+            next = Arrays.copyOf(next, next.length * 2);
+        }
+        if (bucketCountFor(size + 1) > buckets.length)
+            rehash(buckets.length * 2);
+        return size++;
+    }
+
+    /** Links the given entry, whose labels are set, into the bucket of the given hash */
+    private void link(int entry, int hash) {
+        int bucket = hash & (buckets.length - 1);
+        next[entry] = buckets[bucket];
+        buckets[bucket] = entry + 1;
+    }
+
+    private void rehash(int bucketCount) {
+        buckets = new int[bucketCount];
+        for (int entry = 0; entry < size; entry++)
+            link(entry, hash(labels, entry * rank));
+    }
+
+    private int hash(TensorAddress address, int[] dimensions) {
+        long hash = 0;
+        for (int i = 0; i < rank; i++)
+            hash = hash * 0x9E3779B97F4A7C15L + address.numericLabel(dimensions == null ? i : dimensions[i]);
+        return spread(hash);
+    }
+
+    /** Returns the hash of the labels of an entry starting at the given offset into the given array */
+    private int hash(long[] labels, int offset) {
+        long hash = 0;
+        for (int i = 0; i < rank; i++)
+            hash = hash * 0x9E3779B97F4A7C15L + labels[offset + i];
+        return spread(hash);
+    }
+
+    /**
+     * Folds the hash into an int. The last label is added to the hash without mixing, such that consecutive labels,
+     * which are common, are placed in consecutive buckets and looked up with few cache misses.
+     */
+    private static int spread(long hash) {
+        int h = (int) (hash ^ (hash >>> 32));
+        return h ^ (h >>> 16);
+    }
+
+    /** Returns the smallest power of two which can hold the given number of entries with a load factor of at most 0.75 */
+    private static int bucketCountFor(int capacity) {
+        return Integer.highestOneBit((capacity * 4 + 2) / 3 - 1) << 1;
+    }
+
+}
@@ -0,0 +1,16 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.impl;
+
+/**
+ * Direct access to the addresses and values of a sparse tensor, for tensor functions which operate on
+ * all the cells at once. The returned index and array must not be modified.
+ */
+public interface SparseValues {
+
+    /** Returns the index of the cell addresses of this, where the entry of each address is the position of its value */
+    LabelIndex labelIndex();
+
+    /** Returns the values of this by entry in the label index. This array may be longer than the number of cells. */
+    double[] sparseValues();
+
+}
@@ -28,4 +28,15 @@ interface BinaryFormat {
      */
     Tensor decode(Optional<TensorType> type, GrowableByteBuffer buffer);
 
+    /**
+     * Deserialize the given binary data into a Tensor object which reads its cells from the buffer as they are
+     * accessed, if this format supports it. This default implementation decodes the tensor fully.
+     *
+     * @param type the expected abstract type of the tensor to serialize, or empty to use type information from the data
+     * @param buffer the buffer containing the tensor binary data, which must not be changed while the tensor is in use
+     */
+    default Tensor decodeView(Optional<TensorType> type, GrowableByteBuffer buffer) {
+        return decode(type, buffer);
+    }
+
 }
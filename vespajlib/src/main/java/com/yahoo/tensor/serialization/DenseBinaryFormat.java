@@ -7,6 +7,7 @@ import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.nio.ByteBuffer;
 import java.util.Optional;
 
 /**
@@ -77,29 +78,39 @@ public class DenseBinaryFormat implements BinaryFormat {
 
     @Override
     public Tensor decode(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
-        TensorType type;
-        DimensionSizes sizes;
-        if (optionalType.isPresent()) {
-            type = optionalType.get();
-            if (type.valueType() != this.serializationValueType) {
-                throw new IllegalArgumentException("Tensor value type mismatch. Value type " + type.valueType() +
-                                                   " is not " + this.serializationValueType);
-            }
-            TensorType serializedType = decodeType(buffer);
-            if ( ! serializedType.isAssignableTo(type))
-                throw new IllegalArgumentException("Type/instance mismatch: A tensor of type " + serializedType +
-                                                   " cannot be assigned to type " + type);
-            sizes = sizesFromType(serializedType);
-        }
-        else {
-            type = decodeType(buffer);
-            sizes = sizesFromType(type);
-        }
-        Tensor.Builder builder = Tensor.Builder.of(type, sizes);
+        TensorType serializedType = decodeAndValidateType(optionalType, buffer);
+        DimensionSizes sizes = sizesFromType(serializedType);
+        Tensor.Builder builder = Tensor.Builder.of(optionalType.orElse(serializedType), sizes);
         decodeCells(sizes, buffer, (IndexedTensor.BoundBuilder)builder);
         return builder.build();
     }
 
+    @Override
+    public Tensor decodeView(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
+        TensorType serializedType = decodeAndValidateType(optionalType, buffer);
+        DimensionSizes sizes = sizesFromType(serializedType);
+        int length = (int)sizes.totalSize() * cellSize();
+        ByteBuffer cells = buffer.getByteBuffer().slice(buffer.position(), length).order(buffer.order());
+        buffer.position(buffer.position() + length);
+        return IndexedTensor.fromBuffer(optionalType.orElse(serializedType), sizes, cells);
+    }
+
+    /** Decodes the type in the buffer and validates it against the given type, if any */
+    private TensorType decodeAndValidateType(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
+        if (optionalType.isEmpty()) return decodeType(buffer);
+
+        TensorType type = optionalType.get();
+        if (type.valueType() != this.serializationValueType) {
+            throw new IllegalArgumentException("Tensor value type mismatch. Value type " + type.valueType() +
+                                               " is not " + this.serializationValueType);
+        }
+        TensorType serializedType = decodeType(buffer);
+        if ( ! serializedType.isAssignableTo(type))
+            throw new IllegalArgumentException("Type/instance mismatch: A tensor of type " + serializedType +
+                                               " cannot be assigned to type " + type);
+        return serializedType;
+    }
+
     private TensorType decodeType(GrowableByteBuffer buffer) {
         TensorType.Builder builder = new TensorType.Builder(serializationValueType);
         int dimensionCount = buffer.getInt1_4Bytes();
@@ -116,6 +127,15 @@ public class DenseBinaryFormat implements BinaryFormat {
         return builder.build();
     }
 
+    private int cellSize() {
+        return switch (serializationValueType) {
+            case DOUBLE -> 8;
+            case FLOAT -> 4;
+            case BFLOAT16 -> 2;
+            case INT8 -> 1;
+        };
+    }
+
     private void decodeCells(DimensionSizes sizes, GrowableByteBuffer buffer, IndexedTensor.BoundBuilder builder) {
         switch (serializationValueType) {
             case DOUBLE: decodeDoubleCells(sizes, builder, buffer); break;
@@ -8,6 +8,8 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
@@ -89,26 +91,66 @@ class MixedBinaryFormat implements BinaryFormat {
 
     @Override
     public Tensor decode(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
-        TensorType type;
-        if (optionalType.isPresent()) {
-            type = optionalType.get();
-            if (type.valueType() != this.serializationValueType) {
-                throw new IllegalArgumentException("Tensor value type mismatch. Value type " + type.valueType() +
-                        " is not " + this.serializationValueType);
-            }
-            TensorType serializedType = decodeType(buffer);
-            if ( ! serializedType.isAssignableTo(type))
-                throw new IllegalArgumentException("Type/instance mismatch: A tensor of type " + serializedType +
-                                                   " cannot be assigned to type " + type);
-        }
-        else {
-            type = decodeType(buffer);
-        }
+        TensorType serializedType = decodeAndValidateType(optionalType, buffer);
+        TensorType type = optionalType.orElse(serializedType);
         MixedTensor.BoundBuilder builder = (MixedTensor.BoundBuilder)MixedTensor.Builder.of(type);
         decodeCells(buffer, builder, type);
         return builder.build();
     }
 
+    @Override
+    public Tensor decodeView(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
+        if (optionalType.isPresent() && optionalType.get().dimensions().stream().anyMatch(d -> d.isIndexed() && d.size().isEmpty()))
+            return decode(optionalType, buffer);
+
+        TensorType serializedType = decodeAndValidateType(optionalType, buffer);
+        TensorType type = optionalType.orElse(serializedType);
+        List<TensorType.Dimension> sparseDimensions = type.dimensions().stream().filter(d -> !d.isIndexed()).toList();
+        TensorType sparseType = MixedTensor.createPartialType(type.valueType(), sparseDimensions);
+        long subspaceSize = serializedType.dimensions().stream().filter(TensorType.Dimension::isIndexed)
+                                .mapToLong(d -> d.size().get()).reduce(1, (a, b) -> a * b);
+        int subspaceBytes = (int)subspaceSize * cellSize();
+
+        int numBlocks = 1;
+        if (sparseDimensions.size() > 0) {
+            numBlocks = buffer.getInt1_4Bytes();
+        }
+        if ((long)numBlocks * subspaceBytes > buffer.remaining())
+            throw new IllegalArgumentException("Expected " + numBlocks + " dense subspaces of " + subspaceBytes +
+                                               " bytes, but got " + buffer.remaining() + " bytes");
+
+        int start = buffer.position();
+        List<TensorAddress> sparseAddresses = new ArrayList<>(numBlocks);
+        int[] valueOffsets = new int[numBlocks];
+        for (int i = 0; i < numBlocks; ++i) {
+            TensorAddress.Builder sparseAddress = new TensorAddress.Builder(sparseType);
+            for (TensorType.Dimension sparseDimension : sparseDimensions) {
+                sparseAddress.add(sparseDimension.name(), buffer.getUtf8String());
+            }
+            sparseAddresses.add(sparseAddress.build());
+            valueOffsets[i] = buffer.position() - start;
+            buffer.position(buffer.position() + subspaceBytes);
+        }
+        ByteBuffer values = buffer.getByteBuffer().slice(start, buffer.position() - start).order(buffer.order());
+        return MixedTensor.fromBuffer(type, sparseAddresses, valueOffsets, values);
+    }
+
+    /** Decodes the type in the buffer and validates it against the given type, if any */
+    private TensorType decodeAndValidateType(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
+        if (optionalType.isEmpty()) return decodeType(buffer);
+
+        TensorType type = optionalType.get();
+        if (type.valueType() != this.serializationValueType) {
+            throw new IllegalArgumentException("Tensor value type mismatch. Value type " + type.valueType() +
+                                               " is not " + this.serializationValueType);
+        }
+        TensorType serializedType = decodeType(buffer);
+        if ( ! serializedType.isAssignableTo(type))
+            throw new IllegalArgumentException("Type/instance mismatch: A tensor of type " + serializedType +
+                                               " cannot be assigned to type " + type);
+        return serializedType;
+    }
+
     private TensorType decodeType(GrowableByteBuffer buffer) {
         TensorType.Builder builder = new TensorType.Builder(serializationValueType);
         int numMappedDimensions = buffer.getInt1_4Bytes();
@@ -122,6 +164,15 @@ class MixedBinaryFormat implements BinaryFormat {
         return builder.build();
     }
 
+    private int cellSize() {
+        return switch (serializationValueType) {
+            case DOUBLE -> 8;
+            case FLOAT -> 4;
+            case BFLOAT16 -> 2;
+            case INT8 -> 1;
+        };
+    }
+
     private void decodeCells(GrowableByteBuffer buffer, MixedTensor.BoundBuilder builder, TensorType type) {
         switch (serializationValueType) {
             case DOUBLE: decodeCells(buffer, builder, type, buffer::getDouble); break;
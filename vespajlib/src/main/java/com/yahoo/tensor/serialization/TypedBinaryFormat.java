@@ -54,6 +54,23 @@ public class TypedBinaryFormat {
         return decoder.decode(type, buffer);
     }
 
+    /**
+     * Decode some data to a tensor which reads its cell values directly from the data when they are accessed,
+     * where the format allows it. This is cheaper than {@link #decode} when few cells are read, and saves the
+     * memory of the decoded values, but the data must not be changed while the returned tensor is in use.
+     * Dense tensors read their cells from the data, mixed tensors decode each dense subspace when it is first
+     * accessed, and sparse tensors are decoded fully.
+     *
+     * @param type the type to decode and validate to, or empty to use the type given in the data
+     * @param buffer the buffer containing the data, use GrowableByteByffer.wrap(byte[]) if you have a byte array
+     * @return the resulting tensor
+     * @throws IllegalArgumentException if the tensor data was invalid
+     */
+    public static Tensor decodeView(Optional<TensorType> type, GrowableByteBuffer buffer) {
+        BinaryFormat decoder = getFormatDecoder(buffer);
+        return decoder.decodeView(type, buffer);
+    }
+
     private static BinaryFormat getFormatEncoder(GrowableByteBuffer buffer, Tensor tensor) {
         boolean hasMappedDimensions = tensor.type().hasMappedDimensions();
         boolean hasIndexedDimensions = tensor.type().hasIndexedDimensions();
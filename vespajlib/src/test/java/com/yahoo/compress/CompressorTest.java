@@ -24,4 +24,14 @@ class CompressorTest {
         assertArrayEquals(inputData, decompressedData);
     }
 
+    @Test
+    void decompresses_zstd_without_compressed_size() {
+        byte[] inputData = "The quick brown fox jumps over the lazy dog. ".repeat(10).getBytes();
+        Compressor compressor = new Compressor(CompressionType.ZSTD);
+        Compressor.Compression compression = compressor.compress(inputData);
+        assertEquals(CompressionType.ZSTD, compression.type());
+        assertArrayEquals(inputData, compressor.decompress(compression.data(), CompressionType.ZSTD, inputData.length));
+        assertArrayEquals(inputData, compressor.decompress(compression));
+    }
+
 }
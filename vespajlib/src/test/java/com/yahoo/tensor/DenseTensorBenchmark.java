@@ -0,0 +1,100 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.evaluation.VariableTensor;
+import com.yahoo.tensor.functions.Join;
+import com.yahoo.tensor.functions.Reduce;
+import com.yahoo.tensor.functions.ReduceJoin;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import com.yahoo.tensor.functions.TensorFunction;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Microbenchmark of joins, reductions and products of dense tensors of doubles and floats.
+ */
+public class DenseTensorBenchmark {
+
+    private static final int iterations = 10_000;
+    private static final int rounds = 5;
+
+    private final Random random = new Random(42);
+
+    /** Runs the cases whose description, prefixed by the value type, contains the given string */
+    public void run(String filter) {
+        for (String valueType : List.of("double", "float")) {
+            Tensor a = tensor("tensor<" + valueType + ">(x[1024])");
+            Tensor b = tensor("tensor<" + valueType + ">(x[1024])");
+            Tensor matrix = tensor("tensor<" + valueType + ">(x[256],y[256])");
+            Tensor vector = tensor("tensor<" + valueType + ">(y[256])");
+            Tensor a2 = tensor("tensor<" + valueType + ">(x[32],y[32])");
+            Tensor b2 = tensor("tensor<" + valueType + ">(x[32],y[32])");
+
+            System.out.println(valueType + ":");
+            time(valueType, "join x[1024] + x[1024]", join(ScalarFunctions.add()), a, b, filter);
+            time(valueType, "join x[32],y[32] * x[32],y[32]", join(ScalarFunctions.multiply()), a2, b2, filter);
+            time(valueType, "reduce sum x[1024]", reduce(Reduce.Aggregator.sum), a, a, filter);
+            time(valueType, "reduce max x[32],y[32]", reduce(Reduce.Aggregator.max), a2, a2, filter);
+            time(valueType, "dot product x[1024]", product(List.of("x")), a, b, filter);
+            time(valueType, "matrix x[256],y[256] * y[256]", product(List.of("y")), matrix, vector, filter);
+        }
+    }
+
+    private TensorFunction<Name> join(DoubleBinaryOperator combinator) {
+        return new Join<>(new VariableTensor<>("a"), new VariableTensor<>("b"), combinator);
+    }
+
+    private TensorFunction<Name> reduce(Reduce.Aggregator aggregator) {
+        return new Reduce<>(new VariableTensor<>("a"), aggregator);
+    }
+
+    private TensorFunction<Name> product(List<String> dimensions) {
+        return new ReduceJoin<>(new VariableTensor<>("a"), new VariableTensor<>("b"),
+                                ScalarFunctions.multiply(), Reduce.Aggregator.sum, dimensions);
+    }
+
+    private void time(String valueType, String description, TensorFunction<Name> function, Tensor a, Tensor b, String filter) {
+        if ( ! (valueType + " " + description).contains(filter)) return;
+        MapEvaluationContext<Name> context = new MapEvaluationContext<>();
+        context.put("a", a);
+        context.put("b", b);
+        evaluate(function, context, iterations); // warmup
+        long bestNanos = Long.MAX_VALUE;
+        double result = 0;
+        for (int round = 0; round < rounds; round++) {
+            long startTime = System.nanoTime();
+            result = evaluate(function, context, iterations);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - startTime);
+        }
+        System.out.printf("  %-32s %10.1f ns/evaluation (%s)%n", description, (double) bestNanos / iterations, result);
+    }
+
+    private double evaluate(TensorFunction<Name> function, MapEvaluationContext<Name> context, int count) {
+        double total = 0;
+        for (int i = 0; i < count; i++)
+            total += function.evaluate(context).valueIterator().next();
+        return total;
+    }
+
+    private Tensor tensor(String typeString) {
+        TensorType type = TensorType.fromSpec(typeString);
+        double[] values = new double[(int) type.dimensions().stream().mapToLong(d -> d.size().get()).reduce(1, (x, y) -> x * y)];
+        for (int i = 0; i < values.length; i++)
+            values[i] = random.nextGaussian();
+        return IndexedTensor.Builder.of(type, values).build();
+    }
+
+    /**
+     * Runs this with the dense kernels, or without them when run with -Dvespa.tensor.dense_kernels=false.
+     * As cases influence each other through the JIT compiler and garbage collector,
+     * a single case should be run per JVM, by giving a filter like "float join x[1024]" as argument.
+     */
+    public static void main(String[] args) {
+        new DenseTensorBenchmark().run(args.length > 0 ? args[0] : "");
+    }
+
+}
@@ -3,10 +3,13 @@ package com.yahoo.tensor;
 
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Basic tensor tests. Tensor operations are tested in EvaluationTestCase
@@ -49,4 +52,67 @@ public class MappedTensorTestCase {
         assertEquals("tensor(x{},y{}):{{x:0,y:0}:1.0, {x:1,y:0}:2.0}", tensor.toString());
     }
 
+    @Test
+    public void testBuilderCanBeReusedAfterBuild() {
+        TensorType type = new TensorType.Builder().mapped("x").build();
+        MappedTensor.Builder builder = MappedTensor.Builder.of(type);
+        builder.cell(TensorAddress.ofLabels("a"), 1.0);
+        Tensor first = builder.build();
+        builder.cell(TensorAddress.ofLabels("b"), 2.0);
+        Tensor second = builder.build();
+        assertEquals("tensor(x{}):{a:1.0}", first.toString());
+        assertEquals("tensor(x{}):{a:1.0, b:2.0}", second.toString());
+        assertEquals(first.cells().hashCode(), first.hashCode());
+        assertEquals(second.cells().hashCode(), second.hashCode());
+    }
+
+    @Test
+    public void testDuplicateCellsAreRejected() {
+        TensorType type = new TensorType.Builder().mapped("x").build();
+        try {
+            MappedTensor.Builder.of(type).cell(TensorAddress.ofLabels("a"), 1.0).cell(TensorAddress.ofLabels("a"), 2.0);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Multiple entries with same key: cell address (a)=2.0 and cell address (a)=1.0", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLargeSparseJoins() {
+        Random random = new Random(1);
+        Tensor a = randomTensor("tensor(x{},y{})", 2000, random);
+        Tensor b = randomTensor("tensor(y{},z{})", 2000, random);
+        Tensor c = randomTensor("tensor(x{},y{})", 2000, random);
+
+        Tensor.Builder expectedProduct = Tensor.Builder.of(TensorType.fromSpec("tensor(x{},y{},z{})"));
+        for (var aCell : a.cells().entrySet()) {
+            for (var bCell : b.cells().entrySet()) {
+                if ( ! aCell.getKey().label(1).equals(bCell.getKey().label(0))) continue;
+                expectedProduct.cell(TensorAddress.ofLabels(aCell.getKey().label(0), aCell.getKey().label(1), bCell.getKey().label(1)),
+                                     aCell.getValue() * bCell.getValue());
+            }
+        }
+        assertEquals(expectedProduct.build(), a.multiply(b));
+        assertEquals(expectedProduct.build(), b.multiply(a));
+
+        Tensor.Builder expectedSum = Tensor.Builder.of(a.type());
+        for (var aCell : a.cells().entrySet()) {
+            if (c.has(aCell.getKey()))
+                expectedSum.cell(aCell.getKey(), aCell.getValue() + c.get(aCell.getKey()));
+        }
+        assertEquals(expectedSum.build(), a.add(c));
+    }
+
+    private Tensor randomTensor(String type, int cells, Random random) {
+        Tensor.Builder builder = Tensor.Builder.of(TensorType.fromSpec(type));
+        Set<TensorAddress> added = new HashSet<>();
+        while (added.size() < cells) {
+            TensorAddress address = TensorAddress.ofLabels("l" + random.nextInt(200), String.valueOf(random.nextInt(50)));
+            if (added.add(address))
+                builder.cell(address, random.nextInt(100));
+        }
+        return builder.build();
+    }
+
 }
@@ -0,0 +1,144 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorAddress;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.Name;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.DoubleBinaryOperator;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that operations on dense tensors evaluated over their value arrays give the same results
+ * as the same operations on equivalent mapped tensors.
+ */
+public class DenseKernelsTestCase {
+
+    private static final List<String> valueTypes = List.of("double", "float", "bfloat16", "int8");
+    private static final double[] specialValues = { 0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+
+    private final Random random = new Random(7);
+
+    @Test
+    public void testJoin() {
+        List<DoubleBinaryOperator> combinators = List.of(ScalarFunctions.add(), ScalarFunctions.subtract(),
+                                                         ScalarFunctions.multiply(), ScalarFunctions.divide(),
+                                                         ScalarFunctions.max(), ScalarFunctions.min(),
+                                                         ScalarFunctions.pow());
+        for (String aValueType : valueTypes) {
+            for (String bValueType : valueTypes) {
+                for (DoubleBinaryOperator combinator : combinators) {
+                    assertJoin(unbound(tensor(aValueType, "x[7]")), unbound(tensor(bValueType, "x[5]")), combinator);
+                    assertJoin(tensor(aValueType, "x[5]"), tensor(bValueType, "x[5]"), combinator);
+                    assertJoin(tensor(aValueType, "x[2],y[3]"), tensor(bValueType, "x[2],y[3]"), combinator);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testProducts() {
+        for (String aValueType : valueTypes) {
+            for (String bValueType : valueTypes) {
+                assertProduct(tensor(aValueType, "k[5]"), tensor(bValueType, "k[5]"), "k");
+                assertProduct(unbound(tensor(aValueType, "k[5]")), unbound(tensor(bValueType, "k[4]")), "k");
+                assertProduct(tensor(aValueType, "k[5]"), tensor(bValueType, "j[3],k[5]"), "k");
+                assertProduct(tensor(aValueType, "j[3],k[5]"), tensor(bValueType, "k[5]"), "k");
+                assertProduct(tensor(aValueType, "i[2],k[5]"), tensor(bValueType, "j[3],k[5]"), "k");
+                assertProduct(tensor(aValueType, "j[2],k[5]"), tensor(bValueType, "i[3],k[5]"), "k");
+            }
+        }
+    }
+
+    private void assertJoin(Tensor a, Tensor b, DoubleBinaryOperator combinator) {
+        assertEqualCells(mapped(a).join(mapped(b), combinator), a.join(b, combinator));
+    }
+
+    private void assertProduct(Tensor a, Tensor b, String dimension) {
+        Tensor expected = mapped(a).join(mapped(b), ScalarFunctions.multiply()).reduce(Reduce.Aggregator.sum, dimension);
+        ReduceJoin<Name> product = new ReduceJoin<>(new ConstantTensor<>(a), new ConstantTensor<>(b),
+                                                    ScalarFunctions.multiply(), Reduce.Aggregator.sum, List.of(dimension));
+        assertEqualCells(expected, product.evaluate());
+    }
+
+    /** Asserts that the cells are equal, where cells of dense tensors which are not doubles are stored as floats */
+    private void assertEqualCells(Tensor expected, Tensor actual) {
+        assertEquals(expected.size(), actual.size());
+        for (Iterator<Tensor.Cell> i = expected.cellIterator(); i.hasNext(); ) {
+            Tensor.Cell cell = i.next();
+            TensorAddress address = actual.type().rank() == 0 ? cell.getKey() : indexed(cell.getKey());
+            double expectedValue = actual.type().valueType() == TensorType.Value.DOUBLE ? cell.getValue() : (float) cell.getDoubleValue();
+            assertEquals(expected + " vs " + actual, expectedValue, actual.get(address), 0);
+        }
+    }
+
+    /** Returns a tensor of the given value type and dimensions with random values, including some special values */
+    private Tensor tensor(String valueType, String dimensions) {
+        TensorType type = TensorType.fromSpec("tensor<" + valueType + ">(" + dimensions + ")");
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (TensorAddress address : addresses(type)) {
+            double value = random.nextInt(4) == 0 ? specialValues[random.nextInt(specialValues.length)]
+                                                  : random.nextInt(200) / 8.0 - 12.0;
+            builder.cell(address, value);
+        }
+        return builder.build();
+    }
+
+    /** Returns all the addresses of a dense tensor type in the standard value order */
+    private List<TensorAddress> addresses(TensorType type) {
+        long[] sizes = type.dimensions().stream().mapToLong(d -> d.size().get()).toArray();
+        long[] indexes = new long[sizes.length];
+        List<TensorAddress> addresses = new ArrayList<>();
+        while (true) {
+            addresses.add(TensorAddress.of(indexes.clone()));
+            int d = sizes.length - 1;
+            while (d >= 0 && ++indexes[d] == sizes[d])
+                indexes[d--] = 0;
+            if (d < 0) break;
+        }
+        return addresses;
+    }
+
+    /** Returns a copy of the given dense tensor where all dimensions are unbound */
+    private Tensor unbound(Tensor tensor) {
+        TensorType.Builder typeBuilder = new TensorType.Builder(tensor.type().valueType());
+        for (TensorType.Dimension dimension : tensor.type().dimensions())
+            typeBuilder.indexed(dimension.name());
+        return copy(tensor, typeBuilder.build());
+    }
+
+    /** Returns a copy of the given dense tensor where all dimensions are mapped */
+    private Tensor mapped(Tensor tensor) {
+        TensorType.Builder typeBuilder = new TensorType.Builder(tensor.type().valueType());
+        for (TensorType.Dimension dimension : tensor.type().dimensions())
+            typeBuilder.mapped(dimension.name());
+        return copy(tensor, typeBuilder.build());
+    }
+
+    private Tensor copy(Tensor tensor, TensorType type) {
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (Iterator<Tensor.Cell> i = tensor.cellIterator(); i.hasNext(); ) {
+            Tensor.Cell cell = i.next();
+            String[] labels = new String[cell.getKey().size()];
+            for (int d = 0; d < labels.length; d++)
+                labels[d] = cell.getKey().label(d);
+            builder.cell(TensorAddress.of(labels), cell.getValue());
+        }
+        return builder.build();
+    }
+
+    private TensorAddress indexed(TensorAddress mappedAddress) {
+        long[] indexes = new long[mappedAddress.size()];
+        for (int d = 0; d < indexes.length; d++)
+            indexes[d] = Long.parseLong(mappedAddress.label(d));
+        return TensorAddress.of(indexes);
+    }
+
+}
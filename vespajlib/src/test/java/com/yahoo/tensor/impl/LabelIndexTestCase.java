@@ -0,0 +1,63 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.impl;
+
+import com.yahoo.tensor.TensorAddress;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LabelIndexTestCase {
+
+    @Test
+    void testAddAndLookup() {
+        LabelIndex index = new LabelIndex(2, 1);
+        int count = 10_000;
+        for (int i = 0; i < count; i++)
+            assertEquals(i, index.add(TensorAddress.ofLabels("key" + i, String.valueOf(i % 7))));
+        assertEquals(count, index.size());
+
+        for (int i = 0; i < count; i++) {
+            TensorAddress address = TensorAddress.ofLabels("key" + i, String.valueOf(i % 7));
+            assertEquals(i, index.indexOf(address));
+            assertEquals(i, index.add(address));
+            assertEquals(address, index.address(i));
+            assertEquals(i, index.indexOf(new long[] { address.numericLabel(0), address.numericLabel(1) }));
+        }
+        assertEquals(count, index.size());
+        assertEquals(-1, index.indexOf(TensorAddress.ofLabels("key1", "2")));
+        assertEquals(-1, index.indexOf(TensorAddress.ofLabels("key1")));
+    }
+
+    @Test
+    void testPartialAddresses() {
+        LabelIndex index = new LabelIndex(1, 4);
+        int[] secondDimension = { 1 };
+        assertEquals(0, index.add(TensorAddress.ofLabels("a", "x"), secondDimension));
+        assertEquals(1, index.add(TensorAddress.ofLabels("a", "y"), secondDimension));
+        assertEquals(0, index.add(TensorAddress.ofLabels("b", "x"), secondDimension));
+        assertEquals(1, index.indexOf(TensorAddress.ofLabels("c", "y"), secondDimension));
+        assertEquals(-1, index.indexOf(TensorAddress.ofLabels("x", "z"), secondDimension));
+        assertEquals(TensorAddress.ofLabels("y"), index.address(1));
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        LabelIndex index = new LabelIndex(1, 1);
+        index.add(TensorAddress.of(3));
+        LabelIndex copy = index.copy();
+        copy.add(TensorAddress.of(4));
+        assertEquals(1, index.size());
+        assertEquals(-1, index.indexOf(TensorAddress.of(4)));
+        assertEquals(1, copy.indexOf(TensorAddress.of(4)));
+    }
+
+    @Test
+    void testRankZero() {
+        LabelIndex index = new LabelIndex(0, 1);
+        assertEquals(-1, index.indexOf(TensorAddress.of()));
+        assertEquals(0, index.add(TensorAddress.of()));
+        assertEquals(0, index.add(TensorAddress.of()));
+        assertEquals(1, index.size());
+    }
+
+}
@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.fail;
 
 /**
@@ -108,6 +109,35 @@ public class DenseBinaryFormatTestCase {
         assertSerialization("tensor<int8>(x[2],y[2]):[2, 3, 4, 5]");
     }
 
+    @Test
+    public void testViewReadsCellsFromTheData() {
+        String[] valueTypes = { "double", "float", "bfloat16", "int8" };
+        int[] cellSizes = { 8, 4, 2, 1 };
+        for (int i = 0; i < valueTypes.length; i++) {
+            Tensor tensor = Tensor.from("tensor<" + valueTypes[i] + ">(x[2],y[3]):[[1, -2, 3], [4, 5, -6]]");
+            GrowableByteBuffer buffer = new GrowableByteBuffer();
+            TypedBinaryFormat.encode(tensor, buffer);
+            buffer.putInt(7); // data following the tensor
+            buffer.flip();
+
+            Tensor view = TypedBinaryFormat.decodeView(Optional.empty(), buffer);
+            assertEquals(tensor, view);
+            assertEquals(tensor.type(), view.type());
+            assertEquals(7, buffer.getInt());
+            assertEquals(tensor.sum(), view.sum());
+
+            buffer.position(0);
+            Tensor decodedView = TypedBinaryFormat.decodeView(Optional.empty(), buffer);
+            assertEquals(tensor.multiply(tensor), decodedView.multiply(decodedView));
+            assertEquals(tensor.multiply(tensor), decodedView.multiply(tensor));
+
+            int lastValueStart = buffer.limit() - 4 - cellSizes[i];
+            buffer.getByteBuffer().put(lastValueStart, (byte)0);
+            assertNotEquals("The view reads the data when accessed", tensor, view);
+            assertEquals("All the data is decoded once when used by a tensor function", tensor, decodedView);
+        }
+    }
+
     private void assertSerialization(String tensorString) {
         assertSerialization(Tensor.from(tensorString));
     }
@@ -120,6 +150,9 @@ public class DenseBinaryFormatTestCase {
         byte[] encodedTensor = TypedBinaryFormat.encode(tensor);
         Tensor decodedTensor = TypedBinaryFormat.decode(Optional.of(expectedType), GrowableByteBuffer.wrap(encodedTensor));
         assertEquals(tensor, decodedTensor);
+        Tensor tensorView = TypedBinaryFormat.decodeView(Optional.of(expectedType), GrowableByteBuffer.wrap(encodedTensor));
+        assertEquals(tensor, tensorView);
+        assertEquals(decodedTensor.hashCode(), tensorView.hashCode());
     }
 
 }
@@ -5,6 +5,7 @@ package com.yahoo.tensor.serialization;
 import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.tensor.MixedTensor;
 import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import org.junit.Test;
 
@@ -12,6 +13,7 @@ import java.util.Arrays;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 /**
  * Tests for the mixed binary format.
@@ -145,6 +147,35 @@ public class MixedBinaryFormatTestCase {
         assertSerialization("tensor<int8>(x{},y[2]):{{x:0,y:0}:2, {x:0,y:1}:3, {x:1,y:0}:4, {x:1,y:1}:5}");
     }
 
+    @Test
+    public void testViewDecodesSubspacesWhenAccessed() {
+        String[] valueTypes = { "double", "float", "bfloat16", "int8" };
+        int[] cellSizes = { 8, 4, 2, 1 };
+        for (int i = 0; i < valueTypes.length; i++) {
+            Tensor tensor = Tensor.from("tensor<" + valueTypes[i] + ">(dt{},x[3]):{a:[1, -2, 3], b:[4, 5, -6]}");
+            GrowableByteBuffer buffer = new GrowableByteBuffer();
+            TypedBinaryFormat.encode(tensor, buffer);
+            buffer.putInt(7); // data following the tensor
+            buffer.flip();
+
+            Tensor view = TypedBinaryFormat.decodeView(Optional.empty(), buffer);
+            assertEquals(7, buffer.getInt());
+            assertEquals(tensor.type(), view.type());
+            Tensor otherView = TypedBinaryFormat.decodeView(Optional.empty(), GrowableByteBuffer.wrap(TypedBinaryFormat.encode(tensor)));
+            assertEquals(tensor.multiply(tensor), otherView.multiply(otherView));
+            assertEquals(-2.0, view.get(address(tensor.type(), "a", 1)), 0.0);
+
+            int lastValueStart = buffer.limit() - 4 - cellSizes[i];
+            buffer.getByteBuffer().put(lastValueStart, (byte)0);
+            assertEquals("Accessed subspaces are decoded", -2.0, view.get(address(tensor.type(), "a", 1)), 0.0);
+            assertNotEquals("Other subspaces are decoded when accessed", -6.0, view.get(address(tensor.type(), "b", 2)), 0.0);
+        }
+    }
+
+    private static TensorAddress address(TensorType type, String dt, long x) {
+        return new TensorAddress.Builder(type).add("dt", dt).add("x", String.valueOf(x)).build();
+    }
+
     private void assertSerialization(String tensorString) {
         assertSerialization(Tensor.from(tensorString));
     }
@@ -157,6 +188,8 @@ public class MixedBinaryFormatTestCase {
         byte[] encodedTensor = TypedBinaryFormat.encode(tensor);
         Tensor decodedTensor = TypedBinaryFormat.decode(Optional.of(expectedType), GrowableByteBuffer.wrap(encodedTensor));
         assertEquals(tensor, decodedTensor);
+        Tensor view = TypedBinaryFormat.decodeView(Optional.of(expectedType), GrowableByteBuffer.wrap(encodedTensor));
+        assertEquals(tensor, view);
     }
 
 }
@@ -5,6 +5,8 @@ import com.yahoo.path.Path;
 import com.yahoo.vespa.curator.Curator;
 import org.apache.curator.framework.api.transaction.CuratorTransaction;
 
+import java.util.Optional;
+
 /**
  * @author Ulf Lilleengen
  * @author bratseth
@@ -39,6 +41,9 @@ class CuratorDeleteOperation implements CuratorOperation {
         return transaction.delete().forPath(path).and();
     }
 
+    @Override
+    public Optional<Path> path() { return Optional.of(Path.fromString(path)); }
+
     @Override
     public String toString() {
         return "DELETE " + path;
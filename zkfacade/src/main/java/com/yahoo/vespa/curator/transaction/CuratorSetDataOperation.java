@@ -5,6 +5,8 @@ import com.yahoo.path.Path;
 import com.yahoo.vespa.curator.Curator;
 import org.apache.curator.framework.api.transaction.CuratorTransaction;
 
+import java.util.Optional;
+
 /**
  * ZooKeeper setData operation.
  *
@@ -33,6 +35,9 @@ class CuratorSetDataOperation implements CuratorOperation {
         return transaction.setData().forPath(path, data).and();
     }
 
+    @Override
+    public Optional<Path> path() { return Optional.of(Path.fromString(path)); }
+
     @Override
     public String toString() {
         return "SET " + path;